@@ -10,6 +10,11 @@ public class Constants {
     // Network Communication Ports
     public static final int DEFAULT_PORT = 6969;
     public static final int DISCOVERY_PORT = 6970;
+    public static final int SPECTATOR_PORT = 6971;
+    public static final int GAME_UDP_PORT = 6972;
+    
+    // Time Each Player Has for a Turn in Online Matches
+    public static final long TURN_TIME_LIMIT_MS = 60000;
     
     // Ship Types and Dimensions
     public static final int CARRIER_SIZE = 5;
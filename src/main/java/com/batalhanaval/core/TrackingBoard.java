@@ -0,0 +1,222 @@
+package com.batalhanaval.core;
+
+import com.batalhanaval.Constants;
+
+/**
+ * What a player knows about the opponent's board: the outcome of every attack
+ * and which of the opponent's ships were sunk. The ships' positions stay unknown.
+ * <p>
+ * Cells are kept in a flat byte array and ships by index, so recording a result
+ * and querying a cell allocate nothing.
+ */
+public class TrackingBoard {
+
+    private static final byte UNKNOWN = 0;
+    private static final byte MISS = 1;
+    private static final byte HIT = 2;
+    private static final byte SUNK = 3;
+
+    private final int size;
+    private final byte[] cells;
+    private final String[] shipNames;
+    private final boolean[] shipSunk;
+    private int shots = 0;
+    private int hits = 0;
+    private int sunkShips = 0;
+
+    /**
+     * Creates an empty tracking board.
+     *
+     * @param size size of the board
+     * @param shipNames names of the opponent's ships
+     */
+    public TrackingBoard(int size, String... shipNames) {
+        this.size = size;
+        this.cells = new byte[size * size];
+        this.shipNames = shipNames.clone();
+        this.shipSunk = new boolean[shipNames.length];
+    }
+
+    /**
+     * @return the size of the board
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Records the outcome of an attack.
+     *
+     * @param result ATTACK_HIT, ATTACK_MISS or ATTACK_SUNK
+     * @param row row of the attacked cell
+     * @param col column of the attacked cell
+     * @param shipName name of the sunk ship, or null if unknown or not sunk
+     * @return true if the cell was not known before
+     */
+    public boolean record(String result, int row, int col, String shipName) {
+        switch (result) {
+            case Constants.ATTACK_HIT:
+                return recordHit(row, col);
+            case Constants.ATTACK_SUNK:
+                return recordSunk(row, col, shipName);
+            case Constants.ATTACK_MISS:
+                return recordMiss(row, col);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @return true if the cell was not known before
+     */
+    public boolean recordMiss(int row, int col) {
+        return mark(row, col, MISS);
+    }
+
+    /**
+     * @return true if the cell was not known before
+     */
+    public boolean recordHit(int row, int col) {
+        if (!mark(row, col, HIT)) {
+            return false;
+        }
+        hits++;
+        return true;
+    }
+
+    /**
+     * Records the hit that sank a ship.
+     *
+     * @param row row of the attacked cell
+     * @param col column of the attacked cell
+     * @param shipName name of the sunk ship; if null or unknown the first ship still afloat is marked
+     * @return true if the cell was not known before
+     */
+    public boolean recordSunk(int row, int col, String shipName) {
+        if (!mark(row, col, SUNK)) {
+            return false;
+        }
+        hits++;
+
+        int ship = findAfloat(shipName);
+        if (ship >= 0) {
+            shipSunk[ship] = true;
+            sunkShips++;
+        }
+        return true;
+    }
+
+    private boolean mark(int row, int col, byte state) {
+        if (row < 0 || row >= size || col < 0 || col >= size) {
+            return false;
+        }
+        int index = row * size + col;
+        if (cells[index] != UNKNOWN) {
+            return false;  // Cell attacked before
+        }
+        cells[index] = state;
+        shots++;
+        return true;
+    }
+
+    private int findAfloat(String shipName) {
+        int firstAfloat = -1;
+        for (int i = 0; i < shipNames.length; i++) {
+            if (shipSunk[i]) {
+                continue;
+            }
+            if (shipNames[i].equals(shipName)) {
+                return i;
+            }
+            if (firstAfloat < 0) {
+                firstAfloat = i;
+            }
+        }
+        return firstAfloat;
+    }
+
+    /**
+     * @return true if the cell was attacked
+     */
+    public boolean isKnown(int row, int col) {
+        return cells[row * size + col] != UNKNOWN;
+    }
+
+    /**
+     * Gets a cell in the same notation as {@link Board#getCellState}.
+     *
+     * @return EMPTY if never attacked, otherwise MISS, HIT or SUNK
+     */
+    public char getCellState(int row, int col) {
+        switch (cells[row * size + col]) {
+            case MISS:
+                return Constants.MISS;
+            case HIT:
+                return Constants.HIT;
+            case SUNK:
+                return Constants.SUNK;
+            default:
+                return Constants.EMPTY;
+        }
+    }
+
+    /**
+     * @return number of cells attacked
+     */
+    public int getShotCount() {
+        return shots;
+    }
+
+    /**
+     * @return number of attacks that hit a ship, including the ones that sank it
+     */
+    public int getHitCount() {
+        return hits;
+    }
+
+    /**
+     * @return number of the opponent's ships
+     */
+    public int getShipCount() {
+        return shipNames.length;
+    }
+
+    /**
+     * @return name of a ship
+     */
+    public String getShipName(int index) {
+        return shipNames[index];
+    }
+
+    /**
+     * @return true if the ship was sunk
+     */
+    public boolean isShipSunk(int index) {
+        return shipSunk[index];
+    }
+
+    /**
+     * @return number of ships sunk
+     */
+    public int getSunkShipCount() {
+        return sunkShips;
+    }
+
+    /**
+     * @return true if every ship of the opponent was sunk
+     */
+    public boolean isFleetSunk() {
+        return sunkShips == shipNames.length;
+    }
+
+    /**
+     * Forgets every attack.
+     */
+    public void clear() {
+        java.util.Arrays.fill(cells, UNKNOWN);
+        java.util.Arrays.fill(shipSunk, false);
+        shots = 0;
+        hits = 0;
+        sunkShips = 0;
+    }
+}
@@ -0,0 +1,237 @@
+package com.batalhanaval.network;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.batalhanaval.Constants;
+import com.batalhanaval.core.Board;
+import com.batalhanaval.core.GameState;
+import com.batalhanaval.core.Position;
+import com.batalhanaval.core.Ship;
+
+/**
+ * Server side of a server-authoritative match.
+ * <p>
+ * The host keeps both fleets in one {@link GameState}: its own as the player
+ * board and the guest's, received in a FLEET message, as the opponent board.
+ * Every shot is resolved here in one step, so the guest never reports results
+ * and cannot lie about them. The host always moves first.
+ */
+public class AuthoritativeMatch {
+
+    /** Names of the ships a fleet consists of, each exactly once */
+    private static final String[] SHIP_NAMES = { "Carrier", "Battleship", "Cruiser", "Submarine", "Destroyer" };
+
+    /** Sizes of the ships, in the order of {@link #SHIP_NAMES} */
+    private static final int[] SHIP_SIZES = { Constants.CARRIER_SIZE, Constants.BATTLESHIP_SIZE,
+                                              Constants.CRUISER_SIZE, Constants.SUBMARINE_SIZE,
+                                              Constants.DESTROYER_SIZE };
+
+    private final GameState gameState = new GameState(Constants.BOARD_SIZE);
+    private boolean guestFleetPlaced = false;
+    private String lastSunkShip;
+
+    /**
+     * Creates a match with the host's fleet.
+     * @param hostFleet Board configured by the host; its ships are copied
+     */
+    public AuthoritativeMatch(Board hostFleet) {
+        for (Ship ship : hostFleet.getShips()) {
+            Ship copy = new Ship(ship.getName(), ship.getSize());
+            gameState.getPlayerBoard().placeShip(copy, ship.getPositions().get(0), ship.isVertical());
+        }
+    }
+
+    /**
+     * Places the guest's fleet from a FLEET message.
+     * @param message FLEET message
+     * @return True if the fleet is complete and legally placed
+     */
+    public boolean placeGuestFleet(String message) {
+        if (guestFleetPlaced) {
+            return false;
+        }
+        Board guestBoard = parseFleet(message);
+        if (guestBoard == null) {
+            return false;
+        }
+
+        // Only copied into the match once the whole fleet is valid
+        for (Ship ship : guestBoard.getShips()) {
+            Ship copy = new Ship(ship.getName(), ship.getSize());
+            gameState.getOpponentBoard().placeShip(copy, ship.getPositions().get(0), ship.isVertical());
+        }
+        guestFleetPlaced = true;
+        return true;
+    }
+
+    /**
+     * Builds a board from a FLEET message.
+     * @param message FLEET message
+     * @return Board with the whole fleet, or null if a ship is unknown, missing, repeated or illegally placed
+     */
+    public static Board parseFleet(String message) {
+        String[] parts = MessageProtocol.getMessageParts(message);
+        if (parts.length != SHIP_NAMES.length) {
+            return null;
+        }
+
+        Board board = new Board(Constants.BOARD_SIZE);
+        boolean[] placed = new boolean[SHIP_NAMES.length];
+        for (String part : parts) {
+            String[] placement = part.split(MessageProtocol.COORD_SEPARATOR);
+            if (placement.length != 4) {
+                return null;
+            }
+            int index = Arrays.asList(SHIP_NAMES).indexOf(placement[0]);
+            if (index < 0 || placed[index]) {
+                return null; // Unknown or listed twice, so another one is missing
+            }
+            placed[index] = true;
+            try {
+                Position start = new Position(Integer.parseInt(placement[1]), Integer.parseInt(placement[2]));
+                Ship ship = new Ship(SHIP_NAMES[index], SHIP_SIZES[index]);
+                if (!board.placeShip(ship, start, placement[3].equals(MessageProtocol.VERTICAL))) {
+                    return null; // Off the board or overlapping
+                }
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return board;
+    }
+
+    /**
+     * @return true once the guest's fleet was accepted
+     */
+    public boolean hasGuestFleet() {
+        return guestFleetPlaced;
+    }
+
+    /**
+     * Starts the match with the host to move.
+     * @return True if both fleets are complete
+     */
+    public boolean start() {
+        if (!guestFleetPlaced) {
+            return false;
+        }
+        gameState.setPlayerTurn(true);
+        return gameState.startGame();
+    }
+
+    /**
+     * Resolves a shot of the host on the guest's fleet.
+     * @param position Attacked cell
+     * @return HIT, MISS or SUNK, or null if it is not the host's turn or the shot is invalid
+     */
+    public String resolveHostAttack(Position position) {
+        return resolved(gameState.processPlayerAttack(position), gameState.getOpponentBoard(), position);
+    }
+
+    /**
+     * Resolves a shot of the guest on the host's fleet.
+     * @param position Attacked cell
+     * @return HIT, MISS or SUNK, or null if it is not the guest's turn or the shot is invalid
+     */
+    public String resolveGuestAttack(Position position) {
+        return resolved(gameState.processOpponentAttack(position), gameState.getPlayerBoard(), position);
+    }
+
+    /**
+     * @return name of the ship sunk by the last resolved attack, or null if it did not sink one
+     */
+    public String getLastSunkShip() {
+        return lastSunkShip;
+    }
+
+    private String resolved(String result, Board target, Position position) {
+        lastSunkShip = Constants.ATTACK_SUNK.equals(result) ? target.getShipAt(position).getName() : null;
+        return toNetworkResult(result);
+    }
+
+    /**
+     * @return true once one fleet is sunk
+     */
+    public boolean isOver() {
+        return Constants.GAME_STATE_GAME_OVER.equals(gameState.getGameStatus());
+    }
+
+    /**
+     * @return true if the match is over and the host sank the guest's fleet
+     */
+    public boolean hasHostWon() {
+        return isOver() && gameState.getOpponentBoard().areAllShipsSunk();
+    }
+
+    /**
+     * @return true if the host is to move
+     */
+    public boolean isHostTurn() {
+        return gameState.isPlayerTurn();
+    }
+
+    /**
+     * @return the host's fleet with the guest's shots on it
+     */
+    public Board getHostBoard() {
+        return gameState.getPlayerBoard();
+    }
+
+    /**
+     * @return the guest's fleet with the host's shots on it
+     */
+    public Board getGuestBoard() {
+        return gameState.getOpponentBoard();
+    }
+
+    /**
+     * Describes the match as the host sees it, e.g. to resync the guest after a takeover.
+     * @return Snapshot sent by the host
+     */
+    public SessionSnapshot createHostSnapshot() {
+        Board hostBoard = getHostBoard();
+        Board guestBoard = getGuestBoard();
+        String ownBoard = publicView(hostBoard);
+        int ownShipsSunk = 0;
+        for (Ship ship : hostBoard.getShips()) {
+            if (ship.isSunk()) {
+                ownShipsSunk++;
+            }
+        }
+        int moves = hostBoard.getAttackedPositions().size() + guestBoard.getAttackedPositions().size();
+        return new SessionSnapshot(moves, isHostTurn(), ownShipsSunk, ownBoard, publicView(guestBoard));
+    }
+
+    /**
+     * @return the attacked cells of a board in row order, the others EMPTY
+     */
+    private static String publicView(Board board) {
+        Set<Position> attacked = new HashSet<>(board.getAttackedPositions());
+        StringBuilder view = new StringBuilder(Constants.BOARD_SIZE * Constants.BOARD_SIZE);
+        for (int row = 0; row < Constants.BOARD_SIZE; row++) {
+            for (int col = 0; col < Constants.BOARD_SIZE; col++) {
+                Position position = new Position(row, col);
+                view.append(attacked.contains(position) ? board.getCellState(position) : Constants.EMPTY);
+            }
+        }
+        return view.toString();
+    }
+
+    private static String toNetworkResult(String result) {
+        if (result == null) {
+            return null;
+        }
+        switch (result) {
+            case Constants.ATTACK_HIT:
+                return MessageProtocol.HIT;
+            case Constants.ATTACK_MISS:
+                return MessageProtocol.MISS;
+            case Constants.ATTACK_SUNK:
+                return MessageProtocol.SUNK;
+            default:
+                return null; // Cell attacked before
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.batalhanaval.network;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * State machine for the connection handshake.
+ * Replaces fixed waits with explicit acknowledgements:
+ * TCP HELLO (client UDP port) → UDP_PORT (server UDP port) → UDP PROBE/PROBE_ACK → LINK_READY.
+ * The connection is ready as soon as both sides have confirmed each step.
+ * HELLO and UDP_PORT also carry the protocol version and capabilities; the
+ * result of that negotiation is kept here for the rest of the connection.
+ */
+public class ConnectionHandshake {
+
+    /** Interval between UDP probes while waiting for an acknowledgement */
+    public static final long PROBE_INTERVAL_MS = 100;
+
+    /** Number of probes sent before giving up on UDP */
+    public static final int PROBE_ATTEMPTS = 20;
+
+    /**
+     * Handshake states, in the order they are reached.
+     */
+    public enum State {
+        /** TCP connection established */
+        CONNECTED,
+        /** Client sent HELLO with its UDP port */
+        HELLO_SENT,
+        /** Both UDP ports are known */
+        PORTS_EXCHANGED,
+        /** Client is sending UDP probes */
+        PROBING_UDP,
+        /** Both sides confirmed the connection */
+        READY
+    }
+
+    private volatile State state = State.CONNECTED;
+    private volatile boolean udpConfirmed = false;
+    private final long startNanos;
+    private volatile long readyNanos = -1;
+    private volatile int protocolVersion = MessageProtocol.LEGACY_PROTOCOL_VERSION;
+    private volatile Set<ProtocolCapability> capabilities = ProtocolCapability.LEGACY;
+
+    private final CountDownLatch probeAcknowledged = new CountDownLatch(1);
+    private final CountDownLatch ready = new CountDownLatch(1);
+
+    /**
+     * Creates a handshake starting now.
+     */
+    public ConnectionHandshake() {
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Moves the handshake to a new state.
+     * @param newState State reached
+     */
+    public void advance(State newState) {
+        if (newState.ordinal() > state.ordinal()) {
+            state = newState;
+        }
+    }
+
+    /**
+     * Records the acknowledgement of a UDP probe.
+     */
+    public void probeAcknowledged() {
+        udpConfirmed = true;
+        probeAcknowledged.countDown();
+    }
+
+    /**
+     * Waits for a probe acknowledgement for at most one probe interval.
+     * @return True if a probe was acknowledged
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public boolean awaitProbeAcknowledged() throws InterruptedException {
+        return probeAcknowledged.await(PROBE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Marks the handshake as complete.
+     * @param udpAvailable True if UDP traffic was confirmed in both directions
+     */
+    public void complete(boolean udpAvailable) {
+        if (state == State.READY) {
+            return;
+        }
+        udpConfirmed = udpAvailable;
+        readyNanos = System.nanoTime();
+        state = State.READY;
+        ready.countDown();
+    }
+
+    /**
+     * Settles the protocol for this connection: the lower of both versions and
+     * the capabilities offered by both sides.
+     * @param remoteVersion Version announced by the peer
+     * @param offered Capabilities offered by this side
+     * @param remote Capabilities announced by the peer
+     */
+    public void negotiate(int remoteVersion, Set<ProtocolCapability> offered, Set<ProtocolCapability> remote) {
+        EnumSet<ProtocolCapability> common = EnumSet.noneOf(ProtocolCapability.class);
+        common.addAll(offered);
+        common.retainAll(remote);
+        protocolVersion = Math.min(MessageProtocol.PROTOCOL_VERSION, remoteVersion);
+        capabilities = Collections.unmodifiableSet(common);
+    }
+
+    /**
+     * @return protocol version used on this connection
+     */
+    public int getProtocolVersion() {
+        return protocolVersion;
+    }
+
+    /**
+     * @return capabilities both sides support
+     */
+    public Set<ProtocolCapability> getCapabilities() {
+        return capabilities;
+    }
+
+    /**
+     * @param capability Capability to check
+     * @return true if both sides agreed to use it
+     */
+    public boolean supports(ProtocolCapability capability) {
+        return capabilities.contains(capability);
+    }
+
+    /**
+     * Waits until the handshake is complete.
+     * @param timeoutMs Maximum time to wait in milliseconds
+     * @return True if the handshake completed in time
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public boolean awaitReady(long timeoutMs) throws InterruptedException {
+        return ready.await(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return the current state
+     */
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * @return true if the handshake is complete
+     */
+    public boolean isReady() {
+        return state == State.READY;
+    }
+
+    /**
+     * @return true if UDP traffic was confirmed by a probe acknowledgement
+     */
+    public boolean isUdpConfirmed() {
+        return udpConfirmed;
+    }
+
+    /**
+     * @return time from connection to ready in milliseconds, or -1 if not ready yet
+     */
+    public double getTimeToReadyMs() {
+        long end = readyNanos;
+        return end < 0 ? -1 : (end - startNanos) / 1_000_000.0;
+    }
+}
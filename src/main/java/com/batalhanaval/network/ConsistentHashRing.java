@@ -0,0 +1,117 @@
+package com.batalhanaval.network;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Consistent hash ring that assigns keys (match ids) to nodes (server workers).
+ * <p>
+ * Every node is placed on the ring at several virtual points so the keys are
+ * spread evenly; a key belongs to the first point at or after its own hash.
+ * Adding or removing a node only moves the keys next to that node's points,
+ * so the other matches keep their worker.
+ *
+ * @param <T> Node type; {@code toString()} must be unique and stable, it names the virtual points
+ */
+public class ConsistentHashRing<T> {
+
+    /** Virtual points per node */
+    public static final int DEFAULT_REPLICAS = 100;
+
+    private final int replicas;
+    private final TreeMap<Long, T> ring = new TreeMap<>();
+    private final List<T> nodes = new ArrayList<>();
+
+    /**
+     * Creates an empty ring with {@link #DEFAULT_REPLICAS} points per node.
+     */
+    public ConsistentHashRing() {
+        this(DEFAULT_REPLICAS);
+    }
+
+    /**
+     * Creates an empty ring.
+     * @param replicas Virtual points per node
+     */
+    public ConsistentHashRing(int replicas) {
+        if (replicas <= 0) {
+            throw new IllegalArgumentException("Replicas must be positive");
+        }
+        this.replicas = replicas;
+    }
+
+    /**
+     * Adds a node; does nothing if it is already on the ring.
+     * @param node Node to add
+     */
+    public synchronized void add(T node) {
+        if (nodes.contains(node)) {
+            return;
+        }
+        nodes.add(node);
+        for (int i = 0; i < replicas; i++) {
+            ring.put(hash(node + "#" + i), node);
+        }
+    }
+
+    /**
+     * Removes a node; its keys move to the next nodes on the ring.
+     * @param node Node to remove
+     */
+    public synchronized void remove(T node) {
+        if (!nodes.remove(node)) {
+            return;
+        }
+        for (int i = 0; i < replicas; i++) {
+            ring.remove(hash(node + "#" + i), node);
+        }
+    }
+
+    /**
+     * Finds the node a key belongs to.
+     * @param key Key to look up
+     * @return Node, or null if the ring is empty
+     */
+    public synchronized T get(String key) {
+        if (ring.isEmpty()) {
+            return null;
+        }
+        SortedMap<Long, T> tail = ring.tailMap(hash(key));
+        return tail.isEmpty() ? ring.firstEntry().getValue() : tail.get(tail.firstKey());
+    }
+
+    /**
+     * @return snapshot of the nodes on the ring
+     */
+    public synchronized List<T> getNodes() {
+        return new ArrayList<>(nodes);
+    }
+
+    /**
+     * @return number of nodes on the ring
+     */
+    public synchronized int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Hashes a string to a point on the ring (first 8 bytes of its MD5).
+     */
+    private static long hash(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(value.getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < Long.BYTES; i++) {
+                hash = (hash << 8) | (digest[i] & 0xFF);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is required by every Java platform", e);
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package com.batalhanaval.network;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes and decodes UDP datagrams directly on ByteBuffers.
+ * Lets the UDP path reuse one buffer per direction and read HOVER
+ * messages without building intermediate Strings.
+ * <p>
+ * When both peers negotiated {@link ProtocolCapability#BINARY_CODEC}, hovers are
+ * sent as fixed binary datagrams instead: an opcode byte, the low 16 bits of the
+ * sequence number and one byte per cell (row in the high nibble, column in the
+ * low nibble, 0xFF when the cursor left the board). A single hover is 4 bytes;
+ * a batch adds a count byte and carries several samples, oldest first. Text
+ * datagrams always start with a printable character, so the opcodes cannot be
+ * mistaken for them.
+ */
+public class DatagramCodec {
+
+    /** Largest datagram accepted or sent */
+    public static final int MAX_DATAGRAM_SIZE = 1024;
+
+    /** Returned by readHover for a HOVER:null message */
+    public static final int HOVER_NONE = -1;
+
+    /** Returned by readHover when the datagram is not a valid hover */
+    public static final int NOT_HOVER = Integer.MIN_VALUE;
+
+    /** Opcode of a binary datagram with one hover sample */
+    public static final byte HOVER_OPCODE = 0x01;
+
+    /** Opcode of a binary datagram with several hover samples */
+    public static final byte HOVER_BATCH_OPCODE = 0x02;
+
+    /** Size of a binary hover datagram */
+    public static final int BINARY_HOVER_SIZE = 4;
+
+    /** Most samples in one batch datagram */
+    public static final int MAX_HOVER_BATCH = 64;
+
+    /** Largest row or column a binary cell can hold */
+    public static final int MAX_BINARY_COORDINATE = 14;
+
+    /** Binary cell of a cleared hover */
+    private static final int NO_CELL = 0xFF;
+
+    private static final byte[] HOVER_PREFIX =
+            (MessageProtocol.HOVER + MessageProtocol.SEPARATOR).getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL_BYTES =
+            MessageProtocol.NULL_VALUE.getBytes(StandardCharsets.US_ASCII);
+    private static final byte SEQUENCE_SEPARATOR = (byte) MessageProtocol.SEQUENCE_SEPARATOR.charAt(0);
+    private static final byte COORD_SEPARATOR = (byte) MessageProtocol.COORD_SEPARATOR.charAt(0);
+
+    /**
+     * Reads the sequence prefix of a datagram.
+     * On success the buffer position is moved past the separator; otherwise it is left untouched.
+     * @param buffer Datagram ready for reading
+     * @return Sequence number or -1 if the datagram is not sequenced
+     */
+    public static long readSequence(ByteBuffer buffer) {
+        int start = buffer.position();
+        int limit = Math.min(buffer.limit(), start + 19);
+        long sequence = 0;
+
+        for (int i = start; i < limit; i++) {
+            byte b = buffer.get(i);
+            if (b == SEQUENCE_SEPARATOR) {
+                if (i == start) {
+                    return -1;
+                }
+                buffer.position(i + 1);
+                return sequence;
+            }
+            if (b < '0' || b > '9') {
+                return -1;
+            }
+            sequence = sequence * 10 + (b - '0');
+        }
+        return -1;
+    }
+
+    /**
+     * Reads a HOVER message without consuming the buffer.
+     * @param buffer Datagram positioned at the start of the message
+     * @return Packed cell (row &lt;&lt; 8 | col), HOVER_NONE for HOVER:null or NOT_HOVER
+     */
+    public static int readHover(ByteBuffer buffer) {
+        int index = buffer.position();
+        int limit = buffer.limit();
+
+        if (!matches(buffer, index, HOVER_PREFIX)) {
+            return NOT_HOVER;
+        }
+        index += HOVER_PREFIX.length;
+
+        if (limit - index == NULL_BYTES.length && matches(buffer, index, NULL_BYTES)) {
+            return HOVER_NONE;
+        }
+
+        int row = 0;
+        int digits = 0;
+        while (index < limit && buffer.get(index) != COORD_SEPARATOR) {
+            byte b = buffer.get(index++);
+            if (b < '0' || b > '9' || ++digits > 3) {
+                return NOT_HOVER;
+            }
+            row = row * 10 + (b - '0');
+        }
+        if (digits == 0 || index == limit) {
+            return NOT_HOVER;
+        }
+        index++; // Skip the coordinate separator
+
+        int col = 0;
+        digits = 0;
+        while (index < limit) {
+            byte b = buffer.get(index++);
+            if (b < '0' || b > '9' || ++digits > 3) {
+                return NOT_HOVER;
+            }
+            col = col * 10 + (b - '0');
+        }
+        if (digits == 0 || row > 0xFF || col > 0xFF) {
+            return NOT_HOVER;
+        }
+        return (row << 8) | col;
+    }
+
+    /**
+     * @param packedCell Value returned by readHover
+     * @return Row of the packed cell
+     */
+    public static int hoverRow(int packedCell) {
+        return packedCell >> 8;
+    }
+
+    /**
+     * @param packedCell Value returned by readHover
+     * @return Column of the packed cell
+     */
+    public static int hoverCol(int packedCell) {
+        return packedCell & 0xFF;
+    }
+
+    /**
+     * Checks if a datagram is a binary hover or hover batch.
+     * @param buffer Datagram ready for reading
+     * @return True if the first byte is a hover opcode
+     */
+    public static boolean isBinaryHover(ByteBuffer buffer) {
+        if (!buffer.hasRemaining()) {
+            return false;
+        }
+        byte opcode = buffer.get(buffer.position());
+        return opcode == HOVER_OPCODE || opcode == HOVER_BATCH_OPCODE;
+    }
+
+    /**
+     * Reads the opcode and serial number of a binary hover datagram and checks its length.
+     * On success the buffer is positioned at the first sample.
+     * @param buffer Datagram starting with a hover opcode
+     * @return Low 16 bits of the sequence number, or -1 if the datagram is malformed
+     */
+    public static int readBinaryHoverSerial(ByteBuffer buffer) {
+        int start = buffer.position();
+        int length = buffer.remaining();
+        if (length < BINARY_HOVER_SIZE) {
+            return -1;
+        }
+
+        int samples = 1;
+        if (buffer.get(start) == HOVER_BATCH_OPCODE) {
+            samples = buffer.get(start + 3) & 0xFF;
+            if (samples == 0 || samples > MAX_HOVER_BATCH || length != BINARY_HOVER_SIZE + samples) {
+                return -1;
+            }
+            buffer.position(start + BINARY_HOVER_SIZE);
+        } else if (length != BINARY_HOVER_SIZE) {
+            return -1;
+        } else {
+            buffer.position(start + 3);
+        }
+        return buffer.getShort(start + 1) & 0xFFFF;
+    }
+
+    /**
+     * Reads the next sample of a binary hover datagram.
+     * @param buffer Datagram positioned at a sample, see readBinaryHoverSerial
+     * @return Packed cell as returned by readHover, HOVER_NONE, or NOT_HOVER if out of range
+     */
+    public static int readBinaryHoverCell(ByteBuffer buffer) {
+        int cell = buffer.get() & 0xFF;
+        if (cell == NO_CELL) {
+            return HOVER_NONE;
+        }
+        int row = cell >> 4;
+        int col = cell & 0x0F;
+        if (row > MAX_BINARY_COORDINATE || col > MAX_BINARY_COORDINATE) {
+            return NOT_HOVER;
+        }
+        return (row << 8) | col;
+    }
+
+    /**
+     * Decodes the remaining bytes of a datagram as UTF-8.
+     * @param buffer Datagram positioned at the start of the message
+     * @return Decoded message
+     */
+    public static String decode(ByteBuffer buffer) {
+        return StandardCharsets.UTF_8.decode(buffer).toString();
+    }
+
+    /**
+     * Writes a sequence prefix into the buffer.
+     * @param buffer Destination buffer
+     * @param sequence Sequence number
+     */
+    public static void writeSequence(ByteBuffer buffer, long sequence) {
+        writeNumber(buffer, sequence);
+        buffer.put(SEQUENCE_SEPARATOR);
+    }
+
+    /**
+     * Writes a HOVER message into the buffer.
+     * @param buffer Destination buffer
+     * @param row Row coordinate or -1 for null
+     * @param col Column coordinate or -1 for null
+     */
+    public static void writeHover(ByteBuffer buffer, int row, int col) {
+        buffer.put(HOVER_PREFIX);
+        if (row < 0 || col < 0) {
+            buffer.put(NULL_BYTES);
+            return;
+        }
+        writeNumber(buffer, row);
+        buffer.put(COORD_SEPARATOR);
+        writeNumber(buffer, col);
+    }
+
+    /**
+     * Writes a binary hover datagram.
+     * @param buffer Destination buffer, at least BINARY_HOVER_SIZE bytes free
+     * @param sequence Sequence number; only the low 16 bits are sent
+     * @param row Row coordinate (0-14) or -1 for null
+     * @param col Column coordinate (0-14) or -1 for null
+     */
+    public static void writeBinaryHover(ByteBuffer buffer, long sequence, int row, int col) {
+        buffer.put(HOVER_OPCODE);
+        buffer.putShort((short) sequence);
+        buffer.put((byte) packCell(row, col));
+    }
+
+    /**
+     * Writes a binary datagram with several hover samples.
+     * @param buffer Destination buffer
+     * @param sequence Sequence number; only the low 16 bits are sent
+     * @param rows Row of each sample, -1 for null
+     * @param cols Column of each sample, -1 for null
+     * @param count Number of samples, 1 to MAX_HOVER_BATCH
+     */
+    public static void writeBinaryHoverBatch(ByteBuffer buffer, long sequence, int[] rows, int[] cols, int count) {
+        buffer.put(HOVER_BATCH_OPCODE);
+        buffer.putShort((short) sequence);
+        buffer.put((byte) count);
+        for (int i = 0; i < count; i++) {
+            buffer.put((byte) packCell(rows[i], cols[i]));
+        }
+    }
+
+    /**
+     * Checks if a cell can be sent in a binary hover.
+     * @return True if both coordinates fit in a nibble, or the hover is cleared
+     */
+    public static boolean fitsBinaryHover(int row, int col) {
+        return row < 0 || col < 0 || (row <= MAX_BINARY_COORDINATE && col <= MAX_BINARY_COORDINATE);
+    }
+
+    private static int packCell(int row, int col) {
+        if (row < 0 || col < 0) {
+            return NO_CELL;
+        }
+        return (row << 4) | col;
+    }
+
+    /**
+     * Writes a text message into the buffer as UTF-8.
+     * @param buffer Destination buffer
+     * @param message Message to write
+     * @return False if the message does not fit
+     */
+    public static boolean writeText(ByteBuffer buffer, String message) {
+        int length = message.length();
+        if (length > buffer.remaining()) {
+            return false;
+        }
+
+        // ASCII fast path: protocol messages never need the encoder
+        for (int i = 0; i < length; i++) {
+            char c = message.charAt(i);
+            if (c >= 0x80) {
+                byte[] bytes = message.substring(i).getBytes(StandardCharsets.UTF_8);
+                if (bytes.length > buffer.remaining()) {
+                    return false;
+                }
+                buffer.put(bytes);
+                return true;
+            }
+            buffer.put((byte) c);
+        }
+        return true;
+    }
+
+    private static void writeNumber(ByteBuffer buffer, long value) {
+        if (value >= 10) {
+            writeNumber(buffer, value / 10);
+        }
+        buffer.put((byte) ('0' + (value % 10)));
+    }
+
+    private static boolean matches(ByteBuffer buffer, int index, byte[] expected) {
+        if (buffer.limit() - index < expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (buffer.get(index + i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
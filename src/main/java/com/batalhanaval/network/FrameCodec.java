@@ -0,0 +1,72 @@
+package com.batalhanaval.network;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Length-prefixed framing for the TCP stream between players.
+ * <p>
+ * Each frame is a 4-byte big-endian payload length followed by the payload.
+ * Text messages are encoded as UTF-8, whatever the platform charset, and may
+ * contain any character including line breaks. Frames are decoded by
+ * {@link FrameDecoder}.
+ */
+public class FrameCodec {
+
+    /** Bytes of the length prefix */
+    public static final int HEADER_LENGTH = 4;
+
+    /** Largest payload accepted; anything bigger means the stream is corrupt */
+    public static final int MAX_FRAME_LENGTH = 64 * 1024;
+
+    /**
+     * Writes a text message as one frame.
+     * @param out Destination stream, usually buffered
+     * @param message Message to write
+     * @throws IOException If writing fails or the message is too long
+     */
+    public static void writeFrame(OutputStream out, String message) throws IOException {
+        byte[] payload = message.getBytes(StandardCharsets.UTF_8);
+        writeFrame(out, payload, 0, payload.length);
+    }
+
+    /**
+     * Writes a binary payload as one frame.
+     * @param out Destination stream, usually buffered
+     * @param payload Bytes to write
+     * @param offset Start of the payload in the array
+     * @param length Number of bytes
+     * @throws IOException If writing fails or the payload is too long
+     */
+    public static void writeFrame(OutputStream out, byte[] payload, int offset, int length) throws IOException {
+        checkLength(length);
+        out.write(length >>> 24);
+        out.write(length >>> 16);
+        out.write(length >>> 8);
+        out.write(length);
+        out.write(payload, offset, length);
+    }
+
+    /**
+     * Encodes a text message as one frame, e.g. for a non-blocking channel.
+     * @param message Message to encode
+     * @return Buffer ready for reading that holds the whole frame
+     * @throws IOException If the message is too long
+     */
+    public static ByteBuffer encode(String message) throws IOException {
+        byte[] payload = message.getBytes(StandardCharsets.UTF_8);
+        checkLength(payload.length);
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_LENGTH + payload.length);
+        frame.putInt(payload.length).put(payload).flip();
+        return frame;
+    }
+
+    static void checkLength(int length) throws ProtocolException {
+        if (length < 0 || length > MAX_FRAME_LENGTH) {
+            throw new ProtocolException("Invalid frame length: " + length);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.batalhanaval.network;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Splits a byte stream into the frames written by {@link FrameCodec}.
+ * <p>
+ * Bytes can arrive in any pieces: {@link #feed(ByteBuffer)} takes whatever a
+ * non-blocking read returned and {@link #nextFrame()} hands out complete frames
+ * as they become available. {@link #readMessage(InputStream)} does both for a
+ * blocking stream, and {@link #readFrame(InputStream)} returns the raw payload
+ * so a frame can be rejected before it is decoded. The buffer starts small and only grows to fit the largest
+ * frame seen, up to {@link FrameCodec#MAX_FRAME_LENGTH}.
+ * <p>
+ * Not thread-safe; one decoder per connection, used by its reading thread.
+ */
+public class FrameDecoder {
+
+    private static final int INITIAL_CAPACITY = 8192;
+
+    // Kept in read mode: the unread bytes are between position and limit
+    private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_CAPACITY);
+
+    public FrameDecoder() {
+        buffer.flip();
+    }
+
+    /**
+     * Copies received bytes into the decoder.
+     * Takes as many bytes as fit; call {@link #nextFrame()} until it returns null
+     * and feed again while the source has bytes left.
+     * @param source Received bytes, ready for reading
+     * @return Number of bytes taken
+     */
+    public int feed(ByteBuffer source) {
+        prepareForWrite();
+        int taken = Math.min(source.remaining(), buffer.remaining());
+        if (taken < source.remaining()) {
+            ByteBuffer part = source.duplicate();
+            part.limit(part.position() + taken);
+            buffer.put(part);
+            source.position(source.position() + taken);
+        } else {
+            buffer.put(source);
+        }
+        buffer.flip();
+        return taken;
+    }
+
+    /**
+     * Takes the next complete frame.
+     * The returned buffer shares the decoder's storage and is only valid until the next call.
+     * @return Read-only payload, or null if no complete frame was received yet
+     * @throws ProtocolException If the length prefix is invalid
+     */
+    public ByteBuffer nextFrame() throws ProtocolException {
+        if (buffer.remaining() < FrameCodec.HEADER_LENGTH) {
+            return null;
+        }
+        int length = buffer.getInt(buffer.position());
+        FrameCodec.checkLength(length);
+        if (buffer.remaining() < FrameCodec.HEADER_LENGTH + length) {
+            return null;
+        }
+
+        int start = buffer.position() + FrameCodec.HEADER_LENGTH;
+        ByteBuffer payload = buffer.duplicate();
+        payload.position(start).limit(start + length);
+        buffer.position(start + length);
+        return payload.slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * Takes the next complete frame as a UTF-8 text message.
+     * @return Message, or null if no complete frame was received yet
+     * @throws ProtocolException If the length prefix is invalid
+     */
+    public String nextMessage() throws ProtocolException {
+        ByteBuffer payload = nextFrame();
+        if (payload == null) {
+            return null;
+        }
+        return decode(payload);
+    }
+
+    /**
+     * Decodes the frame most recently returned by this decoder as UTF-8 text.
+     * Lets the caller look at (or drop) a frame before paying for the String.
+     * @param payload Frame from {@link #nextFrame()} or {@link #readFrame(InputStream)}
+     * @return Message
+     */
+    public String decode(ByteBuffer payload) {
+        return new String(buffer.array(), buffer.arrayOffset() + buffer.position() - payload.remaining(),
+                          payload.remaining(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the next text message from a blocking stream.
+     * @param in Source stream
+     * @return Message, or null if the stream ended between frames
+     * @throws EOFException If the stream ended in the middle of a frame
+     * @throws IOException If reading fails or the stream is corrupt
+     */
+    public String readMessage(InputStream in) throws IOException {
+        ByteBuffer payload = readFrame(in);
+        return payload == null ? null : decode(payload);
+    }
+
+    /**
+     * Reads the next frame from a blocking stream without decoding it.
+     * The returned buffer is only valid until the next call.
+     * @param in Source stream
+     * @return Read-only payload, or null if the stream ended between frames
+     * @throws EOFException If the stream ended in the middle of a frame
+     * @throws IOException If reading fails or the stream is corrupt
+     */
+    public ByteBuffer readFrame(InputStream in) throws IOException {
+        while (true) {
+            ByteBuffer payload = nextFrame();
+            if (payload != null) {
+                return payload;
+            }
+
+            prepareForWrite();
+            int read = in.read(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            if (read > 0) {
+                buffer.position(buffer.position() + read);
+            }
+            buffer.flip();
+
+            if (read < 0) {
+                if (buffer.hasRemaining()) {
+                    throw new EOFException("Connection closed in the middle of a frame");
+                }
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Reads exactly one text message without reading past its end, so the
+     * stream can be handed to someone else afterwards (e.g. a router that only
+     * looks at the first frame). Slower than a decoder; use it for single frames.
+     * @param in Source stream
+     * @return Message
+     * @throws EOFException If the stream ends before the frame is complete
+     * @throws IOException If reading fails or the length prefix is invalid
+     */
+    public static String readSingleMessage(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        int length = data.readInt();
+        FrameCodec.checkLength(length);
+        byte[] payload = new byte[length];
+        data.readFully(payload);
+        return new String(payload, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return number of received bytes not yet returned as frames
+     */
+    public int getBufferedCount() {
+        return buffer.remaining();
+    }
+
+    /**
+     * Moves the unread bytes to the front and switches to write mode,
+     * growing the buffer if the pending frame does not fit.
+     */
+    private void prepareForWrite() {
+        int needed = INITIAL_CAPACITY;
+        if (buffer.remaining() >= FrameCodec.HEADER_LENGTH) {
+            int length = buffer.getInt(buffer.position());
+            if (length > 0 && length <= FrameCodec.MAX_FRAME_LENGTH) {
+                needed = Math.max(needed, FrameCodec.HEADER_LENGTH + length);
+            }
+        }
+
+        if (needed > buffer.capacity()) {
+            ByteBuffer larger = ByteBuffer.allocate(needed);
+            larger.put(buffer);
+            buffer = larger;
+        } else {
+            buffer.compact();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.batalhanaval.network;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.batalhanaval.core.Position;
+
+/**
+ * In-process event bus for decoded network events.
+ * Delivers typed callbacks to every subscriber directly, so a message is
+ * parsed once by {@link NetworkMessageHandler} and never re-encoded to a String.
+ */
+public class GameEventDispatcher implements
+    NetworkMessageHandler.GameMessageListener,
+    NetworkMessageHandler.HoverMessageListener {
+
+    private final List<NetworkMessageHandler.GameMessageListener> gameListeners = new CopyOnWriteArrayList<>();
+    private final List<NetworkMessageHandler.HoverMessageListener> hoverListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Subscribes a listener to game events.
+     * @param listener Listener to add
+     */
+    public void addGameListener(NetworkMessageHandler.GameMessageListener listener) {
+        if (listener != null && !gameListeners.contains(listener)) {
+            gameListeners.add(listener);
+        }
+    }
+
+    /**
+     * Unsubscribes a listener from game events.
+     * @param listener Listener to remove
+     */
+    public void removeGameListener(NetworkMessageHandler.GameMessageListener listener) {
+        gameListeners.remove(listener);
+    }
+
+    /**
+     * Subscribes a listener to hover events.
+     * @param listener Listener to add
+     */
+    public void addHoverListener(NetworkMessageHandler.HoverMessageListener listener) {
+        if (listener != null && !hoverListeners.contains(listener)) {
+            hoverListeners.add(listener);
+        }
+    }
+
+    /**
+     * Unsubscribes a listener from hover events.
+     * @param listener Listener to remove
+     */
+    public void removeHoverListener(NetworkMessageHandler.HoverMessageListener listener) {
+        hoverListeners.remove(listener);
+    }
+
+    // ===== GameMessageListener =====
+
+    @Override
+    public void onReadyToStart() {
+        for (NetworkMessageHandler.GameMessageListener listener : gameListeners) {
+            listener.onReadyToStart();
+        }
+    }
+
+    @Override
+    public void onGameStart(boolean isFirstPlayer) {
+        for (NetworkMessageHandler.GameMessageListener listener : gameListeners) {
+            listener.onGameStart(isFirstPlayer);
+        }
+    }
+
+    @Override
+    public void onAttackReceived(int row, int col) {
+        for (NetworkMessageHandler.GameMessageListener listener : gameListeners) {
+            listener.onAttackReceived(row, col);
+        }
+    }
+
+    @Override
+    public void onAttackResult(String result, int row, int col) {
+        for (NetworkMessageHandler.GameMessageListener listener : gameListeners) {
+            listener.onAttackResult(result, row, col);
+        }
+    }
+
+    @Override
+    public void onAttackResult(String result, int row, int col, String sunkShip) {
+        for (NetworkMessageHandler.GameMessageListener listener : gameListeners) {
+            listener.onAttackResult(result, row, col, sunkShip);
+        }
+    }
+
+    @Override
+    public void onTurnEnd() {
+        for (NetworkMessageHandler.GameMessageListener listener : gameListeners) {
+            listener.onTurnEnd();
+        }
+    }
+
+    @Override
+    public void onGameOver(boolean isWinner) {
+        for (NetworkMessageHandler.GameMessageListener listener : gameListeners) {
+            listener.onGameOver(isWinner);
+        }
+    }
+
+    @Override
+    public void onOpponentDisconnect() {
+        for (NetworkMessageHandler.GameMessageListener listener : gameListeners) {
+            listener.onOpponentDisconnect();
+        }
+    }
+
+    @Override
+    public void onOpponentSurrender() {
+        for (NetworkMessageHandler.GameMessageListener listener : gameListeners) {
+            listener.onOpponentSurrender();
+        }
+    }
+
+    @Override
+    public void onStateResync(SessionSnapshot snapshot) {
+        for (NetworkMessageHandler.GameMessageListener listener : gameListeners) {
+            listener.onStateResync(snapshot);
+        }
+    }
+
+    @Override
+    public void onOpponentAttackResolved(String result, int row, int col) {
+        for (NetworkMessageHandler.GameMessageListener listener : gameListeners) {
+            listener.onOpponentAttackResolved(result, row, col);
+        }
+    }
+
+    @Override
+    public void onTurnTimeout(boolean localPlayer, boolean forfeited) {
+        for (NetworkMessageHandler.GameMessageListener listener : gameListeners) {
+            listener.onTurnTimeout(localPlayer, forfeited);
+        }
+    }
+    
+    // ===== HoverMessageListener =====
+
+    @Override
+    public void onHoverReceived(Position position) {
+        for (NetworkMessageHandler.HoverMessageListener listener : hoverListeners) {
+            listener.onHoverReceived(position);
+        }
+    }
+
+    @Override
+    public void onPingReceived() {
+        for (NetworkMessageHandler.HoverMessageListener listener : hoverListeners) {
+            listener.onPingReceived();
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.batalhanaval.network;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Sends timestamped PINGs over TCP and UDP and measures round-trip time from the PONGs.
+ * RTTs go into one {@link LatencyHistogram} per transport together with an
+ * RFC 3550 style jitter estimate. A peer that stops answering on TCP is
+ * reported dead after {@link #DEAD_PEER_TIMEOUT_MS}.
+ */
+public class HeartbeatService {
+
+    /** Interval between heartbeats */
+    public static final long INTERVAL_MS = 1000;
+
+    /** Silence on TCP after which the peer is considered dead */
+    public static final long DEAD_PEER_TIMEOUT_MS = 5000;
+
+    /** Transport a heartbeat was measured on */
+    public enum Transport { TCP, UDP }
+
+    private final NetworkManager networkManager;
+    private final Consumer<String> statusUpdater;
+    private final Runnable deadPeerHandler;
+
+    private final LatencyHistogram tcpRtt = new LatencyHistogram();
+    private final LatencyHistogram udpRtt = new LatencyHistogram();
+    private final TransportState tcpState = new TransportState();
+    private final TransportState udpState = new TransportState();
+
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> task;
+    private volatile boolean peerDead = false;
+
+    /**
+     * Per-transport jitter and liveness.
+     */
+    private static class TransportState {
+        volatile long lastRttMicros = -1;
+        volatile double jitterMicros = 0;
+        volatile long lastPongNanos;
+        long sent = 0;
+        long received = 0;
+    }
+
+    /**
+     * Creates a heartbeat service.
+     * @param networkManager Network manager used to send pings
+     * @param statusUpdater Consumer for status messages
+     * @param deadPeerHandler Called once when the peer stops answering
+     */
+    public HeartbeatService(NetworkManager networkManager, Consumer<String> statusUpdater, Runnable deadPeerHandler) {
+        this.networkManager = networkManager;
+        this.statusUpdater = statusUpdater;
+        this.deadPeerHandler = deadPeerHandler;
+    }
+
+    /**
+     * Starts sending heartbeats.
+     */
+    public synchronized void start() {
+        if (task != null) {
+            return;
+        }
+        long now = System.nanoTime();
+        tcpState.lastPongNanos = now;
+        udpState.lastPongNanos = now;
+        peerDead = false;
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        task = scheduler.scheduleAtFixedRate(this::beat, 0, INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops sending heartbeats.
+     */
+    public synchronized void stop() {
+        if (task != null) {
+            task.cancel(false);
+            task = null;
+        }
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private void beat() {
+        long now = System.nanoTime();
+        String ping = MessageProtocol.createPingMessage(now);
+
+        if (networkManager.sendTcpMessage(ping)) {
+            synchronized (tcpState) {
+                tcpState.sent++;
+            }
+        }
+        if (networkManager.isUdpAvailable() && networkManager.sendUdpMessage(ping)) {
+            synchronized (udpState) {
+                udpState.sent++;
+            }
+        }
+
+        // Dead peer detection on the reliable channel
+        if (!peerDead && now - tcpState.lastPongNanos > TimeUnit.MILLISECONDS.toNanos(DEAD_PEER_TIMEOUT_MS)) {
+            peerDead = true;
+            statusUpdater.accept("Peer has not answered for " + DEAD_PEER_TIMEOUT_MS + " ms");
+            if (deadPeerHandler != null) {
+                deadPeerHandler.run();
+            }
+        }
+    }
+
+    /**
+     * Records a PONG.
+     * @param transport Transport the PONG arrived on
+     * @param sentNanos Timestamp echoed by the peer
+     */
+    public void onPong(Transport transport, long sentNanos) {
+        long now = System.nanoTime();
+        long rttMicros = TimeUnit.NANOSECONDS.toMicros(now - sentNanos);
+        if (rttMicros < 0) {
+            return;
+        }
+
+        TransportState state = transport == Transport.TCP ? tcpState : udpState;
+        LatencyHistogram histogram = transport == Transport.TCP ? tcpRtt : udpRtt;
+        histogram.record(rttMicros);
+
+        synchronized (state) {
+            // J = J + (|D| - J) / 16, D being the change between consecutive RTTs
+            if (state.lastRttMicros >= 0) {
+                long difference = Math.abs(rttMicros - state.lastRttMicros);
+                state.jitterMicros += (difference - state.jitterMicros) / 16.0;
+            }
+            state.lastRttMicros = rttMicros;
+            state.lastPongNanos = now;
+            state.received++;
+        }
+
+        if (transport == Transport.TCP && peerDead) {
+            peerDead = false;
+            statusUpdater.accept("Peer is responding again");
+        }
+    }
+
+    /**
+     * @param transport Transport to query
+     * @return RTT histogram of the transport
+     */
+    public LatencyHistogram getHistogram(Transport transport) {
+        return transport == Transport.TCP ? tcpRtt : udpRtt;
+    }
+
+    /**
+     * @param transport Transport to query
+     * @return smoothed jitter in milliseconds
+     */
+    public double getJitterMs(Transport transport) {
+        TransportState state = transport == Transport.TCP ? tcpState : udpState;
+        return state.jitterMicros / 1000.0;
+    }
+
+    /**
+     * @return true if the peer stopped answering heartbeats
+     */
+    public boolean isPeerDead() {
+        return peerDead;
+    }
+
+    /**
+     * Short latency text for the status bar.
+     * @return Text like "RTT 12/30 ms" (p50/p99) or an empty string before the first PONG
+     */
+    public String getStatusText() {
+        if (tcpRtt.getCount() == 0) {
+            return "";
+        }
+        return String.format("RTT %.0f/%.0f ms (p50/p99)",
+                tcpRtt.getValueAtPercentile(50) / 1000.0,
+                tcpRtt.getValueAtPercentile(99) / 1000.0);
+    }
+
+    /**
+     * Formats the latency statistics for diagnostics output.
+     * @return Statistics summary, one line per transport
+     */
+    public String getStatistics() {
+        return format(Transport.TCP, tcpState, tcpRtt) + "\n" + format(Transport.UDP, udpState, udpRtt);
+    }
+
+    private String format(Transport transport, TransportState state, LatencyHistogram histogram) {
+        long sent;
+        long received;
+        synchronized (state) {
+            sent = state.sent;
+            received = state.received;
+        }
+        return String.format("%s RTT: p50=%.2f ms, p99=%.2f ms, max=%.2f ms, jitter=%.2f ms (%d/%d pongs)",
+                transport,
+                histogram.getValueAtPercentile(50) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getMax() / 1000.0,
+                state.jitterMicros / 1000.0,
+                received, sent);
+    }
+}
@@ -0,0 +1,238 @@
+package com.batalhanaval.network;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Transport decorator that makes a good connection behave like a bad one,
+ * to reproduce real-world lag with both players on one machine.
+ * <p>
+ * Outgoing messages are handed to the wrapped transport after the delay of an
+ * {@link ImpairmentProfile}. Datagrams (UDP messages and hovers) get their own
+ * random delay, so jitter reorders them, and may be lost, duplicated or held
+ * back. Reliable messages keep TCP semantics: they are never lost or
+ * reordered, but a "lost" segment stalls it and everything behind it for a
+ * retransmission timeout, like head-of-line blocking on a real connection.
+ * Impairing the sending side of both peers impairs both directions.
+ */
+public class ImpairedTransport implements MessageTransport {
+
+    /** Lower bound of a simulated TCP retransmission timeout, as in Linux */
+    private static final long MIN_RETRANSMIT_MS = 200;
+
+    /** Channel of a queued reliable message that is not superseded by newer ones */
+    private static final int NOT_LATEST = -1;
+
+    private final MessageTransport inner;
+    private final ImpairmentProfile profile;
+    private final Random random;
+    private final ScheduledExecutorService scheduler;
+
+    // Reliable messages in send order, each with the time it may be handed on
+    private final Queue<Delayed> reliableQueue = new ArrayDeque<>();
+    private long lastReliableNanos = 0;
+    private volatile boolean closed = false;
+
+    private final AtomicLong delayed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong duplicated = new AtomicLong();
+    private final AtomicLong reordered = new AtomicLong();
+    private final AtomicLong retransmitted = new AtomicLong();
+
+    /**
+     * A reliable message waiting for its delivery time.
+     */
+    private static class Delayed {
+        final String message;
+        final int latestChannel;
+        final long dueNanos;
+
+        Delayed(String message, int latestChannel, long dueNanos) {
+            this.message = message;
+            this.latestChannel = latestChannel;
+            this.dueNanos = dueNanos;
+        }
+    }
+
+    /**
+     * Wraps a transport.
+     * @param inner Transport that actually sends
+     * @param profile Conditions to simulate
+     */
+    public ImpairedTransport(MessageTransport inner, ImpairmentProfile profile) {
+        this.inner = inner;
+        this.profile = profile;
+        this.random = profile.getSeed() != null ? new Random(profile.getSeed()) : new Random();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "impairment");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public boolean sendReliable(String message) {
+        return sendOrdered(message, NOT_LATEST);
+    }
+
+    @Override
+    public boolean sendLatest(int channel, String message) {
+        return sendOrdered(message, channel);
+    }
+
+    private boolean sendOrdered(String message, int latestChannel) {
+        if (closed) {
+            return false;
+        }
+        long now = System.nanoTime();
+        synchronized (reliableQueue) {
+            long delayMs = nextDelayMs();
+            if (chance(profile.getLossRate())) {
+                delayMs += retransmitTimeoutMs();
+                retransmitted.incrementAndGet();
+            }
+            // Never overtake an earlier message, even with less jitter
+            long due = Math.max(now + TimeUnit.MILLISECONDS.toNanos(delayMs), lastReliableNanos);
+            lastReliableNanos = due;
+            reliableQueue.add(new Delayed(message, latestChannel, due));
+            return schedule(this::flushReliable, due - now);
+        }
+    }
+
+    /**
+     * Hands on every reliable message that is due, in send order.
+     */
+    private void flushReliable() {
+        long now = System.nanoTime();
+        while (true) {
+            Delayed head;
+            synchronized (reliableQueue) {
+                head = reliableQueue.peek();
+                if (head == null || head.dueNanos > now) {
+                    return;
+                }
+                reliableQueue.poll();
+            }
+            if (head.latestChannel != NOT_LATEST) {
+                inner.sendLatest(head.latestChannel, head.message);
+            } else {
+                inner.sendReliable(head.message);
+            }
+        }
+    }
+
+    @Override
+    public boolean sendUnreliable(String message) {
+        return sendDatagram(() -> inner.sendUnreliable(message));
+    }
+
+    @Override
+    public boolean sendHover(int row, int col) {
+        return sendDatagram(() -> inner.sendHover(row, col));
+    }
+
+    @Override
+    public boolean sendHovers(int[] rows, int[] cols, int count) {
+        // The caller reuses its sample arrays
+        int[] rowsCopy = Arrays.copyOf(rows, count);
+        int[] colsCopy = Arrays.copyOf(cols, count);
+        return sendDatagram(() -> inner.sendHovers(rowsCopy, colsCopy, count));
+    }
+
+    /**
+     * Drops, delays, holds back or duplicates one datagram.
+     * A lost datagram still counts as sent, as it would on a real socket.
+     */
+    private boolean sendDatagram(Runnable send) {
+        if (closed) {
+            return false;
+        }
+        long delayMs;
+        boolean duplicate;
+        synchronized (reliableQueue) {
+            if (profile.isUdpBlocked() || chance(profile.getLossRate())) {
+                dropped.incrementAndGet();
+                return true;
+            }
+            delayMs = nextDelayMs();
+            if (chance(profile.getReorderRate())) {
+                // Held back long enough for datagrams sent after it to arrive first
+                delayMs += profile.getLatencyMs() + profile.getJitterMs() + 1;
+                reordered.incrementAndGet();
+            }
+            duplicate = chance(profile.getDuplicateRate());
+        }
+        boolean scheduled = schedule(send, TimeUnit.MILLISECONDS.toNanos(delayMs));
+        if (duplicate && scheduled) {
+            duplicated.incrementAndGet();
+            long copyDelayMs;
+            synchronized (reliableQueue) {
+                copyDelayMs = nextDelayMs();
+            }
+            schedule(send, TimeUnit.MILLISECONDS.toNanos(copyDelayMs));
+        }
+        return scheduled;
+    }
+
+    private boolean schedule(Runnable task, long delayNanos) {
+        try {
+            scheduler.schedule(task, Math.max(0, delayNanos), TimeUnit.NANOSECONDS);
+            delayed.incrementAndGet();
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false; // Closed meanwhile
+        }
+    }
+
+    /**
+     * @return latency plus random jitter. Caller must hold the queue lock, which guards the random
+     */
+    private long nextDelayMs() {
+        long jitter = profile.getJitterMs() > 0 ? (long) (random.nextDouble() * (profile.getJitterMs() + 1)) : 0;
+        return profile.getLatencyMs() + jitter;
+    }
+
+    private boolean chance(double rate) {
+        return rate > 0 && random.nextDouble() < rate;
+    }
+
+    /**
+     * @return simulated retransmission timeout: the round trip plus margin for jitter
+     */
+    private long retransmitTimeoutMs() {
+        return Math.max(MIN_RETRANSMIT_MS, 2 * profile.getLatencyMs() + 4 * profile.getJitterMs());
+    }
+
+    /**
+     * @return the simulated conditions
+     */
+    public ImpairmentProfile getProfile() {
+        return profile;
+    }
+
+    /**
+     * Formats the impairment counters for diagnostics output.
+     * @return Statistics summary
+     */
+    public String getStatistics() {
+        return String.format("%s; delayed=%d, dropped=%d, duplicated=%d, reordered=%d, retransmitted=%d",
+                profile, delayed.get(), dropped.get(), duplicated.get(), reordered.get(), retransmitted.get());
+    }
+
+    /**
+     * Discards messages still in flight and closes the wrapped transport.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        scheduler.shutdownNow();
+        inner.close();
+    }
+}
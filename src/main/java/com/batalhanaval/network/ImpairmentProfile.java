@@ -0,0 +1,161 @@
+package com.batalhanaval.network;
+
+/**
+ * Network conditions simulated by an {@link ImpairedTransport}.
+ * <p>
+ * Written as a comma-separated list of settings, e.g.
+ * {@code latency=80,jitter=20,loss=0.02,duplicate=0.01,reorder=0.05}:
+ * <ul>
+ *   <li>latency: one-way delay in milliseconds</li>
+ *   <li>jitter: random extra delay of up to this many milliseconds</li>
+ *   <li>loss: probability that a datagram is lost, or a TCP segment retransmitted</li>
+ *   <li>duplicate: probability that a datagram arrives twice</li>
+ *   <li>reorder: probability that a datagram is held back behind later ones</li>
+ *   <li>udp: off to drop every datagram, like a firewall that blocks UDP</li>
+ *   <li>seed: random seed, for repeatable runs</li>
+ * </ul>
+ * Settings left out are zero, and UDP is on.
+ */
+public class ImpairmentProfile {
+
+    private final long latencyMs;
+    private final long jitterMs;
+    private final double lossRate;
+    private final double duplicateRate;
+    private final double reorderRate;
+    private final boolean udpBlocked;
+    private final Long seed;
+
+    /**
+     * Creates a profile.
+     * @param latencyMs One-way delay in milliseconds
+     * @param jitterMs Maximum random extra delay in milliseconds
+     * @param lossRate Probability of losing a datagram (0 to 1)
+     * @param duplicateRate Probability of duplicating a datagram (0 to 1)
+     * @param reorderRate Probability of holding a datagram back (0 to 1)
+     * @param udpBlocked True to drop every datagram
+     * @param seed Random seed, or null for a different run each time
+     */
+    public ImpairmentProfile(long latencyMs, long jitterMs, double lossRate,
+                             double duplicateRate, double reorderRate, boolean udpBlocked, Long seed) {
+        if (latencyMs < 0 || jitterMs < 0) {
+            throw new IllegalArgumentException("Latency and jitter must not be negative");
+        }
+        checkRate("loss", lossRate);
+        checkRate("duplicate", duplicateRate);
+        checkRate("reorder", reorderRate);
+        this.latencyMs = latencyMs;
+        this.jitterMs = jitterMs;
+        this.lossRate = lossRate;
+        this.duplicateRate = duplicateRate;
+        this.reorderRate = reorderRate;
+        this.udpBlocked = udpBlocked;
+        this.seed = seed;
+    }
+
+    private static void checkRate(String name, double rate) {
+        if (rate < 0 || rate > 1) {
+            throw new IllegalArgumentException(name + " must be between 0 and 1: " + rate);
+        }
+    }
+
+    /**
+     * Parses a profile such as {@code latency=80,jitter=20,loss=0.02}.
+     * @param spec Comma-separated settings
+     * @return Parsed profile
+     * @throws IllegalArgumentException If a setting is unknown or out of range
+     */
+    public static ImpairmentProfile parse(String spec) {
+        long latency = 0;
+        long jitter = 0;
+        double loss = 0;
+        double duplicate = 0;
+        double reorder = 0;
+        boolean udpBlocked = false;
+        Long seed = null;
+        for (String setting : spec.split(",")) {
+            if (setting.isBlank()) {
+                continue;
+            }
+            String[] pair = setting.split("=", 2);
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Expected name=value: " + setting);
+            }
+            String value = pair[1].trim();
+            try {
+                switch (pair[0].trim()) {
+                    case "latency":
+                        latency = Long.parseLong(value);
+                        break;
+                    case "jitter":
+                        jitter = Long.parseLong(value);
+                        break;
+                    case "loss":
+                        loss = Double.parseDouble(value);
+                        break;
+                    case "duplicate":
+                        duplicate = Double.parseDouble(value);
+                        break;
+                    case "reorder":
+                        reorder = Double.parseDouble(value);
+                        break;
+                    case "udp":
+                        if (!value.equals("on") && !value.equals("off")) {
+                            throw new IllegalArgumentException("udp must be on or off: " + value);
+                        }
+                        udpBlocked = value.equals("off");
+                        break;
+                    case "seed":
+                        seed = Long.parseLong(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown impairment: " + pair[0]);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value for " + pair[0] + ": " + value);
+            }
+        }
+        return new ImpairmentProfile(latency, jitter, loss, duplicate, reorder, udpBlocked, seed);
+    }
+
+    public long getLatencyMs() {
+        return latencyMs;
+    }
+
+    public long getJitterMs() {
+        return jitterMs;
+    }
+
+    public double getLossRate() {
+        return lossRate;
+    }
+
+    public double getDuplicateRate() {
+        return duplicateRate;
+    }
+
+    public double getReorderRate() {
+        return reorderRate;
+    }
+
+    /**
+     * @return true if every datagram is dropped
+     */
+    public boolean isUdpBlocked() {
+        return udpBlocked;
+    }
+
+    /**
+     * @return random seed, or null if none was given
+     */
+    public Long getSeed() {
+        return seed;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("latency=%d ms, jitter=%d ms, loss=%.1f%%, duplicate=%.1f%%, reorder=%.1f%%%s",
+                latencyMs, jitterMs, lossRate * 100, duplicateRate * 100, reorderRate * 100,
+                udpBlocked ? ", UDP blocked" : "");
+    }
+}
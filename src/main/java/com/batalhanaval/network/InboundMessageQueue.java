@@ -0,0 +1,249 @@
+package com.batalhanaval.network;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Hands messages from the network threads to a single consumer thread (the EDT in the game).
+ * <p>
+ * Three lanes with their own overflow policy:
+ * <ul>
+ *   <li>Ordered events (game moves) are never dropped: producers block while the
+ *       lane is full, which pushes back on the TCP reader and the sender. Events
+ *       the consumer queues for itself go over the capacity instead, since it is
+ *       the only thread that makes room (see {@link #putOrderedFromConsumer}).</li>
+ *   <li>Hovers are coalesced into a single slot; only the latest position matters.</li>
+ *   <li>Other datagrams are dropped when their lane is full.</li>
+ * </ul>
+ * The consumer drains in batches of at most {@link #MAX_BATCH} events so painting
+ * can interleave with a burst.
+ */
+public class InboundMessageQueue {
+
+    /** Capacity of the ordered lane */
+    public static final int ORDERED_CAPACITY = 1024;
+
+    /** Capacity of the datagram lane */
+    public static final int DATAGRAM_CAPACITY = 64;
+
+    /** Maximum events handled per drain before yielding the consumer thread */
+    public static final int MAX_BATCH = 64;
+
+    /**
+     * Receives coalesced hover updates.
+     */
+    public interface HoverSink {
+        void onHover(int row, int col);
+    }
+
+    private static final long NO_HOVER = Long.MIN_VALUE;
+
+    private final Executor consumer;
+    private final HoverSink hoverSink;
+    private final Consumer<String> datagramSink;
+
+    // Unbounded itself; producers other than the consumer hold a unit of space per event
+    private final BlockingQueue<Runnable> ordered = new LinkedBlockingQueue<>();
+    private final Semaphore orderedSpace = new Semaphore(ORDERED_CAPACITY);
+    private final AtomicInteger orderedOverCapacity = new AtomicInteger();
+    private final BlockingQueue<String> datagrams = new ArrayBlockingQueue<>(DATAGRAM_CAPACITY);
+    private final AtomicLong pendingHover = new AtomicLong(NO_HOVER);
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+
+    // Metrics
+    private final AtomicLong orderedEnqueued = new AtomicLong();
+    private final AtomicLong producerBlocks = new AtomicLong();
+    private final AtomicLong consumerOverflows = new AtomicLong();
+    private final AtomicLong hoversCoalesced = new AtomicLong();
+    private final AtomicLong datagramsDropped = new AtomicLong();
+    private final AtomicLong drains = new AtomicLong();
+    private final AtomicLong drainedEvents = new AtomicLong();
+    private volatile int maxOrderedDepth = 0;
+
+    /**
+     * Creates a queue.
+     * @param consumer Single-threaded executor of the consumer, e.g. SwingUtilities::invokeLater
+     * @param hoverSink Receives the latest hover position
+     * @param datagramSink Receives other datagrams
+     */
+    public InboundMessageQueue(Executor consumer, HoverSink hoverSink, Consumer<String> datagramSink) {
+        this.consumer = consumer;
+        this.hoverSink = hoverSink;
+        this.datagramSink = datagramSink;
+    }
+
+    /**
+     * Queues an event that must be handled in order and never lost.
+     * Blocks while the ordered lane is full.
+     * @param event Event to run on the consumer thread
+     * @return False if interrupted while waiting for space
+     */
+    public boolean putOrdered(Runnable event) {
+        try {
+            if (!orderedSpace.tryAcquire()) {
+                producerBlocks.incrementAndGet();
+                orderedSpace.acquire();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        enqueueOrdered(event);
+        return true;
+    }
+
+    /**
+     * Queues an ordered event from the consumer thread itself, e.g. the result of
+     * a move resolved locally. Never blocks: waiting for space would wait for the
+     * caller, so a full lane takes the event over its capacity.
+     * @param event Event to run on the consumer thread, after those already queued
+     */
+    public void putOrderedFromConsumer(Runnable event) {
+        if (!orderedSpace.tryAcquire()) {
+            consumerOverflows.incrementAndGet();
+            orderedOverCapacity.incrementAndGet();
+        }
+        enqueueOrdered(event);
+    }
+
+    private void enqueueOrdered(Runnable event) {
+        ordered.add(event);
+        orderedEnqueued.incrementAndGet();
+        int depth = ordered.size();
+        if (depth > maxOrderedDepth) {
+            maxOrderedDepth = depth;
+        }
+        scheduleDrain();
+    }
+
+    /**
+     * Gives back the space of a handled ordered event; events over the capacity hold none.
+     */
+    private void releaseOrderedSpace() {
+        int over;
+        do {
+            over = orderedOverCapacity.get();
+            if (over == 0) {
+                orderedSpace.release();
+                return;
+            }
+        } while (!orderedOverCapacity.compareAndSet(over, over - 1));
+    }
+
+    /**
+     * Stores the latest hover, replacing one that was not handled yet.
+     * @param row Row coordinate or -1 to clear the hover
+     * @param col Column coordinate or -1 to clear the hover
+     */
+    public void offerHover(int row, int col) {
+        long packed = ((long) row << 32) | (col & 0xFFFFFFFFL);
+        if (pendingHover.getAndSet(packed) != NO_HOVER) {
+            hoversCoalesced.incrementAndGet();
+        }
+        scheduleDrain();
+    }
+
+    /**
+     * Queues a datagram, dropping it if the lane is full.
+     * @param message Decoded datagram
+     * @return True if queued
+     */
+    public boolean offerDatagram(String message) {
+        if (!datagrams.offer(message)) {
+            datagramsDropped.incrementAndGet();
+            return false;
+        }
+        scheduleDrain();
+        return true;
+    }
+
+    private void scheduleDrain() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            consumer.execute(this::drain);
+        }
+    }
+
+    /**
+     * Runs on the consumer thread.
+     */
+    private void drain() {
+        drainScheduled.set(false);
+        int handled = 0;
+
+        // Game moves first, in order
+        Runnable event;
+        while (handled < MAX_BATCH && (event = ordered.poll()) != null) {
+            releaseOrderedSpace();
+            event.run();
+            handled++;
+        }
+
+        long hover = pendingHover.getAndSet(NO_HOVER);
+        if (hover != NO_HOVER) {
+            hoverSink.onHover((int) (hover >> 32), (int) hover);
+            handled++;
+        }
+
+        String datagram;
+        while (handled < MAX_BATCH && (datagram = datagrams.poll()) != null) {
+            datagramSink.accept(datagram);
+            handled++;
+        }
+
+        drains.incrementAndGet();
+        drainedEvents.addAndGet(handled);
+
+        // Leftovers go into a new batch so the consumer can do other work in between
+        if (!ordered.isEmpty() || !datagrams.isEmpty() || pendingHover.get() != NO_HOVER) {
+            scheduleDrain();
+        }
+    }
+
+    /**
+     * @return number of game events waiting
+     */
+    public int getOrderedDepth() {
+        return ordered.size();
+    }
+
+    /**
+     * @return highest number of game events waiting at once
+     */
+    public int getMaxOrderedDepth() {
+        return maxOrderedDepth;
+    }
+
+    /**
+     * @return number of hovers replaced before being handled
+     */
+    public long getHoversCoalesced() {
+        return hoversCoalesced.get();
+    }
+
+    /**
+     * @return number of datagrams dropped because their lane was full
+     */
+    public long getDatagramsDropped() {
+        return datagramsDropped.get();
+    }
+
+    /**
+     * Formats the queue metrics for diagnostics output.
+     * @return Statistics summary
+     */
+    public String getStatistics() {
+        long drainCount = drains.get();
+        double perDrain = drainCount == 0 ? 0.0 : (double) drainedEvents.get() / drainCount;
+        return String.format("ordered depth=%d (max %d, %d queued, %d blocked, %d over capacity), " +
+                             "datagram depth=%d (%d dropped), hovers coalesced=%d, events/drain=%.2f",
+                ordered.size(), maxOrderedDepth, orderedEnqueued.get(), producerBlocks.get(), consumerOverflows.get(),
+                datagrams.size(), datagramsDropped.get(), hoversCoalesced.get(), perDrain);
+    }
+}
@@ -0,0 +1,376 @@
+package com.batalhanaval.network;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.InterfaceAddress;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import com.batalhanaval.Constants;
+
+/**
+ * Finds open games on the local network with UDP broadcasts on {@link Constants#DISCOVERY_PORT}.
+ * <p>
+ * A host broadcasts ANNOUNCE:name:tcpPort:udpPort every {@link #ANNOUNCE_INTERVAL_MS}
+ * and answers DISCOVER queries right away; it broadcasts WITHDRAW:tcpPort when the
+ * game is no longer open. A browsing client keeps the announcements in a cache whose
+ * entries expire after {@link #HOST_EXPIRY_MS}, so only live hosts are offered.
+ */
+public class LanDiscoveryService {
+
+    /** Interval between announcements of an open game */
+    public static final long ANNOUNCE_INTERVAL_MS = 1000;
+
+    /** Time after the last announcement before a host is forgotten */
+    public static final long HOST_EXPIRY_MS = 3500;
+
+    /** Receive timeout, also the granularity of expiry checks */
+    private static final int RECEIVE_TIMEOUT_MS = 500;
+
+    private static final int MAX_PACKET_SIZE = 256;
+
+    /**
+     * A game announced on the network.
+     */
+    public static class DiscoveredHost {
+        private final InetAddress address;
+        private final String name;
+        private final int tcpPort;
+        private final int udpPort;
+        private volatile long lastSeen;
+
+        DiscoveredHost(InetAddress address, String name, int tcpPort, int udpPort, long lastSeen) {
+            this.address = address;
+            this.name = name;
+            this.tcpPort = tcpPort;
+            this.udpPort = udpPort;
+            this.lastSeen = lastSeen;
+        }
+
+        public InetAddress getAddress() {
+            return address;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getTcpPort() {
+            return tcpPort;
+        }
+
+        public int getUdpPort() {
+            return udpPort;
+        }
+
+        @Override
+        public String toString() {
+            return name + " (" + address.getHostAddress() + ")";
+        }
+    }
+
+    private static final NetworkLog log = new NetworkLog(System.err::println);
+
+    private final int discoveryPort;
+    private final Map<String, DiscoveredHost> hosts = new ConcurrentHashMap<>();
+
+    private volatile DatagramSocket socket;
+    private volatile Thread worker;
+    private volatile boolean running = false;
+    private String announcement;
+    private int announcedTcpPort;
+
+    /**
+     * Creates a discovery service on the default discovery port.
+     */
+    public LanDiscoveryService() {
+        this(Constants.DISCOVERY_PORT);
+    }
+
+    /**
+     * Creates a discovery service.
+     * @param discoveryPort UDP port shared by hosts and clients
+     */
+    public LanDiscoveryService(int discoveryPort) {
+        this.discoveryPort = discoveryPort;
+    }
+
+    /**
+     * Starts announcing an open game.
+     * @param name Name shown to other players
+     * @param tcpPort TCP port of the game
+     * @param udpPort UDP port of the game
+     * @throws IOException If the discovery socket cannot be opened
+     */
+    public synchronized void startAnnouncing(String name, int tcpPort, int udpPort) throws IOException {
+        stop();
+        String safeName = name.replace(MessageProtocol.SEPARATOR, " ");
+        announcement = MessageProtocol.ANNOUNCE + MessageProtocol.SEPARATOR + safeName +
+                       MessageProtocol.SEPARATOR + tcpPort + MessageProtocol.SEPARATOR + udpPort;
+        announcedTcpPort = tcpPort;
+        socket = openSocket();
+        running = true;
+        worker = startWorker("lan-announcer", this::announceLoop);
+    }
+
+    /**
+     * Starts listening for announced games.
+     * @param onHostsChanged Called with the live hosts whenever one appears or disappears
+     * @throws IOException If the discovery socket cannot be opened
+     */
+    public synchronized void startBrowsing(Consumer<List<DiscoveredHost>> onHostsChanged) throws IOException {
+        stop();
+        hosts.clear();
+        socket = openSocket();
+        running = true;
+        worker = startWorker("lan-browser", () -> browseLoop(onHostsChanged));
+
+        // Ask hosts to announce now instead of waiting for their next interval
+        broadcast(MessageProtocol.DISCOVER);
+    }
+
+    /**
+     * Stops announcing or browsing. A host broadcasts WITHDRAW so clients forget it at once.
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        if (announcement != null) {
+            broadcast(MessageProtocol.WITHDRAW + MessageProtocol.SEPARATOR + announcedTcpPort);
+            announcement = null;
+        }
+        socket.close();
+        if (worker != null) {
+            worker.interrupt();
+            worker = null;
+        }
+    }
+
+    /**
+     * @return true if announcing or browsing
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Gets the hosts announced recently.
+     * @return Live hosts, in discovery order
+     */
+    public List<DiscoveredHost> getHosts() {
+        return getHosts(System.currentTimeMillis());
+    }
+
+    private DatagramSocket openSocket() throws SocketException {
+        DatagramSocket datagramSocket = new DatagramSocket(null);
+        // Hosts and clients on the same machine share the port; broadcasts reach all of them
+        datagramSocket.setReuseAddress(true);
+        datagramSocket.setBroadcast(true);
+        datagramSocket.bind(new InetSocketAddress(discoveryPort));
+        datagramSocket.setSoTimeout(RECEIVE_TIMEOUT_MS);
+        return datagramSocket;
+    }
+
+    private Thread startWorker(String name, Runnable loop) {
+        Thread thread = new Thread(loop, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private void announceLoop() {
+        DatagramSocket current = socket;
+        byte[] buffer = new byte[MAX_PACKET_SIZE];
+        long nextAnnounce = 0;
+        while (running) {
+            try {
+                long now = System.currentTimeMillis();
+                if (now >= nextAnnounce) {
+                    broadcast(announcement);
+                    nextAnnounce = now + ANNOUNCE_INTERVAL_MS;
+                }
+                DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+                current.receive(packet);
+                String message = new String(packet.getData(), 0, packet.getLength(), StandardCharsets.UTF_8);
+                if (message.equals(MessageProtocol.DISCOVER)) {
+                    broadcast(announcement);
+                }
+            } catch (SocketTimeoutException e) {
+                // Time to announce again
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("LAN discovery error: %s", e.getMessage());
+                }
+                return;
+            }
+        }
+    }
+
+    private void browseLoop(Consumer<List<DiscoveredHost>> onHostsChanged) {
+        DatagramSocket current = socket;
+        byte[] buffer = new byte[MAX_PACKET_SIZE];
+        while (running) {
+            boolean changed;
+            try {
+                DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+                current.receive(packet);
+                String message = new String(packet.getData(), 0, packet.getLength(), StandardCharsets.UTF_8);
+                changed = onMessage(packet.getAddress(), message, System.currentTimeMillis());
+            } catch (SocketTimeoutException e) {
+                changed = false;
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("LAN discovery error: %s", e.getMessage());
+                }
+                return;
+            }
+
+            if (removeExpired(System.currentTimeMillis()) || changed) {
+                onHostsChanged.accept(getHosts());
+            }
+        }
+    }
+
+    /**
+     * Applies an ANNOUNCE or WITHDRAW message to the cache.
+     * @param sender Address the datagram came from
+     * @param message Datagram contents
+     * @param now Current time in milliseconds
+     * @return True if a host appeared or disappeared
+     */
+    boolean onMessage(InetAddress sender, String message, long now) {
+        String[] parts = MessageProtocol.getMessageParts(message);
+        try {
+            if (MessageProtocol.hasCommand(message, MessageProtocol.ANNOUNCE) && parts.length == 3) {
+                int tcpPort = Integer.parseInt(parts[1]);
+                int udpPort = Integer.parseInt(parts[2]);
+                String key = sender.getHostAddress() + MessageProtocol.SEPARATOR + tcpPort;
+                DiscoveredHost known = hosts.get(key);
+                if (known == null) {
+                    // A host on this machine is heard on loopback too; keep its network address
+                    known = findSameGame(parts[0], tcpPort);
+                    if (known != null && !known.address.isLoopbackAddress()) {
+                        known.lastSeen = now;
+                        return false;
+                    }
+                    if (known != null && !sender.isLoopbackAddress()) {
+                        hosts.values().remove(known);
+                    }
+                    hosts.put(key, new DiscoveredHost(sender, parts[0], tcpPort, udpPort, now));
+                    return true;
+                }
+                known.lastSeen = now;
+                return false;
+            }
+            if (MessageProtocol.hasCommand(message, MessageProtocol.WITHDRAW) && parts.length == 1) {
+                return hosts.remove(sender.getHostAddress() + MessageProtocol.SEPARATOR + Integer.parseInt(parts[0])) != null;
+            }
+        } catch (NumberFormatException e) {
+            // Not one of ours
+        }
+        return false;
+    }
+
+    private DiscoveredHost findSameGame(String name, int tcpPort) {
+        for (DiscoveredHost host : hosts.values()) {
+            if (host.name.equals(name) && host.tcpPort == tcpPort) {
+                return host;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Forgets hosts that stopped announcing.
+     * @param now Current time in milliseconds
+     * @return True if any host was removed
+     */
+    boolean removeExpired(long now) {
+        boolean removed = false;
+        Iterator<DiscoveredHost> iterator = hosts.values().iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next().lastSeen > HOST_EXPIRY_MS) {
+                iterator.remove();
+                removed = true;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * @param now Current time in milliseconds
+     * @return Hosts seen within the expiry window
+     */
+    List<DiscoveredHost> getHosts(long now) {
+        List<DiscoveredHost> live = new ArrayList<>();
+        for (DiscoveredHost host : hosts.values()) {
+            if (now - host.lastSeen <= HOST_EXPIRY_MS) {
+                live.add(host);
+            }
+        }
+        return Collections.unmodifiableList(live);
+    }
+
+    private void broadcast(String message) {
+        DatagramSocket current = socket;
+        if (current == null || current.isClosed() || message == null) {
+            return;
+        }
+        byte[] data = message.getBytes(StandardCharsets.UTF_8);
+        for (InetAddress target : broadcastAddresses()) {
+            try {
+                current.send(new DatagramPacket(data, data.length, target, discoveryPort));
+            } catch (IOException e) {
+                // Interfaces come and go; the next announcement retries
+            }
+        }
+    }
+
+    /**
+     * Broadcast address of every interface that is up, plus the limited broadcast address.
+     */
+    private static Set<InetAddress> broadcastAddresses() {
+        Set<InetAddress> targets = new LinkedHashSet<>();
+        try {
+            Enumeration<NetworkInterface> interfaces = NetworkInterface.getNetworkInterfaces();
+            while (interfaces != null && interfaces.hasMoreElements()) {
+                NetworkInterface networkInterface = interfaces.nextElement();
+                if (!networkInterface.isUp()) {
+                    continue;
+                }
+                for (InterfaceAddress address : networkInterface.getInterfaceAddresses()) {
+                    if (address.getBroadcast() != null) {
+                        targets.add(address.getBroadcast());
+                    }
+                }
+            }
+        } catch (SocketException e) {
+            // Fall back to the limited broadcast address only
+        }
+        try {
+            targets.add(InetAddress.getByName("255.255.255.255"));
+            // Hosts on this machine, when no interface broadcasts back to us
+            targets.add(InetAddress.getLoopbackAddress());
+        } catch (IOException e) {
+            // Cannot happen for literal addresses
+        }
+        return targets;
+    }
+}
@@ -0,0 +1,112 @@
+package com.batalhanaval.network;
+
+/**
+ * Log-linear histogram of latencies in microseconds, in the style of HdrHistogram.
+ * Each power of two is split into 16 sub-buckets, so recorded values keep
+ * about 6% precision over the whole long range with a fixed array and
+ * no allocation per sample.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (63 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long totalCount = 0;
+    private long sum = 0;
+    private long min = Long.MAX_VALUE;
+    private long max = 0;
+
+    /**
+     * Records a value.
+     * @param micros Latency in microseconds (negative values are recorded as 0)
+     */
+    public synchronized void record(long micros) {
+        long value = Math.max(0, micros);
+        counts[indexOf(value)]++;
+        totalCount++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Gets the value at a given percentile.
+     * @param percentile Percentile between 0 and 100
+     * @return Highest value equivalent to the bucket holding the percentile, or 0 if empty
+     */
+    public synchronized long getValueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(totalCount * Math.min(100.0, percentile) / 100.0));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min(max, highestValueIn(i));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * @return number of recorded values
+     */
+    public synchronized long getCount() {
+        return totalCount;
+    }
+
+    /**
+     * @return mean of recorded values in microseconds, or 0 if empty
+     */
+    public synchronized double getMean() {
+        return totalCount == 0 ? 0.0 : (double) sum / totalCount;
+    }
+
+    /**
+     * @return smallest recorded value, or 0 if empty
+     */
+    public synchronized long getMin() {
+        return totalCount == 0 ? 0 : min;
+    }
+
+    /**
+     * @return largest recorded value, or 0 if empty
+     */
+    public synchronized long getMax() {
+        return max;
+    }
+
+    /**
+     * Clears all recorded values.
+     */
+    public synchronized void reset() {
+        java.util.Arrays.fill(counts, 0);
+        totalCount = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+        return SUB_BUCKET_COUNT + shift * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    private static long highestValueIn(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+        int subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+        long lowest = (long) (SUB_BUCKET_COUNT + subBucket) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
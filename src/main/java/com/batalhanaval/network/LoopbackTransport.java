@@ -0,0 +1,172 @@
+package com.batalhanaval.network;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process transport: two paired endpoints exchanging messages through lock-free queues.
+ * Nothing is delivered until the receiving side calls {@link #pump()}, so tests and
+ * simulations decide exactly when messages arrive, with no sockets, threads or sleeps.
+ * <p>
+ * Reliable messages are delivered in order; hovers are coalesced to the latest one,
+ * like a lossy datagram lane. Messages sent with {@link #sendLatest(int, String)}
+ * are coalesced per channel and delivered after the reliable ones, like a
+ * {@link TcpWriteBatcher} slot.
+ */
+public class LoopbackTransport implements MessageTransport {
+
+    /** Upper bound of rounds in {@link #pumpUntilIdle}, against endless ping-pong */
+    private static final int MAX_PUMP_ROUNDS = 10000;
+
+    private static final long NO_HOVER = Long.MIN_VALUE;
+
+    private final Queue<String> reliableInbox = new ConcurrentLinkedQueue<>();
+    private final Queue<String> unreliableInbox = new ConcurrentLinkedQueue<>();
+    private final Map<Integer, String> latestInbox = new ConcurrentHashMap<>();
+    private final AtomicLong hoverInbox = new AtomicLong(NO_HOVER);
+
+    private LoopbackTransport peer;
+    private volatile NetworkManager receiver;
+    private volatile boolean closed = false;
+
+    private LoopbackTransport() {
+    }
+
+    /**
+     * Creates two connected endpoints.
+     * @return Array holding the host endpoint and the guest endpoint
+     */
+    public static LoopbackTransport[] createPair() {
+        LoopbackTransport host = new LoopbackTransport();
+        LoopbackTransport guest = new LoopbackTransport();
+        host.peer = guest;
+        guest.peer = host;
+        return new LoopbackTransport[] { host, guest };
+    }
+
+    /**
+     * Pumps endpoints until none of them has anything left to deliver.
+     * @param endpoints Endpoints to pump
+     * @return Total number of messages delivered
+     */
+    public static int pumpUntilIdle(LoopbackTransport... endpoints) {
+        int total = 0;
+        for (int round = 0; round < MAX_PUMP_ROUNDS; round++) {
+            int delivered = 0;
+            for (LoopbackTransport endpoint : endpoints) {
+                delivered += endpoint.pump();
+            }
+            if (delivered == 0) {
+                return total;
+            }
+            total += delivered;
+        }
+        throw new IllegalStateException("Loopback endpoints still busy after " + MAX_PUMP_ROUNDS + " rounds");
+    }
+
+    /**
+     * Binds this endpoint to the network manager that receives its messages.
+     * @param networkManager Receiving network manager
+     */
+    void attach(NetworkManager networkManager) {
+        this.receiver = networkManager;
+    }
+
+    /**
+     * Delivers the messages queued for this endpoint on the calling thread.
+     * Messages sent while pumping wait for the next call.
+     * @return Number of messages delivered
+     */
+    public int pump() {
+        NetworkManager target = receiver;
+        if (target == null) {
+            return 0;
+        }
+
+        int delivered = 0;
+        for (int pending = reliableInbox.size(); pending > 0; pending--) {
+            String message = reliableInbox.poll();
+            if (message == null) {
+                break;
+            }
+            target.deliverReliable(message);
+            delivered++;
+        }
+
+        for (Integer channel : latestInbox.keySet()) {
+            String message = latestInbox.remove(channel);
+            if (message != null) {
+                target.deliverReliable(message);
+                delivered++;
+            }
+        }
+
+        long hover = hoverInbox.getAndSet(NO_HOVER);
+        if (hover != NO_HOVER) {
+            target.deliverHover((int) (hover >> 32), (int) hover);
+            delivered++;
+        }
+
+        for (int pending = unreliableInbox.size(); pending > 0; pending--) {
+            String message = unreliableInbox.poll();
+            if (message == null) {
+                break;
+            }
+            target.deliverUnreliable(message);
+            delivered++;
+        }
+        return delivered;
+    }
+
+    /**
+     * @return number of messages waiting for {@link #pump()}
+     */
+    public int getPendingCount() {
+        return reliableInbox.size() + latestInbox.size() + unreliableInbox.size() +
+               (hoverInbox.get() != NO_HOVER ? 1 : 0);
+    }
+
+    @Override
+    public boolean sendReliable(String message) {
+        if (closed || peer.closed) {
+            return false;
+        }
+        peer.reliableInbox.offer(message);
+        return true;
+    }
+
+    @Override
+    public boolean sendLatest(int channel, String message) {
+        if (closed || peer.closed) {
+            return false;
+        }
+        peer.latestInbox.put(channel, message);
+        return true;
+    }
+
+    @Override
+    public boolean sendUnreliable(String message) {
+        if (closed || peer.closed) {
+            return false;
+        }
+        peer.unreliableInbox.offer(message);
+        return true;
+    }
+
+    @Override
+    public boolean sendHover(int row, int col) {
+        if (closed || peer.closed) {
+            return false;
+        }
+        peer.hoverInbox.set(((long) row << 32) | (col & 0xFFFFFFFFL));
+        return true;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+}
@@ -0,0 +1,187 @@
+package com.batalhanaval.network;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Primary side of hot-standby replication: streams the events of the matches
+ * hosted in this process to a {@link MatchStandby} over a local socket.
+ * <p>
+ * Events are the messages an authoritative host already produces (fleets,
+ * resolved attacks, game over), numbered on one stream and written through a
+ * {@link TcpWriteBatcher}, so replicating never blocks the game. The standby
+ * acknowledges what it applied; the time from {@link #replicate} to the
+ * acknowledgement is the replication lag. A match whose event the standby
+ * rejected is no longer protected, which is logged and counted. A PING every
+ * {@link #HEARTBEAT_INTERVAL_MS} lets the standby notice a hung primary.
+ */
+public class MatchReplicator {
+
+    /** Interval between heartbeats when no events are sent */
+    public static final long HEARTBEAT_INTERVAL_MS = 200;
+
+    private static final int CONNECT_TIMEOUT_MS = 2000;
+
+    /** Send times kept for lag measurement; older unacknowledged events are not measured */
+    private static final int SEND_TIME_SLOTS = 4096;
+
+    private final String host;
+    private final int port;
+    private final Consumer<String> statusUpdater;
+    private final NetworkLog log;
+
+    private Socket socket;
+    private TcpWriteBatcher out;
+    private ExecutorService executor;
+    private volatile boolean closed = false;
+
+    // Replication state; sequence numbers start at 1
+    private long sequence = 0;
+    private volatile long acknowledged = 0;
+    private final long[] sendNanos = new long[SEND_TIME_SLOTS];
+    private final LatencyHistogram lag = new LatencyHistogram();
+    private final AtomicLong unprotected = new AtomicLong();
+
+    /**
+     * Creates a replicator; call {@link #start()} to connect.
+     * @param host Standby host, normally localhost
+     * @param port Standby port
+     * @param statusUpdater Consumer for status messages
+     */
+    public MatchReplicator(String host, int port, Consumer<String> statusUpdater) {
+        this.host = host;
+        this.port = port;
+        this.statusUpdater = statusUpdater;
+        this.log = new NetworkLog(statusUpdater);
+    }
+
+    /**
+     * Connects to the standby and starts streaming.
+     * @throws IOException If the standby cannot be reached
+     */
+    public synchronized void start() throws IOException {
+        socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MS);
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+        socket.setTcpNoDelay(true);
+
+        executor = Executors.newFixedThreadPool(3, runnable -> {
+            Thread thread = new Thread(runnable, "replicator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        out = new TcpWriteBatcher(new BufferedOutputStream(socket.getOutputStream()), statusUpdater);
+        out.start(executor);
+        InputStream in = socket.getInputStream();
+        executor.submit(() -> readAcknowledgements(in));
+        executor.submit(this::heartbeatLoop);
+        statusUpdater.accept("Replicating matches to standby on port " + port);
+    }
+
+    /**
+     * Queues an event for the standby.
+     * @param matchId Match the event belongs to
+     * @param side SPECTATOR_HOST or SPECTATOR_GUEST
+     * @param event FLEET, ATTACK_RESOLVED or GAME_OVER message
+     * @return False if the replicator is not streaming
+     */
+    public synchronized boolean replicate(String matchId, String side, String event) {
+        if (out == null || closed) {
+            return false;
+        }
+        long next = ++sequence;
+        sendNanos[(int) (next % SEND_TIME_SLOTS)] = System.nanoTime();
+        return out.enqueue(MessageProtocol.createReplicateMessage(matchId, next, side, event));
+    }
+
+    private void readAcknowledgements(InputStream in) {
+        FrameDecoder decoder = new FrameDecoder();
+        try {
+            String message;
+            while ((message = decoder.readMessage(in)) != null) {
+                if (MessageProtocol.hasCommand(message, MessageProtocol.REPLICATE_ACK)) {
+                    acknowledge(Long.parseLong(MessageProtocol.getMessageParts(message)[0]));
+                } else if (MessageProtocol.hasCommand(message, MessageProtocol.REPLICATE_REJECTED)) {
+                    String[] parts = MessageProtocol.getMessageParts(message);
+                    unprotected.incrementAndGet();
+                    statusUpdater.accept("Standby dropped " + (parts.length > 1 ? parts[1] : "a match") +
+                                         ", it will not survive a failover");
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            if (!closed) {
+                statusUpdater.accept("Replication stream failed: " + e.getMessage());
+            }
+        }
+        if (!closed) {
+            statusUpdater.accept("Standby went away, matches are no longer replicated");
+        }
+    }
+
+    private synchronized void acknowledge(long upTo) {
+        long now = System.nanoTime();
+        for (long acked = Math.max(acknowledged + 1, sequence - SEND_TIME_SLOTS + 1); acked <= upTo; acked++) {
+            lag.record(TimeUnit.NANOSECONDS.toMicros(now - sendNanos[(int) (acked % SEND_TIME_SLOTS)]));
+        }
+        acknowledged = Math.max(acknowledged, upTo);
+    }
+
+    private void heartbeatLoop() {
+        try {
+            while (!closed) {
+                out.enqueue(MessageProtocol.createPingMessage(System.nanoTime()));
+                Thread.sleep(HEARTBEAT_INTERVAL_MS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stops streaming and tells the standby the primary is shutting down on purpose,
+     * so it does not take the matches over.
+     */
+    public synchronized void close() {
+        if (closed || out == null) {
+            return;
+        }
+        out.enqueue(MessageProtocol.DISCONNECT);
+        closed = true;
+        out.close();
+        try {
+            socket.close();
+        } catch (IOException e) {
+            log.warn("Error closing replication socket: %s", e.getMessage());
+        }
+        executor.shutdownNow();
+    }
+
+    /**
+     * @return number of events not yet acknowledged by the standby
+     */
+    public synchronized long getPendingCount() {
+        return sequence - acknowledged;
+    }
+
+    /**
+     * Formats replication counters and lag for diagnostics output.
+     * @return Statistics summary
+     */
+    public synchronized String getStatistics() {
+        return String.format("Replication: sent=%d, acked=%d, unprotected=%d, lag p50=%.2f ms, p99=%.2f ms, max=%.2f ms",
+                sequence, acknowledged, unprotected.get(), lag.getValueAtPercentile(50) / 1000.0,
+                lag.getValueAtPercentile(99) / 1000.0, lag.getMax() / 1000.0);
+    }
+}
@@ -0,0 +1,87 @@
+package com.batalhanaval.network;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+
+/**
+ * A match session that survives a dropped TCP connection.
+ * The server issues the token after the handshake; a client that loses its
+ * connection may present it within {@link #GRACE_PERIOD_MS} to resume the match.
+ */
+public class MatchSession {
+
+    /** Time a dropped player has to reconnect before the match is lost */
+    public static final long GRACE_PERIOD_MS = 30000;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final String token;
+    private volatile long connectionLostAt = -1;
+
+    /**
+     * Creates a session with a known token.
+     * @param token Session token
+     */
+    public MatchSession(String token) {
+        this.token = token;
+    }
+
+    /**
+     * Creates a session with a new random token.
+     * @return New session
+     */
+    public static MatchSession create() {
+        byte[] bytes = new byte[16];
+        RANDOM.nextBytes(bytes);
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new MatchSession(new String(chars));
+    }
+
+    /**
+     * @return the session token
+     */
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * Checks a token presented by a reconnecting client.
+     * @param candidate Presented token
+     * @return True if it matches this session
+     */
+    public boolean matches(String candidate) {
+        return candidate != null && MessageDigest.isEqual(
+                token.getBytes(StandardCharsets.US_ASCII),
+                candidate.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Starts the grace window.
+     */
+    public void connectionLost() {
+        connectionLostAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Ends the grace window after a successful resume.
+     */
+    public void resumed() {
+        connectionLostAt = -1;
+    }
+
+    /**
+     * @return milliseconds left to reconnect, or 0 if the grace window is over
+     */
+    public long getRemainingGraceMs() {
+        if (connectionLostAt < 0) {
+            return GRACE_PERIOD_MS;
+        }
+        return Math.max(0, connectionLostAt + GRACE_PERIOD_MS - System.currentTimeMillis());
+    }
+}
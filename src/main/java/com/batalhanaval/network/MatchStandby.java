@@ -0,0 +1,354 @@
+package com.batalhanaval.network;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import com.batalhanaval.core.Board;
+import com.batalhanaval.core.Position;
+
+/**
+ * Standby side of hot-standby replication: keeps a live copy of every match
+ * a primary streams with {@link MatchReplicator}.
+ * <p>
+ * Each event is applied to an {@link AuthoritativeMatch} as it arrives, so
+ * the copy is always current and taking over needs no replay. Only applied
+ * events are acknowledged: an event that does not fit its copy means the copy
+ * diverged, so the match is dropped as unrecoverable and the primary is told
+ * with REPLICATE_REJECTED. A primary whose stream ends without a DISCONNECT,
+ * or stays silent for {@link #FAILOVER_TIMEOUT_MS}, is considered dead and its
+ * unfinished matches are handed to the {@link TakeoverListener}, with the
+ * session record the client needs to resume. Replication lag is measured from
+ * the send time stamped on each event (primary and standby share the host clock).
+ */
+public class MatchStandby {
+
+    /** Silence after which a primary is considered dead (three missed heartbeats) */
+    public static final long FAILOVER_TIMEOUT_MS = 3 * MatchReplicator.HEARTBEAT_INTERVAL_MS;
+
+    /**
+     * Receives the matches of a primary that died.
+     */
+    public interface TakeoverListener {
+        /**
+         * Called once per unfinished match of the dead primary.
+         * @param matchId Match identifier
+         * @param match Current state of the match
+         * @param sessionRecord SESSION record the client can resume, or null if none was replicated
+         */
+        void onTakeover(String matchId, AuthoritativeMatch match, String sessionRecord);
+    }
+
+    private final Consumer<String> statusUpdater;
+    private final NetworkLog log;
+    private final Map<String, AuthoritativeMatch> matches = new ConcurrentHashMap<>();
+    private final Map<String, String> sessionRecords = new ConcurrentHashMap<>();
+    private final Set<String> unrecoverable = ConcurrentHashMap.newKeySet();
+    private final LatencyHistogram lag = new LatencyHistogram();
+    private volatile TakeoverListener takeoverListener;
+
+    private ServerSocket serverSocket;
+    private ExecutorService executor;
+    private volatile boolean stopped = false;
+
+    // Counters (one thread per primary updates them)
+    private final AtomicLong eventsApplied = new AtomicLong();
+    private final AtomicLong eventsRejected = new AtomicLong();
+    private final AtomicLong matchesLost = new AtomicLong();
+    private final AtomicLong takeovers = new AtomicLong();
+    private volatile long lastDetectionMs = -1;
+
+    /**
+     * Creates a standby.
+     * @param statusUpdater Consumer for status messages
+     */
+    public MatchStandby(Consumer<String> statusUpdater) {
+        this.statusUpdater = statusUpdater;
+        this.log = new NetworkLog(statusUpdater);
+    }
+
+    /**
+     * Sets the listener that takes over the matches of a dead primary.
+     * @param listener Listener, or null to only keep the state
+     */
+    public void setTakeoverListener(TakeoverListener listener) {
+        this.takeoverListener = listener;
+    }
+
+    /**
+     * Starts accepting primaries on a loopback port.
+     * @param port Port to listen on, or 0 for any free port
+     * @throws IOException If the port cannot be opened
+     */
+    public synchronized void start(int port) throws IOException {
+        serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "standby");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.submit(this::acceptLoop);
+        statusUpdater.accept("Standby listening on port " + getPort());
+    }
+
+    /**
+     * @return port the standby listens on
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    private void acceptLoop() {
+        try {
+            while (!stopped) {
+                Socket primary = serverSocket.accept();
+                executor.submit(() -> serve(primary));
+            }
+        } catch (IOException e) {
+            if (!stopped) {
+                statusUpdater.accept("Standby stopped accepting: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Applies the stream of one primary and takes its matches over if it dies.
+     */
+    private void serve(Socket primary) {
+        Set<String> owned = new HashSet<>();
+        long lastFrameNanos = System.nanoTime();
+        boolean cleanShutdown = false;
+        TcpWriteBatcher acks = null;
+        try {
+            primary.setSoTimeout((int) FAILOVER_TIMEOUT_MS);
+            primary.setTcpNoDelay(true);
+            acks = new TcpWriteBatcher(new BufferedOutputStream(primary.getOutputStream()), statusUpdater);
+            acks.start(executor);
+            InputStream in = primary.getInputStream();
+            FrameDecoder decoder = new FrameDecoder();
+
+            String message;
+            while ((message = decoder.readMessage(in)) != null) {
+                lastFrameNanos = System.nanoTime();
+                if (MessageProtocol.hasCommand(message, MessageProtocol.DISCONNECT)) {
+                    cleanShutdown = true;
+                    break;
+                }
+                if (MessageProtocol.hasCommand(message, MessageProtocol.REPLICATE)) {
+                    String reply = apply(message, owned);
+                    if (reply != null) {
+                        acks.enqueue(reply);
+                    }
+                }
+                // PINGs only keep the stream alive
+            }
+        } catch (SocketTimeoutException e) {
+            statusUpdater.accept("Primary silent for " + FAILOVER_TIMEOUT_MS + " ms");
+        } catch (IOException e) {
+            if (stopped) {
+                return;
+            }
+        } finally {
+            if (acks != null) {
+                acks.close();
+            }
+            try {
+                primary.close();
+            } catch (IOException e) {
+                log.warn("Error closing primary connection: %s", e.getMessage());
+            }
+        }
+
+        if (cleanShutdown || stopped) {
+            owned.forEach(this::forget);
+            return;
+        }
+        lastDetectionMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastFrameNanos);
+        takeOver(owned);
+    }
+
+    /**
+     * Applies one REPLICATE message to its match.
+     * @return REPLICATE_ACK if it was applied, REPLICATE_REJECTED if its match was dropped
+     *         because of it, or null if the message is malformed or the match was dropped before
+     */
+    private String apply(String message, Set<String> owned) {
+        String[] parts = message.split(MessageProtocol.SEPARATOR, 6);
+        long sequence;
+        try {
+            sequence = parts.length == 6 ? Long.parseLong(parts[2]) : -1;
+            if (sequence > 0) {
+                lag.record(TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis() - Long.parseLong(parts[3])));
+            }
+        } catch (NumberFormatException e) {
+            sequence = -1;
+        }
+        if (sequence <= 0) {
+            eventsRejected.incrementAndGet();
+            return null;
+        }
+
+        String matchId = parts[1];
+        boolean host = parts[4].equals(MessageProtocol.SPECTATOR_HOST);
+        String event = parts[5];
+        if (unrecoverable.contains(matchId)) {
+            eventsRejected.incrementAndGet();
+            if (MessageProtocol.hasCommand(event, MessageProtocol.GAME_OVER)) {
+                unrecoverable.remove(matchId); // No more events for it
+            }
+            return null;
+        }
+
+        boolean applied;
+        try {
+            applied = applyEvent(matchId, host, event);
+        } catch (NumberFormatException e) {
+            applied = false;
+        }
+        if (!applied) {
+            eventsRejected.incrementAndGet();
+            matchesLost.incrementAndGet();
+            forget(matchId);
+            unrecoverable.add(matchId);
+            statusUpdater.accept("Dropped diverged copy of " + matchId + " at event " + sequence + ": " + event);
+            return MessageProtocol.REPLICATE_REJECTED + MessageProtocol.SEPARATOR + sequence +
+                   MessageProtocol.SEPARATOR + matchId;
+        }
+        owned.add(matchId);
+        eventsApplied.incrementAndGet();
+        return MessageProtocol.REPLICATE_ACK + MessageProtocol.SEPARATOR + sequence;
+    }
+
+    /**
+     * Drops everything kept about a match.
+     */
+    private void forget(String matchId) {
+        matches.remove(matchId);
+        sessionRecords.remove(matchId);
+    }
+
+    /**
+     * Replays one event on the standby copy, the same way the primary applied it.
+     * @return False if the event does not fit the match
+     */
+    private boolean applyEvent(String matchId, boolean host, String event) {
+        AuthoritativeMatch match = matches.get(matchId);
+        if (MessageProtocol.hasCommand(event, MessageProtocol.FLEET)) {
+            if (host) {
+                Board fleet = AuthoritativeMatch.parseFleet(event);
+                if (fleet == null || match != null) {
+                    return false;
+                }
+                matches.put(matchId, new AuthoritativeMatch(fleet));
+                return true;
+            }
+            return match != null && match.placeGuestFleet(event) && match.start();
+        }
+        if (match == null) {
+            return false;
+        }
+        if (MessageProtocol.hasCommand(event, MessageProtocol.SESSION)) {
+            if (!host || MessageProtocol.getMessageParts(event).length != 4) {
+                return false;
+            }
+            sessionRecords.put(matchId, event);
+            return true;
+        }
+        if (MessageProtocol.hasCommand(event, MessageProtocol.GAME_OVER)) {
+            // Sent by the host, WINNER if it won; the copy must have come to the same end
+            boolean hostWon = event.endsWith(MessageProtocol.SEPARATOR + MessageProtocol.WINNER);
+            if (!match.isOver() || match.hasHostWon() != hostWon) {
+                return false;
+            }
+            forget(matchId); // Nothing left to take over
+            return true;
+        }
+        if (MessageProtocol.hasCommand(event, MessageProtocol.ATTACK_RESOLVED)) {
+            String[] parts = MessageProtocol.getMessageParts(event);
+            String[] coordinates = parts.length > 2 ? parts[2].split(MessageProtocol.COORD_SEPARATOR) : new String[0];
+            if (coordinates.length != 2) {
+                return false;
+            }
+            Position position = new Position(Integer.parseInt(coordinates[0]), Integer.parseInt(coordinates[1]));
+            String result = host ? match.resolveHostAttack(position) : match.resolveGuestAttack(position);
+            return parts[1].equals(result);
+        }
+        return false;
+    }
+
+    private void takeOver(Set<String> owned) {
+        int count = 0;
+        for (String matchId : owned) {
+            AuthoritativeMatch match = matches.remove(matchId);
+            String sessionRecord = sessionRecords.remove(matchId);
+            if (match == null) {
+                continue; // Finished before the primary died
+            }
+            count++;
+            takeovers.incrementAndGet();
+            TakeoverListener listener = takeoverListener;
+            if (listener != null) {
+                listener.onTakeover(matchId, match, sessionRecord);
+            }
+        }
+        statusUpdater.accept("Primary lost (detected " + lastDetectionMs + " ms after its last frame), took over " +
+                             count + " matches");
+    }
+
+    /**
+     * Gets the standby copy of a match.
+     * @param matchId Match identifier
+     * @return Current state, or null if the match is unknown or finished
+     */
+    public AuthoritativeMatch getMatch(String matchId) {
+        return matches.get(matchId);
+    }
+
+    /**
+     * @return number of unfinished matches replicated to this standby
+     */
+    public int getMatchCount() {
+        return matches.size();
+    }
+
+    /**
+     * Formats replication counters and lag for diagnostics output.
+     * @return Statistics summary
+     */
+    public String getStatistics() {
+        return String.format("Standby: matches=%d, applied=%d, rejected=%d, lost=%d, takeovers=%d, " +
+                             "lag p50=%.1f ms, p99=%.1f ms, max=%.1f ms",
+                matches.size(), eventsApplied.get(), eventsRejected.get(), matchesLost.get(), takeovers.get(),
+                lag.getValueAtPercentile(50) / 1000.0, lag.getValueAtPercentile(99) / 1000.0, lag.getMax() / 1000.0);
+    }
+
+    /**
+     * Stops the standby; matches are dropped without a takeover.
+     */
+    public synchronized void stop() {
+        stopped = true;
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+        } catch (IOException e) {
+            log.warn("Error closing standby socket: %s", e.getMessage());
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
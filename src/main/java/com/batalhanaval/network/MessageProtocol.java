@@ -1,5 +1,12 @@
 package com.batalhanaval.network;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import com.batalhanaval.core.Position;
+import com.batalhanaval.core.Ship;
+
 /**
  * Protocol definitions for network communication in multiplayer Battleship.
  * Defines message formats for both TCP (game moves) and UDP (hover/notifications).
@@ -17,7 +24,7 @@ public class MessageProtocol {
     /** Attack command: ATTACK:row,col */
     public static final String ATTACK = "ATTACK";
     
-    /** Attack result: ATTACK_RESULT:HIT|MISS|SUNK:row,col */
+    /** Attack result: ATTACK_RESULT:HIT|MISS|SUNK:row,col, SUNK optionally followed by :shipName */
     public static final String ATTACK_RESULT = "ATTACK_RESULT";
     
     /** End of current player's turn */
@@ -32,17 +39,132 @@ public class MessageProtocol {
     /** Player surrendered */
     public static final String SURRENDER = "SURRENDER";
     
+    // ===== HANDSHAKE MESSAGES (Connection Setup) =====
+    
+    /** Client greeting: HELLO:port:version:capabilities (a bare HELLO:port is version 1) */
+    public static final String HELLO = "HELLO";
+    
+    /** Server UDP port, acknowledges HELLO: UDP_PORT:port:version:capabilities as negotiated */
+    public static final String UDP_PORT = "UDP_PORT";
+    
+    /** Legacy client UDP port announcement, treated as HELLO: CLIENT_UDP_PORT:port */
+    public static final String CLIENT_UDP_PORT = "CLIENT_UDP_PORT";
+    
+    /** UDP reachability probe: PROBE:attempt */
+    public static final String PROBE = "PROBE";
+    
+    /** Acknowledgement of a UDP probe: PROBE_ACK:attempt */
+    public static final String PROBE_ACK = "PROBE_ACK";
+    
+    /** Handshake complete: LINK_READY:UDP|TCP_ONLY */
+    public static final String LINK_READY = "LINK_READY";
+    
+    /** LINK_READY value when UDP was confirmed */
+    public static final String LINK_UDP = "UDP";
+    
+    /** LINK_READY value when UDP probes went unanswered */
+    public static final String LINK_TCP_ONLY = "TCP_ONLY";
+    
+    // ===== SESSION MESSAGES (Reconnection) =====
+    
+    /** Session token issued by the server after the handshake: SESSION:token */
+    public static final String SESSION = "SESSION";
+    
+    /** Reconnecting client presents its token and UDP port: RESUME:token:port */
+    public static final String RESUME = "RESUME";
+    
+    /** Server accepted the resume */
+    public static final String RESUME_OK = "RESUME_OK";
+    
+    /** Server rejected the resume (unknown token or grace window over) */
+    public static final String RESUME_REJECTED = "RESUME_REJECTED";
+    
+    /** State snapshot exchanged after a resume, see SessionSnapshot */
+    public static final String RESYNC = "RESYNC";
+    
+    // ===== ROUTING MESSAGES (Sharded Servers) =====
+    
+    /**
+     * First frame on a connection through a MatchRouter: ROUTE:matchId from the client,
+     * passed on to the worker as ROUTE:matchId:clientAddress
+     */
+    public static final String ROUTE = "ROUTE";
+    
+    // ===== REPLICATION MESSAGES (Primary to Standby) =====
+    
+    /** Match event for the standby: REPLICATE:matchId:sequence:sentMillis:HOST|GUEST:event */
+    public static final String REPLICATE = "REPLICATE";
+    
+    /** Standby applied every event up to a sequence number: REPLICATE_ACK:sequence */
+    public static final String REPLICATE_ACK = "REPLICATE_ACK";
+    
+    /** Standby could not apply an event and dropped its match: REPLICATE_REJECTED:sequence:matchId */
+    public static final String REPLICATE_REJECTED = "REPLICATE_REJECTED";
+    
+    // ===== AUTHORITATIVE MODE MESSAGES (Server Resolves Attacks) =====
+    
+    /** Host announces how the match is played: MODE:AUTHORITATIVE */
+    public static final String MODE = "MODE";
+    
+    /** MODE value: the host holds both fleets and resolves every attack */
+    public static final String AUTHORITATIVE = "AUTHORITATIVE";
+    
+    /** Guest fleet for the host, one entry per ship: FLEET:name,row,col,H|V:... */
+    public static final String FLEET = "FLEET";
+    
+    /** Host refused the guest fleet (incomplete or illegally placed) */
+    public static final String FLEET_REJECTED = "FLEET_REJECTED";
+    
+    /** Attack resolved by the host: ATTACK_RESOLVED:HOST|GUEST:HIT|MISS|SUNK:row,col[:shipName] */
+    public static final String ATTACK_RESOLVED = "ATTACK_RESOLVED";
+    
+    /** Ship orientation in a FLEET message */
+    public static final String VERTICAL = "V";
+    
+    /** Ship orientation in a FLEET message */
+    public static final String HORIZONTAL = "H";
+    
+    // ===== DISCOVERY MESSAGES (LAN Broadcast) =====
+    
+    /** Client asks hosts on the network to announce themselves */
+    public static final String DISCOVER = "DISCOVER";
+    
+    /** Host announces an open game: ANNOUNCE:name:tcpPort:udpPort */
+    public static final String ANNOUNCE = "ANNOUNCE";
+    
+    /** Host no longer has an open game: WITHDRAW:tcpPort */
+    public static final String WITHDRAW = "WITHDRAW";
+    
+    // ===== SPECTATOR MESSAGES (Broadcast) =====
+    
+    /** Prefix of events sent by the hosting player */
+    public static final String SPECTATOR_HOST = "HOST";
+    
+    /** Prefix of events sent by the joining player */
+    public static final String SPECTATOR_GUEST = "GUEST";
+    
+    /** Events dropped for a slow spectator: SKIPPED:count */
+    public static final String SPECTATOR_SKIPPED = "SKIPPED";
+    
     // ===== UDP MESSAGES (Real-time Updates) =====
     
     /** Hover position: HOVER:row,col or HOVER:null */
     public static final String HOVER = "HOVER";
     
-    /** Ping for connection testing */
+    /** Ping for connection testing: PING or PING:timestamp (heartbeat) */
     public static final String PING = "PING";
     
-    /** Pong response to ping */
+    /** Pong response to ping: PONG or PONG:timestamp echoed from the PING */
     public static final String PONG = "PONG";
     
+    // ===== PROTOCOL VERSIONS =====
+    
+    /** Version spoken by this build */
+    public static final int PROTOCOL_VERSION = 2;
+    
+    /** Version of a peer whose HELLO carries no version */
+    public static final int LEGACY_PROTOCOL_VERSION = 1;
+    
     // ===== MESSAGE SEPARATORS =====
     
     /** Separator for message parts */
@@ -54,6 +176,15 @@ public class MessageProtocol {
     /** Null value indicator */
     public static final String NULL_VALUE = "null";
     
+    /** Separator between a UDP sequence number and its message: 42|HOVER:7,3 */
+    public static final String SEQUENCE_SEPARATOR = "|";
+    
+    /** Prefix of a message for another match on the same connection: #channel:message */
+    public static final String CHANNEL_PREFIX = "#";
+    
+    /** Channel of the connection's own match, whose messages carry no prefix */
+    public static final int DEFAULT_CHANNEL = 0;
+    
     // ===== GAME STATES =====
     
     /** Player goes first */
@@ -81,6 +212,96 @@ public class MessageProtocol {
     
     // ===== UTILITY METHODS =====
     
+    /**
+     * Creates the client greeting.
+     * @param udpPort Client UDP port
+     * @param capabilities Capabilities the client offers
+     * @return Formatted HELLO message
+     */
+    public static String createHelloMessage(int udpPort, Set<ProtocolCapability> capabilities) {
+        return HELLO + SEPARATOR + udpPort + SEPARATOR + PROTOCOL_VERSION +
+               SEPARATOR + ProtocolCapability.encode(capabilities);
+    }
+    
+    /**
+     * Creates the frame that tells a MatchRouter which match a connection belongs to.
+     * @param matchId Match identifier; connections with the same id reach the same worker
+     * @return Formatted ROUTE message
+     */
+    public static String createRouteMessage(String matchId) {
+        return ROUTE + SEPARATOR + matchId;
+    }
+    
+    /**
+     * Creates the ROUTE frame a MatchRouter passes on to the worker, which cannot see the client.
+     * @param matchId Match identifier
+     * @param clientAddress Address of the client, for UDP
+     * @return Formatted ROUTE message
+     */
+    public static String createRouteMessage(String matchId, String clientAddress) {
+        return ROUTE + SEPARATOR + matchId + SEPARATOR + clientAddress;
+    }
+    
+    /**
+     * Splits a ROUTE frame. The client address may contain separators (IPv6), the match id may not.
+     * @param message Received message
+     * @return match id, followed by the client address if the router added one,
+     *         or null if the message is not a ROUTE frame with a match id
+     */
+    public static String[] parseRouteMessage(String message) {
+        if (!hasCommand(message, ROUTE)) {
+            return null;
+        }
+        String[] parts = message.split(SEPARATOR, 3);
+        if (parts.length < 2 || parts[1].isEmpty()) {
+            return null;
+        }
+        return Arrays.copyOfRange(parts, 1, parts.length);
+    }
+    
+    /**
+     * Creates the record of a hosted session that a standby needs to resume it:
+     * SESSION:token:version:capabilities:UDP|TCP_ONLY.
+     * @param token Session token issued to the client
+     * @param version Negotiated protocol version
+     * @param capabilities Negotiated capabilities
+     * @param udpAvailable True if UDP was confirmed in both directions
+     * @return Formatted SESSION message
+     */
+    public static String createSessionRecord(String token, int version, Set<ProtocolCapability> capabilities,
+                                             boolean udpAvailable) {
+        return SESSION + SEPARATOR + token + SEPARATOR + version + SEPARATOR +
+               ProtocolCapability.encode(capabilities) + SEPARATOR + (udpAvailable ? LINK_UDP : LINK_TCP_ONLY);
+    }
+    
+    /**
+     * Creates a replicated match event.
+     * @param matchId Match identifier, without separators
+     * @param sequence Sequence number on the replication stream
+     * @param side SPECTATOR_HOST or SPECTATOR_GUEST, whose fleet or attack the event is about
+     * @param event FLEET, SESSION, ATTACK_RESOLVED or GAME_OVER message
+     * @return Formatted REPLICATE message
+     */
+    public static String createReplicateMessage(String matchId, long sequence, String side, String event) {
+        return REPLICATE + SEPARATOR + matchId + SEPARATOR + sequence + SEPARATOR +
+               System.currentTimeMillis() + SEPARATOR + side + SEPARATOR + event;
+    }
+    
+    /**
+     * Creates the server reply to a HELLO.
+     * @param udpPort Server UDP port
+     * @param version Negotiated version; version 1 clients get the bare UDP_PORT:port
+     * @param capabilities Negotiated capabilities
+     * @return Formatted UDP_PORT message
+     */
+    public static String createUdpPortMessage(int udpPort, int version, Set<ProtocolCapability> capabilities) {
+        if (version <= LEGACY_PROTOCOL_VERSION) {
+            return UDP_PORT + SEPARATOR + udpPort;
+        }
+        return UDP_PORT + SEPARATOR + udpPort + SEPARATOR + version +
+               SEPARATOR + ProtocolCapability.encode(capabilities);
+    }
+    
     /**
      * Creates an attack message.
      * @param row Row coordinate (0-9)
@@ -102,6 +323,55 @@ public class MessageProtocol {
         return ATTACK_RESULT + SEPARATOR + result + SEPARATOR + row + COORD_SEPARATOR + col;
     }
     
+    /**
+     * Creates an attack result message naming the ship that was sunk.
+     * @param result HIT, MISS, or SUNK
+     * @param row Row coordinate
+     * @param col Column coordinate
+     * @param sunkShip Name of the sunk ship, or null
+     * @return Formatted attack result message
+     */
+    public static String createAttackResultMessage(String result, int row, int col, String sunkShip) {
+        return appendSunkShip(createAttackResultMessage(result, row, col), result, sunkShip);
+    }
+    
+    private static String appendSunkShip(String message, String result, String sunkShip) {
+        if (sunkShip == null || !result.equals(SUNK)) {
+            return message;
+        }
+        return message + SEPARATOR + sunkShip;
+    }
+    
+    /**
+     * Creates the message carrying a fleet to the host of an authoritative match.
+     * Each ship is named, since ships of the same size cannot be told apart otherwise.
+     * @param ships Placed ships
+     * @return Formatted fleet message
+     */
+    public static String createFleetMessage(List<Ship> ships) {
+        StringBuilder message = new StringBuilder(FLEET);
+        for (Ship ship : ships) {
+            Position start = ship.getPositions().get(0);
+            message.append(SEPARATOR).append(ship.getName()).append(COORD_SEPARATOR).append(start.getRow()).append(COORD_SEPARATOR).append(start.getCol())
+                   .append(COORD_SEPARATOR).append(ship.isVertical() ? VERTICAL : HORIZONTAL);
+        }
+        return message.toString();
+    }
+    
+    /**
+     * Creates the message pushing an attack resolved by the host.
+     * @param attacker SPECTATOR_HOST or SPECTATOR_GUEST
+     * @param result HIT, MISS, or SUNK
+     * @param row Row coordinate
+     * @param col Column coordinate
+     * @param sunkShip Name of the sunk ship, or null
+     * @return Formatted resolved attack message
+     */
+    public static String createAttackResolvedMessage(String attacker, String result, int row, int col, String sunkShip) {
+        return appendSunkShip(ATTACK_RESOLVED + SEPARATOR + attacker + SEPARATOR + result + SEPARATOR +
+                              row + COORD_SEPARATOR + col, result, sunkShip);
+    }
+    
     /**
      * Creates a hover message.
      * @param row Row coordinate (0-9) or -1 for null
@@ -115,6 +385,37 @@ public class MessageProtocol {
         return HOVER + SEPARATOR + row + COORD_SEPARATOR + col;
     }
     
+    /**
+     * Creates a heartbeat ping carrying the sender's timestamp.
+     * @param timestampNanos Sender's System.nanoTime()
+     * @return Formatted ping message
+     */
+    public static String createPingMessage(long timestampNanos) {
+        return PING + SEPARATOR + timestampNanos;
+    }
+    
+    /**
+     * Creates the pong answering a heartbeat ping.
+     * @param pingMessage Received ping message
+     * @return Pong echoing the ping timestamp
+     */
+    public static String createPongMessage(String pingMessage) {
+        return PONG + pingMessage.substring(PING.length());
+    }
+    
+    /**
+     * Parses the timestamp of a heartbeat PING or PONG.
+     * @param value Timestamp part of the message
+     * @return Timestamp or -1 if invalid
+     */
+    public static long parseTimestamp(String value) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+    
     /**
      * Creates a game start message.
      * @param isFirstPlayer True if this player goes first
@@ -133,6 +434,57 @@ public class MessageProtocol {
         return GAME_OVER + SEPARATOR + (isWinner ? WINNER : LOSER);
     }
     
+    /**
+     * Tags a message with the channel of its match.
+     * @param channel Channel id
+     * @param message Message to send
+     * @return #channel:message, or the message itself on the default channel
+     */
+    public static String createChannelMessage(int channel, String message) {
+        if (channel == DEFAULT_CHANNEL) {
+            return message;
+        }
+        return CHANNEL_PREFIX + channel + SEPARATOR + message;
+    }
+    
+    /**
+     * Gets the channel a message belongs to.
+     * @param message Received message
+     * @return Channel id, DEFAULT_CHANNEL if the message has no prefix, or -1 if the prefix is malformed
+     */
+    public static int getChannel(String message) {
+        if (message == null || !message.startsWith(CHANNEL_PREFIX)) {
+            return DEFAULT_CHANNEL;
+        }
+        
+        int separator = message.indexOf(SEPARATOR);
+        if (separator <= CHANNEL_PREFIX.length() || separator > 10) {
+            return -1;
+        }
+        
+        int channel = 0;
+        for (int i = CHANNEL_PREFIX.length(); i < separator; i++) {
+            char c = message.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            channel = channel * 10 + (c - '0');
+        }
+        return channel;
+    }
+    
+    /**
+     * Removes the channel prefix from a message.
+     * @param message Received message
+     * @return Message without the prefix
+     */
+    public static String stripChannel(String message) {
+        if (message == null || !message.startsWith(CHANNEL_PREFIX)) {
+            return message;
+        }
+        return message.substring(message.indexOf(SEPARATOR) + 1);
+    }
+    
     /**
      * Parses coordinates from a message part.
      * @param coordString String in format "row,col"
@@ -177,12 +529,15 @@ public class MessageProtocol {
         // Validate based on command type
         switch (command) {
             case READY_TO_START:
+            case FLEET_REJECTED:
             case TURN_END:
             case DISCONNECT:
             case SURRENDER:
+                return parts.length == 1;
+                
             case PING:
             case PONG:
-                return parts.length == 1;
+                return parts.length == 1 || (parts.length == 2 && parseTimestamp(parts[1]) >= 0);
                 
             case GAME_START:
                 return parts.length == 2 && 
@@ -196,19 +551,93 @@ public class MessageProtocol {
                 return parts.length == 2 && parseCoordinates(parts[1]) != null;
                 
             case ATTACK_RESULT:
-                return parts.length == 3 && 
+                return (parts.length == 3 || (parts.length == 4 && parts[1].equals(SUNK))) && 
                        (parts[1].equals(HIT) || parts[1].equals(MISS) || parts[1].equals(SUNK)) &&
                        parseCoordinates(parts[2]) != null;
                        
+            case MODE:
+                return parts.length == 2 && parts[1].equals(AUTHORITATIVE);
+                
+            case FLEET:
+                return parts.length > 1;
+                
+            case ATTACK_RESOLVED:
+                return (parts.length == 4 || (parts.length == 5 && parts[2].equals(SUNK))) &&
+                       (parts[1].equals(SPECTATOR_HOST) || parts[1].equals(SPECTATOR_GUEST)) &&
+                       (parts[2].equals(HIT) || parts[2].equals(MISS) || parts[2].equals(SUNK)) &&
+                       parseCoordinates(parts[3]) != null;
+                       
             case HOVER:
                 return parts.length == 2 && 
                        (parts[1].equals(NULL_VALUE) || parseCoordinates(parts[1]) != null);
                        
+            case RESYNC:
+                return SessionSnapshot.decode(message) != null;
+                       
             default:
                 return false;
         }
     }
     
+    /**
+     * Checks if a TCP message must be flushed immediately instead of waiting for the next tick.
+     * Covers moves, results, game end, handshake steps and heartbeats (so RTT is not
+     * inflated by batching).
+     * @param message Message to check
+     * @return True if the message is latency-critical
+     */
+    public static boolean isLatencyCritical(String message) {
+        message = stripChannel(message); // Multiplexed matches are as urgent as the main one
+        return hasCommand(message, PING) ||
+               hasCommand(message, PONG) ||
+               hasCommand(message, ATTACK_RESULT) ||
+               hasCommand(message, ATTACK_RESOLVED) ||
+               hasCommand(message, ATTACK) ||
+               hasCommand(message, FLEET) ||
+               hasCommand(message, GAME_START) ||
+               hasCommand(message, GAME_OVER) ||
+               hasCommand(message, SURRENDER) ||
+               hasCommand(message, DISCONNECT) ||
+               hasCommand(message, HELLO) ||
+               hasCommand(message, UDP_PORT) ||
+               hasCommand(message, LINK_READY) ||
+               hasCommand(message, RESUME) ||
+               hasCommand(message, RESYNC);
+    }
+    
+    /**
+     * Checks if a message is part of the match that spectators may watch.
+     * Connection control (handshake, heartbeat, session tokens) is never broadcast,
+     * neither are fleets.
+     * @param message Message to check
+     * @return True if the message is a game event
+     */
+    public static boolean isSpectatorEvent(String message) {
+        return hasCommand(message, ATTACK) ||
+               hasCommand(message, ATTACK_RESULT) ||
+               hasCommand(message, ATTACK_RESOLVED) ||
+               hasCommand(message, READY_TO_START) ||
+               hasCommand(message, GAME_START) ||
+               hasCommand(message, TURN_END) ||
+               hasCommand(message, GAME_OVER) ||
+               hasCommand(message, SURRENDER) ||
+               hasCommand(message, DISCONNECT);
+    }
+    
+    /**
+     * Checks the command of a message without splitting it.
+     * @param message Message to check
+     * @param command Expected command
+     * @return True if the message starts with the command followed by a separator or the end
+     */
+    public static boolean hasCommand(String message, String command) {
+        if (message == null || !message.startsWith(command)) {
+            return false;
+        }
+        return message.length() == command.length() ||
+               message.startsWith(SEPARATOR, command.length());
+    }
+    
     /**
      * Gets the command type from a message.
      * @param message Message to parse
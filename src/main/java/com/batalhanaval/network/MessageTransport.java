@@ -0,0 +1,60 @@
+package com.batalhanaval.network;
+
+/**
+ * Outgoing side of a connection to the opponent.
+ * {@link NetworkManager} sends through a transport: its sockets by default,
+ * or an in-process {@link LoopbackTransport} for tests, bots and benchmarks.
+ */
+public interface MessageTransport {
+
+    /**
+     * Sends a message that must arrive, in order (TCP semantics).
+     * @param message Message to send
+     * @return True if the message was accepted for delivery
+     */
+    boolean sendReliable(String message);
+
+    /**
+     * Sends a message that a newer one supersedes, e.g. a hover relayed over TCP.
+     * It must not delay reliable messages; an unsent one may be replaced by the
+     * next one of the same channel.
+     * @param channel Channel the message belongs to; each channel keeps its own latest message
+     * @param message Message to send
+     * @return True if the message was accepted for delivery
+     */
+    default boolean sendLatest(int channel, String message) {
+        return sendReliable(message);
+    }
+
+    /**
+     * Sends a message that may be lost (UDP semantics).
+     * @param message Message to send
+     * @return True if the message was sent
+     */
+    boolean sendUnreliable(String message);
+
+    /**
+     * Sends a hover position, which may be lost or superseded.
+     * @param row Row coordinate or -1 to clear the hover
+     * @param col Column coordinate or -1 to clear the hover
+     * @return True if the hover was sent
+     */
+    boolean sendHover(int row, int col);
+
+    /**
+     * Sends several hover samples taken since the last send, oldest first.
+     * Transports that cannot batch send only the latest, which supersedes the others.
+     * @param rows Row of each sample, -1 for a cleared hover
+     * @param cols Column of each sample, -1 for a cleared hover
+     * @param count Number of samples
+     * @return True if the samples were sent
+     */
+    default boolean sendHovers(int[] rows, int[] cols, int count) {
+        return count > 0 && sendHover(rows[count - 1], cols[count - 1]);
+    }
+
+    /**
+     * Releases the transport; later sends fail.
+     */
+    void close();
+}
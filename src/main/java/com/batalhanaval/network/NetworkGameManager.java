@@ -1,7 +1,15 @@
 package com.batalhanaval.network;
 
+import com.batalhanaval.Constants;
+import com.batalhanaval.core.Board;
+import com.batalhanaval.core.Position;
 import com.batalhanaval.ui.MultiplayerGamePanel;
+import java.util.BitSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
+import javax.swing.SwingUtilities;
 
 /**
  * Manages the coordination between NetworkManager and MultiplayerGamePanel.
@@ -9,29 +17,74 @@ import java.util.function.Consumer;
  */
 public class NetworkGameManager {
     
+    /** Extra time the opponent gets beyond the turn limit, for its own timeout shot to arrive */
+    private static final long OPPONENT_TURN_SLACK_MS = 5000;
+    
+    /** Turns in a row the local player may let expire before forfeiting */
+    private static final int MAX_MISSED_TURNS = 3;
+    
     private NetworkManager networkManager;
     private MultiplayerGamePanel gamePanel;
     private NetworkMessageHandler messageHandler;
+    private final GameEventDispatcher dispatcher = new GameEventDispatcher();
     private Consumer<String> statusUpdater;
+    private Supplier<SessionSnapshot> snapshotProvider;
+    private final InboundMessageQueue inbound;
     
     private boolean bothPlayersReady = false;
     private boolean opponentReady = false;
     private boolean playerReady = false;
     
+    // Server-authoritative mode: the host holds both fleets and resolves every attack
+    private boolean authoritative = false;
+    private AuthoritativeMatch match;
+    private Board localFleet;
+    
+    // Hot standby of a hosted authoritative match
+    private MatchReplicator replicator;
+    private String matchId;
+    
+    // Turn deadlines, off unless a limit is set; guarded by turnLock
+    private final Executor consumer;
+    private final Object turnLock = new Object();
+    private TimerWheel timers;
+    private long turnTimeLimitMs = 0;
+    private boolean turnsStarted = false;
+    private boolean turnsRunning = false;
+    private boolean localTurn = false;
+    private long turnGeneration = 0;
+    private TimerWheel.Timeout turnTimer;
+    private int missedTurns = 0;
+    private final BitSet attackedCells = new BitSet(Constants.BOARD_SIZE * Constants.BOARD_SIZE);
+    
     /**
      * Constructor for NetworkGameManager.
      * @param networkManager Network manager for communication
      * @param statusUpdater Consumer for status updates
      */
     public NetworkGameManager(NetworkManager networkManager, Consumer<String> statusUpdater) {
+        this(networkManager, statusUpdater, SwingUtilities::invokeLater);
+    }
+    
+    /**
+     * Constructor for NetworkGameManager with a custom consumer thread.
+     * @param networkManager Network manager for communication
+     * @param statusUpdater Consumer for status updates
+     * @param consumer Single-threaded executor that handles received messages (the EDT by default)
+     */
+    public NetworkGameManager(NetworkManager networkManager, Consumer<String> statusUpdater, Executor consumer) {
         this.networkManager = networkManager;
         this.statusUpdater = statusUpdater;
+        this.consumer = consumer;
         
         // Create message handler
         this.messageHandler = new NetworkMessageHandler(statusUpdater);
         
         // Set up message processing
         setupMessageProcessing();
+        
+        // Received messages touch the boards and Swing, so they are handled on the consumer thread
+        this.inbound = new InboundMessageQueue(consumer, messageHandler::processHover, messageHandler::processUdpMessage);
     }
     
     /**
@@ -39,95 +92,182 @@ public class NetworkGameManager {
      * @param gamePanel Multiplayer game panel
      */
     public void setGamePanel(MultiplayerGamePanel gamePanel) {
+        if (this.gamePanel != null) {
+            dispatcher.removeGameListener(this.gamePanel);
+            dispatcher.removeHoverListener(this.gamePanel);
+        }
         this.gamePanel = gamePanel;
         
-        // Connect the game panel's message handler with network processing
+        // Decoded events go straight to the panel, no re-encoding
         if (gamePanel != null) {
-            NetworkMessageHandler gamePanelHandler = gamePanel.getMessageHandler();
+            dispatcher.addGameListener(gamePanel);
+            dispatcher.addHoverListener(gamePanel);
+        }
+        setSnapshotProvider(gamePanel != null ? gamePanel::captureSnapshot : null);
+    }
+    
+    /**
+     * Sets the source of the local match state sent after a session resume.
+     * @param snapshotProvider Supplier of snapshots, or null if there is no match to resync
+     */
+    public void setSnapshotProvider(Supplier<SessionSnapshot> snapshotProvider) {
+        this.snapshotProvider = snapshotProvider;
+    }
+    
+    /**
+     * Sets up message processing: the handler decodes each message once and
+     * hands typed events to the dispatcher after local bookkeeping.
+     */
+    private void setupMessageProcessing() {
+        messageHandler.setGameMessageListener(new NetworkMessageHandler.GameMessageListener() {
+            @Override
+            public void onReadyToStart() {
+                opponentReady = true;
+                dispatcher.onReadyToStart();
+                checkBothPlayersReady();
+            }
             
-            // Set up listeners to forward messages to game panel
-            messageHandler.setGameMessageListener(new NetworkMessageHandler.GameMessageListener() {
-                @Override
-                public void onReadyToStart() {
-                    opponentReady = true;
-                    checkBothPlayersReady();
-                    gamePanelHandler.processTcpMessage(MessageProtocol.READY_TO_START);
+            @Override
+            public void onGameStart(boolean isFirstPlayer) {
+                if (forgedByGuest(MessageProtocol.GAME_START)) {
+                    return;
                 }
-                
-                @Override
-                public void onGameStart(boolean isFirstPlayer) {
-                    String message = MessageProtocol.createGameStartMessage(isFirstPlayer);
-                    gamePanelHandler.processTcpMessage(message);
+                if (authoritative) {
+                    bothPlayersReady = true; // Only the host starts an authoritative match
                 }
-                
-                @Override
-                public void onAttackReceived(int row, int col) {
-                    String message = MessageProtocol.createAttackMessage(row, col);
-                    gamePanelHandler.processTcpMessage(message);
+                startTurns(isFirstPlayer);
+                dispatcher.onGameStart(isFirstPlayer);
+            }
+            
+            @Override
+            public void onAttackReceived(int row, int col) {
+                if (match != null) {
+                    resolveGuestAttack(row, col);
+                    return;
                 }
-                
-                @Override
-                public void onAttackResult(String result, int row, int col) {
-                    String message = MessageProtocol.createAttackResultMessage(result, row, col);
-                    gamePanelHandler.processTcpMessage(message);
+                startTurn(true); // Our turn once the result is sent back
+                dispatcher.onAttackReceived(row, col);
+            }
+            
+            @Override
+            public void onAttackResult(String result, int row, int col) {
+                if (forgedByGuest(MessageProtocol.ATTACK_RESULT)) {
+                    return;
                 }
-                
-                @Override
-                public void onTurnEnd() {
-                    gamePanelHandler.processTcpMessage(MessageProtocol.TURN_END);
+                dispatcher.onAttackResult(result, row, col);
+            }
+            
+            @Override
+            public void onAttackResult(String result, int row, int col, String sunkShip) {
+                if (forgedByGuest(MessageProtocol.ATTACK_RESULT)) {
+                    return;
                 }
-                
-                @Override
-                public void onGameOver(boolean isWinner) {
-                    String message = MessageProtocol.createGameOverMessage(isWinner);
-                    gamePanelHandler.processTcpMessage(message);
+                dispatcher.onAttackResult(result, row, col, sunkShip);
+            }
+            
+            @Override
+            public void onTurnEnd() {
+                dispatcher.onTurnEnd();
+            }
+            
+            @Override
+            public void onGameOver(boolean isWinner) {
+                if (forgedByGuest(MessageProtocol.GAME_OVER)) {
+                    return;
                 }
-                
-                @Override
-                public void onOpponentDisconnect() {
-                    gamePanelHandler.processTcpMessage(MessageProtocol.DISCONNECT);
+                stopTurns();
+                dispatcher.onGameOver(isWinner);
+            }
+            
+            @Override
+            public void onOpponentDisconnect() {
+                stopTurns();
+                dispatcher.onOpponentDisconnect();
+            }
+            
+            @Override
+            public void onOpponentSurrender() {
+                stopTurns();
+                dispatcher.onOpponentSurrender();
+            }
+            
+            @Override
+            public void onStateResync(SessionSnapshot snapshot) {
+                dispatcher.onStateResync(snapshot);
+            }
+            
+            @Override
+            public void onOpponentAttackResolved(String result, int row, int col) {
+                if (forgedByGuest(MessageProtocol.ATTACK_RESOLVED)) {
+                    return;
                 }
-                
-                @Override
-                public void onOpponentSurrender() {
-                    gamePanelHandler.processTcpMessage(MessageProtocol.SURRENDER);
+                startTurn(true);
+                dispatcher.onOpponentAttackResolved(result, row, col);
+            }
+            
+            @Override
+            public void onAuthoritativeMode() {
+                authoritative = true;
+                statusUpdater.accept("Ranked match: the host decides every shot");
+                if (localFleet != null) {
+                    messageHandler.sendFleet(networkManager, localFleet); // We were ready first
                 }
-            });
+            }
             
-            messageHandler.setHoverMessageListener(new NetworkMessageHandler.HoverMessageListener() {
-                @Override
-                public void onHoverReceived(com.batalhanaval.core.Position position) {
-                    String message;
-                    if (position != null) {
-                        message = MessageProtocol.createHoverMessage(position.getRow(), position.getCol());
-                    } else {
-                        message = MessageProtocol.createHoverMessage(-1, -1);
-                    }
-                    gamePanelHandler.processUdpMessage(message);
+            @Override
+            public void onFleetReceived(String fleetMessage) {
+                if (match == null) {
+                    return; // Not hosting an authoritative match
                 }
-                
-                @Override
-                public void onPingReceived() {
-                    gamePanelHandler.processUdpMessage(MessageProtocol.PING);
+                if (!match.placeGuestFleet(fleetMessage)) {
+                    statusUpdater.accept("Opponent sent an invalid fleet");
+                    networkManager.sendTcpMessage(MessageProtocol.FLEET_REJECTED);
+                    return;
                 }
-            });
+                replicate(false, fleetMessage);
+                checkBothPlayersReady();
+            }
+            
+            @Override
+            public void onFleetRejected() {
+                statusUpdater.accept("The host rejected your fleet");
+            }
+        });
+        
+        messageHandler.setHoverMessageListener(dispatcher);
+    }
+    
+    /**
+     * Drops a game start, result or game end received by the host of an
+     * authoritative match: only the host decides those, so one sent by the
+     * guest is forged, even before the match was set up.
+     * Runs on the consumer thread.
+     * @param command Command of the received message
+     * @return True if the message must be ignored
+     */
+    private boolean forgedByGuest(String command) {
+        if (!authoritative || !networkManager.isServer()) {
+            return false;
         }
+        statusUpdater.accept("Ignored " + command + " from the guest, the host decides every shot");
+        return true;
     }
     
     /**
-     * Sets up message processing from NetworkManager.
+     * Gets the event dispatcher, so other components can subscribe to decoded events.
+     * @return Game event dispatcher
      */
-    private void setupMessageProcessing() {
-        // This would ideally be integrated with NetworkManager's existing TCP/UDP listeners
-        // For now, we'll provide methods to manually process messages
+    public GameEventDispatcher getDispatcher() {
+        return dispatcher;
     }
     
     /**
      * Processes a TCP message received from the network.
+     * Blocks the caller while too many game messages are waiting.
      * @param message TCP message
      */
     public void processTcpMessage(String message) {
-        messageHandler.processTcpMessage(message);
+        inbound.putOrdered(() -> messageHandler.processTcpMessage(message));
     }
     
     /**
@@ -135,7 +275,108 @@ public class NetworkGameManager {
      * @param message UDP message
      */
     public void processUdpMessage(String message) {
-        messageHandler.processUdpMessage(message);
+        inbound.offerDatagram(message);
+    }
+    
+    /**
+     * Processes a hover update decoded directly from a UDP datagram.
+     * @param row Row coordinate or -1 if the opponent stopped hovering
+     * @param col Column coordinate or -1 if the opponent stopped hovering
+     */
+    public void processHover(int row, int col) {
+        inbound.offerHover(row, col);
+    }
+    
+    /**
+     * Gets the queue between the network threads and the consumer thread.
+     * @return Inbound message queue
+     */
+    public InboundMessageQueue getInboundQueue() {
+        return inbound;
+    }
+    
+    /**
+     * Chooses server-authoritative mode for a hosted match. Must be set before
+     * the host is ready; the guest learns the mode from the host.
+     * @param authoritative True if the host resolves every attack
+     */
+    public void setAuthoritative(boolean authoritative) {
+        this.authoritative = authoritative;
+    }
+    
+    /**
+     * Streams a hosted authoritative match to a standby process, see {@link MatchStandby}.
+     * Must be set before the host is ready.
+     * @param replicator Connected replicator, or null to stop replicating
+     * @param matchId Name of the match on the standby, without separators
+     */
+    public void setReplicator(MatchReplicator replicator, String matchId) {
+        this.replicator = replicator;
+        this.matchId = matchId;
+    }
+    
+    /**
+     * Sends an event of the hosted match to the standby, if there is one.
+     * @param host True if the event is about the host's fleet or attack, or comes from the host
+     * @param event FLEET, SESSION, ATTACK_RESOLVED or GAME_OVER message
+     */
+    private void replicate(boolean host, String event) {
+        MatchReplicator current = replicator;
+        if (current != null && match != null) {
+            current.replicate(matchId, host ? MessageProtocol.SPECTATOR_HOST : MessageProtocol.SPECTATOR_GUEST, event);
+        }
+    }
+    
+    /**
+     * Continues hosting an authoritative match taken over from a failed primary,
+     * see {@link MatchStandby}. Call before the client resumes; the resync then
+     * sends it the state of the match.
+     * @param takenOver Standby copy of the match, started and not over
+     */
+    public void adoptMatch(AuthoritativeMatch takenOver) {
+        authoritative = true;
+        match = takenOver;
+        localFleet = takenOver.getHostBoard();
+        playerReady = true;
+        opponentReady = true;
+        bothPlayersReady = true;
+        synchronized (turnLock) {
+            for (Position position : takenOver.getGuestBoard().getAttackedPositions()) {
+                attackedCells.set(position.getRow() * Constants.BOARD_SIZE + position.getCol());
+            }
+        }
+        if (snapshotProvider == null) {
+            snapshotProvider = takenOver::createHostSnapshot;
+        }
+        startTurns(takenOver.isHostTurn());
+    }
+    
+    /**
+     * @return true if the host holds both fleets and resolves every attack
+     */
+    public boolean isAuthoritative() {
+        return authoritative;
+    }
+    
+    /**
+     * Notifies that the local player is ready with a fleet.
+     * In an authoritative match the host announces the mode and the guest sends its fleet.
+     * @param fleet Board with the placed ships
+     */
+    public void setPlayerReady(Board fleet) {
+        localFleet = fleet;
+        if (authoritative && networkManager.isServer()) {
+            match = new AuthoritativeMatch(fleet);
+            replicate(true, MessageProtocol.createFleetMessage(fleet.getShips()));
+            String sessionRecord = networkManager.getSessionRecord();
+            if (sessionRecord != null) {
+                replicate(true, sessionRecord); // Lets the standby resume the client
+            }
+            networkManager.sendTcpMessage(MessageProtocol.MODE + MessageProtocol.SEPARATOR + MessageProtocol.AUTHORITATIVE);
+        } else if (authoritative) {
+            messageHandler.sendFleet(networkManager, fleet);
+        }
+        setPlayerReady();
     }
     
     /**
@@ -151,6 +392,9 @@ public class NetworkGameManager {
      * Checks if both players are ready and starts the game.
      */
     private void checkBothPlayersReady() {
+        if (authoritative && (match == null || !match.hasGuestFleet())) {
+            return; // The host starts once it holds both fleets
+        }
         if (playerReady && opponentReady && !bothPlayersReady) {
             bothPlayersReady = true;
             startGame();
@@ -165,18 +409,200 @@ public class NetworkGameManager {
         
         // Determine who goes first (server decides)
         boolean isFirstPlayer = networkManager.isServer();
+        if (match != null) {
+            match.start();
+        }
         
         // Send game start message to opponent
         String gameStartMessage = MessageProtocol.createGameStartMessage(!isFirstPlayer);
         networkManager.sendTcpMessage(gameStartMessage);
         
         // Start the game locally
-        if (gamePanel != null) {
-            String localGameStartMessage = MessageProtocol.createGameStartMessage(isFirstPlayer);
-            gamePanel.getMessageHandler().processTcpMessage(localGameStartMessage);
+        startTurns(isFirstPlayer);
+        dispatcher.onGameStart(isFirstPlayer);
+    }
+    
+    /**
+     * Called by the network manager when a dropped connection was resumed.
+     * Replays the setup messages the opponent may have missed and sends a resync snapshot.
+     */
+    public void onSessionResumed() {
+        // Queued behind the messages received before the drop
+        inbound.putOrdered(this::resync);
+        
+        // Whoever was to move gets a fresh deadline
+        synchronized (turnLock) {
+            if (turnsRunning) {
+                startTurn(localTurn);
+            }
+        }
+    }
+    
+    /**
+     * Resends what the opponent may have missed; runs on the consumer thread.
+     */
+    private void resync() {
+        if (playerReady && !bothPlayersReady) {
+            messageHandler.sendReadyToStart(networkManager);
+        }
+        if (bothPlayersReady && networkManager.isServer()) {
+            networkManager.sendTcpMessage(MessageProtocol.createGameStartMessage(false));
+        }
+        
+        Supplier<SessionSnapshot> provider = snapshotProvider;
+        SessionSnapshot snapshot = provider != null ? provider.get() : null;
+        if (snapshot != null) {
+            messageHandler.sendResync(networkManager, snapshot);
+        }
+    }
+    
+    /**
+     * Called by the network manager when the opponent did not come back in time.
+     */
+    public void onSessionExpired() {
+        stopTurns();
+        inbound.putOrdered(dispatcher::onOpponentDisconnect);
+    }
+    
+    /**
+     * Sets the time each player has for a turn. The local player gets a random
+     * shot when time runs out and forfeits after missing several turns in a row;
+     * an opponent that lets its turn expire (plus some slack) loses the match.
+     * Both players should use the same limit.
+     * @param limitMs Turn time limit in milliseconds, or 0 for no limit
+     */
+    public void setTurnTimeLimit(long limitMs) {
+        synchronized (turnLock) {
+            turnTimeLimitMs = Math.max(0, limitMs);
+        }
+    }
+    
+    /**
+     * @return turn time limit in milliseconds, or 0 if turns are not timed
+     */
+    public long getTurnTimeLimit() {
+        synchronized (turnLock) {
+            return turnTimeLimitMs;
+        }
+    }
+    
+    /**
+     * Sets the wheel that runs the turn timers; the process-wide one by default.
+     * @param timers Timer wheel
+     */
+    public void setTimerWheel(TimerWheel timers) {
+        synchronized (turnLock) {
+            this.timers = timers;
+        }
+    }
+    
+    /**
+     * Starts timing turns when the game starts; repeated GAME_STARTs after a resume are ignored.
+     */
+    private void startTurns(boolean isFirstPlayer) {
+        synchronized (turnLock) {
+            if (turnsStarted) {
+                return;
+            }
+            turnsStarted = true;
+            turnsRunning = true;
+            startTurn(isFirstPlayer);
+        }
+    }
+    
+    /**
+     * Hands the turn to a player and arms its deadline. The guest of an
+     * authoritative match only times its own turns: the host adjudicates a
+     * forfeit and would drop the guest's GAME_OVER as forged.
+     * @param local True if it is now the local player's turn
+     */
+    private void startTurn(boolean local) {
+        synchronized (turnLock) {
+            if (!turnsRunning) {
+                return;
+            }
+            localTurn = local;
+            long generation = ++turnGeneration;
+            if (turnTimer != null) {
+                turnTimer.cancel();
+                turnTimer = null;
+            }
+            if (turnTimeLimitMs > 0 && (local || !authoritative || networkManager.isServer())) {
+                TimerWheel wheel = timers != null ? timers : TimerWheel.shared();
+                long delay = local ? turnTimeLimitMs : turnTimeLimitMs + OPPONENT_TURN_SLACK_MS;
+                // The wheel thread only hands the expiry to the consumer thread
+                turnTimer = wheel.schedule(() -> consumer.execute(() -> turnExpired(generation)), delay);
+            }
+        }
+    }
+    
+    /**
+     * Stops timing turns, e.g. when the game is over.
+     */
+    private void stopTurns() {
+        synchronized (turnLock) {
+            turnsRunning = false;
+            turnGeneration++;
+            if (turnTimer != null) {
+                turnTimer.cancel();
+                turnTimer = null;
+            }
+        }
+    }
+    
+    /**
+     * Handles an expired turn on the consumer thread, unless the turn moved on meanwhile.
+     */
+    private void turnExpired(long generation) {
+        boolean local;
+        int cell = -1;
+        boolean forfeit;
+        synchronized (turnLock) {
+            if (generation != turnGeneration) {
+                return;
+            }
+            local = localTurn;
+            if (local) {
+                missedTurns++;
+                forfeit = missedTurns >= MAX_MISSED_TURNS;
+                cell = forfeit ? -1 : pickUnattackedCell();
+            } else {
+                forfeit = true;
+            }
+        }
+        
+        if (local && cell >= 0) {
+            statusUpdater.accept("Time is up, firing a random shot");
+            dispatcher.onTurnTimeout(true, false);
+            sendAttack(cell / Constants.BOARD_SIZE, cell % Constants.BOARD_SIZE, false);
+        } else if (local) {
+            statusUpdater.accept("Too many missed turns, the match is forfeited");
+            sendSurrender();
+            dispatcher.onTurnTimeout(true, true);
+        } else {
+            statusUpdater.accept("Opponent ran out of time");
+            sendGameOver(false); // The opponent lost
+            dispatcher.onTurnTimeout(false, true);
         }
     }
     
+    /**
+     * Picks a random cell the local player has not attacked yet.
+     * @return Cell index (row * BOARD_SIZE + col), or -1 if every cell was attacked
+     */
+    private int pickUnattackedCell() {
+        int cells = Constants.BOARD_SIZE * Constants.BOARD_SIZE;
+        int free = cells - attackedCells.cardinality();
+        if (free <= 0) {
+            return -1;
+        }
+        int cell = attackedCells.nextClearBit(0);
+        for (int skip = ThreadLocalRandom.current().nextInt(free); skip > 0; skip--) {
+            cell = attackedCells.nextClearBit(cell + 1);
+        }
+        return cell;
+    }
+    
     /**
      * Sends an attack to the opponent.
      * @param row Row coordinate
@@ -184,7 +610,75 @@ public class NetworkGameManager {
      * @return True if sent successfully
      */
     public boolean sendAttack(int row, int col) {
-        return messageHandler.sendAttack(networkManager, row, col);
+        return sendAttack(row, col, true);
+    }
+    
+    /**
+     * Sends an attack and hands the turn to the opponent.
+     * @param onTime False for the random shot fired when the turn expired
+     */
+    private boolean sendAttack(int row, int col, boolean onTime) {
+        boolean sent = match != null ? resolveHostAttack(row, col) : messageHandler.sendAttack(networkManager, row, col);
+        if (sent) {
+            synchronized (turnLock) {
+                attackedCells.set(row * Constants.BOARD_SIZE + col);
+                if (onTime) {
+                    missedTurns = 0;
+                }
+            }
+            startTurn(false);
+        }
+        return sent;
+    }
+    
+    /**
+     * Resolves an attack of the host locally and pushes the result to the guest.
+     * @return False if it is not the host's turn or the cell was attacked before
+     */
+    private boolean resolveHostAttack(int row, int col) {
+        String result = match.resolveHostAttack(new Position(row, col));
+        if (result == null) {
+            return false;
+        }
+        String sunkShip = match.getLastSunkShip();
+        messageHandler.sendAttackResolved(networkManager, true, result, row, col, sunkShip);
+        replicate(true, MessageProtocol.createAttackResolvedMessage(MessageProtocol.SPECTATOR_HOST, result, row, col, sunkShip));
+        
+        // Delivered like a received result, after the caller finished its turn
+        inbound.putOrderedFromConsumer(() -> dispatcher.onAttackResult(result, row, col, sunkShip));
+        finishIfOver();
+        return true;
+    }
+    
+    /**
+     * Resolves an attack of the guest; runs on the consumer thread.
+     */
+    private void resolveGuestAttack(int row, int col) {
+        String result = match.resolveGuestAttack(new Position(row, col));
+        if (result == null) {
+            statusUpdater.accept("Ignored attack out of turn at " + row + "," + col);
+            return;
+        }
+        startTurn(true);
+        messageHandler.sendAttackResolved(networkManager, false, result, row, col, match.getLastSunkShip());
+        replicate(false, MessageProtocol.createAttackResolvedMessage(MessageProtocol.SPECTATOR_GUEST, result, row, col,
+                                                                     match.getLastSunkShip()));
+        dispatcher.onOpponentAttackResolved(result, row, col);
+        finishIfOver();
+    }
+    
+    /**
+     * Ends an authoritative match once a fleet is sunk; the host tells both players.
+     */
+    private void finishIfOver() {
+        if (!match.isOver()) {
+            return;
+        }
+        boolean hostWon = match.hasHostWon();
+        stopTurns();
+        replicate(true, MessageProtocol.createGameOverMessage(hostWon)); // The host decides, WINNER from its side
+        messageHandler.sendGameOver(networkManager, !hostWon);
+        inbound.putOrderedFromConsumer(() -> dispatcher.onGameOver(hostWon));
     }
     
     /**
@@ -198,6 +692,18 @@ public class NetworkGameManager {
         return messageHandler.sendAttackResult(networkManager, result, row, col);
     }
     
+    /**
+     * Sends an attack result to the opponent, naming the ship it sank.
+     * @param result Attack result
+     * @param row Row coordinate
+     * @param col Column coordinate
+     * @param sunkShip Name of the sunk ship, or null if none was sunk
+     * @return True if sent successfully
+     */
+    public boolean sendAttackResult(String result, int row, int col, String sunkShip) {
+        return messageHandler.sendAttackResult(networkManager, result, row, col, sunkShip);
+    }
+    
     /**
      * Sends a hover position to the opponent.
      * @param position Hover position or null to clear
@@ -212,6 +718,7 @@ public class NetworkGameManager {
      * @return True if sent successfully
      */
     public boolean sendSurrender() {
+        stopTurns();
         return messageHandler.sendSurrender(networkManager);
     }
     
@@ -221,6 +728,7 @@ public class NetworkGameManager {
      * @return True if sent successfully
      */
     public boolean sendGameOver(boolean isWinner) {
+        stopTurns();
         return messageHandler.sendGameOver(networkManager, isWinner);
     }
     
@@ -232,6 +740,14 @@ public class NetworkGameManager {
         return messageHandler.sendPing(networkManager);
     }
     
+    /**
+     * Answers a ping from the opponent.
+     * @return True if sent successfully
+     */
+    public boolean sendPong() {
+        return messageHandler.sendPong(networkManager);
+    }
+    
     /**
      * Gets the network manager.
      * @return Network manager
@@ -279,12 +795,21 @@ public class NetworkGameManager {
         bothPlayersReady = false;
         opponentReady = false;
         playerReady = false;
+        match = null;
+        localFleet = null;
+        stopTurns();
+        synchronized (turnLock) {
+            turnsStarted = false;
+            missedTurns = 0;
+            attackedCells.clear();
+        }
     }
     
     /**
      * Disconnects from the network game.
      */
     public void disconnect() {
+        stopTurns();
         if (networkManager != null) {
             networkManager.sendTcpMessage(MessageProtocol.DISCONNECT);
             networkManager.stopNetwork();
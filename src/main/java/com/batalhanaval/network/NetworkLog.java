@@ -0,0 +1,255 @@
+package com.batalhanaval.network;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Leveled log for the network layer that never formats or blocks on the caller's thread.
+ * <p>
+ * A call below the current level returns after one comparison: the message is
+ * a format string and its arguments, and {@link String#format} only runs if the
+ * entry is enabled, on the single background "network-log" thread. Entries go
+ * through a fixed ring buffer whose slots are reused, so logging allocates nothing
+ * beyond boxing its arguments. When the ring is full, new entries are dropped
+ * and counted instead of stalling the network threads.
+ * <p>
+ * The level is global and defaults to INFO; set the system property
+ * {@code batalhanaval.log} to DEBUG to see every message sent and received.
+ */
+public class NetworkLog {
+
+    /**
+     * Severity of a log entry.
+     */
+    public enum Level {
+        DEBUG, INFO, WARN, ERROR
+    }
+
+    /** Entries buffered before new ones are dropped, a power of two */
+    public static final int RING_CAPACITY = 1024;
+
+    private static volatile Level threshold = parseLevel(System.getProperty("batalhanaval.log"), Level.INFO);
+
+    private static final Object lock = new Object();
+    private static final Entry[] ring = new Entry[RING_CAPACITY];
+    private static long head = 0; // Next slot to write
+    private static long tail = 0; // Next slot to deliver
+    private static long delivered = 0;
+    private static Thread consumer;
+    private static final AtomicLong dropped = new AtomicLong();
+
+    static {
+        for (int i = 0; i < RING_CAPACITY; i++) {
+            ring[i] = new Entry();
+        }
+    }
+
+    /**
+     * Reusable ring slot. Only touched while holding the lock.
+     */
+    private static class Entry {
+        Consumer<String> sink;
+        String format;
+        Object first;
+        Object second;
+        int argumentCount;
+    }
+
+    private final Consumer<String> sink;
+
+    /**
+     * Creates a log that delivers its messages to a status consumer.
+     * @param sink Consumer for formatted messages, called on the log thread
+     */
+    public NetworkLog(Consumer<String> sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Sets the lowest level that is delivered.
+     * @param level New level
+     */
+    public static void setLevel(Level level) {
+        threshold = level;
+    }
+
+    /**
+     * @return the lowest level that is delivered
+     */
+    public static Level getLevel() {
+        return threshold;
+    }
+
+    /**
+     * Checks a level before doing work that is only needed for logging.
+     * @param level Level to check
+     * @return True if entries of this level are delivered
+     */
+    public static boolean isEnabled(Level level) {
+        return level.compareTo(threshold) >= 0;
+    }
+
+    public void debug(String message) {
+        log(Level.DEBUG, message, null, null, 0);
+    }
+
+    public void debug(String format, Object argument) {
+        log(Level.DEBUG, format, argument, null, 1);
+    }
+
+    public void debug(String format, Object first, Object second) {
+        log(Level.DEBUG, format, first, second, 2);
+    }
+
+    public void info(String message) {
+        log(Level.INFO, message, null, null, 0);
+    }
+
+    public void info(String format, Object argument) {
+        log(Level.INFO, format, argument, null, 1);
+    }
+
+    public void info(String format, Object first, Object second) {
+        log(Level.INFO, format, first, second, 2);
+    }
+
+    public void warn(String message) {
+        log(Level.WARN, message, null, null, 0);
+    }
+
+    public void warn(String format, Object argument) {
+        log(Level.WARN, format, argument, null, 1);
+    }
+
+    public void error(String format, Object argument) {
+        log(Level.ERROR, format, argument, null, 1);
+    }
+
+    private void log(Level level, String format, Object first, Object second, int argumentCount) {
+        if (level.compareTo(threshold) < 0) {
+            return;
+        }
+        synchronized (lock) {
+            if (head - tail == RING_CAPACITY) {
+                dropped.incrementAndGet();
+                return;
+            }
+            Entry entry = ring[(int) (head & (RING_CAPACITY - 1))];
+            entry.sink = sink;
+            entry.format = format;
+            entry.first = first;
+            entry.second = second;
+            entry.argumentCount = argumentCount;
+            if (head++ == tail) {
+                startConsumer();
+                lock.notifyAll();
+            }
+        }
+    }
+
+    private static void startConsumer() {
+        if (consumer == null) {
+            consumer = new Thread(NetworkLog::consume, "network-log");
+            consumer.setDaemon(true);
+            consumer.start();
+        }
+    }
+
+    /**
+     * Runs on the log thread: takes entries out of the ring and formats them.
+     */
+    private static void consume() {
+        while (true) {
+            Consumer<String> target;
+            String format;
+            Object first;
+            Object second;
+            int argumentCount;
+            synchronized (lock) {
+                while (head == tail) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        consumer = null; // The next entry starts a new thread
+                        return;
+                    }
+                }
+                Entry entry = ring[(int) (tail & (RING_CAPACITY - 1))];
+                target = entry.sink;
+                format = entry.format;
+                first = entry.first;
+                second = entry.second;
+                argumentCount = entry.argumentCount;
+                entry.sink = null;
+                entry.first = null;
+                entry.second = null;
+                tail++;
+            }
+
+            try {
+                target.accept(format(format, first, second, argumentCount));
+            } catch (RuntimeException e) {
+                System.err.println("Log consumer failed: " + e.getMessage());
+            }
+
+            synchronized (lock) {
+                delivered++;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    private static String format(String format, Object first, Object second, int argumentCount) {
+        switch (argumentCount) {
+            case 0:
+                return format;
+            case 1:
+                return String.format(format, first);
+            default:
+                return String.format(format, first, second);
+        }
+    }
+
+    /**
+     * Waits until every entry logged so far has been delivered.
+     * @param timeoutMs Maximum time to wait
+     * @return True if the ring was drained in time
+     */
+    public static boolean flush(long timeoutMs) {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        synchronized (lock) {
+            long target = head;
+            while (delivered < target) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                try {
+                    lock.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * @return number of entries dropped because the ring was full
+     */
+    public static long getDroppedCount() {
+        return dropped.get();
+    }
+
+    private static Level parseLevel(String name, Level fallback) {
+        if (name == null) {
+            return fallback;
+        }
+        try {
+            return Level.valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return fallback;
+        }
+    }
+}
@@ -1,335 +1,1559 @@
 package com.batalhanaval.network;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.io.PrintWriter;
-import java.net.DatagramPacket;
-import java.net.DatagramSocket;
+import java.io.InputStream;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
+import com.batalhanaval.Constants;
+
 /**
  * Manages network connections and communications for the Battleship game.
  * Handles both TCP and UDP connections.
  */
 public class NetworkManager {
     
+    /** Time to wait for the TCP connection to a server */
+    private static final int CONNECT_TIMEOUT_MS = 3000;
+    
+    /** Time to wait for the reply to a RESUME (and for the RESUME itself on the server) */
+    private static final int RESUME_TIMEOUT_MS = 3000;
+    
+    /** First and maximum delay between reconnection attempts */
+    private static final long RECONNECT_INITIAL_BACKOFF_MS = 250;
+    private static final long RECONNECT_MAX_BACKOFF_MS = 2000;
+    
+    /** Messages a peer may send per second, and at once after a quiet period; far above normal play */
+    private static final int TCP_RATE_LIMIT = 250;
+    private static final int TCP_BURST_LIMIT = 500;
+    private static final int UDP_RATE_LIMIT = 500;
+    private static final int UDP_BURST_LIMIT = 500;
+    
+    /** TCP messages dropped over the limit before the peer is disconnected */
+    private static final int TCP_FLOOD_DISCONNECT_THRESHOLD = 1000;
+    
+    /** A drop is logged once, then every this many drops */
+    private static final int RATE_LIMIT_LOG_INTERVAL = 100;
+    
+    /** Time without a game message from the peer after which the connection is dropped */
+    private static final long IDLE_TIMEOUT_MS = 10 * 60 * 1000;
+    
+    /** Minimum time between hovers relayed over TCP when UDP is unavailable */
+    private static final long TCP_HOVER_INTERVAL_MS = 100;
+    
     // Executors for managing network threads
     private ExecutorService executorService;
     
     // TCP components
     private ServerSocket tcpServerSocket;
     private Socket tcpClientSocket;
-    private PrintWriter tcpOut;
-    private BufferedReader tcpIn;
+    private TcpWriteBatcher tcpOut;
+    private InputStream tcpIn;
+    private FrameDecoder tcpDecoder;
     
-    // UDP components
-    private DatagramSocket udpSocket;
+    // UDP components (one reusable direct buffer per direction)
+    private DatagramChannel udpChannel;
     private InetAddress remoteAddress;
     private int remoteUdpPort;
     private int localUdpPort;
+    private InetSocketAddress remoteUdpSocketAddress;
+    private final ByteBuffer udpReceiveBuffer = ByteBuffer.allocateDirect(DatagramCodec.MAX_DATAGRAM_SIZE);
+    private final ByteBuffer udpSendBuffer = ByteBuffer.allocateDirect(DatagramCodec.MAX_DATAGRAM_SIZE);
+    
+    // UDP sequencing (outgoing counter and incoming stale/reorder filter)
+    private final AtomicLong udpSequence = new AtomicLong();
+    private final SequenceTracker udpSequenceTracker = new SequenceTracker();
+    
+    // Per-connection flood protection, checked before a message is parsed
+    private volatile TokenBucket tcpLimiter = new TokenBucket(TCP_RATE_LIMIT, TCP_BURST_LIMIT);
+    private volatile TokenBucket udpLimiter = new TokenBucket(UDP_RATE_LIMIT, UDP_BURST_LIMIT);
+    
+    // Hovers relayed over TCP without UDP: the latest one waits for the next send slot.
+    // A channel keeps its own and relays it through the parent's connection
+    private final AtomicReference<String> relayedHover = new AtomicReference<>();
+    private final AtomicBoolean hoverRelayScheduled = new AtomicBoolean(false);
+    private volatile long lastRelayedHoverNanos = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(TCP_HOVER_INTERVAL_MS);
+    
+    // Idle-connection reaping on the shared timer wheel
+    private volatile long lastActivityNanos;
+    private volatile TimerWheel.Timeout idleTimer;
     
     // Connection state
     private boolean isServer = false;
     private boolean isConnected = false;
+    private volatile ConnectionHandshake handshake;
+    private volatile HeartbeatService heartbeat;
+    private SpectatorHub spectatorHub;
+    
+    // Sends go through the sockets unless connected in-process
+    private final MessageTransport socketTransport = new SocketTransport();
+    private volatile MessageTransport transport = socketTransport;
+    private LanDiscoveryService discovery;
+    private boolean hostServicesEnabled = true;
+    private Set<ProtocolCapability> offeredCapabilities = ProtocolCapability.SUPPORTED;
+    private String routeKey;
+    private ImpairmentProfile impairment;
+    private volatile NetworkLog log = new NetworkLog(message -> { });
+    private volatile boolean stopped = false;
+    
+    // Session resume after a dropped TCP connection
+    private volatile MatchSession session;
+    private final AtomicBoolean resuming = new AtomicBoolean(false);
+    private volatile boolean remoteDisconnected = false;
+    private volatile CountDownLatch resumeReply;
+    private volatile boolean resumeAccepted = false;
+    private BlockingQueue<PendingConnection> forwardedConnections; // Set when hosting on a forwarded connection
+    private boolean takenOverUdp = false;
+    private String serverHost;
+    private int serverTcpPort;
     
     // Game manager integration
     private NetworkGameManager gameManager;
     
+    // Other matches multiplexed over this connection, by channel id
+    private final Map<Integer, NetworkManager> channels = new ConcurrentHashMap<>();
+    private volatile Consumer<NetworkManager> channelAcceptor;
+    private NetworkManager parent;
+    private int channelId = MessageProtocol.DEFAULT_CHANNEL;
+    
+    /**
+     * Constructor for the NetworkManager.
+     */
+    public NetworkManager() {
+        // Create thread pool for network operations
+        executorService = Executors.newCachedThreadPool();
+    }
+    
+    /**
+     * Constructor for a channel of another manager's connection.
+     * Has no sockets or threads of its own, see {@link #openChannel(int)}.
+     */
+    private NetworkManager(NetworkManager parent, int channelId, ConnectionHandshake parentHandshake) {
+        this.parent = parent;
+        this.channelId = channelId;
+        this.isServer = parent.isServer;
+        this.log = parent.log;
+        this.transport = new ChannelTransport();
+        this.handshake = new ConnectionHandshake();
+        this.handshake.negotiate(parentHandshake.getProtocolVersion(), parentHandshake.getCapabilities(),
+                                 parentHandshake.getCapabilities());
+        this.handshake.complete(parentHandshake.isUdpConfirmed());
+        this.isConnected = true;
+    }
+    
+    /**
+     * Starts a server that listens for client connections.
+     * 
+     * @param tcpPort Port to listen for TCP connections
+     * @param udpPort Port to listen for UDP messages
+     * @param statusUpdater Consumer that handles status messages
+     * @throws IOException If there's an error starting the server
+     */
+    public void startServer(int tcpPort, int udpPort, Consumer<String> statusUpdater) throws IOException {
+        isServer = true;
+        log = new NetworkLog(statusUpdater);
+        
+        // Start TCP server socket
+        tcpServerSocket = new ServerSocket(tcpPort);
+        statusUpdater.accept("TCP Server started on port " + tcpPort);
+        
+        // Start UDP channel
+        udpChannel = DatagramChannel.open();
+        udpChannel.bind(new InetSocketAddress(udpPort));
+        localUdpPort = udpPort;
+        statusUpdater.accept("UDP Server started on port " + udpPort);
+        
+        // Spectators are optional, the match goes on without them
+        spectatorHub = new SpectatorHub(statusUpdater);
+        discovery = new LanDiscoveryService();
+        if (hostServicesEnabled) {
+            try {
+                spectatorHub.start(Constants.SPECTATOR_PORT);
+            } catch (IOException e) {
+                statusUpdater.accept("Spectator channel unavailable: " + e.getMessage());
+            }
+            
+            // Announce the open game on the local network
+            try {
+                discovery.startAnnouncing(getHostName(), tcpPort, udpPort);
+                statusUpdater.accept("Announcing game on the local network");
+            } catch (IOException e) {
+                statusUpdater.accept("LAN discovery unavailable: " + e.getMessage());
+            }
+        }
+        
+        // Accept client connection in a separate thread
+        executorService.submit(() -> {
+            try {
+                statusUpdater.accept("Waiting for opponent to connect...");
+                tcpClientSocket = tcpServerSocket.accept();
+                discovery.stop(); // The game is full
+                serveClient(tcpClientSocket.getInetAddress(), statusUpdater);
+            } catch (IOException e) {
+                statusUpdater.accept("Error accepting client connection: " + e.getMessage());
+            }
+        });
+    }
+    
+    /**
+     * Hosts a match on a connection accepted elsewhere, e.g. by a MatchWorker
+     * behind a MatchRouter. There is no listening socket to come back to, so
+     * a client that reconnects must be handed over with {@link #offerConnection}.
+     * 
+     * @param socket Connected client socket; the next frame it delivers must be the HELLO
+     * @param clientAddress Address of the client, which differs from the socket's behind a router
+     * @param udpPort Port to listen for UDP messages, or 0 for any free port
+     * @param statusUpdater Consumer that handles status messages
+     * @throws IOException If there's an error setting up the connection
+     */
+    public void acceptConnection(Socket socket, InetAddress clientAddress, int udpPort,
+                                 Consumer<String> statusUpdater) throws IOException {
+        isServer = true;
+        log = new NetworkLog(statusUpdater);
+        forwardedConnections = new LinkedBlockingQueue<>();
+        
+        udpChannel = DatagramChannel.open();
+        udpChannel.bind(new InetSocketAddress(udpPort));
+        localUdpPort = ((InetSocketAddress) udpChannel.getLocalAddress()).getPort();
+        
+        tcpClientSocket = socket;
+        serveClient(clientAddress, statusUpdater);
+    }
+    
+    /**
+     * Hands a reconnecting client to a match hosted with {@link #acceptConnection}.
+     * The connection resumes the match if its first frame presents the session
+     * token, and is rejected otherwise.
+     * 
+     * @param socket Connected client socket
+     * @param clientAddress Address of the client, for UDP
+     * @return false if the match is not hosted on a forwarded connection or has stopped
+     */
+    public boolean offerConnection(Socket socket, InetAddress clientAddress) {
+        BlockingQueue<PendingConnection> queue = forwardedConnections;
+        return queue != null && !stopped && queue.offer(new PendingConnection(socket, clientAddress));
+    }
+    
+    /**
+     * Hosts a match taken over from a server that failed, see {@link MatchStandby}.
+     * There is no handshake: the connection must resume the session the failed
+     * server recorded in {@link #getSessionRecord}, and the manager is ready
+     * once it does. Reconnections after that are handed over with {@link #offerConnection}.
+     * 
+     * @param socket Connected client socket; the next frame it delivers must be the RESUME
+     * @param clientAddress Address of the client, for UDP
+     * @param sessionRecord SESSION record of the failed server
+     * @param udpPort Port to listen for UDP messages, or 0 for any free port
+     * @param statusUpdater Consumer that handles status messages
+     * @throws IOException If the record is malformed or the UDP port cannot be opened
+     */
+    public void resumeConnection(Socket socket, InetAddress clientAddress, String sessionRecord, int udpPort,
+                                 Consumer<String> statusUpdater) throws IOException {
+        String[] parts = MessageProtocol.getMessageParts(sessionRecord);
+        if (!MessageProtocol.hasCommand(sessionRecord, MessageProtocol.SESSION) || parts.length != 4) {
+            throw new IOException("Invalid session record: " + sessionRecord);
+        }
+        isServer = true;
+        log = new NetworkLog(statusUpdater);
+        forwardedConnections = new LinkedBlockingQueue<>();
+        
+        udpChannel = DatagramChannel.open();
+        udpChannel.bind(new InetSocketAddress(udpPort));
+        localUdpPort = ((InetSocketAddress) udpChannel.getLocalAddress()).getPort();
+        
+        // The client keeps what it negotiated with the failed server
+        handshake = new ConnectionHandshake();
+        try {
+            Set<ProtocolCapability> negotiated = ProtocolCapability.parse(parts[2]);
+            handshake.negotiate(Integer.parseInt(parts[1]), negotiated, negotiated);
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid session record: " + sessionRecord);
+        }
+        takenOverUdp = parts[3].equals(MessageProtocol.LINK_UDP);
+        resetUdpSequencing();
+        remoteAddress = clientAddress;
+        startUdpListener(statusUpdater);
+        
+        MatchSession current = new MatchSession(parts[0]);
+        session = current;
+        current.connectionLost();
+        resuming.set(true);
+        forwardedConnections.add(new PendingConnection(socket, clientAddress));
+        executorService.submit(() -> awaitResume(current, statusUpdater));
+    }
+    
+    /**
+     * Records the session of a hosted match for a standby, see {@link #resumeConnection}.
+     * 
+     * @return SESSION record, or null if no session token was issued
+     */
+    public String getSessionRecord() {
+        MatchSession current = session;
+        ConnectionHandshake currentHandshake = handshake;
+        if (current == null || currentHandshake == null || !currentHandshake.isReady()) {
+            return null;
+        }
+        return MessageProtocol.createSessionRecord(current.getToken(), currentHandshake.getProtocolVersion(),
+                currentHandshake.getCapabilities(), currentHandshake.isUdpConfirmed());
+    }
+    
+    /**
+     * Starts serving the client in tcpClientSocket: streams, listeners, then waits for HELLO.
+     * 
+     * @param clientAddress Address to send UDP messages to
+     * @param statusUpdater Consumer that handles status messages
+     * @throws IOException If there's an error setting up the streams
+     */
+    private void serveClient(InetAddress clientAddress, Consumer<String> statusUpdater) throws IOException {
+        handshake = new ConnectionHandshake();
+        resetUdpSequencing();
+        
+        // Get remote address and setup streams
+        remoteAddress = clientAddress;
+        statusUpdater.accept("Client connected from " + remoteAddress.getHostAddress());
+        
+        setupStreams(statusUpdater);
+        isConnected = true;
+        
+        // Start listening for UDP messages
+        startUdpListener(statusUpdater);
+        
+        // Start TCP message listener; the handshake continues when HELLO arrives
+        startTcpListener(statusUpdater);
+    }
+    
+    /**
+     * Enables or disables the spectator channel and LAN announcements of a hosted game.
+     * Must be called before {@link #startServer}; tools hosting many matches turn them off.
+     * 
+     * @param enabled True to open the spectator port and announce the game (the default)
+     */
+    public void setHostServicesEnabled(boolean enabled) {
+        this.hostServicesEnabled = enabled;
+    }
+    
+    /**
+     * Restricts the capabilities offered in the HELLO exchange, e.g. to roll a feature out gradually.
+     * Must be called before connecting.
+     * 
+     * @param capabilities Capabilities to offer (defaults to {@link ProtocolCapability#SUPPORTED})
+     */
+    public void setOfferedCapabilities(Set<ProtocolCapability> capabilities) {
+        this.offeredCapabilities = capabilities;
+    }
+    
+    /**
+     * Names the match when connecting through a MatchRouter, which sends all
+     * connections with the same key to the same worker. Must be called before connecting.
+     * 
+     * @param routeKey Match identifier, or null to connect directly (the default)
+     */
+    public void setRouteKey(String routeKey) {
+        this.routeKey = routeKey;
+    }
+    
+    /**
+     * Simulates a bad network on the messages this side sends, see
+     * {@link ImpairedTransport}. Impair both peers to impair both directions.
+     * Must be called before connecting.
+     * 
+     * @param profile Conditions to simulate, or null for none (the default)
+     */
+    public void setImpairment(ImpairmentProfile profile) {
+        transport.close(); // Socket sends are only closed by stopNetwork
+        transport = impair(socketTransport, profile);
+        impairment = profile;
+    }
+    
+    /**
+     * @return the transport wrapped in an {@link ImpairedTransport} if an impairment is set
+     */
+    private MessageTransport impair(MessageTransport target, ImpairmentProfile profile) {
+        return profile != null ? new ImpairedTransport(target, profile) : target;
+    }
+    
+    /**
+     * Connects to a server.
+     * 
+     * @param host Server's hostname or IP address
+     * @param tcpPort Server's TCP port
+     * @param udpPort Server's expected UDP port (for sending messages to server)
+     * @param statusUpdater Consumer that handles status messages
+     * @throws IOException If there's an error connecting to the server
+     */
+    public void connectToServer(String host, int tcpPort, int udpPort, Consumer<String> statusUpdater) throws IOException {
+        isServer = false;
+        log = new NetworkLog(statusUpdater);
+        
+        // Connect to TCP server
+        statusUpdater.accept("Connecting to " + host + ":" + tcpPort + "...");
+        handshake = new ConnectionHandshake();
+        resetUdpSequencing();
+        tcpClientSocket = new Socket();
+        tcpClientSocket.connect(new InetSocketAddress(host, tcpPort), CONNECT_TIMEOUT_MS);
+        serverHost = host;
+        serverTcpPort = tcpPort;
+        
+        // Setup UDP channel with a dynamic port (0)
+        udpChannel = DatagramChannel.open();
+        udpChannel.bind(new InetSocketAddress(0));  // Use port 0 to get any available port
+        localUdpPort = ((InetSocketAddress) udpChannel.getLocalAddress()).getPort();
+        statusUpdater.accept("UDP Client started on port " + localUdpPort);
+        
+        // Get remote address
+        remoteAddress = tcpClientSocket.getInetAddress();
+        remoteUdpPort = udpPort;
+        
+        statusUpdater.accept("Connected to server!");
+        
+        // Setup streams
+        setupStreams(statusUpdater);
+        isConnected = true;
+        
+        // Start listeners before greeting so no reply can be missed
+        startUdpListener(statusUpdater);
+        startTcpListener(statusUpdater);
+        
+        // A router in front of the server only reads the first frame
+        if (routeKey != null) {
+            sendTcpMessage(MessageProtocol.createRouteMessage(routeKey));
+        }
+        
+        // Send local UDP port, version and capabilities; the server acknowledges with its own UDP port
+        // and what both sides support
+        sendTcpMessage(MessageProtocol.createHelloMessage(localUdpPort, offeredCapabilities));
+        handshake.advance(ConnectionHandshake.State.HELLO_SENT);
+    }
+    
+    /**
+     * Sends UDP probes until one is acknowledged or the attempts run out,
+     * then completes the handshake and tells the server.
+     * 
+     * @param statusUpdater Consumer that handles status messages
+     */
+    private void startUdpProbing(Consumer<String> statusUpdater) {
+        ConnectionHandshake current = handshake;
+        current.advance(ConnectionHandshake.State.PROBING_UDP);
+        
+        executorService.submit(() -> {
+            try {
+                boolean acknowledged = false;
+                for (int attempt = 1; attempt <= ConnectionHandshake.PROBE_ATTEMPTS && !acknowledged; attempt++) {
+                    sendUdpMessage(MessageProtocol.PROBE + MessageProtocol.SEPARATOR + attempt);
+                    acknowledged = current.awaitProbeAcknowledged();
+                }
+                
+                if (!acknowledged) {
+                    statusUpdater.accept("UDP probes unanswered, continuing over TCP only");
+                }
+                sendTcpMessage(MessageProtocol.LINK_READY + MessageProtocol.SEPARATOR +
+                               (acknowledged ? MessageProtocol.LINK_UDP : MessageProtocol.LINK_TCP_ONLY));
+                completeHandshake(acknowledged, statusUpdater);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+    
+    /**
+     * Marks the handshake as complete and reports the measured time-to-ready.
+     * 
+     * @param udpAvailable True if UDP was confirmed in both directions
+     * @param statusUpdater Consumer that handles status messages
+     */
+    private void completeHandshake(boolean udpAvailable, Consumer<String> statusUpdater) {
+        ConnectionHandshake current = handshake;
+        if (current == null || current.isReady()) {
+            return;
+        }
+        
+        // The server issues the token that lets the client resume after a drop,
+        // before the handshake is ready so getSessionRecord has it once awaitReady returns
+        MatchSession issued = null;
+        if (isServer && (tcpServerSocket != null || forwardedConnections != null)) {
+            issued = MatchSession.create();
+            session = issued;
+        }
+        current.complete(udpAvailable);
+        statusUpdater.accept(String.format("Connection ready in %.1f ms (%s)",
+                current.getTimeToReadyMs(), udpAvailable ? "TCP + UDP" : "TCP only"));
+        
+        // Start measuring RTT; a peer that stops answering gets its socket closed
+        heartbeat = new HeartbeatService(this, statusUpdater, this::closeUnresponsiveConnection);
+        heartbeat.start();
+        
+        if (issued != null) {
+            sendTcpMessage(MessageProtocol.SESSION + MessageProtocol.SEPARATOR + issued.getToken());
+        }
+    }
+    
+    /**
+     * Answers heartbeat PINGs and records PONGs before the game layer sees them.
+     * 
+     * @param message Received message
+     * @param transport Transport the message arrived on
+     * @return True if the message was a heartbeat and has been handled
+     */
+    private boolean handleHeartbeat(String message, HeartbeatService.Transport transport) {
+        boolean isPing = MessageProtocol.hasCommand(message, MessageProtocol.PING);
+        boolean isPong = !isPing && MessageProtocol.hasCommand(message, MessageProtocol.PONG);
+        if ((!isPing && !isPong) || message.indexOf(MessageProtocol.SEPARATOR) < 0) {
+            return false; // Not a heartbeat (plain PING/PONG still reach the game layer)
+        }
+        
+        if (isPing) {
+            String pong = MessageProtocol.createPongMessage(message);
+            if (transport == HeartbeatService.Transport.TCP) {
+                sendTcpMessage(pong);
+            } else {
+                sendUdpMessage(pong);
+            }
+        } else if (heartbeat != null) {
+            long sentNanos = MessageProtocol.parseTimestamp(message.substring(MessageProtocol.PONG.length() + 1));
+            if (sentNanos >= 0) {
+                heartbeat.onPong(transport, sentNanos);
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Handles a TCP message dropped by the rate limiter.
+     * A peer that keeps flooding is treated as having left: the game is told
+     * the opponent disconnected and the socket is closed without a resume.
+     */
+    private void rejectTcpFlood() {
+        long dropped = tcpLimiter.getRejected();
+        if (dropped % RATE_LIMIT_LOG_INTERVAL == 1) {
+            log.warn("TCP rate limit exceeded, %d messages dropped so far", dropped);
+        }
+        if (dropped == TCP_FLOOD_DISCONNECT_THRESHOLD) {
+            log.warn("Disconnecting peer after %d dropped messages", dropped);
+            disconnectPeer();
+        }
+    }
+    
+    /**
+     * Restarts the idle timer for the remaining idle time.
+     * 
+     * @param delayMs Time until the connection may be idle for too long
+     */
+    private void scheduleIdleCheck(long delayMs) {
+        TimerWheel.Timeout previous = idleTimer;
+        if (previous != null) {
+            previous.cancel();
+        }
+        idleTimer = TimerWheel.shared().schedule(this::checkIdle, delayMs);
+    }
+    
+    /**
+     * Runs on the timer wheel: drops a peer that sent no game message for too long.
+     * Activity only moves a timestamp, so the timer is re-armed here rather than on every message.
+     */
+    private void checkIdle() {
+        if (stopped || !isConnected || resuming.get()) {
+            return;
+        }
+        long idleMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastActivityNanos);
+        if (idleMs < IDLE_TIMEOUT_MS) {
+            scheduleIdleCheck(IDLE_TIMEOUT_MS - idleMs);
+            return;
+        }
+        log.warn("Disconnecting peer idle for %d s", idleMs / 1000);
+        executorService.submit(this::disconnectPeer);
+    }
+    
+    /**
+     * Ends the connection from this side as if the peer had left: the game
+     * (and every channel) is told the opponent disconnected and no resume is attempted.
+     */
+    private void disconnectPeer() {
+        remoteDisconnected = true;
+        sendTcpMessage(MessageProtocol.DISCONNECT);
+        deliverReliable(MessageProtocol.DISCONNECT);
+        for (NetworkManager channel : channels.values()) {
+            channel.deliverReliable(MessageProtocol.DISCONNECT);
+        }
+        closeUnresponsiveConnection();
+    }
+    
+    /**
+     * Closes the TCP socket of a peer that stopped answering heartbeats,
+     * so the listener notices the loss without waiting for TCP timeouts.
+     */
+    private void closeUnresponsiveConnection() {
+        try {
+            if (tcpClientSocket != null && !tcpClientSocket.isClosed()) {
+                tcpClientSocket.close();
+            }
+        } catch (IOException e) {
+            log.warn("Error closing unresponsive connection: %s", e.getMessage());
+        }
+    }
+    
+    /**
+     * Starts a new UDP stream for a new opponent (not used when a session resumes).
+     */
+    private void resetUdpSequencing() {
+        udpSequence.set(0);
+        udpSequenceTracker.reset();
+    }
+    
+    /**
+     * Name announced to other players on the network.
+     */
+    private static String getHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            return "Battleship host";
+        }
+    }
+    
+    /**
+     * Sets up input and output streams for TCP communication.
+     * 
+     * @param statusUpdater Consumer that handles status messages
+     * @throws IOException If there's an error setting up the streams
+     */
+    private void setupStreams(Consumer<String> statusUpdater) throws IOException {
+        // Batching is done by TcpWriteBatcher, so disable Nagle's algorithm
+        tcpClientSocket.setTcpNoDelay(true);
+        
+        // Setup output stream (length-prefixed frames, flushed once per tick by the batcher)
+        tcpOut = new TcpWriteBatcher(new BufferedOutputStream(tcpClientSocket.getOutputStream()), statusUpdater);
+        tcpOut.start(executorService);
+        
+        // Setup input stream (the decoder does the buffering)
+        tcpIn = tcpClientSocket.getInputStream();
+        tcpDecoder = new FrameDecoder();
+        
+        // A new connection starts with full buckets
+        tcpLimiter = new TokenBucket(TCP_RATE_LIMIT, TCP_BURST_LIMIT);
+        udpLimiter = new TokenBucket(UDP_RATE_LIMIT, UDP_BURST_LIMIT);
+        
+        statusUpdater.accept("Communication streams established");
+    }
+    
+    /**
+     * Starts a listener for TCP messages.
+     * 
+     * @param statusUpdater Consumer that handles status messages
+     */
+    private void startTcpListener(Consumer<String> statusUpdater) {
+        lastActivityNanos = System.nanoTime();
+        scheduleIdleCheck(IDLE_TIMEOUT_MS);
+        executorService.submit(() -> {
+            try {
+                ByteBuffer frame;
+                while ((frame = tcpDecoder.readFrame(tcpIn)) != null) {
+                    // Drop floods before the message is decoded, logged or dispatched
+                    if (!tcpLimiter.tryAcquire()) {
+                        rejectTcpFlood();
+                        continue;
+                    }
+                    final String receivedMessage = tcpDecoder.decode(frame);
+                    if (handleHeartbeat(receivedMessage, HeartbeatService.Transport.TCP)) {
+                        continue;
+                    }
+                    lastActivityNanos = System.nanoTime();
+                    log.debug("TCP received: %s", receivedMessage);
+                    
+                    // Handle handshake messages from client/server
+                    if (receivedMessage.startsWith(MessageProtocol.UDP_PORT + MessageProtocol.SEPARATOR)) {
+                        String[] parts = MessageProtocol.getMessageParts(receivedMessage);
+                        String portStr = parts[0];
+                        try {
+                            remoteUdpPort = Integer.parseInt(portStr);
+                            negotiateProtocol(parts);
+                            log.debug("Updated remote UDP port to: %d", remoteUdpPort);
+                            handshake.advance(ConnectionHandshake.State.PORTS_EXCHANGED);
+                            startUdpProbing(statusUpdater);
+                        } catch (NumberFormatException e) {
+                            log.warn("Invalid UDP port received: %s", portStr);
+                        }
+                    } else if (receivedMessage.startsWith(MessageProtocol.HELLO + MessageProtocol.SEPARATOR) ||
+                               receivedMessage.startsWith(MessageProtocol.CLIENT_UDP_PORT + MessageProtocol.SEPARATOR)) {
+                        String[] parts = MessageProtocol.getMessageParts(receivedMessage);
+                        String portStr = parts[0];
+                        try {
+                            remoteUdpPort = Integer.parseInt(portStr);
+                            log.debug("Updated client UDP port to: %d", remoteUdpPort);
+                            negotiateProtocol(parts);
+                            
+                            // Acknowledge HELLO with our own UDP port and the negotiated protocol
+                            sendTcpMessage(MessageProtocol.createUdpPortMessage(localUdpPort,
+                                    handshake.getProtocolVersion(), handshake.getCapabilities()));
+                            handshake.advance(ConnectionHandshake.State.PORTS_EXCHANGED);
+                        } catch (NumberFormatException e) {
+                            log.warn("Invalid client UDP port received: %s", portStr);
+                        }
+                    } else if (receivedMessage.startsWith(MessageProtocol.LINK_READY + MessageProtocol.SEPARATOR)) {
+                        completeHandshake(receivedMessage.endsWith(MessageProtocol.LINK_UDP), statusUpdater);
+                    } else if (MessageProtocol.hasCommand(receivedMessage, MessageProtocol.SESSION)) {
+                        session = new MatchSession(receivedMessage.substring(MessageProtocol.SESSION.length() + 1));
+                    } else if (MessageProtocol.hasCommand(receivedMessage, MessageProtocol.RESUME)) {
+                        // Resumes are read by awaitResume; this one is for a session we never issued
+                        sendTcpMessage(MessageProtocol.RESUME_REJECTED);
+                    } else if (MessageProtocol.hasCommand(receivedMessage, MessageProtocol.RESUME_OK) ||
+                               MessageProtocol.hasCommand(receivedMessage, MessageProtocol.RESUME_REJECTED)) {
+                        resumeAccepted = MessageProtocol.hasCommand(receivedMessage, MessageProtocol.RESUME_OK);
+                        CountDownLatch reply = resumeReply;
+                        if (reply != null) {
+                            reply.countDown();
+                        }
+                    } else {
+                        // An announced disconnect ends the session, no resume expected
+                        if (MessageProtocol.hasCommand(receivedMessage, MessageProtocol.DISCONNECT)) {
+                            remoteDisconnected = true;
+                        }
+                        
+                        deliverReliable(receivedMessage);
+                    }
+                }
+                
+                // If we reach here, the connection was closed
+                statusUpdater.accept("Connection closed by remote host");
+                isConnected = false;
+                
+            } catch (IOException e) {
+                if (!stopped) {
+                    statusUpdater.accept("Error reading TCP message: " + e.getMessage());
+                }
+                isConnected = false;
+            } finally {
+                if (heartbeat != null) {
+                    heartbeat.stop();
+                }
+            }
+            
+            handleConnectionLost(statusUpdater);
+        });
+    }
+    
+    /**
+     * Settles version and capabilities from the parts of a HELLO or UDP_PORT message.
+     * A message with only the port comes from a version 1 peer.
+     * 
+     * @param parts Message parts: port, then optionally version and capabilities
+     * @throws NumberFormatException If the version is not a number
+     */
+    private void negotiateProtocol(String[] parts) {
+        if (parts.length < 2) {
+            handshake.negotiate(MessageProtocol.LEGACY_PROTOCOL_VERSION, offeredCapabilities, ProtocolCapability.LEGACY);
+        } else {
+            handshake.negotiate(Integer.parseInt(parts[1]), offeredCapabilities,
+                                ProtocolCapability.parse(parts.length > 2 ? parts[2] : null));
+        }
+        log.info("Protocol version %d, capabilities %s", handshake.getProtocolVersion(), handshake.getCapabilities());
+    }
+    
+    /**
+     * Starts resuming the match after the TCP connection dropped without a DISCONNECT.
+     * The server waits for the client to come back; the client reconnects with backoff.
+     * 
+     * @param statusUpdater Consumer that handles status messages
+     */
+    private void handleConnectionLost(Consumer<String> statusUpdater) {
+        MatchSession current = session;
+        if (stopped || remoteDisconnected || current == null || !resuming.compareAndSet(false, true)) {
+            return;
+        }
+        
+        current.connectionLost();
+        statusUpdater.accept("Connection lost, trying to resume the match for up to " +
+                             (MatchSession.GRACE_PERIOD_MS / 1000) + " s...");
+        closeTcpStreams();
+        
+        if (isServer) {
+            awaitResume(current, statusUpdater);
+        } else {
+            reconnect(current, statusUpdater);
+        }
+    }
+    
+    /**
+     * Server side: accepts connections until one presents the session token or the grace window ends.
+     * 
+     * @param current Session being resumed
+     * @param statusUpdater Consumer that handles status messages
+     */
+    private void awaitResume(MatchSession current, Consumer<String> statusUpdater) {
+        while (!stopped && current.getRemainingGraceMs() > 0) {
+            try {
+                PendingConnection pending = nextResumeCandidate(current);
+                if (pending == null) {
+                    continue;
+                }
+                Socket candidate = pending.socket;
+                
+                tcpClientSocket = candidate;
+                setupStreams(statusUpdater);
+                candidate.setSoTimeout(RESUME_TIMEOUT_MS);
+                
+                // The first message must be RESUME:token:udpPort
+                String first = tcpDecoder.readMessage(tcpIn);
+                String[] parts = MessageProtocol.hasCommand(first, MessageProtocol.RESUME) ?
+                        MessageProtocol.getMessageParts(first) : new String[0];
+                if (parts.length == 2 && current.matches(parts[0])) {
+                    candidate.setSoTimeout(0);
+                    remoteAddress = pending.clientAddress;
+                    remoteUdpPort = Integer.parseInt(parts[1]);
+                    isConnected = true;
+                    sendTcpMessage(MessageProtocol.RESUME_OK);
+                    sessionResumed(current, statusUpdater);
+                    return;
+                }
+                
+                statusUpdater.accept("Rejected reconnection from " + pending.clientAddress.getHostAddress());
+                tcpOut.enqueue(MessageProtocol.RESUME_REJECTED);
+                tcpOut.close(); // Flushes the rejection before the socket is closed
+                closeTcpStreams();
+            } catch (SocketTimeoutException e) {
+                closeTcpStreams();
+            } catch (IOException | NumberFormatException e) {
+                if (stopped) {
+                    return;
+                }
+                statusUpdater.accept("Reconnection attempt failed: " + e.getMessage());
+                closeTcpStreams();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        sessionExpired(statusUpdater);
+    }
+    
+    /**
+     * Waits for the next connection that may resume the session: accepted on the
+     * listening socket, or handed over with {@link #offerConnection}.
+     * 
+     * @param current Session being resumed
+     * @return the connection, or null if none came before the grace window ended
+     * @throws IOException If accepting fails
+     * @throws InterruptedException If interrupted while waiting for a handed over connection
+     */
+    private PendingConnection nextResumeCandidate(MatchSession current) throws IOException, InterruptedException {
+        int timeout = (int) Math.max(1, current.getRemainingGraceMs());
+        if (forwardedConnections != null) {
+            return forwardedConnections.poll(timeout, TimeUnit.MILLISECONDS);
+        }
+        tcpServerSocket.setSoTimeout(timeout);
+        try {
+            Socket socket = tcpServerSocket.accept();
+            return new PendingConnection(socket, socket.getInetAddress());
+        } catch (SocketTimeoutException e) {
+            return null;
+        } finally {
+            tcpServerSocket.setSoTimeout(0);
+        }
+    }
+    
+    /**
+     * Client side: reconnects to the server with backoff and presents the session token.
+     * 
+     * @param current Session being resumed
+     * @param statusUpdater Consumer that handles status messages
+     */
+    private void reconnect(MatchSession current, Consumer<String> statusUpdater) {
+        long backoff = RECONNECT_INITIAL_BACKOFF_MS;
+        int attempt = 0;
+        
+        try {
+            while (!stopped && current.getRemainingGraceMs() > 0) {
+                attempt++;
+                try {
+                    Socket socket = new Socket();
+                    socket.connect(new InetSocketAddress(serverHost, serverTcpPort),
+                                   (int) Math.max(1, Math.min(RESUME_TIMEOUT_MS, current.getRemainingGraceMs())));
+                    tcpClientSocket = socket;
+                    setupStreams(statusUpdater);
+                    
+                    CountDownLatch reply = new CountDownLatch(1);
+                    resumeReply = reply;
+                    resumeAccepted = false;
+                    isConnected = true;
+                    startTcpListener(statusUpdater);
+                    if (routeKey != null) {
+                        sendTcpMessage(MessageProtocol.createRouteMessage(routeKey)); // Back to the same worker
+                    }
+                    sendTcpMessage(MessageProtocol.RESUME + MessageProtocol.SEPARATOR + current.getToken() +
+                                   MessageProtocol.SEPARATOR + localUdpPort);
+                    
+                    if (reply.await(RESUME_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                        if (resumeAccepted) {
+                            sessionResumed(current, statusUpdater);
+                            return;
+                        }
+                        statusUpdater.accept("Server rejected the reconnection");
+                        break;
+                    }
+                    isConnected = false;
+                    closeTcpStreams();
+                } catch (IOException e) {
+                    statusUpdater.accept("Reconnection attempt " + attempt + " failed: " + e.getMessage());
+                }
+                
+                Thread.sleep(Math.min(backoff, current.getRemainingGraceMs()));
+                backoff = Math.min(backoff * 2, RECONNECT_MAX_BACKOFF_MS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        
+        isConnected = false;
+        closeTcpStreams();
+        sessionExpired(statusUpdater);
+    }
+    
+    /**
+     * Finishes a successful resume: restarts listeners and asks the game layer to resync.
+     * 
+     * @param current Resumed session
+     * @param statusUpdater Consumer that handles status messages
+     */
+    private void sessionResumed(MatchSession current, Consumer<String> statusUpdater) {
+        current.resumed();
+        resuming.set(false);
+        statusUpdater.accept("Match resumed");
+        
+        if (isServer) {
+            startTcpListener(statusUpdater);
+        }
+        if (!handshake.isReady()) {
+            completeHandshake(takenOverUdp, statusUpdater); // Taken over: ready once the client is back
+        } else if (heartbeat != null) {
+            heartbeat.start();
+        }
+        if (gameManager != null) {
+            gameManager.onSessionResumed();
+        }
+        for (NetworkManager channel : channels.values()) {
+            if (channel.gameManager != null) {
+                channel.gameManager.onSessionResumed();
+            }
+        }
+    }
+    
+    /**
+     * Gives up on a session whose grace window is over.
+     * 
+     * @param statusUpdater Consumer that handles status messages
+     */
+    private void sessionExpired(Consumer<String> statusUpdater) {
+        if (stopped) {
+            return;
+        }
+        session = null;
+        resuming.set(false);
+        statusUpdater.accept("Could not resume the match, opponent is gone");
+        if (gameManager != null) {
+            gameManager.onSessionExpired();
+        }
+        for (NetworkManager channel : channels.values()) {
+            if (channel.gameManager != null) {
+                channel.gameManager.onSessionExpired();
+            }
+        }
+    }
+    
+    /**
+     * Closes the current TCP socket and streams without flushing (the peer is gone).
+     */
+    private void closeTcpStreams() {
+        try {
+            if (tcpClientSocket != null && !tcpClientSocket.isClosed()) tcpClientSocket.close();
+        } catch (IOException e) {
+            log.warn("Error closing TCP socket: %s", e.getMessage());
+        }
+        if (tcpOut != null) {
+            tcpOut.close();
+        }
+        try {
+            if (tcpIn != null) tcpIn.close();
+        } catch (IOException e) {
+            log.warn("Error closing TCP input: %s", e.getMessage());
+        }
+    }
+    
+    /**
+     * Starts a listener for UDP messages.
+     * Reuses a single direct buffer and reads HOVER messages straight from it.
+     * 
+     * @param statusUpdater Consumer that handles status messages
+     */
+    private void startUdpListener(Consumer<String> statusUpdater) {
+        executorService.submit(() -> {
+            try {
+                statusUpdater.accept("UDP listener started on port " + localUdpPort);
+                ByteBuffer buffer = udpReceiveBuffer;
+                while (!stopped) {
+                    // Receive datagram (blocks until data is received)
+                    buffer.clear();
+                    InetSocketAddress sender = (InetSocketAddress) udpChannel.receive(buffer);
+                    buffer.flip();
+                    
+                    // Drop floods before anything in the datagram is looked at
+                    TokenBucket limiter = udpLimiter;
+                    if (!limiter.tryAcquire()) {
+                        long dropped = limiter.getRejected();
+                        if (dropped % RATE_LIMIT_LOG_INTERVAL == 1) {
+                            log.warn("UDP rate limit exceeded, %d datagrams dropped so far", dropped);
+                        }
+                        continue;
+                    }
+                    
+                    // Validate minimum message length
+                    if (buffer.remaining() < 3) {
+                        log.warn("UDP message too short, ignoring: %d bytes", buffer.remaining());
+                        continue;
+                    }
+                    
+                    // Store the sender's address and port for replies if needed
+                    if (remoteAddress == null) {
+                        remoteAddress = sender.getAddress();
+                        remoteUdpPort = sender.getPort();
+                        log.debug("Updated remote UDP address: %s:%d", remoteAddress.getHostAddress(), remoteUdpPort);
+                    }
+                    
+                    // Binary hovers carry their own short sequence number
+                    if (DatagramCodec.isBinaryHover(buffer)) {
+                        receiveBinaryHover(buffer);
+                        continue;
+                    }
+                    
+                    // Drop datagrams older than the last one applied
+                    long sequence = DatagramCodec.readSequence(buffer);
+                    if (sequence >= 0 && !udpSequenceTracker.accept(sequence)) {
+                        continue;
+                    }
+                    
+                    // Hover fast path: no String is built for the most frequent message
+                    int hover = DatagramCodec.readHover(buffer);
+                    if (hover != DatagramCodec.NOT_HOVER) {
+                        if (hover == DatagramCodec.HOVER_NONE) {
+                            deliverHover(-1, -1);
+                        } else {
+                            deliverHover(DatagramCodec.hoverRow(hover), DatagramCodec.hoverCol(hover));
+                        }
+                        continue;
+                    }
+                    
+                    String receivedMessage = DatagramCodec.decode(buffer);
+                    
+                    // Answer handshake probes without involving the game layer
+                    if (receivedMessage.startsWith(MessageProtocol.PROBE_ACK + MessageProtocol.SEPARATOR)) {
+                        if (handshake != null) {
+                            handshake.probeAcknowledged();
+                        }
+                        continue;
+                    }
+                    if (receivedMessage.startsWith(MessageProtocol.PROBE + MessageProtocol.SEPARATOR)) {
+                        sendUdpMessage(MessageProtocol.PROBE_ACK + receivedMessage.substring(MessageProtocol.PROBE.length()));
+                        continue;
+                    }
+                    
+                    if (handleHeartbeat(receivedMessage, HeartbeatService.Transport.UDP)) {
+                        continue;
+                    }
+                    
+                    log.debug("UDP received: %s", receivedMessage);
+                    deliverUnreliable(receivedMessage);
+                }
+            } catch (IOException e) {
+                if (!stopped) {
+                    statusUpdater.accept("Error reading UDP message: " + e.getMessage());
+                }
+            }
+        });
+    }
+    
+    /**
+     * Delivers the samples of a binary hover datagram, unless it is stale or malformed.
+     * 
+     * @param buffer Datagram starting with a hover opcode
+     */
+    private void receiveBinaryHover(ByteBuffer buffer) {
+        int serial = DatagramCodec.readBinaryHoverSerial(buffer);
+        if (serial < 0) {
+            log.warn("Malformed binary hover, ignoring: %d bytes", buffer.limit());
+            return;
+        }
+        if (!udpSequenceTracker.acceptSerial(serial)) {
+            return;
+        }
+        while (buffer.hasRemaining()) {
+            int hover = DatagramCodec.readBinaryHoverCell(buffer);
+            if (hover == DatagramCodec.HOVER_NONE) {
+                deliverHover(-1, -1);
+            } else if (hover != DatagramCodec.NOT_HOVER) {
+                deliverHover(DatagramCodec.hoverRow(hover), DatagramCodec.hoverCol(hover));
+            }
+        }
+    }
+    
+    /**
+     * Sends a TCP message to the remote player.
+     * 
+     * @param message Message to send
+     * @return True if the message was sent successfully, false otherwise
+     */
+    public boolean sendTcpMessage(String message) {
+        publishToSpectators(MessageProtocol.SPECTATOR_HOST, message);
+        return transport.sendReliable(message);
+    }
+    
+    /**
+     * Forwards a game event to the spectators of a hosted match.
+     * 
+     * @param source SPECTATOR_HOST or SPECTATOR_GUEST
+     * @param message Message exchanged by the players
+     */
+    private void publishToSpectators(String source, String message) {
+        SpectatorHub hub = spectatorHub;
+        if (hub != null && MessageProtocol.isSpectatorEvent(message)) {
+            hub.publish(source, message);
+        }
+    }
+    
+    /**
+     * Sends a UDP message to the remote player.
+     * 
+     * @param message Message to send
+     * @return True if the message was sent successfully, false otherwise
+     */
+    public boolean sendUdpMessage(String message) {
+        return transport.sendUnreliable(message);
+    }
+    
+    /**
+     * Sends a hover position to the remote player.
+     * 
+     * @param row Row coordinate or -1 to clear the hover
+     * @param col Column coordinate or -1 to clear the hover
+     * @return True if the message was sent successfully, false otherwise
+     */
+    public boolean sendHover(int row, int col) {
+        if (relaysHoversOverTcp()) {
+            return relayHover(row, col);
+        }
+        return transport.sendHover(row, col);
+    }
+    
+    /**
+     * Sends several hover samples in one datagram when the opponent supports
+     * binary hovers, e.g. a cursor sampled faster than it is sent.
+     * 
+     * @param rows Row of each sample, -1 for a cleared hover
+     * @param cols Column of each sample, -1 for a cleared hover
+     * @param count Number of samples, oldest first
+     * @return True if the samples were sent successfully, false otherwise
+     */
+    public boolean sendHovers(int[] rows, int[] cols, int count) {
+        if (relaysHoversOverTcp()) {
+            return count > 0 && relayHover(rows[count - 1], cols[count - 1]); // Only the latest matters
+        }
+        return transport.sendHovers(rows, cols, count);
+    }
+    
+    /**
+     * Hands a game message received on the reliable channel to the game.
+     * 
+     * @param message Received message
+     */
+    void deliverReliable(String message) {
+        if (message.startsWith(MessageProtocol.CHANNEL_PREFIX)) {
+            NetworkManager channel = findChannel(message);
+            if (channel != null) {
+                channel.deliverReliable(MessageProtocol.stripChannel(message));
+            }
+            return;
+        }
+        if (MessageProtocol.hasCommand(message, MessageProtocol.HOVER)) {
+            // Relayed because UDP is unavailable; the datagram lane coalesces it
+            // instead of queueing it behind game messages
+            deliverUnreliable(message);
+            return;
+        }
+        publishToSpectators(MessageProtocol.SPECTATOR_GUEST, message);
+        
+        // Process game messages via NetworkGameManager
+        if (gameManager != null) {
+            gameManager.processTcpMessage(message);
+        }
+    }
+    
+    /**
+     * Hands a message received on the unreliable channel to the game.
+     * 
+     * @param message Received message
+     */
+    void deliverUnreliable(String message) {
+        if (message.startsWith(MessageProtocol.CHANNEL_PREFIX)) {
+            NetworkManager channel = findChannel(message);
+            if (channel != null) {
+                channel.deliverUnreliable(MessageProtocol.stripChannel(message));
+            }
+            return;
+        }
+        
+        // Process UDP messages via NetworkGameManager
+        if (gameManager != null) {
+            gameManager.processUdpMessage(message);
+        }
+    }
+    
+    /**
+     * Hands a received hover to the game.
+     * 
+     * @param row Row coordinate or -1 if the opponent stopped hovering
+     * @param col Column coordinate or -1 if the opponent stopped hovering
+     */
+    void deliverHover(int row, int col) {
+        if (gameManager != null) {
+            gameManager.processHover(row, col);
+        }
+    }
+    
+    /**
+     * Opens a channel that carries another match over this connection.
+     * The returned manager shares this connection's sockets and threads; give it
+     * its own {@link NetworkGameManager} and use it like a separate connection.
+     * The opponent must open the same channel id or accept it, see
+     * {@link #setChannelAcceptor(Consumer)}.
+     * 
+     * @param id Channel id, greater than 0 (channel 0 is this manager's own match)
+     * @return Manager of the new channel
+     * @throws IllegalArgumentException If the id is invalid or already open
+     * @throws IllegalStateException If the connection is not ready or the opponent does not support channels
+     */
+    public NetworkManager openChannel(int id) {
+        if (id <= MessageProtocol.DEFAULT_CHANNEL) {
+            throw new IllegalArgumentException("Invalid channel id: " + id);
+        }
+        ConnectionHandshake current = handshake;
+        if (parent != null || current == null || !current.supports(ProtocolCapability.MULTIPLEXING)) {
+            throw new IllegalStateException("Connection does not support channels");
+        }
+        
+        NetworkManager channel = new NetworkManager(this, id, current);
+        if (channels.putIfAbsent(id, channel) != null) {
+            throw new IllegalArgumentException("Channel already open: " + id);
+        }
+        return channel;
+    }
+    
+    /**
+     * Sets what happens when the opponent uses a channel that is not open here.
+     * Without an acceptor, messages for unknown channels are dropped.
+     * 
+     * @param acceptor Called on a network thread with the newly opened channel, before its
+     *                 first message is delivered; it should attach a NetworkGameManager
+     */
+    public void setChannelAcceptor(Consumer<NetworkManager> acceptor) {
+        this.channelAcceptor = acceptor;
+    }
+    
+    /**
+     * @return channel id of this manager, 0 unless it was returned by {@link #openChannel(int)}
+     */
+    public int getChannelId() {
+        return channelId;
+    }
+    
     /**
-     * Constructor for the NetworkManager.
+     * @return number of channels open besides this manager's own match
      */
-    public NetworkManager() {
-        // Create thread pool for network operations
-        executorService = Executors.newCachedThreadPool();
+    public int getChannelCount() {
+        return channels.size();
     }
     
     /**
-     * Starts a server that listens for client connections.
+     * Finds the channel of a prefixed message, opening it if the acceptor allows.
      * 
-     * @param tcpPort Port to listen for TCP connections
-     * @param udpPort Port to listen for UDP messages
-     * @param statusUpdater Consumer that handles status messages
-     * @throws IOException If there's an error starting the server
+     * @param message Message with a channel prefix
+     * @return Channel, or null if the message must be dropped
      */
-    public void startServer(int tcpPort, int udpPort, Consumer<String> statusUpdater) throws IOException {
-        isServer = true;
-        
-        // Start TCP server socket
-        tcpServerSocket = new ServerSocket(tcpPort);
-        statusUpdater.accept("TCP Server started on port " + tcpPort);
-        
-        // Start UDP socket
-        udpSocket = new DatagramSocket(udpPort);
-        localUdpPort = udpPort;
-        statusUpdater.accept("UDP Server started on port " + udpPort);
+    private NetworkManager findChannel(String message) {
+        int id = MessageProtocol.getChannel(message);
+        NetworkManager channel = id > MessageProtocol.DEFAULT_CHANNEL ? channels.get(id) : null;
+        if (channel != null) {
+            return channel;
+        }
         
-        // Accept client connection in a separate thread
-        executorService.submit(() -> {
-            try {
-                statusUpdater.accept("Waiting for opponent to connect...");
-                tcpClientSocket = tcpServerSocket.accept();
-                
-                // Get remote address and setup streams
-                remoteAddress = tcpClientSocket.getInetAddress();
-                statusUpdater.accept("Client connected from " + remoteAddress.getHostAddress());
-                
-                setupStreams(statusUpdater);
-                isConnected = true;
-                
-                // Start listening for UDP messages
-                startUdpListener(statusUpdater);
-                
-                // Start TCP message listener
-                startTcpListener(statusUpdater);
-                
-                // Send local UDP port information to client
-                sendTcpMessage("UDP_PORT:" + localUdpPort);
-                
-                // Wait a bit for client to set up UDP
-                try {
-                    Thread.sleep(500);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
-                
-            } catch (IOException e) {
-                statusUpdater.accept("Error accepting client connection: " + e.getMessage());
+        Consumer<NetworkManager> acceptor = channelAcceptor;
+        if (id <= MessageProtocol.DEFAULT_CHANNEL || acceptor == null) {
+            log.warn("Message for unknown channel dropped: %s", message);
+            return null;
+        }
+        synchronized (channels) {
+            // TCP and UDP listeners may both see a new channel first
+            channel = channels.get(id);
+            if (channel == null) {
+                channel = openChannel(id);
+                acceptor.accept(channel);
             }
-        });
+            return channel;
+        }
     }
     
     /**
-     * Connects to a server.
+     * Connects to an opponent in the same process, without sockets.
+     * Messages arrive when the endpoint is pumped, see {@link LoopbackTransport#pump()}.
+     * With an impairment that blocks UDP the connection is TCP-only, so hovers
+     * are relayed on the reliable lane as over a socket.
      * 
-     * @param host Server's hostname or IP address
-     * @param tcpPort Server's TCP port
-     * @param udpPort Server's expected UDP port (for sending messages to server)
-     * @param statusUpdater Consumer that handles status messages
-     * @throws IOException If there's an error connecting to the server
+     * @param endpoint This side's endpoint of a {@link LoopbackTransport#createPair() pair}
+     * @param asServer True to play the hosting side (moves first)
      */
-    public void connectToServer(String host, int tcpPort, int udpPort, Consumer<String> statusUpdater) throws IOException {
-        isServer = false;
+    public void connectLoopback(LoopbackTransport endpoint, boolean asServer) {
+        isServer = asServer;
+        endpoint.attach(this);
+        transport.close(); // Releases a socket transport's impairment
+        transport = impair(endpoint, impairment);
+        handshake = new ConnectionHandshake();
+        handshake.negotiate(MessageProtocol.PROTOCOL_VERSION, offeredCapabilities, ProtocolCapability.SUPPORTED);
+        handshake.complete(impairment == null || !impairment.isUdpBlocked()); // As if the UDP probes went unanswered
+        isConnected = true;
+    }
+    
+    /**
+     * A connection that may resume the session, with the address of its client.
+     */
+    private static class PendingConnection {
+        final Socket socket;
+        final InetAddress clientAddress;
         
-        // Connect to TCP server
-        statusUpdater.accept("Connecting to " + host + ":" + tcpPort + "...");
-        tcpClientSocket = new Socket(host, tcpPort);
+        PendingConnection(Socket socket, InetAddress clientAddress) {
+            this.socket = socket;
+            this.clientAddress = clientAddress;
+        }
+    }
+    
+    /**
+     * Sends through the connection of the parent manager, tagged with this channel.
+     */
+    private class ChannelTransport implements MessageTransport {
         
-        // Setup UDP socket with a dynamic port (0)
-        udpSocket = new DatagramSocket(0);  // Use port 0 to get any available port
-        localUdpPort = udpSocket.getLocalPort();
-        statusUpdater.accept("UDP Client started on port " + localUdpPort);
+        @Override
+        public boolean sendReliable(String message) {
+            return isConnected && parent.transport.sendReliable(MessageProtocol.createChannelMessage(channelId, message));
+        }
         
-        // Get remote address
-        remoteAddress = tcpClientSocket.getInetAddress();
-        remoteUdpPort = udpPort;
+        @Override
+        public boolean sendUnreliable(String message) {
+            return isConnected && parent.transport.sendUnreliable(MessageProtocol.createChannelMessage(channelId, message));
+        }
         
-        statusUpdater.accept("Connected to server!");
+        @Override
+        public boolean sendLatest(int channel, String message) {
+            // Tagged here, but kept in the parent's slot for this channel
+            return isConnected && parent.transport.sendLatest(channel, MessageProtocol.createChannelMessage(channel, message));
+        }
         
-        // Setup streams
-        setupStreams(statusUpdater);
-        isConnected = true;
+        @Override
+        public boolean sendHover(int row, int col) {
+            // The binary hover path only serves the default channel
+            return sendUnreliable(MessageProtocol.createHoverMessage(row, col));
+        }
         
-        // Send local UDP port to server for callbacks
-        sendTcpMessage("CLIENT_UDP_PORT:" + localUdpPort);
+        @Override
+        public void close() {
+            parent.channels.remove(channelId, NetworkManager.this);
+        }
+    }
+    
+    /**
+     * Sends over the TCP and UDP sockets.
+     */
+    private class SocketTransport implements MessageTransport {
         
-        // Wait a bit for server to process the port information
-        try {
-            Thread.sleep(500);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+        @Override
+        public boolean sendReliable(String message) {
+            if (!isConnected || tcpOut == null) {
+                return false;
+            }
+            
+            return tcpOut.enqueue(message); // Returns false if the connection failed
         }
         
-        // Start UDP listener
-        startUdpListener(statusUpdater);
+        @Override
+        public boolean sendLatest(int channel, String message) {
+            if (!isConnected || tcpOut == null) {
+                return false;
+            }
+            
+            return tcpOut.enqueueLatest(channel, message);
+        }
         
-        // Start TCP message listener
-        startTcpListener(statusUpdater);
+        @Override
+        public boolean sendUnreliable(String message) {
+            if (!isConnected || udpChannel == null || remoteAddress == null) {
+                return false;
+            }
+            
+            synchronized (udpSendBuffer) {
+                udpSendBuffer.clear();
+                
+                // Prefix with the sequence number so the receiver can drop stale datagrams
+                writeUdpSequence();
+                
+                // Validate message size
+                if (!DatagramCodec.writeText(udpSendBuffer, message)) {
+                    log.warn("UDP message too large: %d chars", message.length());
+                    return false;
+                }
+                return sendUdpBuffer();
+            }
+        }
         
-        // Send initial UDP ping to establish connection
-        executorService.submit(() -> {
-            try {
-                Thread.sleep(1000); // Wait for UDP listener to be ready
-                for (int i = 0; i < 3; i++) {
-                    if (sendUdpMessage(MessageProtocol.PING)) {
-                        statusUpdater.accept("UDP handshake ping sent (attempt " + (i + 1) + ")");
-                        Thread.sleep(500);
-                    }
+        @Override
+        public boolean sendHover(int row, int col) {
+            if (!isConnected || udpChannel == null || remoteAddress == null) {
+                return false;
+            }
+            
+            // Encoded straight into the send buffer
+            synchronized (udpSendBuffer) {
+                udpSendBuffer.clear();
+                if (usesBinaryHovers() && DatagramCodec.fitsBinaryHover(row, col)) {
+                    DatagramCodec.writeBinaryHover(udpSendBuffer, udpSequence.getAndIncrement(), row, col);
+                } else {
+                    writeUdpSequence();
+                    DatagramCodec.writeHover(udpSendBuffer, row, col);
                 }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
+                return sendUdpBuffer();
             }
-        });
+        }
+        
+        @Override
+        public boolean sendHovers(int[] rows, int[] cols, int count) {
+            if (count <= 1 || count > DatagramCodec.MAX_HOVER_BATCH || !usesBinaryHovers()) {
+                return MessageTransport.super.sendHovers(rows, cols, count);
+            }
+            for (int i = 0; i < count; i++) {
+                if (!DatagramCodec.fitsBinaryHover(rows[i], cols[i])) {
+                    return MessageTransport.super.sendHovers(rows, cols, count);
+                }
+            }
+            if (!isConnected || udpChannel == null || remoteAddress == null) {
+                return false;
+            }
+            
+            synchronized (udpSendBuffer) {
+                udpSendBuffer.clear();
+                DatagramCodec.writeBinaryHoverBatch(udpSendBuffer, udpSequence.getAndIncrement(), rows, cols, count);
+                return sendUdpBuffer();
+            }
+        }
+        
+        @Override
+        public void close() {
+            // Sockets are closed by stopNetwork
+        }
     }
     
     /**
-     * Sets up input and output streams for TCP communication.
-     * 
-     * @param statusUpdater Consumer that handles status messages
-     * @throws IOException If there's an error setting up the streams
+     * @return true if the UDP probes went unanswered and the peer accepts hovers over TCP
      */
-    private void setupStreams(Consumer<String> statusUpdater) throws IOException {
-        // Setup output stream
-        tcpOut = new PrintWriter(new BufferedWriter(
-                 new OutputStreamWriter(tcpClientSocket.getOutputStream())), true);
-        
-        // Setup input stream
-        tcpIn = new BufferedReader(
-                new InputStreamReader(tcpClientSocket.getInputStream()));
-        
-        statusUpdater.accept("Communication streams established");
+    private boolean relaysHoversOverTcp() {
+        ConnectionHandshake current = handshake;
+        return current != null && current.isReady() && !current.isUdpConfirmed() &&
+               current.supports(ProtocolCapability.TCP_HOVER_RELAY);
     }
     
     /**
-     * Starts a listener for TCP messages.
+     * Sends a hover over TCP at most every {@link #TCP_HOVER_INTERVAL_MS}. Hovers
+     * in between are coalesced: only the latest is sent when the interval ends.
      * 
-     * @param statusUpdater Consumer that handles status messages
+     * @return False if the TCP connection is gone
      */
-    private void startTcpListener(Consumer<String> statusUpdater) {
-        executorService.submit(() -> {
-            try {
-                String message;
-                while ((message = tcpIn.readLine()) != null) {
-                    final String receivedMessage = message;
-                    statusUpdater.accept("TCP received: " + receivedMessage);
-                    
-                    // Handle UDP port information from client/server
-                    if (receivedMessage.startsWith("UDP_PORT:")) {
-                        String portStr = receivedMessage.substring(9);
-                        try {
-                            remoteUdpPort = Integer.parseInt(portStr);
-                            statusUpdater.accept("Updated remote UDP port to: " + remoteUdpPort);
-                        } catch (NumberFormatException e) {
-                            statusUpdater.accept("Invalid UDP port received: " + portStr);
-                        }
-                    } else if (receivedMessage.startsWith("CLIENT_UDP_PORT:")) {
-                        String portStr = receivedMessage.substring(16);
-                        try {
-                            remoteUdpPort = Integer.parseInt(portStr);
-                            statusUpdater.accept("Updated client UDP port to: " + remoteUdpPort);
-                        } catch (NumberFormatException e) {
-                            statusUpdater.accept("Invalid client UDP port received: " + portStr);
-                        }
-                    } else {
-                        // Process game messages via NetworkGameManager
-                        if (gameManager != null) {
-                            gameManager.processTcpMessage(receivedMessage);
-                        }
-                    }
-                }
-                
-                // If we reach here, the connection was closed
-                statusUpdater.accept("Connection closed by remote host");
-                isConnected = false;
-                
-            } catch (IOException e) {
-                statusUpdater.accept("Error reading TCP message: " + e.getMessage());
-                isConnected = false;
+    private boolean relayHover(int row, int col) {
+        if (!isConnected) {
+            return false;
+        }
+        relayedHover.set(MessageProtocol.createHoverMessage(row, col));
+        if (hoverRelayScheduled.compareAndSet(false, true)) {
+            long waitMs = TCP_HOVER_INTERVAL_MS -
+                          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastRelayedHoverNanos);
+            if (waitMs <= 0) {
+                flushRelayedHover();
+            } else {
+                TimerWheel.shared().schedule(this::flushRelayedHover, waitMs);
             }
-        });
+        }
+        return true;
     }
     
     /**
-     * Starts a listener for UDP messages.
-     * 
-     * @param statusUpdater Consumer that handles status messages
+     * Sends the latest relayed hover on the reliable lane, behind game messages.
      */
-    private void startUdpListener(Consumer<String> statusUpdater) {
-        executorService.submit(() -> {
-            try {
-                statusUpdater.accept("UDP listener started on port " + localUdpPort);
-                while (isConnected) {
-                    // Create new buffer for each message to avoid corruption
-                    byte[] buffer = new byte[1024];
-                    DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
-                    
-                    // Receive packet (blocks until data is received)
-                    udpSocket.receive(packet);
-                    
-                    // Process received data with explicit UTF-8 encoding
-                    String receivedMessage = new String(packet.getData(), 0, packet.getLength(), 
-                                                      java.nio.charset.StandardCharsets.UTF_8);
-                    
-                    // Validate minimum message length
-                    if (receivedMessage.length() < 3) {
-                        statusUpdater.accept("UDP message too short, ignoring: " + receivedMessage.length() + " bytes");
-                        continue;
-                    }
-                    
-                    // Don't log hover messages to avoid spam
-                    if (!receivedMessage.startsWith("HOVER:")) {
-                        statusUpdater.accept("UDP received: " + receivedMessage);
-                    }
-                    
-                    // Store the sender's address and port for replies if needed
-                    if (remoteAddress == null) {
-                        remoteAddress = packet.getAddress();
-                        remoteUdpPort = packet.getPort();
-                        statusUpdater.accept("Updated remote UDP address: " + remoteAddress.getHostAddress() + ":" + remoteUdpPort);
-                    }
-                    
-                    // Process UDP messages via NetworkGameManager
-                    if (gameManager != null) {
-                        gameManager.processUdpMessage(receivedMessage);
-                    }
-                }
-            } catch (IOException e) {
-                if (isConnected) {
-                    statusUpdater.accept("Error reading UDP message: " + e.getMessage());
-                }
-            }
-        });
+    private void flushRelayedHover() {
+        hoverRelayScheduled.set(false);
+        String hover = relayedHover.getAndSet(null);
+        if (hover != null) {
+            lastRelayedHoverNanos = System.nanoTime();
+            transport.sendLatest(channelId, hover);
+        }
     }
     
     /**
-     * Sends a TCP message to the remote player.
-     * 
-     * @param message Message to send
-     * @return True if the message was sent successfully, false otherwise
+     * @return true if both sides agreed to binary hover datagrams
      */
-    public boolean sendTcpMessage(String message) {
-        if (!isConnected || tcpOut == null) {
-            return false;
+    private boolean usesBinaryHovers() {
+        ConnectionHandshake current = handshake;
+        return current != null && current.supports(ProtocolCapability.BINARY_CODEC);
+    }
+    
+    /**
+     * Writes the next sequence number into the UDP send buffer, unless the peer
+     * did not agree to sequenced datagrams. Caller must hold the buffer's lock.
+     */
+    private void writeUdpSequence() {
+        ConnectionHandshake current = handshake;
+        if (current == null || current.supports(ProtocolCapability.SEQUENCE_NUMBERS)) {
+            DatagramCodec.writeSequence(udpSendBuffer, udpSequence.getAndIncrement());
         }
-        
-        tcpOut.println(message);
-        return !tcpOut.checkError(); // Returns true if no error occurred
     }
     
     /**
-     * Sends a UDP message to the remote player.
+     * Sends the contents of the UDP send buffer. Caller must hold its lock.
      * 
-     * @param message Message to send
-     * @return True if the message was sent successfully, false otherwise
+     * @return True if the datagram was sent successfully, false otherwise
      */
-    public boolean sendUdpMessage(String message) {
-        if (!isConnected || udpSocket == null || remoteAddress == null) {
-            return false;
-        }
-        
+    private boolean sendUdpBuffer() {
         try {
-            // Use UTF-8 explicitly to avoid encoding issues
-            byte[] buffer = message.getBytes(java.nio.charset.StandardCharsets.UTF_8);
-            
-            // Validate message size
-            if (buffer.length > 1024) {
-                System.err.println("UDP message too large: " + buffer.length + " bytes");
-                return false;
+            InetSocketAddress target = remoteUdpSocketAddress;
+            if (target == null || target.getPort() != remoteUdpPort || !target.getAddress().equals(remoteAddress)) {
+                target = new InetSocketAddress(remoteAddress, remoteUdpPort);
+                remoteUdpSocketAddress = target;
             }
             
-            DatagramPacket packet = new DatagramPacket(
-                    buffer, buffer.length, remoteAddress, remoteUdpPort);
-            udpSocket.send(packet);
+            udpSendBuffer.flip();
+            udpChannel.send(udpSendBuffer, target);
             return true;
         } catch (IOException e) {
-            System.err.println("Error sending UDP message: " + e.getMessage());
+            log.warn("Error sending UDP message: %s", e.getMessage());
             return false;
         }
     }
@@ -358,21 +1582,55 @@ public class NetworkManager {
      * Stops all network connections and cleans up resources.
      */
     public void stopNetwork() {
+        stopped = true;
         isConnected = false;
+        session = null;
+        
+        if (heartbeat != null) {
+            heartbeat.stop();
+        }
+        if (idleTimer != null) {
+            idleTimer.cancel();
+        }
+        if (spectatorHub != null) {
+            spectatorHub.stop();
+        }
+        for (NetworkManager channel : channels.values()) {
+            channel.stopNetwork();
+        }
+        transport.close();
+        if (discovery != null) {
+            discovery.stop();
+        }
         
-        // Close TCP resources
+        // Close TCP resources (pending messages such as DISCONNECT are flushed first)
         try {
             if (tcpOut != null) tcpOut.close();
-            if (tcpIn != null) tcpIn.close();
+            // Close the socket before the input so a blocked read is released
             if (tcpClientSocket != null && !tcpClientSocket.isClosed()) tcpClientSocket.close();
+            if (tcpIn != null) tcpIn.close();
             if (tcpServerSocket != null && !tcpServerSocket.isClosed()) tcpServerSocket.close();
         } catch (IOException e) {
-            System.err.println("Error closing TCP resources: " + e.getMessage());
+            log.warn("Error closing TCP resources: %s", e.getMessage());
+        }
+        if (forwardedConnections != null) {
+            PendingConnection pending;
+            while ((pending = forwardedConnections.poll()) != null) {
+                try {
+                    pending.socket.close();
+                } catch (IOException e) {
+                    log.warn("Error closing TCP socket: %s", e.getMessage());
+                }
+            }
         }
         
-        // Close UDP socket
-        if (udpSocket != null && !udpSocket.isClosed()) {
-            udpSocket.close();
+        // Close UDP channel
+        if (udpChannel != null && udpChannel.isOpen()) {
+            try {
+                udpChannel.close();
+            } catch (IOException e) {
+                log.warn("Error closing UDP channel: %s", e.getMessage());
+            }
         }
         
         // Shutdown executor service
@@ -390,6 +1648,51 @@ public class NetworkManager {
         return isConnected;
     }
     
+    /**
+     * Waits until the connection handshake is complete.
+     * @param timeoutMs Maximum time to wait in milliseconds
+     * @return True if the connection is ready
+     */
+    public boolean awaitReady(long timeoutMs) {
+        ConnectionHandshake current = handshake;
+        if (current == null) {
+            return false;
+        }
+        try {
+            return current.awaitReady(timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+    
+    /**
+     * Checks if the connection handshake is complete.
+     * @return True if both sides confirmed the connection
+     */
+    public boolean isReady() {
+        ConnectionHandshake current = handshake;
+        return current != null && current.isReady();
+    }
+    
+    /**
+     * Checks if UDP traffic was confirmed during the handshake.
+     * @return True if UDP is usable
+     */
+    public boolean isUdpAvailable() {
+        ConnectionHandshake current = handshake;
+        return current != null && current.isUdpConfirmed();
+    }
+    
+    /**
+     * Gets a short latency summary for the status bar.
+     * @return Text like "RTT 12/30 ms (p50/p99)" or an empty string if not measured yet
+     */
+    public String getLatencyStatus() {
+        HeartbeatService current = heartbeat;
+        return isConnected && current != null ? current.getStatusText() : "";
+    }
+    
     /**
      * Checks if running as a server.
      * 
@@ -421,27 +1724,20 @@ public class NetworkManager {
      * @return True if UDP connection is working
      */
     public boolean testUdpConnectivity(Consumer<String> statusUpdater) {
-        if (!isConnected || udpSocket == null || remoteAddress == null) {
+        if (!isConnected || udpChannel == null || remoteAddress == null) {
             statusUpdater.accept("UDP test failed: Not properly connected");
             return false;
         }
         
-        try {
-            // Send test message
-            String testMessage = "UDP_TEST:" + System.currentTimeMillis();
-            byte[] buffer = testMessage.getBytes(java.nio.charset.StandardCharsets.UTF_8);
-            
-            DatagramPacket packet = new DatagramPacket(
-                    buffer, buffer.length, remoteAddress, remoteUdpPort);
-            udpSocket.send(packet);
-            
-            statusUpdater.accept("UDP test message sent: " + testMessage);
-            return true;
-            
-        } catch (IOException e) {
-            statusUpdater.accept("UDP test failed: " + e.getMessage());
+        // Send test message
+        String testMessage = "UDP_TEST:" + System.currentTimeMillis();
+        if (!sendUdpMessage(testMessage)) {
+            statusUpdater.accept("UDP test failed: could not send datagram");
             return false;
         }
+        
+        statusUpdater.accept("UDP test message sent: " + testMessage);
+        return true;
     }
 
     /**
@@ -456,8 +1752,46 @@ public class NetworkManager {
         diag.append("Local UDP Port: ").append(localUdpPort).append("\n");
         diag.append("Remote UDP Port: ").append(remoteUdpPort).append("\n");
         diag.append("Remote Address: ").append(remoteAddress != null ? remoteAddress.getHostAddress() : "null").append("\n");
-        diag.append("UDP Socket: ").append(udpSocket != null ? "OK" : "null").append("\n");
+        diag.append("UDP Channel: ").append(udpChannel != null && udpChannel.isOpen() ? "OK" : "closed/null").append("\n");
         diag.append("TCP Socket: ").append(tcpClientSocket != null && !tcpClientSocket.isClosed() ? "OK" : "closed/null").append("\n");
+        if (gameManager != null) {
+            diag.append("Inbound Queue: ").append(gameManager.getInboundQueue().getStatistics()).append("\n");
+        }
+        if (spectatorHub != null && spectatorHub.isRunning()) {
+            diag.append("Spectators: ").append(spectatorHub.getStatistics()).append("\n");
+        }
+        if (!channels.isEmpty()) {
+            diag.append("Channels: ").append(channels.size()).append(" open\n");
+        }
+        if (session != null) {
+            diag.append("Session: ").append(resuming.get() ? "resuming, " + session.getRemainingGraceMs() + " ms left" : "active").append("\n");
+        }
+        if (handshake != null) {
+            diag.append("Handshake: ").append(handshake.getState());
+            if (handshake.isReady()) {
+                diag.append(String.format(" in %.1f ms, UDP %s", handshake.getTimeToReadyMs(),
+                        handshake.isUdpConfirmed() ? "confirmed" :
+                        relaysHoversOverTcp() ? "unavailable, hovers relayed over TCP" : "unavailable"));
+            }
+            diag.append("\n");
+            diag.append("Protocol: version ").append(handshake.getProtocolVersion())
+                .append(", capabilities ").append(handshake.getCapabilities()).append("\n");
+        }
+        if (tcpOut != null) {
+            diag.append("TCP Writes: ").append(tcpOut.getStatistics()).append("\n");
+        }
+        if (heartbeat != null) {
+            diag.append(heartbeat.getStatistics()).append("\n");
+        }
+        MessageTransport current = transport;
+        if (current instanceof ImpairedTransport) {
+            diag.append("Impairment: ").append(((ImpairedTransport) current).getStatistics()).append("\n");
+        }
+        diag.append("Rate Limit: TCP ").append(tcpLimiter.getStatistics())
+            .append("; UDP ").append(udpLimiter.getStatistics()).append("\n");
+        diag.append("UDP Sent: ").append(udpSequence.get()).append("\n");
+        diag.append("UDP Sequence: ").append(udpSequenceTracker.getStatistics()).append("\n");
+        diag.append("Log: level=").append(NetworkLog.getLevel()).append(", dropped=").append(NetworkLog.getDroppedCount()).append("\n");
         return diag.toString();
     }
 }
\ No newline at end of file
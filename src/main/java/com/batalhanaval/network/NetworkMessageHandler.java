@@ -2,6 +2,8 @@ package com.batalhanaval.network;
 
 import java.util.function.Consumer;
 
+import com.batalhanaval.Constants;
+import com.batalhanaval.core.Board;
 import com.batalhanaval.core.Position;
 
 /**
@@ -11,7 +13,7 @@ import com.batalhanaval.core.Position;
 public class NetworkMessageHandler {
     
     // Message handlers
-    private Consumer<String> statusUpdater;
+    private final NetworkLog log;
     private GameMessageListener gameMessageListener;
     private HoverMessageListener hoverMessageListener;
     
@@ -23,10 +25,65 @@ public class NetworkMessageHandler {
         void onGameStart(boolean isFirstPlayer);
         void onAttackReceived(int row, int col);
         void onAttackResult(String result, int row, int col);
+        
+        /**
+         * Called with the result of our attack when the opponent also named the ship it sank.
+         * @param result HIT, MISS or SUNK
+         * @param row Row coordinate
+         * @param col Column coordinate
+         * @param sunkShip Name of the sunk ship, or null if not sunk or not named
+         */
+        default void onAttackResult(String result, int row, int col, String sunkShip) {
+            onAttackResult(result, row, col);
+        }
         void onTurnEnd();
         void onGameOver(boolean isWinner);
         void onOpponentDisconnect();
         void onOpponentSurrender();
+        
+        /**
+         * Called with the opponent's view of the match after a session resume.
+         * @param snapshot Opponent's snapshot
+         */
+        default void onStateResync(SessionSnapshot snapshot) {
+        }
+        
+        /**
+         * Called when the host resolved an attack on the local fleet in an authoritative match.
+         * The result is final; no ATTACK_RESULT is sent back.
+         * @param result HIT, MISS or SUNK
+         * @param row Row coordinate
+         * @param col Column coordinate
+         */
+        default void onOpponentAttackResolved(String result, int row, int col) {
+        }
+        
+        /**
+         * Called when the host announced an authoritative match.
+         */
+        default void onAuthoritativeMode() {
+        }
+        
+        /**
+         * Called on the host when the guest sent its fleet.
+         * @param fleetMessage FLEET message
+         */
+        default void onFleetReceived(String fleetMessage) {
+        }
+        
+        /**
+         * Called on the guest when the host refused its fleet.
+         */
+        default void onFleetRejected() {
+        }
+        
+        /**
+         * Called when a player ran out of time for a turn, see {@link NetworkGameManager#setTurnTimeLimit(long)}.
+         * @param localPlayer True if the local player's turn expired
+         * @param forfeited True if the match ends because of it, false if a random shot was fired instead
+         */
+        default void onTurnTimeout(boolean localPlayer, boolean forfeited) {
+        }
     }
     
     /**
@@ -42,7 +99,7 @@ public class NetworkMessageHandler {
      * @param statusUpdater Consumer for status messages
      */
     public NetworkMessageHandler(Consumer<String> statusUpdater) {
-        this.statusUpdater = statusUpdater;
+        this.log = new NetworkLog(statusUpdater);
     }
     
     /**
@@ -72,15 +129,13 @@ public class NetworkMessageHandler {
         
         // Validate message format
         if (!MessageProtocol.isValidMessage(message)) {
-            statusUpdater.accept("Invalid TCP message received: " + message);
+            log.warn("Invalid TCP message received: %s", message);
             return;
         }
         
         String command = MessageProtocol.getCommand(message);
         String[] parts = MessageProtocol.getMessageParts(message);
         
-        statusUpdater.accept("TCP received: " + message);
-        
         // Dispatch to appropriate handler
         if (gameMessageListener != null) {
             try {
@@ -105,7 +160,8 @@ public class NetworkMessageHandler {
                         String result = parts[0];
                         int[] resultCoords = MessageProtocol.parseCoordinates(parts[1]);
                         if (resultCoords != null) {
-                            gameMessageListener.onAttackResult(result, resultCoords[0], resultCoords[1]);
+                            String sunkShip = parts.length > 2 ? parts[2] : null;
+                            gameMessageListener.onAttackResult(result, resultCoords[0], resultCoords[1], sunkShip);
                         }
                         break;
                         
@@ -126,12 +182,41 @@ public class NetworkMessageHandler {
                         gameMessageListener.onOpponentSurrender();
                         break;
                         
+                    case MessageProtocol.RESYNC:
+                        gameMessageListener.onStateResync(SessionSnapshot.decode(message));
+                        break;
+                        
+                    case MessageProtocol.MODE:
+                        gameMessageListener.onAuthoritativeMode();
+                        break;
+                        
+                    case MessageProtocol.FLEET:
+                        gameMessageListener.onFleetReceived(message);
+                        break;
+                        
+                    case MessageProtocol.FLEET_REJECTED:
+                        gameMessageListener.onFleetRejected();
+                        break;
+                        
+                    case MessageProtocol.ATTACK_RESOLVED:
+                        int[] resolvedCoords = MessageProtocol.parseCoordinates(parts[2]);
+                        if (resolvedCoords != null) {
+                            // The host's attacks land on our fleet, ours on the host's
+                            if (parts[0].equals(MessageProtocol.SPECTATOR_HOST)) {
+                                gameMessageListener.onOpponentAttackResolved(parts[1], resolvedCoords[0], resolvedCoords[1]);
+                            } else {
+                                String sunkShip = parts.length > 3 ? parts[3] : null;
+                                gameMessageListener.onAttackResult(parts[1], resolvedCoords[0], resolvedCoords[1], sunkShip);
+                            }
+                        }
+                        break;
+                        
                     default:
-                        statusUpdater.accept("Unknown TCP command: " + command);
+                        log.warn("Unknown TCP command: %s", command);
                         break;
                 }
             } catch (Exception e) {
-                statusUpdater.accept("Error processing TCP message: " + e.getMessage());
+                log.error("Error processing TCP message: %s", e.getMessage());
             }
         }
     }
@@ -147,30 +232,25 @@ public class NetworkMessageHandler {
         
         // Additional validation for UDP messages
         if (message.length() > 1000) {
-            statusUpdater.accept("UDP message too large, ignoring: " + message.length() + " chars");
+            log.warn("UDP message too large, ignoring: %d chars", message.length());
             return;
         }
         
         // Check for invalid characters that might indicate corruption
         if (message.contains("\u0000") || message.contains("\uFFFD")) {
-            statusUpdater.accept("UDP message contains invalid characters, ignoring");
+            log.warn("UDP message contains invalid characters, ignoring");
             return;
         }
         
         // Validate message format
         if (!MessageProtocol.isValidMessage(message)) {
-            statusUpdater.accept("Invalid UDP message received: " + message);
+            log.warn("Invalid UDP message received: %s", message);
             return;
         }
         
         String command = MessageProtocol.getCommand(message);
         String[] parts = MessageProtocol.getMessageParts(message);
         
-        // Don't log every hover message to avoid spam
-        if (!command.equals(MessageProtocol.HOVER)) {
-            statusUpdater.accept("UDP received: " + message);
-        }
-        
         // Dispatch to appropriate handler
         if (hoverMessageListener != null) {
             try {
@@ -195,15 +275,32 @@ public class NetworkMessageHandler {
                         break;
                         
                     default:
-                        statusUpdater.accept("Unknown UDP command: " + command);
+                        log.warn("Unknown UDP command: %s", command);
                         break;
                 }
             } catch (Exception e) {
-                statusUpdater.accept("Error processing UDP message: " + e.getMessage());
+                log.error("Error processing UDP message: %s", e.getMessage());
             }
         }
     }
     
+    /**
+     * Processes a hover update that was already decoded from the datagram.
+     * @param row Row coordinate or -1 to clear the hover
+     * @param col Column coordinate or -1 to clear the hover
+     */
+    public void processHover(int row, int col) {
+        if (hoverMessageListener == null) {
+            return;
+        }
+        
+        if (row < 0 || col < 0) {
+            hoverMessageListener.onHoverReceived(null);
+        } else if (row < Constants.BOARD_SIZE && col < Constants.BOARD_SIZE) {
+            hoverMessageListener.onHoverReceived(new Position(row, col));
+        }
+    }
+    
     /**
      * Creates and sends a ready message.
      * @param networkManager Network manager to send through
@@ -238,6 +335,46 @@ public class NetworkMessageHandler {
         return networkManager.sendTcpMessage(message);
     }
     
+    /**
+     * Creates and sends an attack result message naming the sunk ship.
+     * @param networkManager Network manager to send through
+     * @param result Attack result (HIT, MISS, SUNK)
+     * @param row Row coordinate
+     * @param col Column coordinate
+     * @param sunkShip Name of the sunk ship, or null
+     * @return True if sent successfully
+     */
+    public boolean sendAttackResult(NetworkManager networkManager, String result, int row, int col, String sunkShip) {
+        String message = MessageProtocol.createAttackResultMessage(result, row, col, sunkShip);
+        return networkManager.sendTcpMessage(message);
+    }
+    
+    /**
+     * Pushes an attack resolved by the host of an authoritative match to the guest.
+     * @param networkManager Network manager to send through
+     * @param hostAttacked True if the host made the attack
+     * @param result Attack result (HIT, MISS, SUNK)
+     * @param row Row coordinate
+     * @param col Column coordinate
+     * @param sunkShip Name of the sunk ship, or null
+     * @return True if sent successfully
+     */
+    public boolean sendAttackResolved(NetworkManager networkManager, boolean hostAttacked, String result,
+                                      int row, int col, String sunkShip) {
+        String attacker = hostAttacked ? MessageProtocol.SPECTATOR_HOST : MessageProtocol.SPECTATOR_GUEST;
+        return networkManager.sendTcpMessage(MessageProtocol.createAttackResolvedMessage(attacker, result, row, col, sunkShip));
+    }
+    
+    /**
+     * Sends the local fleet to the host of an authoritative match.
+     * @param networkManager Network manager to send through
+     * @param fleet Board with the placed ships
+     * @return True if sent successfully
+     */
+    public boolean sendFleet(NetworkManager networkManager, Board fleet) {
+        return networkManager.sendTcpMessage(MessageProtocol.createFleetMessage(fleet.getShips()));
+    }
+    
     /**
      * Creates and sends a turn end message.
      * @param networkManager Network manager to send through
@@ -267,6 +404,16 @@ public class NetworkMessageHandler {
         return networkManager.sendTcpMessage(MessageProtocol.SURRENDER);
     }
     
+    /**
+     * Sends a snapshot of the local match state.
+     * @param networkManager Network manager to send through
+     * @param snapshot Snapshot to send
+     * @return True if sent successfully
+     */
+    public boolean sendResync(NetworkManager networkManager, SessionSnapshot snapshot) {
+        return networkManager.sendTcpMessage(snapshot.encode());
+    }
+    
     /**
      * Creates and sends a hover message.
      * @param networkManager Network manager to send through
@@ -274,13 +421,10 @@ public class NetworkMessageHandler {
      * @return True if sent successfully
      */
     public boolean sendHover(NetworkManager networkManager, Position position) {
-        String message;
         if (position != null) {
-            message = MessageProtocol.createHoverMessage(position.getRow(), position.getCol());
-        } else {
-            message = MessageProtocol.createHoverMessage(-1, -1);
+            return networkManager.sendHover(position.getRow(), position.getCol());
         }
-        return networkManager.sendUdpMessage(message);
+        return networkManager.sendHover(-1, -1);
     }
     
     /**
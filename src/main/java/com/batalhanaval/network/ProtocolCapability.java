@@ -0,0 +1,83 @@
+package com.batalhanaval.network;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Optional protocol features negotiated in the HELLO exchange.
+ * <p>
+ * Each peer offers the features it implements; only the ones both offered are
+ * used on the connection. Names a peer does not know are ignored, so new
+ * capabilities can be rolled out without breaking older clients.
+ */
+public enum ProtocolCapability {
+
+    /** Binary hover datagrams instead of HOVER text, see {@link DatagramCodec} */
+    BINARY_CODEC,
+
+    /** Compression of large messages such as RESYNC */
+    COMPRESSION,
+
+    /** Several shots per turn */
+    SALVO,
+
+    /** Sequence prefix on UDP datagrams so stale ones are dropped */
+    SEQUENCE_NUMBERS,
+
+    /** Several matches over one connection, each on its own channel */
+    MULTIPLEXING,
+
+    /** HOVER text on the TCP connection when UDP probes went unanswered */
+    TCP_HOVER_RELAY;
+
+    /** Separator between capability names in a HELLO */
+    public static final String LIST_SEPARATOR = ",";
+
+    /** Capabilities this build implements and offers by default */
+    public static final Set<ProtocolCapability> SUPPORTED =
+            Collections.unmodifiableSet(EnumSet.of(BINARY_CODEC, SEQUENCE_NUMBERS, MULTIPLEXING, TCP_HOVER_RELAY));
+
+    /** Capabilities assumed for a peer that sent no version (it always sequences UDP) */
+    public static final Set<ProtocolCapability> LEGACY =
+            Collections.unmodifiableSet(EnumSet.of(SEQUENCE_NUMBERS));
+
+    /**
+     * Formats capabilities for a HELLO message.
+     * @param capabilities Capabilities to list
+     * @return Comma-separated names, or NULL_VALUE if there are none
+     */
+    public static String encode(Set<ProtocolCapability> capabilities) {
+        if (capabilities.isEmpty()) {
+            return MessageProtocol.NULL_VALUE;
+        }
+        StringBuilder list = new StringBuilder();
+        for (ProtocolCapability capability : capabilities) {
+            if (list.length() > 0) {
+                list.append(LIST_SEPARATOR);
+            }
+            list.append(capability.name());
+        }
+        return list.toString();
+    }
+
+    /**
+     * Parses the capabilities listed in a HELLO message.
+     * @param list Comma-separated names; unknown names are skipped
+     * @return Known capabilities in the list
+     */
+    public static EnumSet<ProtocolCapability> parse(String list) {
+        EnumSet<ProtocolCapability> capabilities = EnumSet.noneOf(ProtocolCapability.class);
+        if (list == null || list.equals(MessageProtocol.NULL_VALUE)) {
+            return capabilities;
+        }
+        for (String name : list.split(LIST_SEPARATOR)) {
+            for (ProtocolCapability capability : values()) {
+                if (capability.name().equals(name.trim())) {
+                    capabilities.add(capability);
+                }
+            }
+        }
+        return capabilities;
+    }
+}
@@ -0,0 +1,185 @@
+package com.batalhanaval.network;
+
+/**
+ * Tracks sequence numbers of an incoming UDP stream.
+ * Accepts only datagrams newer than the last applied one, so a delayed
+ * HOVER can never overwrite a more recent position, and keeps loss and
+ * reordering statistics for diagnostics. A window of the last
+ * {@link #WINDOW_SIZE} sequence numbers tells a datagram that arrives
+ * twice from one that arrives late.
+ */
+public class SequenceTracker {
+
+    /** Value of lastApplied before the first sequenced datagram arrives */
+    private static final long NONE = -1;
+
+    /** Number of sequence numbers below the last applied one remembered as seen */
+    static final int WINDOW_SIZE = 64;
+
+    private long lastApplied = NONE;
+    private long firstApplied = NONE;
+
+    // Bit i set: lastApplied - i was received
+    private long seen = 0;
+
+    // True once the stream was seeded from a 16-bit serial; full numbers are then compared as serials
+    private boolean serialNumbers = false;
+
+    // Statistics
+    private long received = 0;
+    private long applied = 0;
+    private long duplicates = 0;
+    private long reordered = 0;
+    private long missing = 0;
+
+    /**
+     * Registers a received sequence number and decides whether it should be applied.
+     * Once the stream was seeded by {@link #acceptSerial(int)}, the number is
+     * compared by its low 16 bits like the serials around it.
+     * @param sequence Sequence number carried by the datagram
+     * @return True if the datagram is newer than the last applied one
+     */
+    public synchronized boolean accept(long sequence) {
+        if (serialNumbers) {
+            return acceptSerial((int) (sequence & 0xFFFF));
+        }
+        return register(sequence);
+    }
+
+    private boolean register(long sequence) {
+        received++;
+
+        if (lastApplied == NONE) {
+            firstApplied = sequence;
+            lastApplied = sequence;
+            seen = 1;
+            applied++;
+            return true;
+        }
+        if (sequence > lastApplied) {
+            // Every number skipped is a datagram lost or still in flight
+            long gap = sequence - lastApplied;
+            missing += gap - 1;
+            seen = gap >= WINDOW_SIZE ? 1 : (seen << gap) | 1;
+            lastApplied = sequence;
+            applied++;
+            return true;
+        }
+
+        long offset = lastApplied - sequence;
+        if (offset < WINDOW_SIZE && (seen & (1L << offset)) != 0) {
+            duplicates++;
+            return false;
+        }
+        if (offset < WINDOW_SIZE) {
+            seen |= 1L << offset;
+        }
+        // Late arrival of a datagram we already counted as missing; beyond the
+        // window a duplicate cannot be told apart and is counted here too
+        reordered++;
+        if (missing > 0) {
+            missing--;
+        }
+        return false;
+    }
+
+    /**
+     * Registers a sequence number of which only the low 16 bits were sent.
+     * The full number is recovered with serial number arithmetic: it is taken
+     * as the one closest to the last applied sequence, so a stream may wrap
+     * around 65536 as long as fewer than 32768 datagrams are lost in a row.
+     * @param serial Low 16 bits of the sequence number
+     * @return True if the datagram is newer than the last applied one
+     */
+    public synchronized boolean acceptSerial(int serial) {
+        if (lastApplied == NONE) {
+            serialNumbers = true;
+            return register(serial & 0xFFFF);
+        }
+        long sequence = lastApplied + (short) (serial - lastApplied);
+        if (sequence < firstApplied) {
+            received++;
+            reordered++; // Sent before the first one we applied
+            return false;
+        }
+        return register(sequence);
+    }
+
+    /**
+     * Resets the tracker for a new connection.
+     */
+    public synchronized void reset() {
+        lastApplied = NONE;
+        firstApplied = NONE;
+        seen = 0;
+        serialNumbers = false;
+        received = 0;
+        applied = 0;
+        duplicates = 0;
+        reordered = 0;
+        missing = 0;
+    }
+
+    /**
+     * @return the last applied sequence number or -1 if none
+     */
+    public synchronized long getLastApplied() {
+        return lastApplied;
+    }
+
+    /**
+     * @return number of sequenced datagrams received
+     */
+    public synchronized long getReceived() {
+        return received;
+    }
+
+    /**
+     * @return number of datagrams applied (newer than the previous one)
+     */
+    public synchronized long getApplied() {
+        return applied;
+    }
+
+    /**
+     * @return number of datagrams dropped because they were older than the last applied
+     */
+    public synchronized long getStale() {
+        return duplicates + reordered;
+    }
+
+    /**
+     * @return number of datagrams received more than once
+     */
+    public synchronized long getDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * @return number of datagrams that arrived after a newer one
+     */
+    public synchronized long getReordered() {
+        return reordered;
+    }
+
+    /**
+     * @return number of sequence numbers never received (lost so far)
+     */
+    public synchronized long getLost() {
+        return missing;
+    }
+
+    /**
+     * Formats the statistics for diagnostics output.
+     * @return Statistics summary
+     */
+    public synchronized String getStatistics() {
+        double lossRate = lastApplied == NONE ? 0.0 : (100.0 * missing) / (lastApplied - firstApplied + 1);
+        return "received=" + received +
+               ", applied=" + applied +
+               ", stale=" + (duplicates + reordered) +
+               " (duplicates=" + duplicates + ", reordered=" + reordered + ")" +
+               ", lost=" + missing +
+               String.format(" (%.1f%%)", lossRate);
+    }
+}
@@ -0,0 +1,128 @@
+package com.batalhanaval.network;
+
+import com.batalhanaval.Constants;
+
+/**
+ * Compact public state of a match, exchanged after a session resume.
+ * Holds only what both players are allowed to know: the attacked cells of
+ * the sender's own board, the sender's knowledge of the opponent's board,
+ * the number of the sender's ships sunk, whose turn it is and the move index.
+ * <p>
+ * Wire format: RESYNC:moveIndex:Y|N:sunkShips:ownBoard:opponentBoard, each board
+ * being BOARD_SIZE² cell characters (EMPTY, MISS, HIT or SUNK) in row order.
+ */
+public class SessionSnapshot {
+
+    /** Turn flag when it is the sender's turn */
+    private static final String SENDER_TURN = "Y";
+
+    /** Turn flag when it is the receiver's turn */
+    private static final String RECEIVER_TURN = "N";
+
+    private final int moveIndex;
+    private final boolean senderTurn;
+    private final int ownShipsSunk;
+    private final String ownBoard;
+    private final String opponentBoard;
+
+    /**
+     * Creates a snapshot.
+     * @param moveIndex Number of attacks resolved so far
+     * @param senderTurn True if it is the sender's turn
+     * @param ownShipsSunk Number of the sender's ships already sunk
+     * @param ownBoard Public view of the sender's own board
+     * @param opponentBoard Sender's knowledge of the opponent's board
+     */
+    public SessionSnapshot(int moveIndex, boolean senderTurn, int ownShipsSunk,
+                           String ownBoard, String opponentBoard) {
+        this.moveIndex = moveIndex;
+        this.senderTurn = senderTurn;
+        this.ownShipsSunk = ownShipsSunk;
+        this.ownBoard = ownBoard;
+        this.opponentBoard = opponentBoard;
+    }
+
+    /**
+     * Encodes the snapshot as a RESYNC message.
+     * @return Formatted message
+     */
+    public String encode() {
+        return MessageProtocol.RESYNC + MessageProtocol.SEPARATOR + moveIndex +
+               MessageProtocol.SEPARATOR + (senderTurn ? SENDER_TURN : RECEIVER_TURN) +
+               MessageProtocol.SEPARATOR + ownShipsSunk +
+               MessageProtocol.SEPARATOR + ownBoard +
+               MessageProtocol.SEPARATOR + opponentBoard;
+    }
+
+    /**
+     * Decodes a RESYNC message.
+     * @param message Received message
+     * @return Snapshot or null if the message is malformed
+     */
+    public static SessionSnapshot decode(String message) {
+        if (!MessageProtocol.hasCommand(message, MessageProtocol.RESYNC)) {
+            return null;
+        }
+        String[] parts = MessageProtocol.getMessageParts(message);
+        if (parts.length != 5 || !isValidBoard(parts[3]) || !isValidBoard(parts[4])) {
+            return null;
+        }
+        if (!parts[1].equals(SENDER_TURN) && !parts[1].equals(RECEIVER_TURN)) {
+            return null;
+        }
+        try {
+            return new SessionSnapshot(Integer.parseInt(parts[0]), parts[1].equals(SENDER_TURN),
+                    Integer.parseInt(parts[2]), parts[3], parts[4]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Checks that a board string has the right size and only public cell states.
+     * @param board Encoded board
+     * @return True if valid
+     */
+    public static boolean isValidBoard(String board) {
+        if (board == null || board.length() != Constants.BOARD_SIZE * Constants.BOARD_SIZE) {
+            return false;
+        }
+        for (int i = 0; i < board.length(); i++) {
+            char c = board.charAt(i);
+            if (c != Constants.EMPTY && c != Constants.MISS && c != Constants.HIT && c != Constants.SUNK) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return number of attacks resolved so far, as seen by the sender
+     */
+    public int getMoveIndex() {
+        return moveIndex;
+    }
+
+    /**
+     * @return true if the sender believes it is its own turn
+     */
+    public boolean isSenderTurn() {
+        return senderTurn;
+    }
+
+    /**
+     * @return number of the sender's ships sunk
+     */
+    public int getOwnShipsSunk() {
+        return ownShipsSunk;
+    }
+
+    /**
+     * @param row Row coordinate
+     * @param col Column coordinate
+     * @return state of a cell on the sender's own board (EMPTY if never attacked)
+     */
+    public char getOwnCell(int row, int col) {
+        return ownBoard.charAt(row * Constants.BOARD_SIZE + col);
+    }
+}
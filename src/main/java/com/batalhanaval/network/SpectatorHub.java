@@ -0,0 +1,332 @@
+package com.batalhanaval.network;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Read-only spectator channel of a hosted match.
+ * Each game event is encoded once into a shared read-only buffer; every
+ * spectator gets a {@link ByteBuffer#duplicate()} of it, so fan-out costs no
+ * copies. All socket I/O is non-blocking on a single selector thread. A
+ * spectator that cannot keep up has events dropped and later receives a
+ * SKIPPED:n summary instead of stalling the match.
+ * <p>
+ * Wire format: one line per event, HOST:message or GUEST:message.
+ */
+public class SpectatorHub {
+
+    /** Events buffered per spectator before new ones are dropped */
+    public static final int MAX_QUEUED_EVENTS = 256;
+
+    /** Events kept to bring late spectators up to date */
+    public static final int MAX_HISTORY = 512;
+
+    private final Consumer<String> statusUpdater;
+    private final NetworkLog log;
+    private final Queue<ByteBuffer> outbox = new ConcurrentLinkedQueue<>();
+    private final ArrayDeque<ByteBuffer> history = new ArrayDeque<>(MAX_HISTORY);
+    private long historyTrimmed = 0;
+    private final List<Spectator> spectators = new ArrayList<>();
+    private final ByteBuffer discardBuffer = ByteBuffer.allocate(256);
+
+    private final AtomicLong eventsPublished = new AtomicLong();
+    private long bytesWritten = 0;
+    private long eventsDropped = 0;
+
+    private ServerSocketChannel serverChannel;
+    private Selector selector;
+    private Thread selectorThread;
+    private volatile boolean running = false;
+
+    /**
+     * Connection state of one spectator. Only touched by the selector thread.
+     */
+    private static class Spectator {
+        final SocketChannel channel;
+        final ArrayDeque<ByteBuffer> pending = new ArrayDeque<>();
+        int skipped = 0;
+
+        Spectator(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    /**
+     * Creates a spectator hub.
+     * @param statusUpdater Consumer for status messages
+     */
+    public SpectatorHub(Consumer<String> statusUpdater) {
+        this.statusUpdater = statusUpdater;
+        this.log = new NetworkLog(statusUpdater);
+    }
+
+    /**
+     * Starts accepting spectators.
+     * @param port Port to listen on, or 0 for any free port
+     * @throws IOException If the port cannot be opened
+     */
+    public synchronized void start(int port) throws IOException {
+        if (running) {
+            return;
+        }
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        try {
+            serverChannel.bind(new InetSocketAddress(port));
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            serverChannel.close();
+            selector.close();
+            throw e;
+        }
+
+        running = true;
+        selectorThread = new Thread(this::runSelector, "spectator-hub");
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+        statusUpdater.accept("Spectator channel open on port " + getPort());
+    }
+
+    /**
+     * @return port the hub listens on, or -1 if it is not running
+     */
+    public synchronized int getPort() {
+        if (!running) {
+            return -1;
+        }
+        try {
+            return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Stops the hub and disconnects all spectators.
+     */
+    public void stop() {
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            try {
+                selector.close();
+                serverChannel.close();
+            } catch (IOException e) {
+                log.warn("Error closing spectator channel: %s", e.getMessage());
+            }
+        }
+        // Joined outside the lock, the selector thread needs it to disconnect spectators
+        if (selectorThread != null) {
+            try {
+                selectorThread.join(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Publishes a game event to all spectators. Never blocks the caller.
+     * @param source Player that produced the event (HOST or GUEST)
+     * @param message Game message
+     */
+    public void publish(String source, String message) {
+        if (!running) {
+            return;
+        }
+        byte[] bytes = (source + MessageProtocol.SEPARATOR + message + "\n").getBytes(StandardCharsets.UTF_8);
+        outbox.offer(ByteBuffer.wrap(bytes).asReadOnlyBuffer());
+        eventsPublished.incrementAndGet();
+        selector.wakeup();
+    }
+
+    /**
+     * @return true if the hub is accepting spectators
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * @return number of connected spectators
+     */
+    public synchronized int getSpectatorCount() {
+        return spectators.size();
+    }
+
+    /**
+     * Formats the fan-out statistics for diagnostics output.
+     * @return Statistics summary
+     */
+    public synchronized String getStatistics() {
+        return String.format("spectators=%d, events=%d, bytes written=%d, dropped=%d",
+                spectators.size(), eventsPublished.get(), bytesWritten, eventsDropped);
+    }
+
+    private void runSelector() {
+        try {
+            while (running) {
+                selector.select();
+                synchronized (this) {
+                    fanOut();
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        if (key.isAcceptable()) {
+                            accept();
+                        } else {
+                            Spectator spectator = (Spectator) key.attachment();
+                            if (key.isReadable()) {
+                                discardInput(spectator);
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                flush(spectator);
+                            }
+                        }
+                    }
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            if (running) {
+                statusUpdater.accept("Spectator channel stopped: " + e.getMessage());
+            }
+        } finally {
+            synchronized (this) {
+                for (Spectator spectator : new ArrayList<>(spectators)) {
+                    disconnect(spectator);
+                }
+            }
+        }
+    }
+
+    /**
+     * Hands every new event to each spectator's queue and tries to write it right away.
+     */
+    private void fanOut() {
+        ByteBuffer event;
+        boolean any = false;
+        while ((event = outbox.poll()) != null) {
+            any = true;
+            if (history.size() == MAX_HISTORY) {
+                history.pollFirst();
+                historyTrimmed++;
+            }
+            history.addLast(event);
+            for (Spectator spectator : spectators) {
+                if (spectator.pending.size() >= MAX_QUEUED_EVENTS) {
+                    spectator.skipped++;
+                    eventsDropped++;
+                } else {
+                    spectator.pending.add(event.duplicate());
+                }
+            }
+        }
+        if (any) {
+            for (Spectator spectator : new ArrayList<>(spectators)) {
+                flush(spectator);
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        Spectator spectator = new Spectator(channel);
+        channel.register(selector, SelectionKey.OP_READ, spectator);
+        spectators.add(spectator);
+
+        // Late spectators replay the match so far from the shared buffers, within
+        // the queue bound; older events, and those no longer kept, are reported as skipped
+        int replayFrom = Math.max(0, history.size() - MAX_QUEUED_EVENTS);
+        spectator.skipped = (int) Math.min(Integer.MAX_VALUE, historyTrimmed + replayFrom);
+        int index = 0;
+        for (ByteBuffer event : history) {
+            if (index++ >= replayFrom) {
+                spectator.pending.add(event.duplicate());
+            }
+        }
+        flush(spectator);
+    }
+
+    /**
+     * Writes as much of a spectator's queue as the socket takes without blocking.
+     */
+    private void flush(Spectator spectator) {
+        try {
+            while (true) {
+                ByteBuffer head = spectator.pending.peek();
+                if (head == null) {
+                    if (spectator.skipped == 0) {
+                        break;
+                    }
+                    // Caught up after dropping events: tell the spectator how many
+                    String summary = MessageProtocol.SPECTATOR_SKIPPED + MessageProtocol.SEPARATOR + spectator.skipped + "\n";
+                    spectator.pending.add(ByteBuffer.wrap(summary.getBytes(StandardCharsets.UTF_8)));
+                    spectator.skipped = 0;
+                    continue;
+                }
+                bytesWritten += spectator.channel.write(head);
+                if (head.hasRemaining()) {
+                    break; // Socket buffer full
+                }
+                spectator.pending.poll();
+            }
+
+            SelectionKey key = spectator.channel.keyFor(selector);
+            if (key != null && key.isValid()) {
+                int interest = SelectionKey.OP_READ | (spectator.pending.isEmpty() ? 0 : SelectionKey.OP_WRITE);
+                key.interestOps(interest);
+            }
+        } catch (IOException e) {
+            disconnect(spectator);
+        }
+    }
+
+    /**
+     * Spectators have nothing to say; input is read only to notice them leaving.
+     */
+    private void discardInput(Spectator spectator) {
+        try {
+            discardBuffer.clear();
+            if (spectator.channel.read(discardBuffer) < 0) {
+                disconnect(spectator);
+            }
+        } catch (IOException e) {
+            disconnect(spectator);
+        }
+    }
+
+    private void disconnect(Spectator spectator) {
+        spectators.remove(spectator);
+        try {
+            spectator.channel.close();
+        } catch (IOException e) {
+            log.warn("Error closing spectator connection: %s", e.getMessage());
+        }
+    }
+}
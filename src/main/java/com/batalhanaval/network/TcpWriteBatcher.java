@@ -0,0 +1,226 @@
+package com.batalhanaval.network;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Batches outgoing TCP messages and flushes them once per tick.
+ * Each message is written as one length-prefixed frame (see {@link FrameCodec}).
+ * Latency-critical messages (see {@link MessageProtocol#isLatencyCritical(String)})
+ * flush immediately together with anything queued before them.
+ * Messages that a newer one supersedes, such as relayed hovers, wait in a
+ * slot per channel instead of the queue and go out last in the next flush,
+ * so they never hold up game messages (see {@link #enqueueLatest(int, String)}).
+ * Meant to run over a socket with TCP_NODELAY enabled, so each flush is one segment
+ * and batching is under our control instead of Nagle's algorithm.
+ */
+public class TcpWriteBatcher {
+
+    /** Maximum time a non-critical message waits for others to share its flush */
+    public static final long TICK_MS = 5;
+
+    /** Time close() waits for queued messages to be written */
+    private static final long CLOSE_TIMEOUT_MS = 500;
+
+    /** Marks the end of the queue when closing */
+    private static final String END_OF_STREAM = new String("END_OF_STREAM");
+
+    /** Wakes the writer for a message in a latest-only slot */
+    private static final String WAKE_UP = new String("WAKE_UP");
+
+    private final OutputStream out;
+    private final Consumer<String> errorHandler;
+    private final LinkedBlockingQueue<String> queue = new LinkedBlockingQueue<>();
+    private final Map<Integer, String> latest = new ConcurrentHashMap<>();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    private volatile boolean closed = false;
+    private volatile boolean failed = false;
+
+    // Metrics (written only by the writer thread)
+    private volatile long messagesWritten = 0;
+    private volatile long flushes = 0;
+    private volatile long immediateFlushes = 0;
+    private volatile int largestBatch = 0;
+    private final AtomicLong superseded = new AtomicLong();
+
+    /**
+     * Creates a batcher over a buffered, non-autoflushing stream.
+     * @param out Destination stream
+     * @param errorHandler Consumer for write error messages
+     */
+    public TcpWriteBatcher(OutputStream out, Consumer<String> errorHandler) {
+        this.out = out;
+        this.errorHandler = errorHandler;
+    }
+
+    /**
+     * Starts the writer loop.
+     * @param executorService Executor that runs the loop
+     */
+    public void start(ExecutorService executorService) {
+        executorService.submit(this::writeLoop);
+    }
+
+    /**
+     * Queues a message for sending.
+     * @param message Message to send
+     * @return False if the batcher is closed or a previous write failed
+     */
+    public boolean enqueue(String message) {
+        if (closed || failed) {
+            return false;
+        }
+        return queue.offer(message);
+    }
+
+    /**
+     * Queues a message that a newer one makes obsolete, e.g. a hover position.
+     * It replaces the previous one of its slot if that was not written yet, and
+     * is written after the messages queued with {@link #enqueue(String)} in the
+     * same flush.
+     * @param slot Slot of the message, e.g. its channel id
+     * @param message Message to send
+     * @return False if the batcher is closed or a previous write failed
+     */
+    public boolean enqueueLatest(int slot, String message) {
+        if (closed || failed) {
+            return false;
+        }
+        if (latest.put(slot, message) != null) {
+            superseded.incrementAndGet();
+            return true; // The writer was already woken for the previous one
+        }
+        return queue.offer(WAKE_UP);
+    }
+
+    /**
+     * Writes everything still queued and stops the writer loop.
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        queue.offer(END_OF_STREAM);
+        try {
+            stopped.await(CLOSE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeLoop() {
+        try {
+            while (true) {
+                String message = queue.take();
+                if (message == END_OF_STREAM) {
+                    out.flush();
+                    return;
+                }
+
+                int batch = 0;
+                boolean immediate = false;
+                boolean endOfStream = false;
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TICK_MS);
+
+                // Collect messages until the tick ends or a critical one must go out
+                while (message != null) {
+                    if (message == END_OF_STREAM) {
+                        endOfStream = true;
+                        break;
+                    }
+                    if (message != WAKE_UP) {
+                        FrameCodec.writeFrame(out, message);
+                        batch++;
+
+                        if (MessageProtocol.isLatencyCritical(message)) {
+                            immediate = true;
+                        }
+                    }
+                    if (immediate) {
+                        message = queue.poll();
+                    } else {
+                        long remaining = deadline - System.nanoTime();
+                        message = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    }
+                }
+
+                // Superseded messages go last, behind everything that was waiting
+                for (Integer slot : latest.keySet()) {
+                    String last = latest.remove(slot);
+                    if (last != null) {
+                        FrameCodec.writeFrame(out, last);
+                        batch++;
+                    }
+                }
+                if (batch > 0) {
+                    out.flush();
+                    recordFlush(batch, immediate);
+                }
+
+                if (endOfStream) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            failed = true;
+            if (!closed) {
+                errorHandler.accept("Error writing TCP message: " + e.getMessage());
+            }
+        } finally {
+            stopped.countDown();
+        }
+    }
+
+    private void recordFlush(int batch, boolean immediate) {
+        messagesWritten += batch;
+        flushes++;
+        if (immediate) {
+            immediateFlushes++;
+        }
+        if (batch > largestBatch) {
+            largestBatch = batch;
+        }
+    }
+
+    /**
+     * @return true if a write failed and the batcher stopped accepting messages
+     */
+    public boolean hasFailed() {
+        return failed;
+    }
+
+    /**
+     * @return number of messages waiting to be written
+     */
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    /**
+     * Formats the batching metrics for diagnostics output.
+     * @return Metrics summary
+     */
+    public String getStatistics() {
+        long flushCount = flushes;
+        double perFlush = flushCount == 0 ? 0.0 : (double) messagesWritten / flushCount;
+        return "messages=" + messagesWritten +
+               ", flushes=" + flushCount +
+               " (immediate=" + immediateFlushes + ")" +
+               String.format(", messages/flush=%.2f", perFlush) +
+               ", largest batch=" + largestBatch +
+               ", superseded=" + superseded.get() +
+               ", queued=" + queue.size();
+    }
+}
@@ -0,0 +1,237 @@
+package com.batalhanaval.network;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashed timing wheel for the many coarse timers of a server: turn deadlines,
+ * idle connections and the like.
+ * <p>
+ * Time is cut into ticks of {@link #getTickMs()} and timers are hashed into a
+ * ring of slots by the tick they expire on; a timer further away than one turn
+ * of the ring also counts the remaining rounds. Scheduling and cancelling are
+ * O(1) no matter how many timers are pending, and a single thread serves them
+ * all. Timers never fire before their delay, but up to two ticks after it (the
+ * delay is rounded up to whole ticks and counted from the next tick boundary),
+ * which is fine for deadlines measured in seconds.
+ * <p>
+ * Expired tasks run on the wheel thread and must be short; hand real work to
+ * another executor.
+ */
+public class TimerWheel {
+
+    /** Resolution of the shared wheel */
+    public static final long DEFAULT_TICK_MS = 100;
+
+    /** Slots of the shared wheel, one turn covers 51.2 s */
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private static final NetworkLog log = new NetworkLog(System.err::println);
+
+    private static TimerWheel shared;
+
+    private final long tickMs;
+    private final Timeout[] slots;
+    private final int mask;
+    private long tick = 0;
+    private int pending = 0;
+
+    private Thread worker;
+    private volatile boolean running = false;
+
+    /**
+     * A scheduled task; kept in a doubly linked list per slot so it can be cancelled in O(1).
+     */
+    public final class Timeout {
+        private final Runnable task;
+        private final int slot;
+        private long remainingRounds;
+        private Timeout prev;
+        private Timeout next;
+        private boolean scheduled = true;
+
+        private Timeout(Runnable task, int slot, long remainingRounds) {
+            this.task = task;
+            this.slot = slot;
+            this.remainingRounds = remainingRounds;
+        }
+
+        /**
+         * Cancels the timer.
+         * @return False if it already fired or was cancelled
+         */
+        public boolean cancel() {
+            synchronized (TimerWheel.this) {
+                if (!scheduled) {
+                    return false;
+                }
+                unlink(this);
+                return true;
+            }
+        }
+
+        /**
+         * @return true until the timer fires or is cancelled
+         */
+        public boolean isPending() {
+            synchronized (TimerWheel.this) {
+                return scheduled;
+            }
+        }
+    }
+
+    /**
+     * Creates a wheel; call {@link #start()} to run it on its own thread.
+     * @param tickMs Length of a tick in milliseconds
+     * @param wheelSize Number of slots, rounded up to a power of two
+     */
+    public TimerWheel(long tickMs, int wheelSize) {
+        if (tickMs <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Tick and wheel size must be positive");
+        }
+        int size = Integer.highestOneBit(wheelSize);
+        if (size < wheelSize) {
+            size <<= 1;
+        }
+        this.tickMs = tickMs;
+        this.slots = new Timeout[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Gets the wheel shared by all matches in this process, starting it on first use.
+     * @return Shared wheel
+     */
+    public static synchronized TimerWheel shared() {
+        if (shared == null) {
+            shared = new TimerWheel(DEFAULT_TICK_MS, DEFAULT_WHEEL_SIZE);
+            shared.start();
+        }
+        return shared;
+    }
+
+    /**
+     * Schedules a task.
+     * @param task Task to run on the wheel thread
+     * @param delayMs Delay in milliseconds, rounded up to whole ticks
+     * @return Handle to cancel the timer
+     */
+    public synchronized Timeout schedule(Runnable task, long delayMs) {
+        long ticks = Math.max(1, (delayMs + tickMs - 1) / tickMs);
+        // Part of the current tick may be over, so counting starts at the next one
+        int slot = (int) ((tick + ticks + 1) & mask);
+        Timeout timeout = new Timeout(task, slot, ticks / slots.length);
+
+        timeout.next = slots[slot];
+        if (timeout.next != null) {
+            timeout.next.prev = timeout;
+        }
+        slots[slot] = timeout;
+        pending++;
+        return timeout;
+    }
+
+    /**
+     * Moves the wheel one tick forward and runs the timers that expired.
+     * Called by the wheel thread; tests call it directly instead of starting the thread.
+     * @return Number of timers that fired
+     */
+    public int advance() {
+        List<Runnable> expired = new ArrayList<>();
+        synchronized (this) {
+            tick++;
+            Timeout timeout = slots[(int) (tick & mask)];
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.remainingRounds == 0) {
+                    unlink(timeout);
+                    expired.add(timeout.task);
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        for (Runnable task : expired) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                log.warn("Timer task failed: %s", e);
+            }
+        }
+        return expired.size();
+    }
+
+    /**
+     * Starts the wheel thread.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::run, "timer-wheel");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Stops the wheel thread; pending timers stay scheduled but no longer fire.
+     */
+    public synchronized void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            worker = null;
+        }
+    }
+
+    private void run() {
+        long tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMs);
+        long nextTick = System.nanoTime() + tickNanos;
+        while (running) {
+            long wait = nextTick - System.nanoTime();
+            if (wait > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                continue;
+            }
+            advance();
+            nextTick += tickNanos;
+        }
+    }
+
+    private void unlink(Timeout timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            slots[timeout.slot] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.scheduled = false;
+        pending--;
+    }
+
+    /**
+     * @return length of a tick in milliseconds
+     */
+    public long getTickMs() {
+        return tickMs;
+    }
+
+    /**
+     * @return number of timers waiting to fire
+     */
+    public synchronized int getPendingCount() {
+        return pending;
+    }
+}
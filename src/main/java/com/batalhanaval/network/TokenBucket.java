@@ -0,0 +1,91 @@
+package com.batalhanaval.network;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket rate limiter for messages received from one peer.
+ * <p>
+ * The bucket holds up to {@code burst} tokens and refills at a steady rate;
+ * each message takes one token and is rejected when none is left. Refilling is
+ * computed lazily from the clock on each call, so there is no timer thread and
+ * {@link #tryAcquire()} allocates nothing.
+ */
+public class TokenBucket {
+
+    private final long nanosPerToken;
+    private final long burstNanos;
+    private final LongSupplier clock;
+
+    // Time at which the bucket would be full; tokens = (now - emptyAt) / nanosPerToken
+    private long emptyAt;
+
+    private long accepted = 0;
+    private long rejected = 0;
+
+    /**
+     * Creates a full bucket driven by System.nanoTime.
+     * @param ratePerSecond Sustained number of messages allowed per second
+     * @param burst Number of messages allowed at once after a quiet period
+     */
+    public TokenBucket(int ratePerSecond, int burst) {
+        this(ratePerSecond, burst, System::nanoTime);
+    }
+
+    /**
+     * Creates a full bucket.
+     * @param ratePerSecond Sustained number of messages allowed per second
+     * @param burst Number of messages allowed at once after a quiet period
+     * @param clock Source of the current time in nanoseconds
+     */
+    public TokenBucket(int ratePerSecond, int burst, LongSupplier clock) {
+        if (ratePerSecond <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("Rate and burst must be positive");
+        }
+        this.nanosPerToken = 1_000_000_000L / ratePerSecond;
+        this.burstNanos = nanosPerToken * burst;
+        this.clock = clock;
+        this.emptyAt = clock.getAsLong() - burstNanos;
+    }
+
+    /**
+     * Takes one token if available.
+     * @return True if the message may be processed, false if it must be dropped
+     */
+    public synchronized boolean tryAcquire() {
+        long now = clock.getAsLong();
+
+        // Tokens never pile up beyond the burst size
+        if (now - emptyAt > burstNanos) {
+            emptyAt = now - burstNanos;
+        }
+        if (now - emptyAt < nanosPerToken) {
+            rejected++;
+            return false;
+        }
+        emptyAt += nanosPerToken;
+        accepted++;
+        return true;
+    }
+
+    /**
+     * @return number of messages allowed so far
+     */
+    public synchronized long getAccepted() {
+        return accepted;
+    }
+
+    /**
+     * @return number of messages rejected so far
+     */
+    public synchronized long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Formats the counters for diagnostics output.
+     * @return Statistics summary
+     */
+    public synchronized String getStatistics() {
+        return "accepted=" + accepted + ", rejected=" + rejected;
+    }
+}
@@ -0,0 +1,339 @@
+package com.batalhanaval.tools;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.batalhanaval.Constants;
+import com.batalhanaval.core.Board;
+import com.batalhanaval.core.Position;
+import com.batalhanaval.core.Ship;
+import com.batalhanaval.network.AuthoritativeMatch;
+import com.batalhanaval.network.MessageProtocol;
+import com.batalhanaval.network.NetworkGameManager;
+import com.batalhanaval.network.NetworkMessageHandler;
+import com.batalhanaval.network.SessionSnapshot;
+
+/**
+ * Headless player that plays a full match through a {@link NetworkGameManager}.
+ * Places a random fleet, attacks every cell once in random order and answers
+ * attacks like the game panel does, while sending hovers at a fixed rate.
+ * All game logic runs on the consumer thread of the bot's game manager.
+ */
+public class BotPlayer implements
+    NetworkMessageHandler.GameMessageListener,
+    NetworkMessageHandler.HoverMessageListener {
+
+    private final NetworkGameManager gameManager;
+    private final Executor consumer;
+    private final ScheduledExecutorService scheduler;
+    private final LoadStatistics statistics;
+    private final long attackIntervalMs;
+    private final double hoverRate;
+    private final Random random;
+    private final AuthoritativeMatch takenOver;
+
+    private final Board board = new Board(Constants.BOARD_SIZE);
+    private final List<Position> targets = new ArrayList<>();
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private int nextTarget = 0;
+    private boolean started = false;
+    private volatile long attackSentNanos;
+    private long lastHoverNanos = 0; // Only used on the consumer thread
+    private ScheduledFuture<?> hoverTask;
+
+    /**
+     * Creates a bot.
+     * @param gameManager Game manager of the bot's connection
+     * @param consumer Single-threaded executor the game manager delivers messages on
+     * @param scheduler Scheduler for attacks and hovers
+     * @param statistics Shared counters
+     * @param attackIntervalMs Thinking time before each attack
+     * @param hoverRate Hovers per second (0 to disable)
+     * @param seed Random seed for the fleet and the attack order
+     */
+    public BotPlayer(NetworkGameManager gameManager, Executor consumer, ScheduledExecutorService scheduler,
+                     LoadStatistics statistics, long attackIntervalMs, double hoverRate, long seed) {
+        this(gameManager, consumer, scheduler, statistics, attackIntervalMs, hoverRate, seed, null);
+    }
+
+    /**
+     * Creates a bot that plays on as the host of a match taken over from a failed
+     * worker: it keeps the replicated fleet and never attacks a cell twice.
+     * Call {@link #resume()} instead of {@link #start()} once the client is back.
+     * @param gameManager Game manager that adopted the match
+     * @param consumer Single-threaded executor the game manager delivers messages on
+     * @param scheduler Scheduler for attacks and hovers
+     * @param statistics Shared counters
+     * @param attackIntervalMs Thinking time before each attack
+     * @param hoverRate Hovers per second (0 to disable)
+     * @param seed Random seed for the attack order
+     * @param takenOver Standby copy of the match, or null to start a new one
+     */
+    public BotPlayer(NetworkGameManager gameManager, Executor consumer, ScheduledExecutorService scheduler,
+                     LoadStatistics statistics, long attackIntervalMs, double hoverRate, long seed,
+                     AuthoritativeMatch takenOver) {
+        this.gameManager = gameManager;
+        this.consumer = consumer;
+        this.scheduler = scheduler;
+        this.statistics = statistics;
+        this.attackIntervalMs = attackIntervalMs;
+        this.hoverRate = hoverRate;
+        this.random = new Random(seed);
+        this.takenOver = takenOver;
+
+        if (takenOver == null) {
+            placeFleet();
+        } else {
+            copyFleet(takenOver.getHostBoard());
+        }
+        for (int row = 0; row < Constants.BOARD_SIZE; row++) {
+            for (int col = 0; col < Constants.BOARD_SIZE; col++) {
+                targets.add(new Position(row, col));
+            }
+        }
+        Collections.shuffle(targets, random);
+        if (takenOver != null) {
+            targets.removeAll(takenOver.getGuestBoard().getAttackedPositions());
+            started = true;
+        }
+
+        gameManager.getDispatcher().addGameListener(this);
+        gameManager.getDispatcher().addHoverListener(this);
+    }
+
+    /**
+     * Sends READY and starts hovering. Call once the connection is ready.
+     */
+    public void start() {
+        consumer.execute(this::sendReady);
+        startHovering();
+    }
+
+    /**
+     * Plays on in a taken-over match once its client resumed: attacks if it is the host's turn.
+     */
+    public void resume() {
+        consumer.execute(() -> {
+            if (takenOver.isHostTurn() && !takenOver.isOver()) {
+                scheduleAttack();
+            }
+        });
+        startHovering();
+    }
+
+    private void startHovering() {
+        if (hoverRate > 0) {
+            long periodMicros = (long) (1_000_000 / hoverRate);
+            hoverTask = scheduler.scheduleAtFixedRate(this::hover, periodMicros, periodMicros, TimeUnit.MICROSECONDS);
+        }
+    }
+
+    private void sendReady() {
+        gameManager.setPlayerReady(board);
+        statistics.messageSent(true);
+    }
+
+    /**
+     * Waits for the match to end.
+     * @param timeoutMs Maximum time to wait
+     * @return True if the match ended in time
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public boolean awaitFinished(long timeoutMs) throws InterruptedException {
+        return finished.await(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void copyFleet(Board fleet) {
+        for (Ship ship : fleet.getShips()) {
+            board.placeShip(new Ship(ship.getName(), ship.getSize()), ship.getPositions().get(0), ship.isVertical());
+        }
+        for (Position position : fleet.getAttackedPositions()) {
+            board.processAttack(position);
+        }
+    }
+
+    private void placeFleet() {
+        String[] names = { "Carrier", "Battleship", "Cruiser", "Submarine", "Destroyer" };
+        int[] sizes = { Constants.CARRIER_SIZE, Constants.BATTLESHIP_SIZE, Constants.CRUISER_SIZE,
+                        Constants.SUBMARINE_SIZE, Constants.DESTROYER_SIZE };
+        for (int i = 0; i < names.length; i++) {
+            boolean placed = false;
+            while (!placed) {
+                Position start = new Position(random.nextInt(Constants.BOARD_SIZE), random.nextInt(Constants.BOARD_SIZE));
+                placed = board.placeShip(new Ship(names[i], sizes[i]), start, random.nextBoolean());
+            }
+        }
+    }
+
+    private void scheduleAttack() {
+        scheduler.schedule(() -> consumer.execute(this::attack), attackIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void attack() {
+        if (finished.getCount() == 0 || nextTarget >= targets.size()) {
+            return;
+        }
+        Position target = targets.get(nextTarget++);
+        attackSentNanos = System.nanoTime();
+        statistics.messageSent(gameManager.sendAttack(target.getRow(), target.getCol()));
+    }
+
+    private void hover() {
+        if (finished.getCount() == 0) {
+            return;
+        }
+        Position position = new Position(random.nextInt(Constants.BOARD_SIZE), random.nextInt(Constants.BOARD_SIZE));
+        statistics.hoverSent(gameManager.sendHover(position));
+    }
+
+    private void finish() {
+        if (hoverTask != null) {
+            hoverTask.cancel(false);
+        }
+        if (finished.getCount() > 0) {
+            finished.countDown();
+        }
+    }
+
+    // ===== NetworkMessageHandler.GameMessageListener Implementation =====
+
+    @Override
+    public void onReadyToStart() {
+        statistics.messageReceived();
+    }
+
+    @Override
+    public void onGameStart(boolean isFirstPlayer) {
+        // Both peers start the game locally and then receive the other's GAME_START
+        if (started) {
+            statistics.messageReceived();
+            return;
+        }
+        started = true;
+        if (gameManager.isAuthoritative() && !gameManager.getNetworkManager().isServer()) {
+            statistics.messageReceived(); // Only the host starts a ranked match
+        } else {
+            statistics.messageSent(true); // The game manager sent our GAME_START
+        }
+        if (isFirstPlayer) {
+            scheduleAttack();
+        }
+    }
+
+    @Override
+    public void onAttackReceived(int row, int col) {
+        statistics.messageReceived();
+        if (finished.getCount() == 0) {
+            return;
+        }
+        String result = board.processAttack(new Position(row, col));
+
+        String networkResult;
+        switch (result) {
+            case Constants.ATTACK_HIT:
+                networkResult = MessageProtocol.HIT;
+                break;
+            case Constants.ATTACK_SUNK:
+                networkResult = MessageProtocol.SUNK;
+                break;
+            default:
+                networkResult = MessageProtocol.MISS;
+                break;
+        }
+        statistics.messageSent(gameManager.sendAttackResult(networkResult, row, col));
+
+        if (board.areAllShipsSunk()) {
+            statistics.messageSent(gameManager.sendGameOver(true)); // Opponent won
+            statistics.matchCompleted();
+            finish();
+        } else {
+            scheduleAttack();
+        }
+    }
+
+    @Override
+    public void onAttackResult(String result, int row, int col) {
+        if (!hostsRankedMatch()) {
+            statistics.messageReceived(); // A ranked host resolves its attacks locally
+        }
+        statistics.attackRoundTrip(System.nanoTime() - attackSentNanos);
+    }
+
+    @Override
+    public void onOpponentAttackResolved(String result, int row, int col) {
+        statistics.messageReceived();
+        if (hostsRankedMatch()) {
+            statistics.messageSent(true); // The game manager pushed the result to the guest
+        }
+        board.processAttack(new Position(row, col));
+        if (!board.areAllShipsSunk()) {
+            scheduleAttack();
+        }
+    }
+
+    @Override
+    public void onTurnEnd() {
+        statistics.messageReceived();
+    }
+
+    @Override
+    public void onGameOver(boolean isWinner) {
+        if (hostsRankedMatch()) {
+            statistics.messageSent(true); // Decided here and pushed to the guest
+            statistics.matchCompleted();
+        } else {
+            statistics.messageReceived();
+        }
+        finish();
+    }
+
+    @Override
+    public void onStateResync(SessionSnapshot snapshot) {
+        // The host that took the match over tells a guest whose turn it is; an attack lost with the old host is retried
+        if (!gameManager.getNetworkManager().isServer() && started && !snapshot.isSenderTurn()) {
+            scheduleAttack();
+        }
+    }
+
+    @Override
+    public void onOpponentDisconnect() {
+        if (finished.getCount() > 0) {
+            statistics.unexpectedDisconnect();
+        }
+        finish();
+    }
+
+    @Override
+    public void onOpponentSurrender() {
+        statistics.messageReceived();
+        finish();
+    }
+
+    private boolean hostsRankedMatch() {
+        return gameManager.isAuthoritative() && gameManager.getNetworkManager().isServer();
+    }
+
+    // ===== NetworkMessageHandler.HoverMessageListener Implementation =====
+
+    @Override
+    public void onHoverReceived(Position position) {
+        long now = System.nanoTime();
+        if (lastHoverNanos != 0) {
+            statistics.hoverGap(now - lastHoverNanos);
+        }
+        lastHoverNanos = now;
+        statistics.hoverReceived();
+    }
+
+    @Override
+    public void onPingReceived() {
+        // Bots do not answer legacy pings
+    }
+}
@@ -0,0 +1,247 @@
+package com.batalhanaval.tools;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Consumer;
+
+import com.batalhanaval.network.ImpairedTransport;
+import com.batalhanaval.network.ImpairmentProfile;
+import com.batalhanaval.network.NetworkGameManager;
+import com.batalhanaval.network.NetworkManager;
+
+/**
+ * Measures how many concurrent matches a machine hosts by playing bot matches over real sockets.
+ * <p>
+ * Each match uses its own ports: TCP basePort + 2i and UDP basePort + 2i + 1.
+ * Modes:
+ * <ul>
+ *   <li>local: hosts and clients in this process (default)</li>
+ *   <li>host: only the hosting bots, waiting for clients from another machine</li>
+ *   <li>client: only the joining bots, connecting to --server</li>
+ * </ul>
+ * With --router P the clients all connect to port P and name their match in a
+ * ROUTE frame, for servers sharded behind a {@link MatchRouter}.
+ * With --impairment SPEC every bot sends through an {@link ImpairedTransport},
+ * e.g. --impairment latency=80,jitter=20,loss=0.02 (see {@link ImpairmentProfile}).
+ * Usage: LoadGenerator [--mode local|host|client] [--matches N] [--server HOST]
+ * [--base-port P] [--router P] [--attack-interval-ms MS] [--hover-rate HZ] [--timeout-s S] [--ranked true]
+ * [--impairment SPEC]
+ */
+public class LoadGenerator {
+
+    private static final long CONNECT_READY_TIMEOUT_MS = 10000;
+    private static final long ACCEPT_POLL_MS = 20;
+
+    private String mode = "local";
+    private int matches = 10;
+    private String server = "localhost";
+    private int basePort = 7000;
+    private int routerPort = 0;
+    private long attackIntervalMs = 20;
+    private double hoverRate = 10;
+    private long timeoutSeconds = 120;
+    private boolean ranked = false;
+    private ImpairmentProfile impairment;
+
+    private final LoadStatistics statistics = new LoadStatistics();
+    private final List<NetworkManager> networkManagers = new ArrayList<>();
+    private final List<BotPlayer> bots = new ArrayList<>();
+    private final List<ExecutorService> consumers = new ArrayList<>();
+    private final ScheduledExecutorService scheduler =
+            Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors(), daemonThreads("bot-scheduler"));
+    private final ExecutorService connector = Executors.newCachedThreadPool(daemonThreads("bot-connector"));
+
+    public static void main(String[] args) throws Exception {
+        LoadGenerator generator = new LoadGenerator();
+        generator.parseArguments(args);
+        generator.run();
+        System.exit(0);
+    }
+
+    private void parseArguments(String[] args) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--mode":
+                    mode = value;
+                    break;
+                case "--matches":
+                    matches = Integer.parseInt(value);
+                    break;
+                case "--server":
+                    server = value;
+                    break;
+                case "--base-port":
+                    basePort = Integer.parseInt(value);
+                    break;
+                case "--router":
+                    routerPort = Integer.parseInt(value);
+                    break;
+                case "--attack-interval-ms":
+                    attackIntervalMs = Long.parseLong(value);
+                    break;
+                case "--hover-rate":
+                    hoverRate = Double.parseDouble(value);
+                    break;
+                case "--timeout-s":
+                    timeoutSeconds = Long.parseLong(value);
+                    break;
+                case "--ranked":
+                    ranked = Boolean.parseBoolean(value);
+                    break;
+                case "--impairment":
+                    impairment = ImpairmentProfile.parse(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        if (!mode.equals("local") && !mode.equals("host") && !mode.equals("client")) {
+            throw new IllegalArgumentException("Unknown mode: " + mode);
+        }
+    }
+
+    private void run() throws InterruptedException {
+        System.out.printf("Load test: mode=%s, matches=%d, attack interval=%d ms, hover rate=%.1f/s, ranked=%b%n",
+                mode, matches, attackIntervalMs, hoverRate, ranked);
+        if (impairment != null) {
+            System.out.println("Impairment: " + impairment);
+        }
+        long start = System.nanoTime();
+
+        if (!mode.equals("client")) {
+            for (int i = 0; i < matches; i++) {
+                startHost(i);
+            }
+        }
+        if (!mode.equals("host")) {
+            for (int i = 0; i < matches; i++) {
+                startClient(i);
+            }
+        }
+
+        // Wait for every match, all sharing one deadline
+        long deadline = System.currentTimeMillis() + timeoutSeconds * 1000;
+        for (BotPlayer bot : bots) {
+            bot.awaitFinished(Math.max(1, deadline - System.currentTimeMillis()));
+        }
+        long elapsed = System.nanoTime() - start;
+
+        System.out.println(statistics.format(elapsed));
+        long unfinished = bots.size() - countFinished();
+        if (unfinished > 0) {
+            System.out.println("Unfinished bots at timeout: " + unfinished);
+        }
+        shutdown();
+    }
+
+    private long countFinished() throws InterruptedException {
+        long count = 0;
+        for (BotPlayer bot : bots) {
+            if (bot.awaitFinished(0)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void startHost(int match) {
+        BotSetup setup = createBot(match, true);
+        setup.networkManager.setHostServicesEnabled(false);
+        setup.gameManager.setAuthoritative(ranked);
+        try {
+            setup.networkManager.startServer(basePort + 2 * match, basePort + 2 * match + 1, setup.status);
+        } catch (IOException e) {
+            System.err.println("Host " + match + " failed to start: " + e.getMessage());
+            statistics.connectError();
+            return;
+        }
+        bots.add(setup.bot);
+
+        // The host plays once its client has connected
+        connector.submit(() -> {
+            try {
+                // The handshake only exists once a client has been accepted
+                while (!setup.networkManager.awaitReady(CONNECT_READY_TIMEOUT_MS)) {
+                    Thread.sleep(ACCEPT_POLL_MS);
+                }
+                setup.bot.start();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    private void startClient(int match) {
+        BotSetup setup = createBot(match, false);
+        int tcpPort = basePort + 2 * match;
+        if (routerPort > 0) {
+            setup.networkManager.setRouteKey("match-" + match);
+            tcpPort = routerPort;
+        }
+        try {
+            setup.networkManager.connectToServer(server, tcpPort, basePort + 2 * match + 1, setup.status);
+            if (!setup.networkManager.awaitReady(CONNECT_READY_TIMEOUT_MS)) {
+                throw new IOException("handshake timed out");
+            }
+        } catch (IOException e) {
+            System.err.println("Client " + match + " failed to connect: " + e.getMessage());
+            statistics.connectError();
+            return;
+        }
+        bots.add(setup.bot);
+        setup.bot.start();
+    }
+
+    /**
+     * Network manager, game manager and bot of one side of a match.
+     */
+    private static class BotSetup {
+        NetworkManager networkManager;
+        NetworkGameManager gameManager;
+        BotPlayer bot;
+        Consumer<String> status;
+    }
+
+    private BotSetup createBot(int match, boolean host) {
+        BotSetup setup = new BotSetup();
+        String name = (host ? "host-" : "client-") + match;
+        setup.status = message -> { }; // Per-message status output would dominate the measurement
+        setup.networkManager = new NetworkManager();
+        setup.networkManager.setImpairment(impairment);
+
+        // One consumer thread per bot, like the EDT of a real player
+        ExecutorService consumer = Executors.newSingleThreadExecutor(daemonThreads(name));
+        consumers.add(consumer);
+        setup.gameManager = new NetworkGameManager(setup.networkManager, setup.status, consumer);
+        setup.networkManager.setGameManager(setup.gameManager);
+        setup.bot = new BotPlayer(setup.gameManager, consumer, scheduler, statistics,
+                                  attackIntervalMs, hoverRate, 31L * match + (host ? 1 : 2));
+        networkManagers.add(setup.networkManager);
+        return setup;
+    }
+
+    private void shutdown() {
+        for (NetworkManager networkManager : networkManagers) {
+            networkManager.stopNetwork();
+        }
+        scheduler.shutdownNow();
+        connector.shutdownNow();
+        for (ExecutorService consumer : consumers) {
+            consumer.shutdownNow();
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,124 @@
+package com.batalhanaval.tools;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.batalhanaval.network.LatencyHistogram;
+
+/**
+ * Counters shared by all bots of a load run.
+ */
+public class LoadStatistics {
+
+    private final AtomicLong messagesSent = new AtomicLong();
+    private final AtomicLong messagesReceived = new AtomicLong();
+    private final AtomicLong hoversSent = new AtomicLong();
+    private final AtomicLong hoversReceived = new AtomicLong();
+    private final AtomicLong matchesCompleted = new AtomicLong();
+    private final AtomicLong connectErrors = new AtomicLong();
+    private final AtomicLong sendErrors = new AtomicLong();
+    private final AtomicLong disconnects = new AtomicLong();
+    private final LatencyHistogram attackRtt = new LatencyHistogram();
+    private final LatencyHistogram hoverGaps = new LatencyHistogram();
+
+    public void messageSent(boolean success) {
+        if (success) {
+            messagesSent.incrementAndGet();
+        } else {
+            sendErrors.incrementAndGet();
+        }
+    }
+
+    public void messageReceived() {
+        messagesReceived.incrementAndGet();
+    }
+
+    public void hoverSent(boolean success) {
+        if (success) {
+            hoversSent.incrementAndGet();
+        } else {
+            sendErrors.incrementAndGet();
+        }
+    }
+
+    public void hoverReceived() {
+        hoversReceived.incrementAndGet();
+    }
+
+    /**
+     * Records the time between two hovers received by the same bot;
+     * the spread shows how smoothly the opponent's cursor moves.
+     * @param nanos Gap in nanoseconds
+     */
+    public void hoverGap(long nanos) {
+        hoverGaps.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    public void matchCompleted() {
+        matchesCompleted.incrementAndGet();
+    }
+
+    public void connectError() {
+        connectErrors.incrementAndGet();
+    }
+
+    public void unexpectedDisconnect() {
+        disconnects.incrementAndGet();
+    }
+
+    /**
+     * Records the time from sending an attack to receiving its result.
+     * @param nanos Round trip in nanoseconds
+     */
+    public void attackRoundTrip(long nanos) {
+        attackRtt.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    /**
+     * @return number of errors of any kind
+     */
+    public long getErrorCount() {
+        return connectErrors.get() + sendErrors.get() + disconnects.get();
+    }
+
+    /**
+     * @return number of matches played to the end
+     */
+    public long getMatchesCompleted() {
+        return matchesCompleted.get();
+    }
+
+    /**
+     * Formats the results of a run.
+     * @param elapsedNanos Duration of the run
+     * @return Multi-line report
+     */
+    public String format(long elapsedNanos) {
+        double seconds = Math.max(elapsedNanos, 1) / 1e9;
+        long sent = messagesSent.get();
+        long received = messagesReceived.get();
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Duration: %.2f s%n", seconds));
+        report.append(String.format("Matches completed: %d%n", matchesCompleted.get()));
+        report.append(String.format("TCP messages: sent=%d, received=%d (%.0f msg/s)%n",
+                sent, received, (sent + received) / seconds));
+        report.append(String.format("Hovers: sent=%d, received=%d (%.0f msg/s)%n",
+                hoversSent.get(), hoversReceived.get(), (hoversSent.get() + hoversReceived.get()) / seconds));
+        if (hoverGaps.getCount() > 0) {
+            report.append(String.format("Hover gaps: p50=%.2f ms, p90=%.2f ms, p99=%.2f ms, max=%.2f ms%n",
+                    hoverGaps.getValueAtPercentile(50) / 1000.0,
+                    hoverGaps.getValueAtPercentile(90) / 1000.0,
+                    hoverGaps.getValueAtPercentile(99) / 1000.0,
+                    hoverGaps.getMax() / 1000.0));
+        }
+        report.append(String.format("Attack RTT: p50=%.2f ms, p90=%.2f ms, p99=%.2f ms, max=%.2f ms (%d attacks)%n",
+                attackRtt.getValueAtPercentile(50) / 1000.0,
+                attackRtt.getValueAtPercentile(90) / 1000.0,
+                attackRtt.getValueAtPercentile(99) / 1000.0,
+                attackRtt.getMax() / 1000.0,
+                attackRtt.getCount()));
+        report.append(String.format("Errors: connect=%d, send=%d, disconnects=%d",
+                connectErrors.get(), sendErrors.get(), disconnects.get()));
+        return report.toString();
+    }
+}
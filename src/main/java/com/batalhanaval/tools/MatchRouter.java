@@ -0,0 +1,345 @@
+package com.batalhanaval.tools;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.batalhanaval.Constants;
+import com.batalhanaval.network.ConsistentHashRing;
+import com.batalhanaval.network.FrameCodec;
+import com.batalhanaval.network.FrameDecoder;
+import com.batalhanaval.network.MatchStandby;
+import com.batalhanaval.network.MessageProtocol;
+
+/**
+ * Front door for several {@link MatchWorker} processes on one host.
+ * <p>
+ * Starts the workers, reads the ROUTE frame each client sends first, picks the
+ * worker for that match id on a {@link ConsistentHashRing} and pipes the rest
+ * of the connection to it, after a ROUTE frame that tells the worker the match
+ * id and the client's address. UDP goes straight to the worker, whose
+ * port the client learns in the handshake, so the router and its workers must
+ * share the host. A worker that dies is taken off the ring, so only its own
+ * matches are lost, and is restarted.
+ * <p>
+ * With --standby-port P one more worker is started as a hot standby. It never
+ * joins the ring: the other workers replicate their matches to it on port P,
+ * and it takes over the matches of a worker that dies. A client that
+ * reconnects to such a match is routed to the standby on port P + 1 (the
+ * router waits up to {@link #TAKEOVER_WAIT_MS} for the takeover when the
+ * match's worker is down), so the match goes on where it was.
+ * Usage: MatchRouter [--port P] [--workers N] [--worker-base-port P] [--attack-interval-ms MS] [--standby-port P]
+ */
+public class MatchRouter {
+
+    private static final int ROUTE_TIMEOUT_MS = 5000;
+    private static final int WORKER_CONNECT_TIMEOUT_MS = 2000;
+    private static final long RESTART_DELAY_MS = 1000;
+    private static final int PIPE_BUFFER_SIZE = 8192;
+
+    /** Time a connection for a dead worker's match waits for the standby to take it over */
+    private static final long TAKEOVER_WAIT_MS = 2 * MatchStandby.FAILOVER_TIMEOUT_MS;
+    private static final long TAKEOVER_POLL_MS = 20;
+
+    private int port = Constants.DEFAULT_PORT;
+    private int workerCount = Runtime.getRuntime().availableProcessors();
+    private int workerBasePort = 7100;
+    private long attackIntervalMs = 200;
+    private int standbyPort = 0;
+
+    private final ConsistentHashRing<Worker> ring = new ConsistentHashRing<>();
+    private final ConsistentHashRing<Worker> homes = new ConsistentHashRing<>(); // Every worker, up or down
+    private final List<Worker> workers = new ArrayList<>();
+    private final Set<String> takenOver = ConcurrentHashMap.newKeySet();
+    private volatile Worker standby;
+    private final ExecutorService connections = Executors.newCachedThreadPool(daemonThreads("route"));
+    private final ScheduledExecutorService restarts = Executors.newSingleThreadScheduledExecutor(daemonThreads("worker-restart"));
+    private volatile boolean stopping = false;
+
+    /**
+     * One worker process and the loopback port it listens on.
+     */
+    private static class Worker {
+        final int index;
+        final int port;
+        final boolean standby;
+        final AtomicLong routed = new AtomicLong();
+        volatile Process process;
+        volatile boolean ready;
+
+        Worker(int index, int port, boolean standby) {
+            this.index = index;
+            this.port = port;
+            this.standby = standby;
+        }
+
+        @Override
+        public String toString() {
+            return standby ? "standby" : "worker-" + index; // Stable across restarts, so the worker gets its matches back
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        MatchRouter router = new MatchRouter();
+        router.parseArguments(args);
+        router.run();
+    }
+
+    private void parseArguments(String[] args) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--port":
+                    port = Integer.parseInt(value);
+                    break;
+                case "--workers":
+                    workerCount = Integer.parseInt(value);
+                    break;
+                case "--worker-base-port":
+                    workerBasePort = Integer.parseInt(value);
+                    break;
+                case "--attack-interval-ms":
+                    attackIntervalMs = Long.parseLong(value);
+                    break;
+                case "--standby-port":
+                    standbyPort = Integer.parseInt(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+    }
+
+    private void run() throws IOException {
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown));
+        if (standbyPort > 0) {
+            standby = new Worker(-1, standbyPort + 1, true);
+            workers.add(standby);
+            launch(standby);
+        }
+        for (int i = 0; i < workerCount; i++) {
+            Worker worker = new Worker(i, workerBasePort + i, false);
+            workers.add(worker);
+            homes.add(worker);
+            launch(worker);
+        }
+
+        try (ServerSocket server = new ServerSocket(port)) {
+            System.out.printf("Router listening on port %d with %d workers%n", port, workerCount);
+            while (!stopping) {
+                Socket client = server.accept();
+                connections.submit(() -> route(client));
+            }
+        }
+    }
+
+    /**
+     * Starts a worker process; it joins the ring once it reports ready.
+     */
+    private void launch(Worker worker) {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        List<String> command = new ArrayList<>(List.of(java, "-cp", System.getProperty("java.class.path"),
+                MatchWorker.class.getName(), "--port", String.valueOf(worker.port),
+                "--attack-interval-ms", String.valueOf(attackIntervalMs)));
+        if (standbyPort > 0) {
+            command.addAll(List.of("--standby-port", String.valueOf(standbyPort)));
+        }
+        if (worker.standby) {
+            command.addAll(List.of("--standby", "true"));
+        }
+        ProcessBuilder builder = new ProcessBuilder(command);
+        builder.redirectErrorStream(true);
+        try {
+            Process process = builder.start();
+            worker.process = process;
+            connections.submit(() -> relayOutput(worker, process));
+            process.onExit().thenRun(() -> workerExited(worker));
+        } catch (IOException e) {
+            System.err.println("Could not start " + worker + ": " + e.getMessage());
+            scheduleRestart(worker);
+        }
+    }
+
+    /**
+     * Echoes a worker's output with its name and watches for the ready line.
+     */
+    private void relayOutput(Worker worker, Process process) {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(MatchWorker.READY)) {
+                    worker.ready = true;
+                    if (!worker.standby) {
+                        ring.add(worker); // The standby only hosts the matches it took over
+                    }
+                    System.out.println(worker + " ready on port " + worker.port);
+                } else if (line.startsWith(MatchWorker.TAKEOVER + " ")) {
+                    takenOver.add(line.substring(MatchWorker.TAKEOVER.length() + 1));
+                    System.out.println("[" + worker + "] " + line);
+                } else if (line.startsWith(MatchWorker.RELEASED + " ")) {
+                    takenOver.remove(line.substring(MatchWorker.RELEASED.length() + 1).split(" ", 2)[0]);
+                    System.out.println("[" + worker + "] " + line);
+                } else {
+                    System.out.println("[" + worker + "] " + line);
+                }
+            }
+        } catch (IOException e) {
+            // The process ended; workerExited handles it
+        }
+    }
+
+    private void workerExited(Worker worker) {
+        worker.ready = false;
+        ring.remove(worker);
+        if (worker.standby) {
+            takenOver.clear(); // Its matches are gone with it
+        }
+        if (stopping) {
+            return;
+        }
+        System.err.println(worker + " exited with code " + worker.process.exitValue() + ", restarting");
+        scheduleRestart(worker);
+    }
+
+    private void scheduleRestart(Worker worker) {
+        restarts.schedule(() -> launch(worker), RESTART_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Reads the ROUTE frame and connects the client to its worker.
+     */
+    private void route(Socket client) {
+        Socket upstream = null;
+        try {
+            client.setSoTimeout(ROUTE_TIMEOUT_MS);
+            String first = FrameDecoder.readSingleMessage(client.getInputStream());
+            String[] route = MessageProtocol.parseRouteMessage(first);
+            if (route == null || route.length != 1) {
+                throw new IOException("expected ROUTE:matchId, got " + first);
+            }
+            String matchId = route[0];
+            Worker worker = pickWorker(matchId);
+            if (worker == null) {
+                throw new IOException("no worker available");
+            }
+
+            upstream = new Socket();
+            upstream.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), worker.port),
+                             WORKER_CONNECT_TIMEOUT_MS);
+            client.setSoTimeout(0);
+            client.setTcpNoDelay(true);
+            upstream.setTcpNoDelay(true);
+            worker.routed.incrementAndGet();
+
+            // The worker only sees the router, so pass on who the client is
+            OutputStream out = upstream.getOutputStream();
+            FrameCodec.writeFrame(out, MessageProtocol.createRouteMessage(
+                    matchId, client.getInetAddress().getHostAddress()));
+            out.flush();
+
+            Socket server = upstream;
+            connections.submit(() -> pipe(client, server));
+            pipe(server, client);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Could not route connection from " + client.getRemoteSocketAddress() + ": " + e.getMessage());
+            close(client);
+            close(upstream);
+        }
+    }
+
+    /**
+     * Picks the worker for a match: the standby if it took the match over, else the
+     * match's worker on the ring. When that worker is down the connection may be a
+     * client coming back to a match the standby is about to take over, so it waits
+     * for the takeover a little before going to another worker.
+     */
+    private Worker pickWorker(String matchId) {
+        Worker currentStandby = standby;
+        if (currentStandby != null && currentStandby.ready) {
+            Worker home = homes.get(matchId);
+            long deadline = System.currentTimeMillis() + TAKEOVER_WAIT_MS;
+            while (!takenOver.contains(matchId) && home != null && !home.ready &&
+                   System.currentTimeMillis() < deadline) {
+                try {
+                    Thread.sleep(TAKEOVER_POLL_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            if (takenOver.contains(matchId)) {
+                return currentStandby;
+            }
+        }
+        return ring.get(matchId);
+    }
+
+    /**
+     * Copies bytes from one socket to the other until either side closes.
+     */
+    private static void pipe(Socket from, Socket to) {
+        byte[] buffer = new byte[PIPE_BUFFER_SIZE];
+        try {
+            InputStream in = from.getInputStream();
+            OutputStream out = to.getOutputStream();
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, read);
+                out.flush();
+            }
+        } catch (IOException e) {
+            // Either side went away
+        } finally {
+            close(from);
+            close(to);
+        }
+    }
+
+    private static void close(Socket socket) {
+        try {
+            if (socket != null) {
+                socket.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Error closing socket: " + e.getMessage());
+        }
+    }
+
+    private void shutdown() {
+        stopping = true;
+        for (Worker worker : workers) {
+            Process process = worker.process;
+            if (process != null) {
+                process.destroy();
+            }
+            System.out.println(worker + ": " + worker.routed.get() + " connections routed");
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
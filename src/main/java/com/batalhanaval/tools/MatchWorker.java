@@ -0,0 +1,316 @@
+package com.batalhanaval.tools;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import com.batalhanaval.network.AuthoritativeMatch;
+import com.batalhanaval.network.FrameDecoder;
+import com.batalhanaval.network.MatchReplicator;
+import com.batalhanaval.network.MatchSession;
+import com.batalhanaval.network.MatchStandby;
+import com.batalhanaval.network.MessageProtocol;
+import com.batalhanaval.network.NetworkGameManager;
+import com.batalhanaval.network.NetworkManager;
+
+/**
+ * Server worker process behind a {@link MatchRouter}.
+ * <p>
+ * Accepts the connections the router forwards on a loopback port and hosts
+ * each one as a match with its own {@link NetworkManager}, the hosting side
+ * played by a {@link BotPlayer}. Matches are keyed by the match id in the
+ * router's ROUTE frame: a client that reconnects with the id of a running
+ * match resumes it. Prints {@link #READY} once it accepts connections, so
+ * the router knows when to send matches its way.
+ * <p>
+ * With --standby-port P the matches are played server-authoritative and
+ * streamed to a standby worker on port P ({@link MatchReplicator}). With
+ * --standby true the worker is that standby ({@link MatchStandby}): it keeps
+ * the copies it receives on port P and, when a worker dies, prints
+ * {@link #TAKEOVER} for each of its matches. The router then sends the
+ * reconnecting clients of those matches here, and each match goes on from
+ * the replicated state once its client resumes the replicated session.
+ * Usage: MatchWorker --port P [--attack-interval-ms MS] [--timeout-s S] [--standby-port P] [--standby true]
+ */
+public class MatchWorker {
+
+    /** Line printed on stdout once the worker accepts connections: WORKER_READY port */
+    public static final String READY = "WORKER_READY";
+
+    /** Line printed by the standby when it holds a match of a dead worker: WORKER_TAKEOVER matchId */
+    public static final String TAKEOVER = "WORKER_TAKEOVER";
+
+    /** Line printed by the standby when a taken-over match ends or was not resumed: WORKER_RELEASED matchId */
+    public static final String RELEASED = "WORKER_RELEASED";
+
+    private static final int ROUTE_TIMEOUT_MS = 5000;
+    private static final long CONNECT_READY_TIMEOUT_MS = 10000;
+    private static final long LINGER_MS = 1000;
+    private static final long STATISTICS_INTERVAL_S = 10;
+    private static final long STANDBY_CONNECT_TIMEOUT_MS = 5000;
+    private static final long STANDBY_CONNECT_RETRY_MS = 100;
+
+    private int port = -1;
+    private long attackIntervalMs = 200;
+    private long timeoutSeconds = 600;
+    private int standbyPort = 0;
+    private boolean standby = false;
+    private MatchReplicator replicator;
+
+    private final LoadStatistics statistics = new LoadStatistics();
+    private final AtomicInteger activeMatches = new AtomicInteger();
+    private final AtomicInteger finishedMatches = new AtomicInteger();
+    private final Map<String, NetworkManager> matches = new ConcurrentHashMap<>();
+    private final Map<String, Takeover> takenOver = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler =
+            Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors(), daemonThreads("bot-scheduler"));
+    private final ExecutorService matchThreads = Executors.newCachedThreadPool(daemonThreads("match"));
+
+    /**
+     * A match of a dead worker, waiting on the standby for its client.
+     */
+    private static class Takeover {
+        final AuthoritativeMatch match;
+        final String sessionRecord;
+
+        Takeover(AuthoritativeMatch match, String sessionRecord) {
+            this.match = match;
+            this.sessionRecord = sessionRecord;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        MatchWorker worker = new MatchWorker();
+        worker.parseArguments(args);
+        worker.run();
+    }
+
+    private void parseArguments(String[] args) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--port":
+                    port = Integer.parseInt(value);
+                    break;
+                case "--attack-interval-ms":
+                    attackIntervalMs = Long.parseLong(value);
+                    break;
+                case "--timeout-s":
+                    timeoutSeconds = Long.parseLong(value);
+                    break;
+                case "--standby-port":
+                    standbyPort = Integer.parseInt(value);
+                    break;
+                case "--standby":
+                    standby = Boolean.parseBoolean(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        if (port < 0) {
+            throw new IllegalArgumentException("--port is required");
+        }
+        if (standby && standbyPort <= 0) {
+            throw new IllegalArgumentException("--standby true needs the --standby-port to receive matches on");
+        }
+    }
+
+    private void run() throws IOException {
+        MatchStandby matchStandby = null;
+        if (standby) {
+            matchStandby = startStandby();
+        } else if (standbyPort > 0) {
+            connectToStandby();
+        }
+
+        // Only the router connects, so listen on loopback
+        try (ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            System.out.println(READY + " " + port);
+            System.out.flush();
+            while (true) {
+                Socket socket = server.accept();
+                matchThreads.submit(() -> serve(socket));
+            }
+        } finally {
+            if (matchStandby != null) {
+                matchStandby.stop();
+            }
+        }
+    }
+
+    /**
+     * Starts keeping the copies of the other workers' matches.
+     */
+    private MatchStandby startStandby() throws IOException {
+        MatchStandby matchStandby = new MatchStandby(System.out::println);
+        matchStandby.setTakeoverListener(this::holdTakenOverMatch);
+        matchStandby.start(standbyPort);
+        scheduler.scheduleAtFixedRate(() -> System.out.println(matchStandby.getStatistics()),
+                                      STATISTICS_INTERVAL_S, STATISTICS_INTERVAL_S, TimeUnit.SECONDS);
+        return matchStandby;
+    }
+
+    /**
+     * Keeps a match of a dead worker until its client reconnects or the session expires.
+     */
+    private void holdTakenOverMatch(String matchId, AuthoritativeMatch match, String sessionRecord) {
+        if (sessionRecord == null || match.isOver()) {
+            System.out.println("Cannot resume " + matchId + ": " + (match.isOver() ? "over" : "no session replicated"));
+            return;
+        }
+        takenOver.put(matchId, new Takeover(match, sessionRecord));
+        System.out.println(TAKEOVER + " " + matchId);
+        scheduler.schedule(() -> {
+            if (takenOver.remove(matchId) != null) {
+                System.out.println(RELEASED + " " + matchId + " (client did not come back)");
+            }
+        }, MatchSession.GRACE_PERIOD_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Connects the replicator, retrying while the standby process starts up.
+     */
+    private void connectToStandby() throws IOException {
+        long deadline = System.currentTimeMillis() + STANDBY_CONNECT_TIMEOUT_MS;
+        while (true) {
+            replicator = new MatchReplicator("localhost", standbyPort, System.out::println);
+            try {
+                replicator.start();
+                scheduler.scheduleAtFixedRate(() -> System.out.println(replicator.getStatistics()),
+                                              STATISTICS_INTERVAL_S, STATISTICS_INTERVAL_S, TimeUnit.SECONDS);
+                return;
+            } catch (IOException e) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw e;
+                }
+            }
+            try {
+                Thread.sleep(STANDBY_CONNECT_RETRY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reads the ROUTE frame of a forwarded connection, then resumes the running
+     * match with that id or starts a new one.
+     */
+    private void serve(Socket socket) {
+        try {
+            socket.setSoTimeout(ROUTE_TIMEOUT_MS);
+            String first = FrameDecoder.readSingleMessage(socket.getInputStream());
+            String[] route = MessageProtocol.parseRouteMessage(first);
+            if (route == null || route.length != 2) {
+                throw new IOException("expected ROUTE:matchId:clientAddress, got " + first);
+            }
+            socket.setSoTimeout(0);
+            String matchId = route[0];
+            InetAddress clientAddress = InetAddress.getByName(route[1]); // A literal address, no lookup
+
+            NetworkManager networkManager = new NetworkManager();
+            NetworkManager running = matches.putIfAbsent(matchId, networkManager);
+            if (running != null) {
+                if (!running.offerConnection(socket, clientAddress)) {
+                    throw new IOException(matchId + " is closing");
+                }
+                System.out.println("Client of " + matchId + " reconnected");
+            } else if (!standby) {
+                hostMatch(socket, matchId, clientAddress, networkManager, null);
+            } else {
+                // The standby only hosts the matches it took over
+                Takeover takeover = takenOver.remove(matchId);
+                if (takeover == null) {
+                    matches.remove(matchId, networkManager);
+                    throw new IOException("no taken-over match " + matchId);
+                }
+                hostMatch(socket, matchId, clientAddress, networkManager, takeover);
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Dropped forwarded connection: " + e.getMessage());
+            try {
+                socket.close();
+            } catch (IOException closeError) {
+                System.err.println("Error closing socket: " + closeError.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Plays one match on a forwarded connection and cleans up after it.
+     * @param takeover Match of a dead worker to go on with, or null to start a new one
+     */
+    private void hostMatch(Socket socket, String name, InetAddress clientAddress, NetworkManager networkManager,
+                           Takeover takeover) {
+        Consumer<String> status = message -> { };
+        ExecutorService consumer = Executors.newSingleThreadExecutor(daemonThreads(name));
+        NetworkGameManager gameManager = new NetworkGameManager(networkManager, status, consumer);
+        networkManager.setGameManager(gameManager);
+        BotPlayer bot;
+        if (takeover == null) {
+            if (replicator != null) {
+                gameManager.setAuthoritative(true); // Only the authoritative host holds the whole match
+                gameManager.setReplicator(replicator, name);
+            }
+            bot = new BotPlayer(gameManager, consumer, scheduler, statistics, attackIntervalMs, 0, socket.getPort());
+        } else {
+            gameManager.adoptMatch(takeover.match);
+            bot = new BotPlayer(gameManager, consumer, scheduler, statistics, attackIntervalMs, 0, socket.getPort(),
+                                takeover.match);
+        }
+        activeMatches.incrementAndGet();
+        try {
+            if (takeover == null) {
+                networkManager.acceptConnection(socket, clientAddress, 0, status);
+                if (!networkManager.awaitReady(CONNECT_READY_TIMEOUT_MS)) {
+                    throw new IOException("handshake timed out");
+                }
+                bot.start();
+            } else {
+                networkManager.resumeConnection(socket, clientAddress, takeover.sessionRecord, 0, status);
+                if (!networkManager.awaitReady(MatchSession.GRACE_PERIOD_MS)) {
+                    throw new IOException("client did not resume");
+                }
+                System.out.println("Resumed " + name + " from the replicated state");
+                bot.resume();
+            }
+            if (bot.awaitFinished(TimeUnit.SECONDS.toMillis(timeoutSeconds))) {
+                finishedMatches.incrementAndGet();
+            }
+            Thread.sleep(LINGER_MS); // Let the last messages reach the client
+        } catch (IOException e) {
+            System.err.println("Match " + name + " failed: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            matches.remove(name, networkManager);
+            gameManager.disconnect(); // Announced, so the client does not try to resume
+            consumer.shutdownNow();
+            if (takeover != null) {
+                System.out.println(RELEASED + " " + name);
+            }
+            System.out.println("Match " + name + " closed (active=" + activeMatches.decrementAndGet() +
+                               ", finished=" + finishedMatches.get() + ")");
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -11,6 +11,7 @@ import com.batalhanaval.App;
 import com.batalhanaval.core.Board;
 import com.batalhanaval.core.Position;
 import com.batalhanaval.core.Ship;
+import com.batalhanaval.core.TrackingBoard;
 
 /**
  * Panel for drawing and interacting with the game board.
@@ -23,8 +24,8 @@ public class BoardPanel extends JPanel {
     private BiConsumer<Integer, Integer> hoverHandler;
     private Runnable hoverClearHandler;
     
-    // Placeholder ships for opponent board (when we don't know real ship positions)
-    private java.util.List<Ship> placeholderShips;
+    // What we know of the opponent's board (when we don't know real ship positions)
+    private TrackingBoard trackingBoard;
     
     // Hover tracking
     private Position currentHoverPosition;
@@ -212,11 +213,11 @@ public class BoardPanel extends JPanel {
     }
     
     /**
-     * Sets placeholder ships for opponent board status display.
-     * @param ships List of placeholder ships
+     * Shows the results of our attacks instead of a board with ships, for the opponent's board.
+     * @param trackingBoard Known attack outcomes and sunk ships
      */
-    public void setPlaceholderShips(java.util.List<Ship> ships) {
-        this.placeholderShips = ships;
+    public void setTrackingBoard(TrackingBoard trackingBoard) {
+        this.trackingBoard = trackingBoard;
         updateStatusPanel();
     }
     
@@ -258,18 +259,14 @@ public class BoardPanel extends JPanel {
         shipGrid.setBackground(Color.BLACK);
         
         // Add each ship and its status
-        java.util.List<Ship> shipsToShow = (isOpponentBoard && placeholderShips != null) ? placeholderShips : board.getShips();
-        
-        for (Ship ship : shipsToShow) {
-            JLabel nameLabel = new JLabel(ship.getName() + ":");
-            nameLabel.setForeground(Color.WHITE);
-            shipGrid.add(nameLabel);
-            
-            boolean isSunk = ship.isSunk();
-            JLabel statusLabel = new JLabel(isSunk ? "Sunk" : "Alive");
-            statusLabel.setForeground(isSunk ? SUNK_COLOR : ALIVE_COLOR);
-            statusLabel.setFont(new Font("Arial", Font.BOLD, 12));
-            shipGrid.add(statusLabel);
+        if (isOpponentBoard && trackingBoard != null) {
+            for (int i = 0; i < trackingBoard.getShipCount(); i++) {
+                addShipStatus(shipGrid, trackingBoard.getShipName(i), trackingBoard.isShipSunk(i));
+            }
+        } else {
+            for (Ship ship : board.getShips()) {
+                addShipStatus(shipGrid, ship.getName(), ship.isSunk());
+            }
         }
         
         statusPanel.add(shipGrid);
@@ -277,6 +274,20 @@ public class BoardPanel extends JPanel {
         statusPanel.repaint();
     }
     
+    /**
+     * Adds the name and status of one ship to the status grid.
+     */
+    private void addShipStatus(JPanel shipGrid, String name, boolean isSunk) {
+        JLabel nameLabel = new JLabel(name + ":");
+        nameLabel.setForeground(Color.WHITE);
+        shipGrid.add(nameLabel);
+        
+        JLabel statusLabel = new JLabel(isSunk ? "Sunk" : "Alive");
+        statusLabel.setForeground(isSunk ? SUNK_COLOR : ALIVE_COLOR);
+        statusLabel.setFont(new Font("Arial", Font.BOLD, 12));
+        shipGrid.add(statusLabel);
+    }
+    
     /**
      * Main method to draw the board and all its elements.
      */
@@ -298,7 +309,11 @@ public class BoardPanel extends JPanel {
         }
         
         // Draw attacks
-        drawAttacks(g);
+        if (isOpponentBoard && trackingBoard != null) {
+            drawTrackedAttacks(g);
+        } else {
+            drawAttacks(g);
+        }
         
         // Draw hover effects
         drawHoverEffects(g);
@@ -465,6 +480,29 @@ public class BoardPanel extends JPanel {
         }
     }
     
+    /**
+     * Draws the outcomes of our attacks recorded on the tracking board.
+     */
+    private void drawTrackedAttacks(Graphics2D g) {
+        for (int row = 0; row < GRID_SIZE; row++) {
+            for (int col = 0; col < GRID_SIZE; col++) {
+                char cellState = trackingBoard.getCellState(row, col);
+                if (cellState == Constants.EMPTY) {
+                    continue;
+                }
+                
+                // Same colors as drawAttacks: blue for water, red for ships
+                g.setColor(cellState == Constants.MISS ? MISS_COLOR : HIT_COLOR);
+                g.fillRect(
+                    col * CELL_SIZE + COORDINATE_MARGIN + 1, 
+                    row * CELL_SIZE + COORDINATE_MARGIN + 1, 
+                    CELL_SIZE - 1, 
+                    CELL_SIZE - 1
+                );
+            }
+        }
+    }
+    
     /**
      * Draws hover effects on the board.
      */
@@ -38,7 +38,10 @@ public class MainWindow extends JFrame {
     private NetworkGameManager networkGameManager;
     
     // Status bar
+    private JPanel statusBar;
     private JLabel statusLabel;
+    private JLabel latencyLabel;
+    private Timer latencyTimer;
     
     /**
      * Constructor for the main window.
@@ -60,6 +63,7 @@ public class MainWindow extends JFrame {
         // Initialize network manager
         networkManager = new NetworkManager();
         networkGameManager = new NetworkGameManager(networkManager, this::updateStatusMessage);
+        networkGameManager.setTurnTimeLimit(Constants.TURN_TIME_LIMIT_MS);
         
         // Configure window layout
         cardLayout = new CardLayout();
@@ -89,7 +93,7 @@ public class MainWindow extends JFrame {
         // Add panels to main layout
         setLayout(new BorderLayout());
         add(contentPanel, BorderLayout.CENTER);
-        add(statusLabel, BorderLayout.SOUTH);
+        add(statusBar, BorderLayout.SOUTH);
         
         // Show the initial main menu panel
         showMainMenuPanel();
@@ -154,6 +158,23 @@ public class MainWindow extends JFrame {
         statusLabel = new JLabel("Welcome to Battleship!");
         statusLabel.setForeground(Color.WHITE);
         statusLabel.setBorder(BorderFactory.createEmptyBorder(5, 10, 5, 10));
+        
+        // Round-trip time measured by the heartbeat, shown while connected
+        latencyLabel = new JLabel("");
+        latencyLabel.setForeground(Color.LIGHT_GRAY);
+        latencyLabel.setBorder(BorderFactory.createEmptyBorder(5, 10, 5, 10));
+        
+        statusBar = new JPanel(new BorderLayout());
+        statusBar.setBackground(Color.BLACK);
+        statusBar.add(statusLabel, BorderLayout.CENTER);
+        statusBar.add(latencyLabel, BorderLayout.EAST);
+        
+        latencyTimer = new Timer(1000, e -> {
+            if (networkManager != null) {
+                latencyLabel.setText(networkManager.getLatencyStatus());
+            }
+        });
+        latencyTimer.start();
     }
     
     /**
@@ -186,6 +207,7 @@ public class MainWindow extends JFrame {
      */
     public void showOnlineSetupPanel() {
         cardLayout.show(contentPanel, ONLINE_SETUP_PANEL);
+        onlineSetupPanel.startBrowsing();
         updateStatusMessage("Set up network connection for online play.");
     }
     
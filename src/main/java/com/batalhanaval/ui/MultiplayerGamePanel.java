@@ -11,9 +11,11 @@ import com.batalhanaval.core.Ship;
 import com.batalhanaval.core.GameState;
 import com.batalhanaval.core.GameInfoManager;
 import com.batalhanaval.core.HoverManager;
+import com.batalhanaval.core.TrackingBoard;
 import com.batalhanaval.network.NetworkManager;
 import com.batalhanaval.network.NetworkMessageHandler;
 import com.batalhanaval.network.MessageProtocol;
+import com.batalhanaval.network.SessionSnapshot;
 
 /**
  * Panel for multiplayer game view with network communication.
@@ -25,9 +27,11 @@ public class MultiplayerGamePanel extends JPanel implements
     
     private MainWindow mainWindow;
     private Board playerBoard;
-    private Board opponentBoard;
+    private TrackingBoard opponentTracking;
     private boolean isPlayerTurn;
     private boolean gameStarted = false;
+    private boolean gameOver = false;
+    private boolean isFirstPlayer = false;
     
     private BoardPanel playerBoardPanel;
     private BoardPanel opponentBoardPanel;
@@ -49,11 +53,6 @@ public class MultiplayerGamePanel extends JPanel implements
     
     // Network components
     private NetworkManager networkManager;
-    private NetworkMessageHandler messageHandler;
-    
-    // Attack tracking for opponent board
-    private java.util.Map<Position, String> attackResults;
-    private java.util.List<Ship> opponentShips;
     
     /**
      * Constructor for the multiplayer game panel.
@@ -65,26 +64,15 @@ public class MultiplayerGamePanel extends JPanel implements
         this.networkManager = networkManager;
         this.isPlayerTurn = false; // Will be determined by server
         
-        // Initialize empty opponent board (no ships until game starts)
-        this.opponentBoard = new Board(Constants.BOARD_SIZE);
+        // What we learn of the opponent's board from our attacks (standard fleet, positions unknown)
+        this.opponentTracking = new TrackingBoard(Constants.BOARD_SIZE,
+            "Carrier", "Battleship", "Cruiser", "Submarine", "Destroyer");
         
         // Initialize game state and info manager
         this.gameState = new GameState(Constants.BOARD_SIZE);
         this.gameInfoManager = new GameInfoManager(gameState);
         this.hoverManager = new HoverManager(gameInfoManager);
         
-        // Initialize network message handler
-        this.messageHandler = new NetworkMessageHandler(mainWindow::updateStatusMessage);
-        this.messageHandler.setGameMessageListener(this);
-        this.messageHandler.setHoverMessageListener(this);
-        
-        // Initialize attack results tracking
-        this.attackResults = new java.util.HashMap<>();
-        
-        // Initialize opponent ships list (we'll create placeholder ships)
-        this.opponentShips = new java.util.ArrayList<>();
-        createPlaceholderOpponentShips();
-        
         setLayout(new BorderLayout(10, 10));
         setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
         setBackground(Color.BLACK);
@@ -138,11 +126,11 @@ public class MultiplayerGamePanel extends JPanel implements
         opponentPanel.setBackground(Color.BLACK);
         opponentPanel.add(new JLabel("Enemy Fleet", JLabel.CENTER), BorderLayout.NORTH);
         
-        opponentBoardPanel = new BoardPanel(opponentBoard, true);
+        opponentBoardPanel = new BoardPanel(new Board(Constants.BOARD_SIZE), true);
         opponentBoardPanel.setClickHandler(this::handleAttackClick);
         
-        // Set the placeholder ships for status display
-        opponentBoardPanel.setPlaceholderShips(opponentShips);
+        // Show the results of our attacks and the ships we sank
+        opponentBoardPanel.setTrackingBoard(opponentTracking);
         opponentPanel.add(opponentBoardPanel, BorderLayout.CENTER);
         
         // Style labels
@@ -304,27 +292,13 @@ public class MultiplayerGamePanel extends JPanel implements
      */
     private int calculatePlayerScore() {
         // For multiplayer, we calculate based on attack results received
-        int score = 0;
-        int sunkShips = 0;
-        
-        for (String result : attackResults.values()) {
-            switch (result) {
-                case MessageProtocol.HIT:
-                    score += 1; // 1 point per hit
-                    break;
-                case MessageProtocol.SUNK:
-                    score += 1; // 1 point for the hit
-                    sunkShips++;
-                    break;
-                // MISS doesn't add points
-            }
-        }
+        int score = opponentTracking.getHitCount(); // 1 point per hit, MISS doesn't add points
         
         // Add bonus points for sunk ships
-        score += sunkShips * 5; // 5 bonus points per sunk ship
+        score += opponentTracking.getSunkShipCount() * 5; // 5 bonus points per sunk ship
         
         // Check if we won (all 5 ships sunk)
-        if (sunkShips >= 5) {
+        if (opponentTracking.isFleetSunk()) {
             score += 50; // 50 bonus points for victory
         }
         
@@ -384,21 +358,13 @@ public class MultiplayerGamePanel extends JPanel implements
         Position pos = new Position(row, col);
         
         // Check if the position has already been attacked
-        boolean alreadyAttacked = false;
-        for (Position attackedPos : opponentBoard.getAttackedPositions()) {
-            if (attackedPos.equals(pos)) {
-                alreadyAttacked = true;
-                break;
-            }
-        }
-        
-        if (alreadyAttacked) {
+        if (opponentTracking.isKnown(row, col)) {
             mainWindow.updateStatusMessage("You've already attacked this position!");
             return;
         }
         
-        // Send attack to opponent via network
-        boolean sent = messageHandler.sendAttack(networkManager, row, col);
+        // Send attack to opponent via network (resolved right here when hosting a ranked match)
+        boolean sent = mainWindow.getNetworkGameManager().sendAttack(row, col);
         if (sent) {
             mainWindow.updateStatusMessage("Attacking position " + pos + "...");
             setPlayerTurn(false); // Disable further attacks until response
@@ -444,7 +410,7 @@ public class MultiplayerGamePanel extends JPanel implements
         );
         
         if (option == JOptionPane.YES_OPTION) {
-            messageHandler.sendSurrender(networkManager);
+            mainWindow.getNetworkGameManager().sendSurrender();
             handleGameOver(false, "You surrendered.");
         }
     }
@@ -455,6 +421,10 @@ public class MultiplayerGamePanel extends JPanel implements
      * @param reason Reason for game ending
      */
     private void handleGameOver(boolean playerWon, String reason) {
+        if (gameOver) {
+            return; // Both sides may announce the end
+        }
+        gameOver = true;
         gameStarted = false;
         setPlayerTurn(false);
         
@@ -490,7 +460,7 @@ public class MultiplayerGamePanel extends JPanel implements
         updateScoreboard();
         
         // Send ready signal to opponent via NetworkGameManager
-        mainWindow.getNetworkGameManager().setPlayerReady();
+        mainWindow.getNetworkGameManager().setPlayerReady(board);
         mainWindow.updateStatusMessage("Ready signal sent. Waiting for opponent...");
     }
     
@@ -504,7 +474,11 @@ public class MultiplayerGamePanel extends JPanel implements
     
     @Override
     public void onGameStart(boolean isFirstPlayer) {
+        if (gameStarted) {
+            return; // Repeated after a session resume
+        }
         this.gameStarted = true;
+        this.isFirstPlayer = isFirstPlayer;
         setPlayerTurn(isFirstPlayer);
         
         String message = isFirstPlayer ? 
@@ -537,7 +511,9 @@ public class MultiplayerGamePanel extends JPanel implements
                 break;
         }
         
-        messageHandler.sendAttackResult(networkManager, networkResult, row, col);
+        // Name the sunk ship so the opponent's status panel shows the right one
+        String sunkShip = result.equals(Constants.ATTACK_SUNK) ? playerBoard.getShipAt(pos).getName() : null;
+        mainWindow.getNetworkGameManager().sendAttackResult(networkResult, row, col, sunkShip);
         
         // Update UI
         playerBoardPanel.updateShipStatusPanel();
@@ -561,7 +537,7 @@ public class MultiplayerGamePanel extends JPanel implements
         
         // Check if game is over
         if (playerBoard.areAllShipsSunk()) {
-            messageHandler.sendGameOver(networkManager, true); // Opponent won
+            mainWindow.getNetworkGameManager().sendGameOver(true); // Opponent won
             handleGameOver(false, "All your ships were sunk!");
         } else {
             // It's now the player's turn
@@ -571,43 +547,15 @@ public class MultiplayerGamePanel extends JPanel implements
     
     @Override
     public void onAttackResult(String result, int row, int col) {
+        onAttackResult(result, row, col, null);
+    }
+    
+    @Override
+    public void onAttackResult(String result, int row, int col, String sunkShip) {
         Position pos = new Position(row, col);
         
         // Store the attack result for visual feedback
-        attackResults.put(pos, result);
-        
-        // Process the attack result on the opponent board for visual feedback
-        if (result.equals(MessageProtocol.HIT)) {
-            // Create a temporary single-cell ship for visual feedback only
-            Ship tempShip = new Ship("TempHit", 1);
-            try {
-                opponentBoard.placeShip(tempShip, pos, false);
-                opponentBoard.processAttack(pos); // This will mark as HIT and add to attacked positions
-            } catch (Exception e) {
-                // Fallback: manually add to attacked positions
-                opponentBoard.getAttackedPositions().add(pos);
-                setOpponentBoardCellState(pos, Constants.HIT);
-            }
-        } else if (result.equals(MessageProtocol.SUNK)) {
-            // Mark one of our placeholder ships as sunk (for status display)
-            markOpponentShipAsSunk();
-            
-            // Create a temporary single-cell ship for visual feedback
-            Ship tempShip = new Ship("TempSunk", 1);
-            try {
-                opponentBoard.placeShip(tempShip, pos, false);
-                opponentBoard.processAttack(pos); // This will mark as HIT
-                // Then manually change to SUNK
-                setOpponentBoardCellState(pos, Constants.SUNK);
-            } catch (Exception e) {
-                // Fallback: manually add to attacked positions
-                opponentBoard.getAttackedPositions().add(pos);
-                setOpponentBoardCellState(pos, Constants.SUNK);
-            }
-        } else if (result.equals(MessageProtocol.MISS)) {
-            // For misses, just process the attack - it will mark as MISS correctly
-            opponentBoard.processAttack(pos);
-        }
+        opponentTracking.record(result, row, col, sunkShip);
         
         // Update UI based on result
         opponentBoardPanel.updateShipStatusPanel();
@@ -615,41 +563,38 @@ public class MultiplayerGamePanel extends JPanel implements
         updateScoreboard();
         
         // Update status message
-        String statusMessage = "Your attack on " + pos + " - ";
-        switch (result) {
-            case MessageProtocol.HIT:
-                statusMessage += "Hit!";
-                break;
-            case MessageProtocol.MISS:
-                statusMessage += "Miss!";
-                break;
-            case MessageProtocol.SUNK:
-                statusMessage += "Ship sunk!";
-                break;
-        }
-        mainWindow.updateStatusMessage(statusMessage);
+        mainWindow.updateStatusMessage("Your attack on " + pos + " - " + describeResult(result));
         
-        // Check if we won (count sunk ships from our attack results)
-        if (result.equals(MessageProtocol.SUNK)) {
-            int sunkShips = 0;
-            for (String attackResult : attackResults.values()) {
-                if (attackResult.equals(MessageProtocol.SUNK)) {
-                    sunkShips++;
-                }
-            }
-            
-            // Assume 5 ships total (standard battleship)
-            if (sunkShips >= 5) {
-                messageHandler.sendGameOver(networkManager, false); // We won
-                handleGameOver(true, "You sank all opponent ships!");
-                return;
-            }
+        // Check if we won (all opponent ships sunk); in a ranked match the host announces it
+        boolean authoritative = mainWindow.getNetworkGameManager().isAuthoritative();
+        if (!authoritative && result.equals(MessageProtocol.SUNK) && opponentTracking.isFleetSunk()) {
+            mainWindow.getNetworkGameManager().sendGameOver(false); // We won
+            handleGameOver(true, "You sank all opponent ships!");
+            return;
         }
         
         // Always switch turns after each attack, regardless of result (hit, miss, or sunk)
         setPlayerTurn(false);
     }
     
+    @Override
+    public void onOpponentAttackResolved(String result, int row, int col) {
+        Position pos = new Position(row, col);
+        
+        // The host already decided the result, our board only mirrors it
+        playerBoard.processAttack(pos);
+        
+        playerBoardPanel.updateShipStatusPanel();
+        playerBoardPanel.repaint();
+        updateScoreboard();
+        mainWindow.updateStatusMessage("Opponent attacked " + pos + " - " + describeResult(result));
+        
+        // When our fleet is gone the host's GAME_OVER follows
+        if (!playerBoard.areAllShipsSunk()) {
+            setPlayerTurn(true);
+        }
+    }
+    
     @Override
     public void onTurnEnd() {
         setPlayerTurn(false);
@@ -671,6 +616,75 @@ public class MultiplayerGamePanel extends JPanel implements
         handleGameOver(true, "Opponent surrendered.");
     }
     
+    @Override
+    public void onTurnTimeout(boolean localPlayer, boolean forfeited) {
+        if (forfeited) {
+            handleGameOver(!localPlayer, localPlayer ? "You missed too many turns." : "Opponent ran out of time.");
+        } else if (localPlayer) {
+            mainWindow.updateStatusMessage("Time is up! A random shot was fired for you.");
+            setPlayerTurn(false);
+        }
+    }
+    
+    @Override
+    public void onStateResync(SessionSnapshot snapshot) {
+        if (snapshot == null || !gameStarted || playerBoard == null) {
+            return;
+        }
+        
+        // Results of our attacks that were lost with the connection
+        for (int row = 0; row < Constants.BOARD_SIZE; row++) {
+            for (int col = 0; col < Constants.BOARD_SIZE; col++) {
+                String result = toAttackResult(snapshot.getOwnCell(row, col));
+                if (result != null && !opponentTracking.isKnown(row, col)) {
+                    opponentTracking.record(result, row, col, null);
+                }
+            }
+        }
+        
+        opponentBoardPanel.updateShipStatusPanel();
+        opponentBoardPanel.repaint();
+        updateScoreboard();
+        mainWindow.updateStatusMessage("Match state resynchronized with opponent");
+        
+        if (opponentTracking.isFleetSunk()) {
+            mainWindow.getNetworkGameManager().sendGameOver(false); // We won
+            handleGameOver(true, "You sank all opponent ships!");
+            return;
+        }
+        
+        // Turns alternate, so the attack counts decide whose turn it is
+        int ownAttacks = opponentTracking.getShotCount();
+        int opponentAttacks = playerBoard.getAttackedPositions().size();
+        setPlayerTurn(isFirstPlayer ? ownAttacks == opponentAttacks : ownAttacks < opponentAttacks);
+    }
+    
+    /**
+     * Captures the public state of the match for a resync after a session resume.
+     * @return Snapshot, or null if the game has not started
+     */
+    public SessionSnapshot captureSnapshot() {
+        if (!gameStarted || playerBoard == null) {
+            return null;
+        }
+        
+        StringBuilder ownBoard = new StringBuilder(Constants.BOARD_SIZE * Constants.BOARD_SIZE);
+        StringBuilder knownBoard = new StringBuilder(Constants.BOARD_SIZE * Constants.BOARD_SIZE);
+        java.util.Set<Position> attacked = new java.util.HashSet<>(playerBoard.getAttackedPositions());
+        
+        for (int row = 0; row < Constants.BOARD_SIZE; row++) {
+            for (int col = 0; col < Constants.BOARD_SIZE; col++) {
+                Position pos = new Position(row, col);
+                ownBoard.append(attacked.contains(pos) ? playerBoard.getCellState(pos) : Constants.EMPTY);
+                knownBoard.append(opponentTracking.getCellState(row, col));
+            }
+        }
+        
+        int ownShipsSunk = playerBoard.getShips().size() - countAliveShips(playerBoard);
+        return new SessionSnapshot(opponentTracking.getShotCount() + attacked.size(), isPlayerTurn, ownShipsSunk,
+                                   ownBoard.toString(), knownBoard.toString());
+    }
+    
     // ===== NetworkMessageHandler.HoverMessageListener Implementation =====
     
     @Override
@@ -682,56 +696,36 @@ public class MultiplayerGamePanel extends JPanel implements
     @Override
     public void onPingReceived() {
         // Respond to ping with pong
-        messageHandler.sendPong(networkManager);
-    }
-    
-    /**
-     * Creates placeholder ships for the opponent (we don't know their real positions).
-     */
-    private void createPlaceholderOpponentShips() {
-        opponentShips.clear();
-        
-        // Create standard battleship fleet (same as Constants)
-        opponentShips.add(new Ship("Carrier", Constants.CARRIER_SIZE));
-        opponentShips.add(new Ship("Battleship", Constants.BATTLESHIP_SIZE));
-        opponentShips.add(new Ship("Cruiser", Constants.CRUISER_SIZE));
-        opponentShips.add(new Ship("Submarine", Constants.SUBMARINE_SIZE));
-        opponentShips.add(new Ship("Destroyer", Constants.DESTROYER_SIZE));
+        mainWindow.getNetworkGameManager().sendPong();
     }
     
     /**
-     * Marks one of the opponent's placeholder ships as sunk.
+     * Describes an attack result for the status bar.
      */
-    private void markOpponentShipAsSunk() {
-        // Find the first alive ship and mark it as sunk
-        for (Ship ship : opponentShips) {
-            if (!ship.isSunk()) {
-                ship.forceSink();
-                break; // Sink only one ship per SUNK message
-            }
+    private static String describeResult(String result) {
+        switch (result) {
+            case MessageProtocol.HIT:
+                return "Hit!";
+            case MessageProtocol.SUNK:
+                return "Ship sunk!";
+            default:
+                return "Miss!";
         }
     }
     
     /**
-     * Sets the cell state on the opponent board (using reflection to access private grid).
+     * Converts a cell state from a resync snapshot to an attack result (null if never attacked).
      */
-    private void setOpponentBoardCellState(Position pos, char state) {
-        try {
-            // Access the private grid field using reflection
-            java.lang.reflect.Field gridField = Board.class.getDeclaredField("grid");
-            gridField.setAccessible(true);
-            char[][] grid = (char[][]) gridField.get(opponentBoard);
-            grid[pos.getRow()][pos.getCol()] = state;
-        } catch (Exception e) {
-            System.out.println("Could not set cell state: " + e.getMessage());
+    private static String toAttackResult(char cellState) {
+        switch (cellState) {
+            case Constants.HIT:
+                return MessageProtocol.HIT;
+            case Constants.MISS:
+                return MessageProtocol.MISS;
+            case Constants.SUNK:
+                return MessageProtocol.SUNK;
+            default:
+                return null;
         }
     }
-    
-    /**
-     * Gets the message handler for external use.
-     * @return Network message handler
-     */
-    public NetworkMessageHandler getMessageHandler() {
-        return messageHandler;
-    }
 } 
\ No newline at end of file
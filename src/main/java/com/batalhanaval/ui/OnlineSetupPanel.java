@@ -2,9 +2,14 @@ package com.batalhanaval.ui;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.IOException;
+import java.util.List;
 import java.util.function.Consumer;
 
 import com.batalhanaval.Constants;
+import com.batalhanaval.network.LanDiscoveryService;
 import com.batalhanaval.network.NetworkManager;
 
 /**
@@ -12,6 +17,9 @@ import com.batalhanaval.network.NetworkManager;
  */
 public class OnlineSetupPanel extends JPanel {
     
+    /** Maximum time to wait for the connection handshake when joining */
+    private static final long CONNECT_READY_TIMEOUT_MS = 5000;
+    
     private MainWindow mainWindow;
     private NetworkManager networkManager;
     
@@ -22,6 +30,12 @@ public class OnlineSetupPanel extends JPanel {
     private JButton backButton;
     private JButton testUdpButton;
     private JButton proceedToSetupButton;
+    private JCheckBox rankedCheckBox;
+    
+    // LAN discovery
+    private final LanDiscoveryService browser = new LanDiscoveryService();
+    private DefaultListModel<LanDiscoveryService.DiscoveredHost> hostListModel;
+    private JList<LanDiscoveryService.DiscoveredHost> hostList;
     
     /**
      * Constructor for the online setup panel.
@@ -67,6 +81,9 @@ public class OnlineSetupPanel extends JPanel {
         backButton = new JButton("Back to Menu");
         testUdpButton = new JButton("Test UDP Message");
         proceedToSetupButton = new JButton("Proceed to Ship Setup");
+        rankedCheckBox = new JCheckBox("Ranked match (host decides every shot)");
+        rankedCheckBox.setBackground(Color.BLACK);
+        rankedCheckBox.setForeground(Color.WHITE);
         testUdpButton.setEnabled(false);  // Initially disabled
         proceedToSetupButton.setEnabled(false);  // Initially disabled
         
@@ -86,12 +103,39 @@ public class OnlineSetupPanel extends JPanel {
         statusTextArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
         JScrollPane scrollPane = new JScrollPane(statusTextArea);
         
+        // Games found on the local network
+        JLabel hostsLabel = new JLabel("Games on your network:");
+        hostsLabel.setForeground(Color.WHITE);
+        
+        hostListModel = new DefaultListModel<>();
+        hostList = new JList<>(hostListModel);
+        hostList.setVisibleRowCount(4);
+        hostList.setBackground(new Color(30, 30, 30));
+        hostList.setForeground(Color.WHITE);
+        hostList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        hostList.addListSelectionListener(e -> {
+            LanDiscoveryService.DiscoveredHost host = hostList.getSelectedValue();
+            if (host != null) {
+                serverIPField.setText(host.getAddress().getHostAddress());
+            }
+        });
+        hostList.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2 && hostList.getSelectedValue() != null && joinGameButton.isEnabled()) {
+                    joinGame();
+                }
+            }
+        });
+        
         // Add components to form
         JPanel ipPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         ipPanel.setBackground(Color.BLACK);
         ipPanel.add(ipLabel);
         ipPanel.add(serverIPField);
         
+        formPanel.add(hostsLabel, gbc);
+        formPanel.add(new JScrollPane(hostList), gbc);
         formPanel.add(ipPanel, gbc);
         
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 10));
@@ -105,7 +149,12 @@ public class OnlineSetupPanel extends JPanel {
         testPanel.add(testUdpButton);
         testPanel.add(proceedToSetupButton);
         
+        JPanel modePanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        modePanel.setBackground(Color.BLACK);
+        modePanel.add(rankedCheckBox);
+        
         formPanel.add(buttonPanel, gbc);
+        formPanel.add(modePanel, gbc);
         formPanel.add(testPanel, gbc);
         formPanel.add(new JLabel("Status:"), gbc);
         formPanel.add(scrollPane, gbc);
@@ -117,7 +166,10 @@ public class OnlineSetupPanel extends JPanel {
         // Add action listeners
         createGameButton.addActionListener(e -> createGame());
         joinGameButton.addActionListener(e -> joinGame());
-        backButton.addActionListener(e -> mainWindow.showMainMenuPanel());
+        backButton.addActionListener(e -> {
+            stopBrowsing();
+            mainWindow.showMainMenuPanel();
+        });
         testUdpButton.addActionListener(e -> testUdpMessage());
         proceedToSetupButton.addActionListener(e -> proceedToShipSetup());
         
@@ -129,16 +181,22 @@ public class OnlineSetupPanel extends JPanel {
      * Creates a game (acts as server).
      */
     private void createGame() {
+        // Our own socket would compete with the host announcer for the discovery port
+        stopBrowsing();
+        
         // Disable buttons while connecting
         setButtonsEnabled(false);
         updateStatus("Starting server...");
         
+        // Only the host chooses the mode, the guest learns it when the host is ready
+        mainWindow.getNetworkGameManager().setAuthoritative(rankedCheckBox.isSelected());
+        
         // Start server in a separate thread
         new Thread(() -> {
             try {
                 networkManager.startServer(
                     Constants.DEFAULT_PORT, 
-                    Constants.DISCOVERY_PORT, 
+                    Constants.GAME_UDP_PORT, 
                     this::updateStatus
                 );
                 
@@ -168,7 +226,19 @@ public class OnlineSetupPanel extends JPanel {
             return;
         }
         
+        // Use the ports announced by a discovered host, the defaults otherwise
+        int tcpPort = Constants.DEFAULT_PORT;
+        int udpPort = Constants.GAME_UDP_PORT;
+        LanDiscoveryService.DiscoveredHost host = hostList.getSelectedValue();
+        if (host != null && host.getAddress().getHostAddress().equals(serverIP)) {
+            tcpPort = host.getTcpPort();
+            udpPort = host.getUdpPort();
+        }
+        int serverTcpPort = tcpPort;
+        int serverUdpPort = udpPort;
+        
         // Disable buttons while connecting
+        stopBrowsing();
         setButtonsEnabled(false);
         updateStatus("Connecting to " + serverIP + "...");
         
@@ -177,11 +247,16 @@ public class OnlineSetupPanel extends JPanel {
             try {
                 networkManager.connectToServer(
                     serverIP,
-                    Constants.DEFAULT_PORT,
-                    Constants.DISCOVERY_PORT,
+                    serverTcpPort,
+                    serverUdpPort,
                     this::updateStatus
                 );
                 
+                // Wait for the handshake to be acknowledged by the server
+                if (!networkManager.awaitReady(CONNECT_READY_TIMEOUT_MS)) {
+                    updateStatus("Server did not complete the handshake in time.");
+                }
+                
                 // Enable test button and proceed button when connected
                 SwingUtilities.invokeLater(() -> {
                     testUdpButton.setEnabled(true);
@@ -193,11 +268,50 @@ public class OnlineSetupPanel extends JPanel {
                 SwingUtilities.invokeLater(() -> {
                     updateStatus("Connection error: " + e.getMessage());
                     setButtonsEnabled(true);
+                    startBrowsing();
                 });
             }
         }).start();
     }
     
+    /**
+     * Starts listening for games announced on the local network.
+     */
+    public void startBrowsing() {
+        if (browser.isRunning() || networkManager.isConnected()) {
+            return;
+        }
+        hostListModel.clear();
+        try {
+            browser.startBrowsing(hosts -> SwingUtilities.invokeLater(() -> updateHostList(hosts)));
+        } catch (IOException e) {
+            updateStatus("LAN discovery unavailable: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Stops listening for announced games.
+     */
+    public void stopBrowsing() {
+        browser.stop();
+    }
+    
+    /**
+     * Replaces the list of discovered games, keeping the selection if the host is still there.
+     * 
+     * @param hosts Hosts currently announcing a game
+     */
+    private void updateHostList(List<LanDiscoveryService.DiscoveredHost> hosts) {
+        LanDiscoveryService.DiscoveredHost selected = hostList.getSelectedValue();
+        hostListModel.clear();
+        for (LanDiscoveryService.DiscoveredHost host : hosts) {
+            hostListModel.addElement(host);
+        }
+        if (selected != null && hosts.contains(selected)) {
+            hostList.setSelectedValue(selected, false);
+        }
+    }
+    
     /**
      * Sends a test UDP message to the remote player.
      */
@@ -247,6 +361,7 @@ public class OnlineSetupPanel extends JPanel {
         SwingUtilities.invokeLater(() -> {
             createGameButton.setEnabled(enabled);
             joinGameButton.setEnabled(enabled);
+            rankedCheckBox.setEnabled(enabled);
             serverIPField.setEnabled(enabled);
         });
     }
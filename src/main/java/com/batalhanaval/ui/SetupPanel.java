@@ -78,7 +78,7 @@ public class SetupPanel extends JPanel {
     private void setupControlPanel() {
         controlPanel = new JPanel();
         controlPanel.setLayout(new BoxLayout(controlPanel, BoxLayout.Y_AXIS));
-        contr   olPanel.setBorder(BorderFactory.createEmptyBorder(0, 10, 0, 10));
+        controlPanel.setBorder(BorderFactory.createEmptyBorder(0, 10, 0, 10));
         controlPanel.setPreferredSize(new Dimension(200, 400));
         controlPanel.setBackground(Color.BLACK);
         
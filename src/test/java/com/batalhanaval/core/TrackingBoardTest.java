@@ -0,0 +1,68 @@
+package com.batalhanaval.core;
+
+import com.batalhanaval.Constants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the TrackingBoard class.
+ */
+class TrackingBoardTest {
+    private TrackingBoard tracking;
+
+    @BeforeEach
+    void setUp() {
+        tracking = new TrackingBoard(Constants.BOARD_SIZE, "Cruiser", "Destroyer");
+    }
+
+    @Test
+    void testRecordResults() {
+        assertTrue(tracking.record(Constants.ATTACK_MISS, 0, 0, null));
+        assertTrue(tracking.record(Constants.ATTACK_HIT, 1, 1, null));
+
+        assertEquals(Constants.MISS, tracking.getCellState(0, 0));
+        assertEquals(Constants.HIT, tracking.getCellState(1, 1));
+        assertEquals(Constants.EMPTY, tracking.getCellState(2, 2));
+        assertTrue(tracking.isKnown(1, 1));
+        assertFalse(tracking.isKnown(2, 2));
+        assertEquals(2, tracking.getShotCount());
+        assertEquals(1, tracking.getHitCount());
+    }
+
+    @Test
+    void testCellIsRecordedOnce() {
+        assertTrue(tracking.recordHit(3, 3));
+        assertFalse(tracking.recordMiss(3, 3));
+        assertFalse(tracking.recordHit(-1, 3));
+
+        assertEquals(Constants.HIT, tracking.getCellState(3, 3));
+        assertEquals(1, tracking.getShotCount());
+    }
+
+    @Test
+    void testSunkShipByName() {
+        tracking.recordSunk(4, 4, "Destroyer");
+
+        assertFalse(tracking.isShipSunk(0));
+        assertTrue(tracking.isShipSunk(1));
+        assertEquals(Constants.SUNK, tracking.getCellState(4, 4));
+        assertEquals(1, tracking.getHitCount());
+    }
+
+    @Test
+    void testSunkShipWithoutNameMarksFirstAfloat() {
+        tracking.recordSunk(0, 0, "Destroyer");
+        tracking.recordSunk(5, 5, null);
+
+        assertTrue(tracking.isShipSunk(0));
+        assertEquals(2, tracking.getSunkShipCount());
+        assertTrue(tracking.isFleetSunk());
+
+        tracking.clear();
+        assertEquals(0, tracking.getShotCount());
+        assertFalse(tracking.isFleetSunk());
+        assertFalse(tracking.isKnown(0, 0));
+    }
+}
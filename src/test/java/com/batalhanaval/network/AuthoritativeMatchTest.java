@@ -0,0 +1,115 @@
+package com.batalhanaval.network;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.batalhanaval.Constants;
+import com.batalhanaval.core.Board;
+import com.batalhanaval.core.GameState;
+import com.batalhanaval.core.Position;
+import com.batalhanaval.core.Ship;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the AuthoritativeMatch class.
+ */
+class AuthoritativeMatchTest {
+    private Board fleet;
+    private AuthoritativeMatch match;
+
+    @BeforeEach
+    void setUp() {
+        GameState setup = new GameState(Constants.BOARD_SIZE);
+        assertTrue(setup.createDefaultShips());
+        fleet = setup.getPlayerBoard();
+        match = new AuthoritativeMatch(fleet);
+    }
+
+    @Test
+    void testGuestFleetRoundTrip() {
+        assertFalse(match.start(), "Cannot start without the guest fleet");
+        assertTrue(match.placeGuestFleet(MessageProtocol.createFleetMessage(fleet.getShips())));
+        assertTrue(match.start());
+    }
+
+    @Test
+    void testInvalidFleetsAreRejected() {
+        assertFalse(match.placeGuestFleet("FLEET:Carrier,0,0,H:Battleship,0,0,H:Cruiser,2,0,H:Submarine,3,0,H:" +
+                                          "Destroyer,4,0,H"), "Overlapping ships");
+        assertFalse(match.placeGuestFleet("FLEET:Carrier,0,8,H:Battleship,1,0,H:Cruiser,2,0,H:Submarine,3,0,H:" +
+                                          "Destroyer,4,0,H"), "Off the board");
+        assertFalse(match.placeGuestFleet("FLEET:Carrier,0,0,H:Battleship,1,0,H:Cruiser,2,0,H:Cruiser,3,0,H:" +
+                                          "Destroyer,4,0,H"), "Submarine missing");
+        assertFalse(match.placeGuestFleet("FLEET:Carrier,0,0,H:Battleship,1,0,H:Cruiser,2,0,H:Dinghy,3,0,H:" +
+                                          "Destroyer,4,0,H"), "Unknown ship");
+        assertFalse(match.placeGuestFleet("FLEET:0,0,H:1,0,H:2,0,H:3,0,H:4,0,H"), "Unnamed ships");
+        assertFalse(match.placeGuestFleet("FLEET:Carrier,0,0,H"), "Incomplete fleet");
+        assertFalse(match.hasGuestFleet());
+    }
+
+    @Test
+    void testShipsOfTheSameSizeKeepTheirNames() {
+        // The Submarine is placed before the Cruiser, both three cells long
+        Board guestFleet = new Board(Constants.BOARD_SIZE);
+        guestFleet.placeShip(new Ship("Submarine", Constants.SUBMARINE_SIZE), new Position(0, 0), false);
+        guestFleet.placeShip(new Ship("Cruiser", Constants.CRUISER_SIZE), new Position(1, 0), false);
+        guestFleet.placeShip(new Ship("Carrier", Constants.CARRIER_SIZE), new Position(2, 0), false);
+        guestFleet.placeShip(new Ship("Battleship", Constants.BATTLESHIP_SIZE), new Position(3, 0), false);
+        guestFleet.placeShip(new Ship("Destroyer", Constants.DESTROYER_SIZE), new Position(4, 0), false);
+        assertTrue(match.placeGuestFleet(MessageProtocol.createFleetMessage(guestFleet.getShips())));
+        match.start();
+
+        // The host sinks the Submarine on row 0, the guest misses in between
+        for (int col = 0; col < Constants.SUBMARINE_SIZE; col++) {
+            String result = match.resolveHostAttack(new Position(0, col));
+            assertNotNull(result);
+            if (col < Constants.SUBMARINE_SIZE - 1) {
+                assertEquals(MessageProtocol.MISS, match.resolveGuestAttack(new Position(9, col)));
+            } else {
+                assertEquals(MessageProtocol.SUNK, result);
+            }
+        }
+        assertEquals("Submarine", match.getLastSunkShip());
+    }
+
+    @Test
+    void testTurnsAreEnforced() {
+        match.placeGuestFleet(MessageProtocol.createFleetMessage(fleet.getShips()));
+        match.start();
+
+        assertNull(match.resolveGuestAttack(new Position(0, 0)), "Host moves first");
+        assertEquals(MessageProtocol.HIT, match.resolveHostAttack(new Position(0, 0)));
+        assertNull(match.resolveHostAttack(new Position(0, 1)), "Not the host's turn anymore");
+        assertEquals(MessageProtocol.MISS, match.resolveGuestAttack(new Position(9, 0)));
+        assertNull(match.resolveHostAttack(new Position(0, 0)), "Cell attacked before");
+    }
+
+    @Test
+    void testHostWinsBySinkingEveryShip() {
+        match.placeGuestFleet(MessageProtocol.createFleetMessage(fleet.getShips()));
+        match.start();
+
+        // The guest shoots at cells the default fleet never covers
+        int guestShot = 0;
+        for (int row = 0; row < Constants.BOARD_SIZE && !match.isOver(); row++) {
+            for (int col = 0; col < Constants.BOARD_SIZE && !match.isOver(); col++) {
+                if (fleet.getShipAt(new Position(row, col)) == null) {
+                    continue;
+                }
+                assertNotNull(match.resolveHostAttack(new Position(row, col)));
+                if (!match.isOver()) {
+                    Position miss;
+                    do {
+                        miss = new Position(guestShot / Constants.BOARD_SIZE, guestShot % Constants.BOARD_SIZE);
+                        guestShot++;
+                    } while (fleet.getShipAt(miss) != null);
+                    assertEquals(MessageProtocol.MISS, match.resolveGuestAttack(miss));
+                }
+            }
+        }
+
+        assertTrue(match.isOver());
+        assertTrue(match.hasHostWon());
+    }
+}
@@ -0,0 +1,66 @@
+package com.batalhanaval.network;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the ConsistentHashRing class.
+ */
+class ConsistentHashRingTest {
+    private static final int KEYS = 3000;
+
+    private ConsistentHashRing<String> ring;
+
+    @BeforeEach
+    void setUp() {
+        ring = new ConsistentHashRing<>();
+        ring.add("worker-0");
+        ring.add("worker-1");
+        ring.add("worker-2");
+    }
+
+    @Test
+    void testKeysAreSpreadOverAllNodes() {
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            counts.merge(ring.get("match-" + i), 1, Integer::sum);
+        }
+
+        assertEquals(3, counts.size());
+        for (int count : counts.values()) {
+            assertTrue(count > KEYS / 3 / 2, "Roughly balanced: " + counts);
+        }
+    }
+
+    @Test
+    void testRemovingANodeOnlyMovesItsKeys() {
+        Map<String, String> before = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            before.put("match-" + i, ring.get("match-" + i));
+        }
+
+        ring.remove("worker-1");
+        for (Map.Entry<String, String> entry : before.entrySet()) {
+            String now = ring.get(entry.getKey());
+            if (entry.getValue().equals("worker-1")) {
+                assertNotEquals("worker-1", now);
+            } else {
+                assertEquals(entry.getValue(), now, "Keys of other workers stay put");
+            }
+        }
+    }
+
+    @Test
+    void testEmptyRing() {
+        ConsistentHashRing<String> empty = new ConsistentHashRing<>();
+        assertNull(empty.get("match-1"));
+
+        ring.add("worker-0");
+        assertEquals(3, ring.size(), "Adding twice is ignored");
+    }
+}
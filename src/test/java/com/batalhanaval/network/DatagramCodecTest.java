@@ -0,0 +1,78 @@
+package com.batalhanaval.network;
+
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the DatagramCodec class.
+ */
+class DatagramCodecTest {
+    private ByteBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        buffer = ByteBuffer.allocate(DatagramCodec.MAX_DATAGRAM_SIZE);
+    }
+
+    private int readHover(String datagram) {
+        buffer.clear();
+        DatagramCodec.writeText(buffer, datagram);
+        buffer.flip();
+        int hover = DatagramCodec.readHover(buffer);
+        assertEquals(0, buffer.position(), "The buffer is not consumed");
+        return hover;
+    }
+
+    @Test
+    void testTextHovers() {
+        int hover = readHover("HOVER:7,3");
+        assertEquals(7, DatagramCodec.hoverRow(hover));
+        assertEquals(3, DatagramCodec.hoverCol(hover));
+        assertEquals((255 << 8) | 12, readHover("HOVER:255,012"), "Three digits are the most a coordinate has");
+        assertEquals(DatagramCodec.HOVER_NONE, readHover("HOVER:null"));
+
+        assertEquals(DatagramCodec.NOT_HOVER, readHover("HOVER:1000,1"), "Four-digit row");
+        assertEquals(DatagramCodec.NOT_HOVER, readHover("HOVER:1,1000"), "Four-digit column");
+        assertEquals(DatagramCodec.NOT_HOVER, readHover("HOVER:256,1"), "Does not fit the packed cell");
+        assertEquals(DatagramCodec.NOT_HOVER, readHover("HOVER:73"), "Missing comma");
+        assertEquals(DatagramCodec.NOT_HOVER, readHover("HOVER:7,"), "Empty column");
+        assertEquals(DatagramCodec.NOT_HOVER, readHover("HOVER:,3"), "Empty row");
+        assertEquals(DatagramCodec.NOT_HOVER, readHover("HOVER:7,-3"));
+        assertEquals(DatagramCodec.NOT_HOVER, readHover("HOVER:nullx"));
+        assertEquals(DatagramCodec.NOT_HOVER, readHover("PING:7,3"), "Not a hover");
+        assertEquals(DatagramCodec.NOT_HOVER, readHover("HOVE"));
+    }
+
+    @Test
+    void testBinaryHoverRoundTrip() {
+        DatagramCodec.writeBinaryHover(buffer, 70000, 7, 3);
+        buffer.flip();
+
+        assertEquals(DatagramCodec.BINARY_HOVER_SIZE, buffer.remaining());
+        assertTrue(DatagramCodec.isBinaryHover(buffer));
+        assertEquals(70000 & 0xFFFF, DatagramCodec.readBinaryHoverSerial(buffer));
+        int hover = DatagramCodec.readBinaryHoverCell(buffer);
+        assertEquals(7, DatagramCodec.hoverRow(hover));
+        assertEquals(3, DatagramCodec.hoverCol(hover));
+        assertFalse(buffer.hasRemaining());
+
+        buffer.clear();
+        DatagramCodec.writeBinaryHoverBatch(buffer, 5, new int[] { 0, -1, 9 }, new int[] { 1, -1, 9 }, 3);
+        buffer.flip();
+
+        assertEquals(5, DatagramCodec.readBinaryHoverSerial(buffer));
+        assertEquals(1, DatagramCodec.readBinaryHoverCell(buffer));
+        assertEquals(DatagramCodec.HOVER_NONE, DatagramCodec.readBinaryHoverCell(buffer));
+        assertEquals((9 << 8) | 9, DatagramCodec.readBinaryHoverCell(buffer));
+
+        // A text hover is never taken for a binary one
+        buffer.clear();
+        DatagramCodec.writeHover(buffer, 7, 3);
+        buffer.flip();
+        assertFalse(DatagramCodec.isBinaryHover(buffer));
+    }
+}
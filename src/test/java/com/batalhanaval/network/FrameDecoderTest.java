@@ -0,0 +1,93 @@
+package com.batalhanaval.network;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the FrameDecoder class.
+ */
+class FrameDecoderTest {
+    private FrameDecoder decoder;
+
+    @BeforeEach
+    void setUp() {
+        decoder = new FrameDecoder();
+    }
+
+    @Test
+    void testMessagesWithSeparatorsAndUnicode() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        FrameCodec.writeFrame(out, "CHAT:line one\nline two");
+        FrameCodec.writeFrame(out, "CHAT:afundou o porta-aviões");
+        FrameCodec.writeFrame(out, "");
+
+        ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+        assertEquals("CHAT:line one\nline two", decoder.readMessage(in));
+        assertEquals("CHAT:afundou o porta-aviões", decoder.readMessage(in));
+        assertEquals("", decoder.readMessage(in));
+        assertNull(decoder.readMessage(in));
+    }
+
+    @Test
+    void testPartialReads() throws IOException {
+        ByteBuffer frames = ByteBuffer.allocate(64);
+        frames.put(FrameCodec.encode("ATTACK:3,4"));
+        frames.put(FrameCodec.encode("HIT:3,4"));
+        frames.flip();
+
+        // One byte per read, as a slow non-blocking channel could deliver them
+        StringBuilder received = new StringBuilder();
+        while (frames.hasRemaining()) {
+            ByteBuffer single = frames.duplicate();
+            single.limit(single.position() + 1);
+            assertEquals(1, decoder.feed(single));
+            frames.position(frames.position() + 1);
+
+            String message;
+            while ((message = decoder.nextMessage()) != null) {
+                received.append(message).append('|');
+            }
+        }
+
+        assertEquals("ATTACK:3,4|HIT:3,4|", received.toString());
+        assertEquals(0, decoder.getBufferedCount());
+    }
+
+    @Test
+    void testFrameLargerThanInitialBuffer() throws IOException {
+        byte[] payload = new byte[20000];
+        Arrays.fill(payload, (byte) 7);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        FrameCodec.writeFrame(out, payload, 0, payload.length);
+
+        ByteBuffer source = ByteBuffer.wrap(out.toByteArray());
+        ByteBuffer frame = null;
+        while (frame == null && source.hasRemaining()) {
+            decoder.feed(source);
+            frame = decoder.nextFrame();
+        }
+
+        assertNotNull(frame);
+        assertEquals(payload.length, frame.remaining());
+        assertEquals(7, frame.get(payload.length - 1));
+    }
+
+    @Test
+    void testCorruptStream() {
+        decoder.feed(ByteBuffer.wrap(new byte[] { 0x7f, 0, 0, 0, 1 }));
+        assertThrows(ProtocolException.class, () -> decoder.nextFrame());
+
+        ByteArrayInputStream truncated = new ByteArrayInputStream(new byte[] { 0, 0, 0, 5, 'H', 'I' });
+        assertThrows(EOFException.class, () -> new FrameDecoder().readMessage(truncated));
+    }
+}
@@ -0,0 +1,58 @@
+package com.batalhanaval.network;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the RTT and jitter bookkeeping of the HeartbeatService class.
+ */
+class HeartbeatServiceTest {
+    private HeartbeatService heartbeat;
+
+    @BeforeEach
+    void setUp() {
+        heartbeat = new HeartbeatService(new NetworkManager(), message -> { }, null); // Never started
+    }
+
+    private void pongAfter(HeartbeatService.Transport transport, long rttMs) {
+        heartbeat.onPong(transport, System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(rttMs));
+    }
+
+    @Test
+    void testRoundTripsAreRecordedPerTransport() {
+        assertEquals("", heartbeat.getStatusText(), "Nothing before the first PONG");
+
+        pongAfter(HeartbeatService.Transport.TCP, 20);
+        pongAfter(HeartbeatService.Transport.TCP, 20);
+
+        LatencyHistogram tcp = heartbeat.getHistogram(HeartbeatService.Transport.TCP);
+        assertEquals(2, tcp.getCount());
+        assertTrue(tcp.getMin() >= 20_000 && tcp.getMin() < 25_000, "RTT " + tcp.getMin() + " us");
+        assertEquals(0, heartbeat.getHistogram(HeartbeatService.Transport.UDP).getCount());
+        assertTrue(heartbeat.getStatusText().startsWith("RTT 2"), heartbeat.getStatusText());
+    }
+
+    @Test
+    void testJitterIsSmoothed() {
+        pongAfter(HeartbeatService.Transport.UDP, 10);
+        assertEquals(0.0, heartbeat.getJitterMs(HeartbeatService.Transport.UDP), "No change to measure yet");
+
+        // One change of 16 ms moves the jitter a sixteenth of the way
+        pongAfter(HeartbeatService.Transport.UDP, 26);
+        double jitter = heartbeat.getJitterMs(HeartbeatService.Transport.UDP);
+        assertTrue(jitter > 0.6 && jitter < 1.4, "Jitter " + jitter + " ms");
+        assertEquals(0.0, heartbeat.getJitterMs(HeartbeatService.Transport.TCP));
+    }
+
+    @Test
+    void testPongFromTheFutureIsIgnored() {
+        heartbeat.onPong(HeartbeatService.Transport.TCP, System.nanoTime() + TimeUnit.SECONDS.toNanos(1));
+
+        assertEquals(0, heartbeat.getHistogram(HeartbeatService.Transport.TCP).getCount());
+        assertFalse(heartbeat.isPeerDead());
+    }
+}
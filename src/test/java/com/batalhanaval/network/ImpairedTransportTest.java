@@ -0,0 +1,114 @@
+package com.batalhanaval.network;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the ImpairedTransport and ImpairmentProfile classes.
+ */
+class ImpairedTransportTest {
+    private List<String> reliable;
+    private List<String> unreliable;
+    private MessageTransport recorder;
+    private ImpairedTransport transport;
+
+    @BeforeEach
+    void setUp() {
+        reliable = Collections.synchronizedList(new ArrayList<>());
+        unreliable = Collections.synchronizedList(new ArrayList<>());
+        recorder = new MessageTransport() {
+            @Override
+            public boolean sendReliable(String message) {
+                return reliable.add(message);
+            }
+
+            @Override
+            public boolean sendUnreliable(String message) {
+                return unreliable.add(message);
+            }
+
+            @Override
+            public boolean sendHover(int row, int col) {
+                return unreliable.add(MessageProtocol.createHoverMessage(row, col));
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (transport != null) {
+            transport.close();
+        }
+    }
+
+    @Test
+    void testParseProfile() {
+        ImpairmentProfile profile = ImpairmentProfile.parse("latency=80, jitter=20,loss=0.02,seed=3");
+        assertEquals(80, profile.getLatencyMs());
+        assertEquals(20, profile.getJitterMs());
+        assertEquals(0.02, profile.getLossRate());
+        assertEquals(0, profile.getDuplicateRate());
+        assertEquals(3L, profile.getSeed());
+        assertFalse(profile.isUdpBlocked());
+        assertTrue(ImpairmentProfile.parse("udp=off").isUdpBlocked());
+
+        assertThrows(IllegalArgumentException.class, () -> ImpairmentProfile.parse("latency=fast"));
+        assertThrows(IllegalArgumentException.class, () -> ImpairmentProfile.parse("loss=2"));
+        assertThrows(IllegalArgumentException.class, () -> ImpairmentProfile.parse("bandwidth=10"));
+    }
+
+    @Test
+    void testReliableMessagesAreDelayedButKeepTheirOrder() throws InterruptedException {
+        transport = new ImpairedTransport(recorder, ImpairmentProfile.parse("latency=30,jitter=20,loss=0.3,seed=1"));
+        long start = System.nanoTime();
+        for (int i = 0; i < 50; i++) {
+            assertTrue(transport.sendReliable("M" + i));
+        }
+        assertTrue(reliable.isEmpty(), "Nothing arrives before the latency");
+
+        awaitSize(reliable, 50);
+        assertTrue(System.nanoTime() - start >= 30_000_000L);
+        for (int i = 0; i < 50; i++) {
+            assertEquals("M" + i, reliable.get(i), "Loss stalls TCP but never reorders it");
+        }
+        assertTrue(transport.getStatistics().contains("dropped=0"));
+    }
+
+    @Test
+    void testDatagramsAreLostAndDuplicated() throws InterruptedException {
+        transport = new ImpairedTransport(recorder, ImpairmentProfile.parse("loss=1"));
+        for (int i = 0; i < 20; i++) {
+            assertTrue(transport.sendUnreliable("U" + i), "A lost datagram still counts as sent");
+        }
+
+        ImpairedTransport duplicating = new ImpairedTransport(recorder, ImpairmentProfile.parse("duplicate=1"));
+        try {
+            duplicating.sendHover(2, 3);
+            awaitSize(unreliable, 2);
+        } finally {
+            duplicating.close();
+        }
+        assertEquals(List.of(MessageProtocol.createHoverMessage(2, 3), MessageProtocol.createHoverMessage(2, 3)),
+                     unreliable);
+        assertTrue(transport.getStatistics().contains("dropped=20"));
+    }
+
+    private static void awaitSize(List<String> messages, int size) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (messages.size() < size && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(size, messages.size());
+    }
+}
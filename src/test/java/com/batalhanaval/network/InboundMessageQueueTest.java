@@ -0,0 +1,121 @@
+package com.batalhanaval.network;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the InboundMessageQueue class.
+ */
+class InboundMessageQueueTest {
+    private Queue<Runnable> consumerTasks;
+    private List<String> handled;
+    private InboundMessageQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        consumerTasks = new ConcurrentLinkedQueue<>(); // Producers of one test run on other threads
+        handled = new ArrayList<>();
+        queue = new InboundMessageQueue(consumerTasks::add,
+                (row, col) -> handled.add("hover " + row + "," + col),
+                message -> handled.add("datagram " + message));
+    }
+
+    private void runConsumer() {
+        Runnable task;
+        while ((task = consumerTasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    @Test
+    void testOrderedEventsKeepOrder() {
+        for (int i = 0; i < 5; i++) {
+            int move = i;
+            assertTrue(queue.putOrdered(() -> handled.add("move " + move)));
+        }
+
+        assertEquals(1, consumerTasks.size(), "One drain is scheduled for a burst");
+        runConsumer();
+
+        assertEquals(List.of("move 0", "move 1", "move 2", "move 3", "move 4"), handled);
+        assertEquals(0, queue.getOrderedDepth());
+        assertEquals(5, queue.getMaxOrderedDepth());
+    }
+
+    @Test
+    void testHoversAreCoalesced() {
+        queue.offerHover(1, 1);
+        queue.offerHover(2, 2);
+        queue.offerHover(-1, -1);
+        runConsumer();
+
+        assertEquals(List.of("hover -1,-1"), handled);
+        assertEquals(2, queue.getHoversCoalesced());
+    }
+
+    @Test
+    void testDatagramsDroppedWhenFull() {
+        for (int i = 0; i < InboundMessageQueue.DATAGRAM_CAPACITY + 3; i++) {
+            queue.offerDatagram("PING");
+        }
+        runConsumer();
+
+        assertEquals(3, queue.getDatagramsDropped());
+        assertEquals(InboundMessageQueue.DATAGRAM_CAPACITY, handled.size());
+    }
+
+    @Test
+    void testConsumerQueuesOverAFullLane() throws InterruptedException {
+        for (int i = 0; i < InboundMessageQueue.ORDERED_CAPACITY; i++) {
+            queue.putOrdered(() -> handled.add("move"));
+        }
+
+        // The consumer resolves a move locally while the lane is full; blocking would deadlock
+        Thread consumer = new Thread(() -> queue.putOrderedFromConsumer(() -> handled.add("local")));
+        consumer.start();
+        consumer.join(1000);
+        assertFalse(consumer.isAlive(), "The consumer blocked on its own lane");
+        assertEquals(InboundMessageQueue.ORDERED_CAPACITY + 1, queue.getOrderedDepth());
+
+        runConsumer();
+        assertEquals(InboundMessageQueue.ORDERED_CAPACITY + 1, handled.size());
+        assertEquals("local", handled.get(handled.size() - 1), "Still after the events queued before it");
+        assertTrue(queue.getStatistics().contains("1 over capacity"));
+
+        // The overflow gave no space away: the lane holds its capacity again
+        for (int i = 0; i < InboundMessageQueue.ORDERED_CAPACITY; i++) {
+            queue.putOrdered(() -> { });
+        }
+        Thread producer = new Thread(() -> queue.putOrdered(() -> { }));
+        producer.start();
+        producer.join(100);
+        assertTrue(producer.isAlive(), "A network producer still waits on a full lane");
+        runConsumer();
+        producer.join(1000);
+        assertFalse(producer.isAlive());
+        runConsumer();
+        assertEquals(0, queue.getOrderedDepth());
+    }
+
+    @Test
+    void testLargeBurstIsDrainedInBatches() {
+        int events = InboundMessageQueue.MAX_BATCH * 2 + 1;
+        for (int i = 0; i < events; i++) {
+            queue.putOrdered(() -> handled.add("move"));
+        }
+
+        consumerTasks.poll().run();
+        assertEquals(InboundMessageQueue.MAX_BATCH, handled.size());
+        assertEquals(1, consumerTasks.size(), "Leftovers are rescheduled");
+
+        runConsumer();
+        assertEquals(events, handled.size());
+    }
+}
@@ -0,0 +1,74 @@
+package com.batalhanaval.network;
+
+import java.net.InetAddress;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the host cache of the LanDiscoveryService class.
+ */
+class LanDiscoveryServiceTest {
+    private LanDiscoveryService service;
+    private InetAddress host;
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        service = new LanDiscoveryService();
+        host = InetAddress.getByName("192.168.0.10");
+    }
+    
+    @Test
+    void testAnnouncementAddsHost() {
+        assertTrue(service.onMessage(host, "ANNOUNCE:Luis:6969:6972", 0));
+        assertFalse(service.onMessage(host, "ANNOUNCE:Luis:6969:6972", 500), "Repeated announcement is not a change");
+        
+        List<LanDiscoveryService.DiscoveredHost> hosts = service.getHosts(1000);
+        assertEquals(1, hosts.size());
+        assertEquals("Luis", hosts.get(0).getName());
+        assertEquals(6969, hosts.get(0).getTcpPort());
+        assertEquals(6972, hosts.get(0).getUdpPort());
+    }
+    
+    @Test
+    void testHostExpires() {
+        service.onMessage(host, "ANNOUNCE:Luis:6969:6972", 0);
+        service.onMessage(host, "ANNOUNCE:Luis:6969:6972", 2000);
+        
+        assertFalse(service.removeExpired(2000 + LanDiscoveryService.HOST_EXPIRY_MS));
+        assertTrue(service.getHosts(2001 + LanDiscoveryService.HOST_EXPIRY_MS).isEmpty());
+        assertTrue(service.removeExpired(2001 + LanDiscoveryService.HOST_EXPIRY_MS));
+    }
+    
+    @Test
+    void testWithdrawRemovesHost() {
+        service.onMessage(host, "ANNOUNCE:Luis:6969:6972", 0);
+        
+        assertTrue(service.onMessage(host, "WITHDRAW:6969", 100));
+        assertTrue(service.getHosts(100).isEmpty());
+    }
+    
+    @Test
+    void testLocalHostHeardOnLoopbackListedOnce() throws Exception {
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        
+        assertTrue(service.onMessage(loopback, "ANNOUNCE:Luis:6969:6972", 0));
+        assertTrue(service.onMessage(host, "ANNOUNCE:Luis:6969:6972", 10), "Network address replaces loopback");
+        assertFalse(service.onMessage(loopback, "ANNOUNCE:Luis:6969:6972", 20));
+        
+        List<LanDiscoveryService.DiscoveredHost> hosts = service.getHosts(20);
+        assertEquals(1, hosts.size());
+        assertEquals(host, hosts.get(0).getAddress());
+    }
+    
+    @Test
+    void testMalformedMessagesIgnored() {
+        assertFalse(service.onMessage(host, "ANNOUNCE:Luis:abc:6972", 0));
+        assertFalse(service.onMessage(host, "ANNOUNCE:Luis", 0));
+        assertFalse(service.onMessage(host, "DISCOVER", 0));
+        assertTrue(service.getHosts(0).isEmpty());
+    }
+}
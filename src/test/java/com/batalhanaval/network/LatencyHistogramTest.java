@@ -0,0 +1,85 @@
+package com.batalhanaval.network;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the LatencyHistogram class.
+ */
+class LatencyHistogramTest {
+    private LatencyHistogram histogram;
+
+    @BeforeEach
+    void setUp() {
+        histogram = new LatencyHistogram();
+    }
+
+    /**
+     * @return value reported for the bucket of a sample, with a larger sample so max does not clamp it
+     */
+    private static long bucketOf(long value) {
+        LatencyHistogram single = new LatencyHistogram();
+        single.record(value);
+        single.record(Long.MAX_VALUE);
+        return single.getValueAtPercentile(50);
+    }
+
+    @Test
+    void testBucketBoundaries() {
+        // Below 32 every value has a bucket of its own
+        assertEquals(0, bucketOf(0));
+        assertEquals(15, bucketOf(15));
+        assertEquals(16, bucketOf(16));
+        assertEquals(31, bucketOf(31));
+
+        // Then each power of two is split into 16 buckets
+        assertEquals(33, bucketOf(32));
+        assertEquals(33, bucketOf(33));
+        assertEquals(35, bucketOf(34));
+        assertEquals(63, bucketOf(62));
+        assertEquals(67, bucketOf(64));
+
+        long large = 1_000_000;
+        long reported = bucketOf(large);
+        assertEquals(1_015_807, reported);
+        assertTrue(reported - large < large / 16, "Within the precision of a sub-bucket");
+        assertEquals(Long.MAX_VALUE, bucketOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    void testPercentilesAreClampedToMax() {
+        histogram.record(32);
+        assertEquals(32, histogram.getValueAtPercentile(50), "Not the bucket's upper end above max");
+
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        assertEquals(1, histogram.getValueAtPercentile(0), "Lowest bucket");
+        assertEquals(100, histogram.getValueAtPercentile(100));
+        assertEquals(100, histogram.getValueAtPercentile(250), "Above 100 means 100");
+        long median = histogram.getValueAtPercentile(50);
+        assertTrue(median >= 49 && median <= 51, "Median " + median);
+        assertEquals(100, histogram.getMax());
+        assertEquals(101, histogram.getCount());
+    }
+
+    @Test
+    void testSummaryAndReset() {
+        assertEquals(0, histogram.getValueAtPercentile(99), "Empty");
+        assertEquals(0, histogram.getMin());
+        assertEquals(0.0, histogram.getMean());
+
+        histogram.record(-5); // A clock step backwards
+        histogram.record(10);
+        assertEquals(0, histogram.getMin());
+        assertEquals(10, histogram.getMax());
+        assertEquals(5.0, histogram.getMean());
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(50));
+    }
+}
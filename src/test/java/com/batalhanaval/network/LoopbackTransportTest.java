@@ -0,0 +1,350 @@
+package com.batalhanaval.network;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.batalhanaval.Constants;
+import com.batalhanaval.core.GameState;
+import com.batalhanaval.core.Position;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Drives two NetworkGameManagers end-to-end over a LoopbackTransport pair.
+ */
+class LoopbackTransportTest {
+    private LoopbackTransport[] pair;
+    private NetworkManager hostNetwork;
+    private NetworkManager guestNetwork;
+    private NetworkGameManager host;
+    private NetworkGameManager guest;
+    private List<String> hostEvents;
+    private List<String> guestEvents;
+
+    /**
+     * Records every callback as a short string.
+     */
+    private static class RecordingListener implements
+        NetworkMessageHandler.GameMessageListener,
+        NetworkMessageHandler.HoverMessageListener {
+
+        private final List<String> events;
+
+        RecordingListener(List<String> events) {
+            this.events = events;
+        }
+
+        @Override public void onReadyToStart() { events.add("ready"); }
+        @Override public void onGameStart(boolean isFirstPlayer) { events.add("start " + isFirstPlayer); }
+        @Override public void onAttackReceived(int row, int col) { events.add("attacked " + row + "," + col); }
+        @Override public void onAttackResult(String result, int row, int col) { events.add(result + " " + row + "," + col); }
+        @Override public void onTurnEnd() { events.add("turn end"); }
+        @Override public void onGameOver(boolean isWinner) { events.add("game over " + isWinner); }
+        @Override public void onOpponentDisconnect() { events.add("disconnect"); }
+        @Override public void onOpponentSurrender() { events.add("surrender"); }
+        @Override public void onOpponentAttackResolved(String result, int row, int col) { events.add("resolved " + result + " " + row + "," + col); }
+        @Override public void onHoverReceived(Position position) { events.add("hover " + position); }
+        @Override public void onTurnTimeout(boolean localPlayer, boolean forfeited) { events.add("timeout " + localPlayer + " " + forfeited); }
+        @Override public void onPingReceived() { events.add("ping"); }
+    }
+
+    @BeforeEach
+    void setUp() {
+        pair = LoopbackTransport.createPair();
+        hostNetwork = new NetworkManager();
+        guestNetwork = new NetworkManager();
+        hostNetwork.connectLoopback(pair[0], true);
+        guestNetwork.connectLoopback(pair[1], false);
+
+        // Received messages are handled on the pumping thread
+        host = new NetworkGameManager(hostNetwork, message -> { }, Runnable::run);
+        guest = new NetworkGameManager(guestNetwork, message -> { }, Runnable::run);
+        hostNetwork.setGameManager(host);
+        guestNetwork.setGameManager(guest);
+
+        hostEvents = new ArrayList<>();
+        guestEvents = new ArrayList<>();
+        RecordingListener hostListener = new RecordingListener(hostEvents);
+        RecordingListener guestListener = new RecordingListener(guestEvents);
+        host.getDispatcher().addGameListener(hostListener);
+        host.getDispatcher().addHoverListener(hostListener);
+        guest.getDispatcher().addGameListener(guestListener);
+        guest.getDispatcher().addHoverListener(guestListener);
+    }
+
+    @AfterEach
+    void tearDown() {
+        hostNetwork.stopNetwork();
+        guestNetwork.stopNetwork();
+    }
+
+    @Test
+    void testNothingArrivesUntilPumped() {
+        assertTrue(guest.sendAttack(1, 2));
+
+        assertTrue(hostEvents.isEmpty());
+        assertEquals(1, pair[0].getPendingCount());
+
+        assertEquals(1, pair[0].pump());
+        assertEquals(List.of("attacked 1,2"), hostEvents);
+    }
+
+    @Test
+    void testFullExchange() {
+        host.setPlayerReady();
+        guest.setPlayerReady();
+        LoopbackTransport.pumpUntilIdle(pair);
+
+        assertTrue(host.areBothPlayersReady());
+        assertTrue(hostEvents.contains("start true"), "Host moves first");
+        assertTrue(guestEvents.contains("start false"));
+
+        host.sendAttack(3, 4);
+        LoopbackTransport.pumpUntilIdle(pair);
+        guest.sendAttackResult(MessageProtocol.HIT, 3, 4);
+        LoopbackTransport.pumpUntilIdle(pair);
+
+        assertTrue(guestEvents.contains("attacked 3,4"));
+        assertTrue(hostEvents.contains("HIT 3,4"));
+
+        host.sendGameOver(false);
+        LoopbackTransport.pumpUntilIdle(pair);
+        assertEquals("game over false", guestEvents.get(guestEvents.size() - 1));
+    }
+
+    @Test
+    void testAuthoritativeMatchResolvesOnTheHost() {
+        GameState setup = new GameState(Constants.BOARD_SIZE);
+        setup.createDefaultShips();
+
+        host.setAuthoritative(true);
+        guest.setPlayerReady(setup.getPlayerBoard());
+        host.setPlayerReady(setup.getPlayerBoard());
+        LoopbackTransport.pumpUntilIdle(pair);
+
+        assertTrue(hostEvents.contains("start true"));
+        assertTrue(guestEvents.contains("start false"));
+        assertTrue(guest.isAuthoritative(), "Guest learned the mode from the host");
+
+        // The host's shot is resolved locally and pushed to the guest
+        assertTrue(host.sendAttack(0, 0));
+        LoopbackTransport.pumpUntilIdle(pair);
+        assertTrue(hostEvents.contains("HIT 0,0"));
+        assertTrue(guestEvents.contains("resolved HIT 0,0"));
+        assertFalse(host.sendAttack(0, 1), "Not the host's turn");
+
+        // The guest's shot needs no ATTACK_RESULT from the guest side
+        guest.sendAttack(9, 0);
+        LoopbackTransport.pumpUntilIdle(pair);
+        assertTrue(hostEvents.contains("resolved MISS 9,0"));
+        assertTrue(guestEvents.contains("MISS 9,0"));
+    }
+
+    @Test
+    void testAuthoritativeHostIgnoresForgedResults() {
+        GameState setup = new GameState(Constants.BOARD_SIZE);
+        setup.createDefaultShips();
+
+        host.setAuthoritative(true);
+
+        // A cheating guest starts the match before sending its fleet
+        guestNetwork.sendTcpMessage(MessageProtocol.createGameStartMessage(false));
+        LoopbackTransport.pumpUntilIdle(pair);
+        assertTrue(hostEvents.isEmpty(), "Forged start reached the host: " + hostEvents);
+
+        guest.setPlayerReady(setup.getPlayerBoard());
+        host.setPlayerReady(setup.getPlayerBoard());
+        LoopbackTransport.pumpUntilIdle(pair);
+        assertTrue(hostEvents.contains("start true"), "The host starts once it holds both fleets");
+        hostEvents.clear();
+
+        // A cheating guest claims a hit on the host's fleet, a hit of its own and the win
+        guestNetwork.sendTcpMessage(MessageProtocol.createAttackResolvedMessage(MessageProtocol.SPECTATOR_HOST,
+                MessageProtocol.HIT, 0, 0, null));
+        guestNetwork.sendTcpMessage(MessageProtocol.createAttackResolvedMessage(MessageProtocol.SPECTATOR_GUEST,
+                MessageProtocol.SUNK, 5, 5, "Carrier"));
+        guest.sendAttackResult(MessageProtocol.HIT, 1, 1);
+        guestNetwork.sendTcpMessage(MessageProtocol.GAME_OVER + MessageProtocol.SEPARATOR + MessageProtocol.WINNER);
+        LoopbackTransport.pumpUntilIdle(pair);
+
+        assertTrue(hostEvents.isEmpty(), "Forged messages reached the host: " + hostEvents);
+        assertTrue(host.sendAttack(0, 0), "Still the host's turn");
+        LoopbackTransport.pumpUntilIdle(pair);
+        assertTrue(hostEvents.contains("HIT 0,0"));
+    }
+
+    @Test
+    void testHoversAreCoalesced() {
+        guest.sendHover(new Position(0, 0));
+        guest.sendHover(new Position(5, 6));
+        guest.sendHover(null);
+        guest.sendHover(new Position(7, 8));
+
+        assertEquals(1, pair[0].pump());
+        assertEquals(List.of("hover " + new Position(7, 8)), hostEvents);
+    }
+
+    @Test
+    void testHoversAreRelayedOverTcpWithoutUdp() throws InterruptedException {
+        LoopbackTransport[] tcpOnly = LoopbackTransport.createPair();
+        NetworkManager hostTcp = new NetworkManager();
+        NetworkManager guestTcp = new NetworkManager();
+        guestTcp.setImpairment(ImpairmentProfile.parse("udp=off"));
+        hostTcp.connectLoopback(tcpOnly[0], true);
+        guestTcp.connectLoopback(tcpOnly[1], false);
+        NetworkGameManager hostGame = new NetworkGameManager(hostTcp, message -> { }, Runnable::run);
+        NetworkGameManager guestGame = new NetworkGameManager(guestTcp, message -> { }, Runnable::run);
+        hostTcp.setGameManager(hostGame);
+        guestTcp.setGameManager(guestGame);
+        List<String> events = new ArrayList<>();
+        RecordingListener listener = new RecordingListener(events);
+        hostGame.getDispatcher().addGameListener(listener);
+        hostGame.getDispatcher().addHoverListener(listener);
+
+        try {
+            // The first hover goes out at once, the next ones wait for the relay interval
+            guestGame.sendHover(new Position(0, 0));
+            guestGame.sendHover(new Position(5, 6));
+            guestGame.sendHover(new Position(7, 8));
+            assertTrue(guestGame.sendAttack(1, 2));
+            awaitPending(tcpOnly[0], 2);
+
+            // The attack queued behind the relayed hover still arrives first
+            assertEquals(2, tcpOnly[0].pump());
+            assertEquals(List.of("attacked 1,2", "hover " + new Position(0, 0)), events);
+
+            // Only the latest of the coalesced hovers is relayed
+            awaitPending(tcpOnly[0], 1);
+            tcpOnly[0].pump();
+            assertEquals("hover " + new Position(7, 8), events.get(events.size() - 1));
+            assertFalse(events.contains("hover " + new Position(5, 6)));
+
+            // A channel relays through the same connection, in a slot of its own
+            List<String> channelEvents = new ArrayList<>();
+            hostTcp.setChannelAcceptor(channel -> {
+                NetworkGameManager channelGame = new NetworkGameManager(channel, message -> { }, Runnable::run);
+                channel.setGameManager(channelGame);
+                channelGame.getDispatcher().addHoverListener(new RecordingListener(channelEvents));
+            });
+            NetworkManager guestChannel = guestTcp.openChannel(3);
+            NetworkGameManager guestChannelGame = new NetworkGameManager(guestChannel, message -> { }, Runnable::run);
+            guestChannel.setGameManager(guestChannelGame);
+            guestChannelGame.sendHover(new Position(2, 2));
+            awaitPending(tcpOnly[0], 1);
+            tcpOnly[0].pump();
+            assertEquals(List.of("hover " + new Position(2, 2)), channelEvents);
+        } finally {
+            hostTcp.stopNetwork();
+            guestTcp.stopNetwork();
+        }
+    }
+
+    /**
+     * Waits for messages that an impaired sender hands on from its own thread.
+     */
+    private static void awaitPending(LoopbackTransport endpoint, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (endpoint.getPendingCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(count, endpoint.getPendingCount());
+    }
+
+    @Test
+    void testChannelsCarrySeparateMatches() {
+        List<String> hostChannelEvents = new ArrayList<>();
+        List<String> guestChannelEvents = new ArrayList<>();
+        NetworkGameManager[] guestChannel = new NetworkGameManager[1];
+
+        // The guest opens channel 3 when the host first uses it
+        guestNetwork.setChannelAcceptor(channel -> {
+            guestChannel[0] = new NetworkGameManager(channel, message -> { }, Runnable::run);
+            channel.setGameManager(guestChannel[0]);
+            guestChannel[0].getDispatcher().addGameListener(new RecordingListener(guestChannelEvents));
+        });
+        NetworkManager hostChannelNetwork = hostNetwork.openChannel(3);
+        NetworkGameManager hostChannel = new NetworkGameManager(hostChannelNetwork, message -> { }, Runnable::run);
+        hostChannelNetwork.setGameManager(hostChannel);
+        hostChannel.getDispatcher().addGameListener(new RecordingListener(hostChannelEvents));
+
+        assertTrue(hostChannel.sendAttack(2, 2));
+        guest.sendAttack(1, 1);
+        LoopbackTransport.pumpUntilIdle(pair);
+
+        assertEquals(1, guestNetwork.getChannelCount());
+        assertEquals(3, guestChannel[0].getNetworkManager().getChannelId());
+        assertEquals(List.of("attacked 2,2"), guestChannelEvents);
+        assertEquals(List.of("attacked 1,1"), hostEvents, "Default channel is unaffected");
+        assertTrue(guestEvents.isEmpty());
+
+        guestChannel[0].sendAttackResult(MessageProtocol.MISS, 2, 2);
+        LoopbackTransport.pumpUntilIdle(pair);
+        assertEquals(List.of("MISS 2,2"), hostChannelEvents);
+
+        // Closing a channel leaves the connection open
+        hostChannelNetwork.stopNetwork();
+        assertEquals(0, hostNetwork.getChannelCount());
+        assertTrue(host.sendAttack(0, 0));
+    }
+
+    @Test
+    void testExpiredTurns() {
+        TimerWheel wheel = new TimerWheel(100, 8); // Advanced by hand
+        host.setTimerWheel(wheel);
+        host.setTurnTimeLimit(100);
+        host.setPlayerReady();
+        guest.setPlayerReady();
+        LoopbackTransport.pumpUntilIdle(pair);
+
+        // The host lets its first turn expire and a random shot goes out
+        assertEquals(0, wheel.advance(), "Never before the limit");
+        assertEquals(1, wheel.advance());
+        assertTrue(hostEvents.contains("timeout true false"));
+        LoopbackTransport.pumpUntilIdle(pair);
+        assertTrue(guestEvents.stream().anyMatch(event -> event.startsWith("attacked")));
+
+        // The guest never answers, so it loses once its turn and the slack are over
+        int ticks = 0;
+        while (wheel.getPendingCount() > 0) {
+            wheel.advance();
+            ticks++;
+        }
+        assertTrue(ticks > 50, "Opponent gets the limit plus slack");
+        assertTrue(hostEvents.contains("timeout false true"));
+        LoopbackTransport.pumpUntilIdle(pair);
+        assertEquals("game over false", guestEvents.get(guestEvents.size() - 1));
+    }
+
+    @Test
+    void testRankedGuestLeavesOpponentTimeoutsToTheHost() {
+        GameState setup = new GameState(Constants.BOARD_SIZE);
+        setup.createDefaultShips();
+        TimerWheel guestWheel = new TimerWheel(100, 8); // Advanced by hand
+        guest.setTimerWheel(guestWheel);
+        guest.setTurnTimeLimit(100);
+
+        host.setAuthoritative(true);
+        guest.setPlayerReady(setup.getPlayerBoard());
+        host.setPlayerReady(setup.getPlayerBoard());
+        LoopbackTransport.pumpUntilIdle(pair);
+        assertTrue(guestEvents.contains("start false"));
+        assertEquals(0, guestWheel.getPendingCount(), "The host's turn is timed by the host");
+
+        // The guest still times its own turn
+        host.sendAttack(0, 0);
+        LoopbackTransport.pumpUntilIdle(pair);
+        assertEquals(1, guestWheel.getPendingCount());
+    }
+
+    @Test
+    void testClosedEndpointRejectsSends() {
+        guestNetwork.stopNetwork();
+
+        assertFalse(host.sendAttack(0, 0));
+        assertFalse(guest.sendAttack(0, 0));
+    }
+}
@@ -0,0 +1,117 @@
+package com.batalhanaval.network;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.batalhanaval.Constants;
+import com.batalhanaval.core.GameState;
+import com.batalhanaval.core.Position;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the MatchStandby and MatchReplicator classes over loopback sockets.
+ */
+class MatchStandbyTest {
+    private MatchStandby standby;
+    private String fleet;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        standby = new MatchStandby(message -> { });
+        standby.start(0);
+
+        GameState setup = new GameState(Constants.BOARD_SIZE);
+        setup.createDefaultShips();
+        fleet = MessageProtocol.createFleetMessage(setup.getPlayerBoard().getShips());
+    }
+
+    @AfterEach
+    void tearDown() {
+        standby.stop();
+    }
+
+    @Test
+    void testReplicatedMatchIsAcknowledged() throws Exception {
+        MatchReplicator replicator = new MatchReplicator("localhost", standby.getPort(), message -> { });
+        replicator.start();
+        replicator.replicate("m1", MessageProtocol.SPECTATOR_HOST, fleet);
+        replicator.replicate("m1", MessageProtocol.SPECTATOR_GUEST, fleet);
+        replicator.replicate("m1", MessageProtocol.SPECTATOR_HOST,
+                MessageProtocol.createAttackResolvedMessage(MessageProtocol.SPECTATOR_HOST, MessageProtocol.HIT, 0, 0, null));
+
+        long deadline = System.currentTimeMillis() + 2000;
+        while (replicator.getPendingCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(0, replicator.getPendingCount());
+
+        AuthoritativeMatch copy = standby.getMatch("m1");
+        assertNotNull(copy);
+        assertTrue(copy.hasGuestFleet());
+        assertNull(copy.resolveHostAttack(new Position(0, 0)), "The host's shot was applied");
+
+        // A deliberate shutdown drops the matches instead of taking them over
+        replicator.close();
+        deadline = System.currentTimeMillis() + 2000;
+        while (standby.getMatchCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(0, standby.getMatchCount());
+        assertTrue(standby.getStatistics().contains("takeovers=0"));
+    }
+
+    @Test
+    void testRejectedEventDropsTheMatch() throws Exception {
+        MatchReplicator replicator = new MatchReplicator("localhost", standby.getPort(), message -> { });
+        replicator.start();
+        replicator.replicate("m3", MessageProtocol.SPECTATOR_HOST, fleet);
+        replicator.replicate("m3", MessageProtocol.SPECTATOR_GUEST, fleet);
+        // The host moves first, so a shot of the guest means the copy diverged
+        replicator.replicate("m3", MessageProtocol.SPECTATOR_GUEST,
+                MessageProtocol.createAttackResolvedMessage(MessageProtocol.SPECTATOR_GUEST, MessageProtocol.MISS, 9, 9, null));
+        replicator.replicate("m3", MessageProtocol.SPECTATOR_HOST,
+                MessageProtocol.createAttackResolvedMessage(MessageProtocol.SPECTATOR_HOST, MessageProtocol.HIT, 0, 0, null));
+
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!replicator.getStatistics().contains("unprotected=1") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(replicator.getStatistics().contains("unprotected=1"), replicator.getStatistics());
+        assertTrue(replicator.getPendingCount() > 0, "Events after the rejection are not acknowledged");
+        assertNull(standby.getMatch("m3"));
+        assertTrue(standby.getStatistics().contains("lost=1"));
+        replicator.close();
+    }
+
+    @Test
+    void testDeadPrimaryIsTakenOver() throws Exception {
+        CountDownLatch takenOver = new CountDownLatch(1);
+        String session = MessageProtocol.createSessionRecord("token", MessageProtocol.PROTOCOL_VERSION,
+                                                             ProtocolCapability.SUPPORTED, true);
+        standby.setTakeoverListener((matchId, match, sessionRecord) -> {
+            if (matchId.equals("m2") && match.hasGuestFleet() && session.equals(sessionRecord)) {
+                takenOver.countDown();
+            }
+        });
+
+        // A primary that dies without saying goodbye
+        try (Socket primary = new Socket("localhost", standby.getPort())) {
+            OutputStream out = primary.getOutputStream();
+            FrameCodec.writeFrame(out, MessageProtocol.createReplicateMessage("m2", 1, MessageProtocol.SPECTATOR_HOST, fleet));
+            FrameCodec.writeFrame(out, MessageProtocol.createReplicateMessage("m2", 2, MessageProtocol.SPECTATOR_HOST, session));
+            FrameCodec.writeFrame(out, MessageProtocol.createReplicateMessage("m2", 3, MessageProtocol.SPECTATOR_GUEST, fleet));
+            out.flush();
+        }
+
+        assertTrue(takenOver.await(1, TimeUnit.SECONDS));
+        assertNull(standby.getMatch("m2"), "Handed over to the listener");
+    }
+}
@@ -0,0 +1,88 @@
+package com.batalhanaval.network;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the NetworkLog class.
+ */
+class NetworkLogTest {
+    private NetworkLog.Level previousLevel;
+    private List<String> delivered;
+    private NetworkLog log;
+
+    @BeforeEach
+    void setUp() {
+        previousLevel = NetworkLog.getLevel();
+        delivered = new CopyOnWriteArrayList<>();
+        log = new NetworkLog(delivered::add);
+    }
+
+    @AfterEach
+    void tearDown() {
+        NetworkLog.setLevel(previousLevel);
+    }
+
+    @Test
+    void testEntriesBelowLevelAreNotFormatted() {
+        NetworkLog.setLevel(NetworkLog.Level.INFO);
+        Object failing = new Object() {
+            @Override
+            public String toString() {
+                throw new AssertionError("Formatted a disabled entry");
+            }
+        };
+
+        log.debug("TCP received: %s", failing);
+        log.info("Connected");
+        assertTrue(NetworkLog.flush(1000));
+
+        assertEquals(List.of("Connected"), delivered);
+    }
+
+    @Test
+    void testEntriesAreDeliveredInOrder() {
+        NetworkLog.setLevel(NetworkLog.Level.DEBUG);
+        for (int i = 0; i < 100; i++) {
+            log.debug("message %d", i);
+        }
+        assertTrue(NetworkLog.flush(1000));
+
+        assertEquals(100, delivered.size());
+        assertEquals("message 0", delivered.get(0));
+        assertEquals("message 99", delivered.get(99));
+    }
+
+    @Test
+    void testInterruptedLogThreadIsReplaced() throws InterruptedException {
+        log.warn("first");
+        assertTrue(NetworkLog.flush(1000));
+
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals("network-log")) {
+                thread.interrupt();
+                thread.join(1000);
+                assertFalse(thread.isAlive());
+            }
+        }
+
+        log.warn("second");
+        assertTrue(NetworkLog.flush(1000));
+        assertEquals(List.of("first", "second"), delivered);
+    }
+
+    @Test
+    void testLevelOrdering() {
+        NetworkLog.setLevel(NetworkLog.Level.WARN);
+
+        assertFalse(NetworkLog.isEnabled(NetworkLog.Level.INFO));
+        assertTrue(NetworkLog.isEnabled(NetworkLog.Level.WARN));
+        assertTrue(NetworkLog.isEnabled(NetworkLog.Level.ERROR));
+    }
+}
@@ -0,0 +1,57 @@
+package com.batalhanaval.network;
+
+import java.util.EnumSet;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the ProtocolCapability enum and the negotiation in ConnectionHandshake.
+ */
+class ProtocolCapabilityTest {
+    private ConnectionHandshake handshake;
+
+    @BeforeEach
+    void setUp() {
+        handshake = new ConnectionHandshake();
+    }
+
+    @Test
+    void testEncodeAndParse() {
+        EnumSet<ProtocolCapability> capabilities = EnumSet.of(ProtocolCapability.SALVO, ProtocolCapability.SEQUENCE_NUMBERS);
+
+        assertEquals("SALVO,SEQUENCE_NUMBERS", ProtocolCapability.encode(capabilities));
+        assertEquals(capabilities, ProtocolCapability.parse("SALVO,SEQUENCE_NUMBERS"));
+        assertEquals(MessageProtocol.NULL_VALUE, ProtocolCapability.encode(EnumSet.noneOf(ProtocolCapability.class)));
+        assertTrue(ProtocolCapability.parse(MessageProtocol.NULL_VALUE).isEmpty());
+    }
+
+    @Test
+    void testUnknownCapabilitiesAreIgnored() {
+        assertEquals(EnumSet.of(ProtocolCapability.COMPRESSION), ProtocolCapability.parse("TELEPORT,COMPRESSION"));
+    }
+
+    @Test
+    void testNegotiationPicksCommonSubset() {
+        handshake.negotiate(MessageProtocol.PROTOCOL_VERSION + 3,
+                EnumSet.of(ProtocolCapability.SEQUENCE_NUMBERS, ProtocolCapability.BINARY_CODEC),
+                EnumSet.of(ProtocolCapability.BINARY_CODEC, ProtocolCapability.SALVO));
+
+        assertEquals(MessageProtocol.PROTOCOL_VERSION, handshake.getProtocolVersion());
+        assertTrue(handshake.supports(ProtocolCapability.BINARY_CODEC));
+        assertFalse(handshake.supports(ProtocolCapability.SEQUENCE_NUMBERS));
+        assertFalse(handshake.supports(ProtocolCapability.SALVO));
+    }
+
+    @Test
+    void testHelloMessages() {
+        String hello = MessageProtocol.createHelloMessage(5000, EnumSet.of(ProtocolCapability.SEQUENCE_NUMBERS));
+        assertEquals("HELLO:5000:" + MessageProtocol.PROTOCOL_VERSION + ":SEQUENCE_NUMBERS", hello);
+
+        // Version 1 peers only understand the bare port
+        assertEquals("UDP_PORT:6972", MessageProtocol.createUdpPortMessage(6972,
+                MessageProtocol.LEGACY_PROTOCOL_VERSION, ProtocolCapability.LEGACY));
+    }
+}
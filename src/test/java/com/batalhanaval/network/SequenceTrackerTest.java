@@ -0,0 +1,120 @@
+package com.batalhanaval.network;
+
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the SequenceTracker class.
+ */
+class SequenceTrackerTest {
+    private SequenceTracker tracker;
+    
+    @BeforeEach
+    void setUp() {
+        tracker = new SequenceTracker();
+    }
+    
+    @Test
+    void testInOrderStream() {
+        for (long i = 0; i < 5; i++) {
+            assertTrue(tracker.accept(i));
+        }
+        
+        assertEquals(4, tracker.getLastApplied());
+        assertEquals(5, tracker.getApplied());
+        assertEquals(0, tracker.getStale());
+        assertEquals(0, tracker.getLost());
+    }
+    
+    @Test
+    void testReorderedDatagramIsDropped() {
+        assertTrue(tracker.accept(0));
+        assertTrue(tracker.accept(2));
+        assertEquals(1, tracker.getLost());
+        
+        // Sequence 1 arrives late and must not overwrite 2
+        assertFalse(tracker.accept(1));
+        assertEquals(2, tracker.getLastApplied());
+        assertEquals(1, tracker.getReordered());
+        assertEquals(0, tracker.getLost());
+    }
+    
+    @Test
+    void testDuplicateAndLoss() {
+        assertTrue(tracker.accept(0));
+        assertFalse(tracker.accept(0));
+        assertTrue(tracker.accept(5));
+        
+        assertEquals(1, tracker.getDuplicates());
+        assertEquals(4, tracker.getLost());
+        assertEquals(3, tracker.getReceived());
+    }
+    
+    @Test
+    void testOldDuplicateIsNotCountedAsReordered() {
+        assertTrue(tracker.accept(0));
+        assertTrue(tracker.accept(1));
+        assertTrue(tracker.accept(3));
+        
+        assertFalse(tracker.accept(1));
+        assertFalse(tracker.accept(2));
+        assertFalse(tracker.accept(2));
+        
+        assertEquals(2, tracker.getDuplicates());
+        assertEquals(1, tracker.getReordered());
+        assertEquals(0, tracker.getLost());
+    }
+    
+    @Test
+    void testReset() {
+        tracker.accept(10);
+        tracker.reset();
+        
+        assertEquals(-1, tracker.getLastApplied());
+        assertTrue(tracker.accept(0));
+    }
+    
+    @Test
+    void testSequencedDatagramRoundTrip() {
+        ByteBuffer buffer = ByteBuffer.allocate(DatagramCodec.MAX_DATAGRAM_SIZE);
+        DatagramCodec.writeSequence(buffer, 42);
+        DatagramCodec.writeHover(buffer, 7, 3);
+        buffer.flip();
+        
+        assertEquals(42, DatagramCodec.readSequence(buffer));
+        assertEquals("HOVER:7,3", DatagramCodec.decode(buffer));
+        
+        // An unsequenced datagram is left as it is
+        buffer.clear();
+        DatagramCodec.writeHover(buffer, 7, 3);
+        buffer.flip();
+        assertEquals(-1, DatagramCodec.readSequence(buffer));
+        assertEquals("HOVER:7,3", DatagramCodec.decode(buffer));
+    }
+    
+    @Test
+    void testSerialWrapAround() {
+        assertTrue(tracker.acceptSerial(65534));
+        assertTrue(tracker.acceptSerial(1)); // 65537, 65535 and 65536 skipped
+        assertFalse(tracker.acceptSerial(65535), "Late datagram from before the wrap");
+        
+        assertEquals(65537, tracker.getLastApplied());
+        assertEquals(1, tracker.getReordered());
+        assertEquals(1, tracker.getLost());
+    }
+    
+    @Test
+    void testFullSequenceAfterSerialSeed() {
+        // Binary hovers carry 16 bits of the shared counter, text datagrams all of it
+        assertTrue(tracker.acceptSerial(70000 & 0xFFFF));
+        assertTrue(tracker.accept(70001));
+        assertTrue(tracker.acceptSerial(70002 & 0xFFFF));
+        
+        assertEquals(0, tracker.getLost());
+        assertTrue(tracker.getStatistics().contains("(0.0%)"));
+    }
+}
@@ -0,0 +1,161 @@
+package com.batalhanaval.network;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.batalhanaval.Constants;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Resumes a dropped match over localhost sockets, with the test forwarding
+ * connections to the host the way a router would.
+ */
+class SessionResumeTest {
+    private static final long TIMEOUT_MS = 5000;
+
+    private ServerSocket router;
+    private NetworkManager host;
+    private NetworkManager guest;
+    private final List<String> hostStatus = new CopyOnWriteArrayList<>();
+    private final List<String> guestStatus = new CopyOnWriteArrayList<>();
+
+    /**
+     * Keeps the snapshot of the last RESYNC.
+     */
+    private static class ResyncListener implements NetworkMessageHandler.GameMessageListener {
+        final AtomicReference<SessionSnapshot> snapshot = new AtomicReference<>();
+        final CountDownLatch received = new CountDownLatch(1);
+
+        @Override public void onReadyToStart() { }
+        @Override public void onGameStart(boolean isFirstPlayer) { }
+        @Override public void onAttackReceived(int row, int col) { }
+        @Override public void onAttackResult(String result, int row, int col) { }
+        @Override public void onTurnEnd() { }
+        @Override public void onGameOver(boolean isWinner) { }
+        @Override public void onOpponentDisconnect() { }
+        @Override public void onOpponentSurrender() { }
+
+        @Override
+        public void onStateResync(SessionSnapshot resync) {
+            snapshot.set(resync);
+            received.countDown();
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        router = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        host = new NetworkManager();
+        guest = new NetworkManager();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        guest.stopNetwork();
+        host.stopNetwork();
+        router.close();
+    }
+
+    /**
+     * Connects the guest through the test's router socket.
+     * @return the host's end of the connection
+     */
+    private Socket connect() throws Exception {
+        guest.connectToServer("localhost", router.getLocalPort(), 0, guestStatus::add);
+        Socket forwarded = router.accept();
+        host.acceptConnection(forwarded, forwarded.getInetAddress(), 0, hostStatus::add);
+        assertTrue(host.awaitReady(TIMEOUT_MS));
+        assertTrue(guest.awaitReady(TIMEOUT_MS));
+
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (guest.getSessionRecord() == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertNotNull(guest.getSessionRecord(), "The guest got its session token");
+        return forwarded;
+    }
+
+    /**
+     * Hands the host a connection that sends one frame, and returns the host's answer.
+     */
+    private String strangerSays(String message) throws IOException {
+        try (ServerSocket side = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+             Socket stranger = new Socket(InetAddress.getLoopbackAddress(), side.getLocalPort());
+             Socket accepted = side.accept()) {
+            assertTrue(host.offerConnection(accepted, accepted.getInetAddress()));
+            OutputStream out = stranger.getOutputStream();
+            FrameCodec.writeFrame(out, message);
+            out.flush();
+            stranger.setSoTimeout((int) TIMEOUT_MS);
+            return FrameDecoder.readSingleMessage(stranger.getInputStream());
+        }
+    }
+
+    private static boolean awaitStatus(List<String> status, String expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (!status.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        return status.contains(expected);
+    }
+
+    @Test
+    void testDroppedConnectionIsResumedWithResync() throws Exception {
+        NetworkGameManager hostGame = new NetworkGameManager(host, message -> { }, Runnable::run);
+        NetworkGameManager guestGame = new NetworkGameManager(guest, message -> { }, Runnable::run);
+        host.setGameManager(hostGame);
+        guest.setGameManager(guestGame);
+        StringBuilder board = new StringBuilder(String.valueOf(Constants.HIT));
+        while (board.length() < Constants.BOARD_SIZE * Constants.BOARD_SIZE) {
+            board.append(Constants.EMPTY);
+        }
+        hostGame.setSnapshotProvider(() -> new SessionSnapshot(3, false, 0, board.toString(), board.toString()));
+        ResyncListener resync = new ResyncListener();
+        guestGame.getDispatcher().addGameListener(resync);
+
+        // The connection drops without a DISCONNECT
+        connect().close();
+
+        // Connections without the token are turned away, and told so
+        assertEquals(MessageProtocol.RESUME_REJECTED, strangerSays(MessageProtocol.RESUME + ":wrong:1234"));
+        assertEquals(MessageProtocol.RESUME_REJECTED, strangerSays(MessageProtocol.HELLO + ":1234:2"),
+                     "A two-part frame that is not a RESUME");
+
+        // The guest comes back with its token
+        Socket back = router.accept();
+        assertTrue(host.offerConnection(back, back.getInetAddress()));
+        assertTrue(awaitStatus(hostStatus, "Match resumed"), "Host: " + hostStatus);
+        assertTrue(awaitStatus(guestStatus, "Match resumed"), "Guest: " + guestStatus);
+
+        assertTrue(resync.received.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        SessionSnapshot snapshot = resync.snapshot.get();
+        assertEquals(3, snapshot.getMoveIndex());
+        assertFalse(snapshot.isSenderTurn(), "The guest is to move");
+        assertEquals(Constants.HIT, snapshot.getOwnCell(0, 0));
+        assertTrue(guest.isConnected());
+    }
+
+    @Test
+    void testGuestWithAnotherTokenIsRejected() throws Exception {
+        connect().close();
+
+        // Someone else reaches the router first and presents a guessed token
+        assertEquals(MessageProtocol.RESUME_REJECTED, strangerSays(MessageProtocol.RESUME + ":" +
+                     MatchSession.create().getToken() + ":1234"));
+        assertFalse(hostStatus.contains("Match resumed"));
+        assertTrue(hostStatus.stream().anyMatch(status -> status.startsWith("Rejected reconnection")));
+    }
+}
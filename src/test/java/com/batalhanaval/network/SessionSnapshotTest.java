@@ -0,0 +1,85 @@
+package com.batalhanaval.network;
+
+import org.junit.jupiter.api.Test;
+
+import com.batalhanaval.Constants;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the SessionSnapshot and MatchSession classes.
+ */
+class SessionSnapshotTest {
+
+    private static String board(char first) {
+        StringBuilder board = new StringBuilder();
+        board.append(first);
+        while (board.length() < Constants.BOARD_SIZE * Constants.BOARD_SIZE) {
+            board.append(Constants.EMPTY);
+        }
+        return board.toString();
+    }
+
+    @Test
+    void testEncodeDecodeRoundTrip() {
+        String own = board(Constants.HIT);
+        SessionSnapshot snapshot = new SessionSnapshot(7, true, 1, own, board(Constants.MISS));
+
+        SessionSnapshot decoded = SessionSnapshot.decode(snapshot.encode());
+        assertNotNull(decoded);
+        assertEquals(7, decoded.getMoveIndex());
+        assertTrue(decoded.isSenderTurn());
+        assertEquals(1, decoded.getOwnShipsSunk());
+        assertEquals(Constants.HIT, decoded.getOwnCell(0, 0));
+        assertEquals(Constants.EMPTY, decoded.getOwnCell(Constants.BOARD_SIZE - 1, Constants.BOARD_SIZE - 1));
+        assertEquals(snapshot.encode(), decoded.encode());
+
+        assertFalse(SessionSnapshot.decode(new SessionSnapshot(0, false, 0, own, own).encode()).isSenderTurn());
+    }
+
+    @Test
+    void testMalformedSnapshotsAreRejected() {
+        String valid = board(Constants.EMPTY);
+        String prefix = MessageProtocol.RESYNC + MessageProtocol.SEPARATOR;
+        assertNull(SessionSnapshot.decode(prefix + "1:Y:0:" + valid), "Missing board");
+        assertNull(SessionSnapshot.decode(prefix + "1:maybe:0:" + valid + ":" + valid), "Bad turn flag");
+        assertNull(SessionSnapshot.decode(prefix + "x:Y:0:" + valid + ":" + valid), "Bad move index");
+        assertNull(SessionSnapshot.decode(prefix + "1:Y:0:" + valid + ":" + valid.substring(1)), "Short board");
+        assertNull(SessionSnapshot.decode(prefix + "1:Y:0:" + board(Constants.SHIP) + ":" + valid), "Ship revealed");
+        assertNull(SessionSnapshot.decode("ATTACK:1,1"));
+        assertNull(SessionSnapshot.decode(null));
+    }
+
+    @Test
+    void testValidBoards() {
+        assertTrue(SessionSnapshot.isValidBoard(board(Constants.SUNK)));
+        assertFalse(SessionSnapshot.isValidBoard(board(Constants.SHIP)), "Unhit ships are private");
+        assertFalse(SessionSnapshot.isValidBoard(board(Constants.EMPTY) + Constants.EMPTY));
+        assertFalse(SessionSnapshot.isValidBoard(null));
+    }
+
+    @Test
+    void testSessionTokens() {
+        MatchSession session = MatchSession.create();
+        assertTrue(session.getToken().matches("[0-9a-f]{32}"));
+        assertNotEquals(session.getToken(), MatchSession.create().getToken());
+
+        assertTrue(session.matches(session.getToken()));
+        assertFalse(session.matches(session.getToken().substring(1)));
+        assertFalse(session.matches(""));
+        assertFalse(session.matches(null));
+    }
+
+    @Test
+    void testGraceWindow() {
+        MatchSession session = new MatchSession("token");
+        assertEquals(MatchSession.GRACE_PERIOD_MS, session.getRemainingGraceMs(), "Connected");
+
+        session.connectionLost();
+        long remaining = session.getRemainingGraceMs();
+        assertTrue(remaining > 0 && remaining <= MatchSession.GRACE_PERIOD_MS);
+
+        session.resumed();
+        assertEquals(MatchSession.GRACE_PERIOD_MS, session.getRemainingGraceMs());
+    }
+}
@@ -0,0 +1,134 @@
+package com.batalhanaval.network;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the SpectatorHub class over localhost socket channels.
+ */
+class SpectatorHubTest {
+    private SpectatorHub hub;
+    private final List<SocketChannel> channels = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        hub = new SpectatorHub(message -> { });
+        hub.start(0);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (SocketChannel channel : channels) {
+            channel.close();
+        }
+        hub.stop();
+    }
+
+    @Test
+    void testLateJoinerReplaysAtMostTheQueueBound() throws IOException {
+        int events = SpectatorHub.MAX_QUEUED_EVENTS + 44;
+        for (int i = 0; i < events; i++) {
+            hub.publish("HOST", "ATTACK:" + i);
+        }
+
+        BufferedReader reader = join(0);
+        for (int i = 44; i < events; i++) {
+            assertEquals("HOST:ATTACK:" + i, reader.readLine());
+        }
+        assertEquals("SKIPPED:44", reader.readLine());
+    }
+
+    @Test
+    void testLateJoinerCountsEventsNoLongerKept() throws IOException {
+        int events = SpectatorHub.MAX_HISTORY + 100;
+        for (int i = 0; i < events; i++) {
+            hub.publish("GUEST", "RESULT:" + i);
+        }
+
+        BufferedReader reader = join(0);
+        for (int i = events - SpectatorHub.MAX_QUEUED_EVENTS; i < events; i++) {
+            assertEquals("GUEST:RESULT:" + i, reader.readLine());
+        }
+        assertEquals("SKIPPED:" + (events - SpectatorHub.MAX_QUEUED_EVENTS), reader.readLine());
+    }
+
+    @Test
+    void testSlowSpectatorIsDroppedFromThenToldHowMany() throws Exception {
+        BufferedReader reader = join(4096);
+        awaitSpectators(1);
+
+        // Large events fill both socket buffers while the spectator is not reading
+        char[] padding = new char[8192];
+        Arrays.fill(padding, 'x');
+        int events = 2000;
+        for (int i = 0; i < events; i++) {
+            hub.publish("HOST", i + ":" + new String(padding));
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (dropped() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(dropped() > 0, hub.getStatistics());
+
+        // Every event is either delivered, in order, or counted in a summary
+        int received = 0;
+        int skipped = 0;
+        int last = -1;
+        while (received + skipped < events) {
+            String line = reader.readLine();
+            assertNotNull(line, "spectator disconnected after " + received + " events");
+            if (line.startsWith("SKIPPED:")) {
+                skipped += Integer.parseInt(line.substring("SKIPPED:".length()));
+                continue;
+            }
+            String[] parts = line.split(":", 3);
+            assertEquals("HOST", parts[0]);
+            int index = Integer.parseInt(parts[1]);
+            assertTrue(index > last, "events out of order");
+            last = index;
+            received++;
+        }
+        assertTrue(skipped > 0);
+        assertEquals(events, received + skipped);
+        assertEquals(skipped, dropped());
+    }
+
+    private long dropped() {
+        String statistics = hub.getStatistics();
+        return Long.parseLong(statistics.substring(statistics.lastIndexOf('=') + 1));
+    }
+
+    private BufferedReader join(int receiveBuffer) throws IOException {
+        SocketChannel channel = SocketChannel.open();
+        if (receiveBuffer > 0) {
+            channel.setOption(StandardSocketOptions.SO_RCVBUF, receiveBuffer);
+        }
+        channel.connect(new InetSocketAddress("localhost", hub.getPort()));
+        channel.socket().setSoTimeout(5000);
+        channels.add(channel);
+        return new BufferedReader(new InputStreamReader(
+                channel.socket().getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    private void awaitSpectators(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (hub.getSpectatorCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, hub.getSpectatorCount());
+    }
+}
@@ -0,0 +1,58 @@
+package com.batalhanaval.network;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the TcpWriteBatcher class.
+ */
+class TcpWriteBatcherTest {
+    private ByteArrayOutputStream out;
+    private TcpWriteBatcher batcher;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        out = new ByteArrayOutputStream();
+        batcher = new TcpWriteBatcher(out, message -> fail(message));
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testLatestMessageIsCoalescedAndWrittenLast() throws IOException {
+        batcher.enqueue("CHAT:hello");
+        assertTrue(batcher.enqueueLatest(MessageProtocol.DEFAULT_CHANNEL, MessageProtocol.createHoverMessage(1, 1)));
+        assertTrue(batcher.enqueueLatest(MessageProtocol.DEFAULT_CHANNEL, MessageProtocol.createHoverMessage(2, 2)));
+        String channelHover = MessageProtocol.createChannelMessage(3, MessageProtocol.createHoverMessage(5, 5));
+        assertTrue(batcher.enqueueLatest(3, channelHover));
+        batcher.enqueue(MessageProtocol.createAttackMessage(3, 3));
+
+        batcher.start(executor);
+        batcher.close();
+
+        FrameDecoder decoder = new FrameDecoder();
+        ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+        assertEquals("CHAT:hello", decoder.readMessage(in));
+        assertEquals(MessageProtocol.createAttackMessage(3, 3), decoder.readMessage(in), "The hover waits behind the attack");
+        Set<String> latest = Set.of(decoder.readMessage(in), decoder.readMessage(in));
+        assertEquals(Set.of(MessageProtocol.createHoverMessage(2, 2), channelHover), latest, "One slot per channel");
+        assertNull(decoder.readMessage(in));
+        assertTrue(batcher.getStatistics().contains("superseded=1"));
+        assertFalse(batcher.enqueueLatest(MessageProtocol.DEFAULT_CHANNEL, MessageProtocol.createHoverMessage(4, 4)), "Closed");
+    }
+}
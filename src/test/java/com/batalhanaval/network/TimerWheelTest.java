@@ -0,0 +1,80 @@
+package com.batalhanaval.network;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the TimerWheel class.
+ */
+class TimerWheelTest {
+    private TimerWheel wheel;
+    private List<String> fired;
+
+    @BeforeEach
+    void setUp() {
+        wheel = new TimerWheel(10, 8); // Not started, ticks are driven by the test
+        fired = new ArrayList<>();
+    }
+
+    @Test
+    void testFiresAfterDelay() {
+        wheel.schedule(() -> fired.add("a"), 30);
+        wheel.schedule(() -> fired.add("b"), 1);
+
+        // The first tick boundary may come at once, so it does not count
+        assertEquals(0, wheel.advance());
+        assertEquals(1, wheel.advance());
+        assertEquals(List.of("b"), fired);
+        assertEquals(0, wheel.advance());
+        assertEquals(1, wheel.advance());
+        assertEquals(List.of("b", "a"), fired);
+        assertEquals(0, wheel.getPendingCount());
+    }
+
+    @Test
+    void testCancel() {
+        TimerWheel.Timeout timeout = wheel.schedule(() -> fired.add("a"), 20);
+        wheel.schedule(() -> fired.add("b"), 20);
+
+        assertTrue(timeout.cancel());
+        assertFalse(timeout.cancel());
+        wheel.advance();
+        wheel.advance();
+        wheel.advance();
+
+        assertEquals(List.of("b"), fired);
+        assertFalse(timeout.isPending());
+    }
+
+    @Test
+    void testDelayOfExactlyOneTurn() {
+        wheel.schedule(() -> fired.add("turn"), 80); // 8 ticks on an 8-slot wheel
+
+        for (int i = 0; i < 8; i++) {
+            wheel.advance();
+        }
+        assertTrue(fired.isEmpty(), "Not early on the slot it was scheduled from");
+
+        wheel.advance();
+        assertEquals(List.of("turn"), fired);
+    }
+
+    @Test
+    void testDelayLongerThanOneTurn() {
+        wheel.schedule(() -> fired.add("late"), 200); // 20 ticks on an 8-slot wheel
+
+        for (int i = 0; i < 20; i++) {
+            wheel.advance();
+        }
+        assertTrue(fired.isEmpty());
+        assertEquals(1, wheel.getPendingCount());
+
+        wheel.advance();
+        assertEquals(List.of("late"), fired);
+    }
+}
@@ -0,0 +1,55 @@
+package com.batalhanaval.network;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the TokenBucket class.
+ */
+class TokenBucketTest {
+    private long now;
+    private TokenBucket bucket;
+
+    @BeforeEach
+    void setUp() {
+        now = 0;
+        bucket = new TokenBucket(10, 3, () -> now); // One token every 100 ms
+    }
+
+    @Test
+    void testBurstThenReject() {
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+
+        assertEquals(3, bucket.getAccepted());
+        assertEquals(1, bucket.getRejected());
+    }
+
+    @Test
+    void testRefillAtSteadyRate() {
+        for (int i = 0; i < 3; i++) {
+            bucket.tryAcquire();
+        }
+
+        now += 99_000_000L;
+        assertFalse(bucket.tryAcquire());
+        now += 1_000_000L;
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+    }
+
+    @Test
+    void testIdleTimeDoesNotExceedBurst() {
+        now += 60_000_000_000L;
+
+        int allowed = 0;
+        while (bucket.tryAcquire()) {
+            allowed++;
+        }
+        assertEquals(3, allowed);
+    }
+}